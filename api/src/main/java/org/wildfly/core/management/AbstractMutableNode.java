@@ -19,36 +19,226 @@
 package org.wildfly.core.management;
 
 /**
- * Base class for all mutable node classes.
+ * Base class for all mutable node classes.  Each node keeps a short chain of versioned values, so that changes
+ * to many nodes can be published atomically and read consistently; see {@link ModelCommit} and
+ * {@link ModelSnapshot}.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public abstract class AbstractMutableNode<N extends Node> implements Node {
-    private volatile N current;
+    /**
+     * The newest version of this node's value.  Older versions are retained for as long as an open snapshot may
+     * need them.
+     */
+    private volatile Version<N> head;
     private final AbstractMutableNode<?> parent;
+    /**
+     * The clock of the model this node belongs to, once it belongs to a managed system.
+     */
+    private volatile ModelVersions versions;
+    /**
+     * The member of a lazily constructed map whose node this is, if any.
+     */
+    private volatile LazyResourceMap.Member<?> member;
 
     protected AbstractMutableNode(final AbstractMutableNode<?> parent, final N initialValue) {
         this.parent = parent;
-        current = initialValue;
+        head = new Version<>(initialValue, 0L, null);
     }
 
     public String getName() {
-        return current.getName();
+        return getCurrent().getName();
     }
 
     public Node getParent() {
         return parent;
     }
 
+    /**
+     * Get the value of this node as seen by the current thread: the value staged by the thread's
+     * {@linkplain ModelCommit commit} if any, otherwise the value at the version of the thread's
+     * {@linkplain ModelSnapshot snapshot} if any, otherwise the most recently committed value.  Only a commit or
+     * snapshot of the model which this node belongs to is considered.
+     *
+     * @return the current value
+     */
+    @SuppressWarnings("unchecked")
     protected final N getCurrent() {
-        return current;
+        final ModelVersions versions = getVersions();
+        if (ModelVersions.isScopeOpen()) {
+            final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+            if (state != null) {
+                final ModelCommit commit = state.commit;
+                if (commit != null && commit.getVersions() == versions) {
+                    final Object staged = commit.getStaged(this);
+                    if (staged != null) {
+                        return (N) staged;
+                    }
+                }
+                for (ModelSnapshot snapshot = state.snapshot; snapshot != null; snapshot = snapshot.getEnclosing()) {
+                    if (snapshot.getVersions() == versions) {
+                        return head.at(snapshot.getVersion());
+                    }
+                }
+            }
+        }
+        // a newer version may be mid-publish; fall back to it only if its predecessor was pruned
+        return head.at(versions.getCommitted());
     }
 
+    /**
+     * Change the value of this node.  If a {@link ModelCommit} is in progress on the current thread, the change is
+     * staged in it; otherwise the change is committed immediately as a new model version of its own.
+     *
+     * @param newValue the new value
+     * @throws IllegalStateException if the commit in progress on the current thread is for another model
+     */
     protected void modify(N newValue) {
-        current = newValue;
+        final ModelCommit commit = ModelCommit.current();
+        if (commit != null) {
+            commit.stage(this, newValue);
+            return;
+        }
+        try (ModelCommit implicit = ModelCommit.begin(getVersions())) {
+            implicit.stage(this, newValue);
+            implicit.commit();
+        }
+    }
+
+    /**
+     * Called as a new value of this node is staged in a commit, so that the change can be reported to the managed
+     * system.  If this method throws an exception, the change is not staged.
+     *
+     * @param commit the commit
+     * @param original the value of this node before the change
+     * @param updated the staged value
+     */
+    void changed(final ModelCommit commit, final Object original, final Object updated) {
+    }
+
+    /**
+     * Get the address at which a change to this node is recorded as a write: the address of the nearest enclosing
+     * resource which is part of a managed system, or the root address if there is none.
+     *
+     * @return the write address
+     */
+    PathAddress getWriteAddress() {
+        return parent == null ? PathAddress.EMPTY_ADDRESS : parent.getWriteAddress();
+    }
+
+    /**
+     * Called once a change to this node is published, so that every lazily constructed map member enclosing this
+     * node is kept until the change is captured.
+     */
+    final void published() {
+        for (AbstractMutableNode<?> node = this; node != null; node = node.parent) {
+            final LazyResourceMap.Member<?> member = node.member;
+            if (member != null) {
+                member.changed(node);
+            }
+        }
+    }
+
+    /**
+     * Make this node the node of a member of a lazily constructed map.
+     *
+     * @param member the member
+     */
+    final void setMember(final LazyResourceMap.Member<?> member) {
+        this.member = member;
+    }
+
+    /**
+     * Get the clock of the model this node belongs to.  A node belongs to the managed system of its root, or to
+     * the detached model until its root is part of a system.
+     *
+     * @return the clock
+     */
+    final ModelVersions getVersions() {
+        ModelVersions versions = this.versions;
+        if (versions == null) {
+            versions = parent == null ? ModelVersions.DETACHED : parent.getVersions();
+            if (versions != ModelVersions.DETACHED) {
+                this.versions = versions;
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Make this root node, and so every node under it, part of a managed system.
+     *
+     * @param versions the clock of the system
+     */
+    final void attach(final ModelVersions versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * Set the initial value of this node, for builders which must construct a node before its value, because the
+     * value refers to child nodes which are constructed under this node.  The node must not yet be reachable by any
+     * other thread, so no new version is published.
+     *
+     * @param initialValue the initial value
+     */
+    protected final void initialize(N initialValue) {
+        head = new Version<>(initialValue, 0L, null);
+    }
+
+    // Called with the commit lock held
+
+    @SuppressWarnings("unchecked")
+    void push(final Object value, final long version) {
+        head = new Version<>((N) value, version, head);
+    }
+
+    /**
+     * Drop the versions of this node which are older than the newest version visible at the given version.
+     *
+     * @param oldest the oldest version which may still be read
+     */
+    void prune(final long oldest) {
+        Version<N> version = head;
+        while (version.version > oldest) {
+            version = version.previous;
+            if (version == null) {
+                return;
+            }
+        }
+        version.previous = null;
     }
 
     protected final Object writeReplace() {
         return getCurrent();
     }
+
+    static final class Version<N> {
+        final N value;
+        final long version;
+        volatile Version<N> previous;
+
+        Version(final N value, final long version, final Version<N> previous) {
+            this.value = value;
+            this.version = version;
+            this.previous = previous;
+        }
+
+        /**
+         * Get the value as of the given version, or the oldest retained value if all are newer.
+         *
+         * @param version the version
+         * @return the value
+         */
+        N at(final long version) {
+            Version<N> current = this;
+            while (current.version > version) {
+                final Version<N> previous = current.previous;
+                if (previous == null) {
+                    break;
+                }
+                current = previous;
+            }
+            return current.value;
+        }
+    }
 }
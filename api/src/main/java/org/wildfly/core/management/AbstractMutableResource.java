@@ -18,6 +18,10 @@
 
 package org.wildfly.core.management;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Base class for resource data objects.
  *
@@ -25,7 +29,68 @@ package org.wildfly.core.management;
  */
 public abstract class AbstractMutableResource<R extends Resource> extends AbstractMutableNode<R> implements Resource {
 
+    /**
+     * The address of this resource in its managed system, or {@code null} if it is not part of one.
+     */
+    private volatile PathAddress address;
+
     protected AbstractMutableResource(final AbstractMutableNode<?> parent, final R initialValue) {
         super(parent, initialValue);
     }
+
+    /**
+     * Get the child resources of this resource, as maps from child name by child type.  The managed system indexes
+     * the children by address and tracks their additions and removals.  The maps are not modified; lazily
+     * constructed maps are read only by their keys until a member is needed.
+     *
+     * @return the child maps by type
+     */
+    protected Map<String, ? extends Map<String, ?>> getChildren() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Navigate to a child resource by its type and name in {@linkplain #getChildren() the child maps}.
+     *
+     * @param pathElement the child resource's address element
+     * @return the child resource, or {@code null} if there is no such child
+     */
+    public Resource navigate(final PathElement pathElement) {
+        final Map<String, ?> children = getChildren().get(pathElement.getKey());
+        final Object child = children == null ? null : children.get(pathElement.getValue());
+        return child instanceof Resource ? (Resource) child : null;
+    }
+
+    PathAddress getAddress() {
+        return address;
+    }
+
+    void setAddress(final PathAddress address) {
+        this.address = address;
+    }
+
+    PathAddress getWriteAddress() {
+        final PathAddress address = this.address;
+        return address == null ? super.getWriteAddress() : address;
+    }
+
+    void changed(final ModelCommit commit, final Object original, final Object updated) {
+        final PathAddress address = this.address;
+        final ManagedSystem system = commit.getVersions().getSystem();
+        if (address != null && system != null) {
+            system.resourceChanged(commit, address, (Resource) original, (Resource) updated);
+        }
+    }
+
+    /**
+     * Write this resource to a model stream.  By default, the resource's {@linkplain #toModelNode() model node} is
+     * written, without child resources; generated resources write their fields directly.
+     *
+     * @param writer the model stream writer
+     * @param recursive {@code true} to write child resources, {@code false} to omit them
+     * @throws IOException if writing fails
+     */
+    public void writeModel(final ModelStreamWriter writer, final boolean recursive) throws IOException {
+        writer.value(toModelNode());
+    }
 }
@@ -0,0 +1,34 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.List;
+
+/**
+ * A listener which receives all of the attribute changes of a commit in one call.  Changes are coalesced per
+ * attribute, so an attribute which was added and then updated is reported as added, and one which was updated and
+ * then removed is reported as removed.
+ *
+ * @param <R> the resource type
+ * @param <T> the attribute type
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public interface AttributeBatchListener<R, T> {
+    void attributesChanged(ModelChangeContext context, List<AttributeChange<R, T>> changes);
+}
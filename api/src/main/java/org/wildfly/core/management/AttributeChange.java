@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+/**
+ * A change to an attribute of a resource, as delivered to an {@link AttributeBatchListener}.
+ *
+ * @param <R> the resource type
+ * @param <T> the attribute type
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class AttributeChange<R, T> {
+
+    /**
+     * The kind of an attribute change.
+     */
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        REMOVED,
+        REFRESHED,
+    }
+
+    private final PathAddress address;
+    private final String attributeName;
+    private final Kind kind;
+    private final R resourceBefore;
+    private final R resourceAfter;
+    private final T oldValue;
+    private final T newValue;
+
+    AttributeChange(final PathAddress address, final String attributeName, final Kind kind, final R resourceBefore, final R resourceAfter, final T oldValue, final T newValue) {
+        this.address = address;
+        this.attributeName = attributeName;
+        this.kind = kind;
+        this.resourceBefore = resourceBefore;
+        this.resourceAfter = resourceAfter;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Get the address of the resource.
+     *
+     * @return the address
+     */
+    public PathAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Get the name of the changed attribute.
+     *
+     * @return the attribute name
+     */
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * Get the kind of change.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the resource as it was before the change.
+     *
+     * @return the resource before the change
+     */
+    public R getResourceBefore() {
+        return resourceBefore;
+    }
+
+    /**
+     * Get the resource as it is after the change.
+     *
+     * @return the resource after the change
+     */
+    public R getResourceAfter() {
+        return resourceAfter;
+    }
+
+    /**
+     * Get the value of the attribute before the change.
+     *
+     * @return the old value, or {@code null} if the attribute was added
+     */
+    public T getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Get the value of the attribute after the change.  For a refresh, this is the refreshed value.
+     *
+     * @return the new value, or {@code null} if the attribute was removed
+     */
+    public T getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Combine two successive changes to the same attribute into one.
+     *
+     * @param earlier the earlier change
+     * @param later the later change
+     * @return the combined change, or {@code null} if the changes cancel out
+     */
+    static <R, T> AttributeChange<R, T> coalesce(AttributeChange<R, T> earlier, AttributeChange<R, T> later) {
+        final Kind kind;
+        switch (earlier.kind) {
+            case ADDED: {
+                if (later.kind == Kind.REMOVED) {
+                    return null;
+                }
+                kind = Kind.ADDED;
+                break;
+            }
+            case UPDATED: {
+                kind = later.kind == Kind.REMOVED ? Kind.REMOVED : Kind.UPDATED;
+                break;
+            }
+            case REMOVED: {
+                kind = later.kind == Kind.ADDED ? Kind.UPDATED : later.kind;
+                break;
+            }
+            default: {
+                // a refresh followed by anything is just the later change
+                kind = later.kind;
+                return new AttributeChange<>(later.address, later.attributeName, kind, earlier.resourceBefore, later.resourceAfter, later.oldValue, later.newValue);
+            }
+        }
+        final T newValue = kind == Kind.REMOVED ? null : later.newValue;
+        return new AttributeChange<>(later.address, later.attributeName, kind, earlier.resourceBefore, later.resourceAfter, earlier.oldValue, newValue);
+    }
+}
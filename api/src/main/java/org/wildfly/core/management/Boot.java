@@ -18,6 +18,15 @@
 
 package org.wildfly.core.management;
 
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.wildfly.core.management.xml.MappedXMLImage;
+
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
@@ -34,6 +43,61 @@ public final class Boot {
      * @throws IllegalArgumentException if the given model is invalid
      */
     public static Controller load(RootNodeBuilder<?> builder) throws IllegalArgumentException {
-        return null;
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            return load(builder, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Parse and load a management model from a configuration document.  If the image of the document is current,
+     * the builder is populated from the mapped image instead of from the document; otherwise the document is
+     * parsed once into a new image, which is then read in its place and kept for the next boot.
+     *
+     * @param builder the builder to populate and load
+     * @param configuration the configuration document
+     * @param image the image file of the document
+     * @param namespaces the root element namespaces which the builder can parse
+     * @return a controller at {@link RunLevel#STOPPED} run level
+     * @throws IOException if the document or the image could not be read, or the image could not be written
+     * @throws XMLStreamException if the document is not well formed or is not valid
+     * @throws IllegalArgumentException if the given model is invalid
+     */
+    public static Controller load(RootNodeBuilder<?> builder, File configuration, File image, String... namespaces) throws IOException, XMLStreamException, IllegalArgumentException {
+        MappedXMLImage mapped = MappedXMLImage.open(image, configuration, namespaces);
+        if (mapped == null) {
+            mapped = MappedXMLImage.write(configuration, image);
+        }
+        final XMLStreamReader reader = mapped.createReader();
+        reader.nextTag();
+        builder.fromXml(reader);
+        return load(builder);
+    }
+
+    /**
+     * Load a built management model, using the given pool.  The model is loaded in two phases: first the tree is
+     * constructed, with the subtrees which builders {@linkplain BootContext#fork fork} constructed in parallel; then
+     * every subtree is validated in parallel.
+     *
+     * @param builder the builder from which to load
+     * @param pool the pool on which to construct and validate the model
+     * @return a controller at {@link RunLevel#STOPPED} run level
+     * @throws IllegalArgumentException if the given model is invalid
+     */
+    public static Controller load(RootNodeBuilder<?> builder, ForkJoinPool pool) throws IllegalArgumentException {
+        final long start = System.nanoTime();
+        final BootContext context = new BootContext();
+        final AbstractMutableNode<?> root = pool.invoke(context.constructTask(builder, null));
+        final long constructed = System.nanoTime();
+        pool.invoke(context.validationTask());
+        final long validated = System.nanoTime();
+        if (! (root instanceof AbstractMutableResource)) {
+            throw new IllegalArgumentException(MESSAGES.bootRootNotResource(root));
+        }
+        final ManagedSystem system = new ManagedSystem(null, (AbstractMutableResource<?>) root);
+        final long end = System.nanoTime();
+        return new ManagedSystemController(system, new BootTimings(constructed - start, validated - constructed, end - start, context.getSubtreeCount()));
     }
 }
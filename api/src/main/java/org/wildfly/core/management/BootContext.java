@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The context of a parallel {@linkplain Boot#load(RootNodeBuilder) boot}.  Builders fork the construction of
+ * independent subtrees through the context, which runs them on the boot's fork/join pool, and records each
+ * constructed subtree so that all of them can be validated in parallel once the tree is complete.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class BootContext {
+    private final ConcurrentLinkedQueue<Constructed<?>> constructed = new ConcurrentLinkedQueue<>();
+
+    BootContext() {
+    }
+
+    /**
+     * A subtree whose construction was forked.
+     *
+     * @param <R> the subtree root type
+     */
+    public interface Subtree<R extends Node> {
+
+        /**
+         * Wait for the subtree to be constructed, helping to construct other subtrees meanwhile.
+         *
+         * @return the constructed subtree root node
+         */
+        AbstractMutableNode<R> join();
+    }
+
+    /**
+     * Construct a subtree in parallel with the calling builder.  The subtree must not depend on any node which the
+     * calling builder has not yet constructed, other than the given parent node.
+     *
+     * @param builder the builder of the subtree
+     * @param parentNode the node under which the subtree nests
+     * @param <R> the subtree root type
+     * @return the subtree, which must be joined before its node is used
+     */
+    public <R extends Node> Subtree<R> fork(RootNodeBuilder<R> builder, AbstractMutableNode<?> parentNode) {
+        final ConstructTask<R> task = new ConstructTask<>(builder, parentNode);
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.fork();
+        } else {
+            task.invoke();
+        }
+        return task;
+    }
+
+    <R extends Node> ConstructTask<R> constructTask(RootNodeBuilder<R> builder, AbstractMutableNode<?> parentNode) {
+        return new ConstructTask<>(builder, parentNode);
+    }
+
+    /**
+     * Get the number of subtrees constructed so far, including the root.
+     *
+     * @return the number of subtrees
+     */
+    int getSubtreeCount() {
+        return constructed.size();
+    }
+
+    /**
+     * Create a task which validates every constructed subtree.
+     *
+     * @return the task
+     */
+    ForkJoinTask<?> validationTask() {
+        final List<Constructed<?>> subtrees = new ArrayList<>(constructed);
+        return new ValidateTask(subtrees, 0, subtrees.size());
+    }
+
+    final class ConstructTask<R extends Node> extends RecursiveTask<AbstractMutableNode<R>> implements Subtree<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final RootNodeBuilder<R> builder;
+        private final AbstractMutableNode<?> parentNode;
+
+        ConstructTask(final RootNodeBuilder<R> builder, final AbstractMutableNode<?> parentNode) {
+            this.builder = builder;
+            this.parentNode = parentNode;
+        }
+
+        protected AbstractMutableNode<R> compute() {
+            final AbstractMutableNode<R> node = builder.construct(parentNode, BootContext.this);
+            constructed.add(new Constructed<>(builder, node));
+            return node;
+        }
+    }
+
+    static final class Constructed<R extends Node> {
+        private final RootNodeBuilder<R> builder;
+        private final AbstractMutableNode<R> node;
+
+        Constructed(final RootNodeBuilder<R> builder, final AbstractMutableNode<R> node) {
+            this.builder = builder;
+            this.node = node;
+        }
+
+        void validate() {
+            builder.validate(node);
+        }
+    }
+
+    /**
+     * Validates a range of constructed subtrees, splitting it in half until each task validates one subtree.
+     */
+    static final class ValidateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Constructed<?>> subtrees;
+        private final int start;
+        private final int end;
+
+        ValidateTask(final List<Constructed<?>> subtrees, final int start, final int end) {
+            this.subtrees = subtrees;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - start <= 1) {
+                if (start < end) {
+                    subtrees.get(start).validate();
+                }
+                return;
+            }
+            final int middle = (start + end) >>> 1;
+            invokeAll(new ValidateTask(subtrees, start, middle), new ValidateTask(subtrees, middle, end));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time taken by each phase of a {@linkplain Boot#load(RootNodeBuilder) boot}.  Times are wall-clock times; the
+ * work of each phase is spread over the threads of the boot's pool.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class BootTimings {
+    private final long constructionNanos;
+    private final long validationNanos;
+    private final long totalNanos;
+    private final int subtreeCount;
+
+    BootTimings(final long constructionNanos, final long validationNanos, final long totalNanos, final int subtreeCount) {
+        this.constructionNanos = constructionNanos;
+        this.validationNanos = validationNanos;
+        this.totalNanos = totalNanos;
+        this.subtreeCount = subtreeCount;
+    }
+
+    /**
+     * Get the time taken to construct the model tree.
+     *
+     * @param unit the time unit
+     * @return the construction time
+     */
+    public long getConstructionTime(TimeUnit unit) {
+        return unit.convert(constructionNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time taken to validate the constructed model tree.
+     *
+     * @param unit the time unit
+     * @return the validation time
+     */
+    public long getValidationTime(TimeUnit unit) {
+        return unit.convert(validationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the total time taken by the boot.
+     *
+     * @param unit the time unit
+     * @return the total time
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the number of subtrees which were constructed as separate tasks, including the root.
+     *
+     * @return the subtree count
+     */
+    public int getSubtreeCount() {
+        return subtreeCount;
+    }
+
+    public String toString() {
+        return String.format("boot of %d subtrees in %d ms (construction %d ms, validation %d ms)", Integer.valueOf(subtreeCount),
+                Long.valueOf(getTotalTime(TimeUnit.MILLISECONDS)), Long.valueOf(getConstructionTime(TimeUnit.MILLISECONDS)), Long.valueOf(getValidationTime(TimeUnit.MILLISECONDS)));
+    }
+}
@@ -0,0 +1,572 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.wildfly.core.management.xml.XMLChildRecorder;
+import org.wildfly.core.management.xml.XMLWritable;
+import org.wildfly.core.management.xml.XMLWriteException;
+
+/**
+ * A persister which keeps a configuration file in step with a model by rewriting only what changed.  When the
+ * file is written, the byte range of each child resource element is recorded.  As each change to a node under the
+ * root is published, the nearest recorded resource enclosing the node is marked dirty; changes to nodes which are
+ * not under the root are ignored, and no changed node is retained.  The next {@link #persist()} re-serializes just
+ * the dirty resources and splices them into the previous file; clean ranges are copied through as raw bytes without
+ * being parsed or re-serialized.  If the spliced ranges keep their lengths, they are overwritten in place.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ConfigurationPersister implements AutoCloseable {
+    private final File file;
+    private final RootResource root;
+    private final ModelVersions versions;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    /**
+     * The recorded resources which changed since the file was last written.
+     */
+    private final Set<XMLWritable> dirty = Collections.newSetFromMap(new ConcurrentHashMap<XMLWritable, Boolean>());
+    /**
+     * The recorded range of each resource in the file.  Replaced as a whole, never modified, so that changes can
+     * be resolved against it without locking.
+     */
+    private volatile Map<XMLWritable, Range> ranges = Collections.emptyMap();
+
+    // Guarded by this
+
+    /**
+     * Whether the file was written by this persister and its recorded ranges can be trusted.
+     */
+    private boolean written;
+    private long length;
+    private boolean closed;
+
+    /**
+     * Construct a new instance, which starts tracking changes to the model of the root resource immediately.
+     *
+     * @param file the configuration file
+     * @param root the root resource to persist
+     */
+    public ConfigurationPersister(final File file, final RootResource root) {
+        this.file = file;
+        this.root = root;
+        versions = ModelVersions.of(root);
+        versions.addPersister(this);
+    }
+
+    /**
+     * Bring the configuration file up to date with the model.  The whole file is written if it was not yet written
+     * by this persister, or if the root resource itself changed; otherwise only the resources which changed since
+     * the last call are rewritten.  The model is read from a consistent snapshot.
+     *
+     * @return the number of bytes which were serialized
+     * @throws IOException if the file could not be written
+     */
+    public synchronized long persist() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Persister is closed");
+        }
+        // a change published from here on is marked again, and may be rewritten twice, but never missed
+        final List<XMLWritable> changed = new ArrayList<>(dirty);
+        dirty.removeAll(changed);
+        try (ModelSnapshot snapshot = ModelSnapshot.open(versions)) {
+            if (! written || length != file.length()) {
+                return writeFull();
+            }
+            final List<Splice> splices = resolve(changed);
+            if (splices == null) {
+                return writeFull();
+            }
+            long serialized = 0L;
+            for (Splice splice : splices) {
+                final Range range = splice.range;
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                final RecordingWriter writer = createWriter(buffer, splice.recorded);
+                try {
+                    if (range.namespace != null) {
+                        writer.setDefaultNamespace(range.namespace);
+                    }
+                    writer.writeChild(splice.owner);
+                    writer.close();
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                splice.bytes = buffer.toByteArray();
+                serialized += splice.bytes.length;
+            }
+            if (! splices.isEmpty()) {
+                apply(splices);
+            }
+            return serialized;
+        } catch (IOException | RuntimeException e) {
+            // the recorded ranges can no longer be trusted
+            written = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Stop tracking changes to the model.
+     */
+    public synchronized void close() {
+        if (! closed) {
+            closed = true;
+            versions.removePersister(this);
+            ranges = Collections.emptyMap();
+            dirty.clear();
+            written = false;
+        }
+    }
+
+    // Called with the commit lock held, once the changes are visible
+
+    void markDirty(Set<AbstractMutableNode<?>> nodes) {
+        final Map<XMLWritable, Range> ranges = this.ranges;
+        for (AbstractMutableNode<?> node : nodes) {
+            final XMLWritable owner = findOwner(node, ranges);
+            if (owner != null) {
+                dirty.add(owner);
+            }
+        }
+    }
+
+    /**
+     * Find the nearest recorded resource at or above a node, or the root if there is none.
+     *
+     * @return the resource, or {@code null} if the node is not under the root
+     */
+    private XMLWritable findOwner(final Node node, final Map<XMLWritable, Range> ranges) {
+        for (Node current = node; current != null; current = current.getParent()) {
+            if (current == root || current instanceof XMLWritable && ranges.containsKey(current)) {
+                return (XMLWritable) current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the recorded resource ranges to rewrite for a set of changed resources.
+     *
+     * @param changed the changed resources
+     * @return the ranges to rewrite in file order, or {@code null} if the whole file must be rewritten
+     */
+    private List<Splice> resolve(List<XMLWritable> changed) {
+        final Map<XMLWritable, Range> ranges = this.ranges;
+        final Map<XMLWritable, Range> owners = new IdentityHashMap<>();
+        for (XMLWritable resource : changed) {
+            // a resource marked before the ranges were last replaced may no longer have one of its own
+            final XMLWritable owner = ranges.containsKey(resource) || ! (resource instanceof Node) ? resource : findOwner((Node) resource, ranges);
+            if (owner == root) {
+                return null;
+            }
+            final Range range = ranges.get(owner);
+            if (range != null) {
+                owners.put(owner, range);
+            }
+        }
+        final List<Splice> splices = new ArrayList<>(owners.size());
+        for (Map.Entry<XMLWritable, Range> entry : owners.entrySet()) {
+            splices.add(new Splice(entry.getKey(), entry.getValue()));
+        }
+        Collections.sort(splices, SPLICE_ORDER);
+        // drop ranges nested within an earlier one, which will be rewritten along with it
+        final List<Splice> result = new ArrayList<>(splices.size());
+        long end = -1L;
+        for (Splice splice : splices) {
+            if (splice.range.start >= end) {
+                result.add(splice);
+                end = splice.range.end;
+            }
+        }
+        return result;
+    }
+
+    private void apply(List<Splice> splices) throws IOException {
+        boolean sameLength = true;
+        for (Splice splice : splices) {
+            if (splice.bytes.length != splice.range.end - splice.range.start) {
+                sameLength = false;
+                break;
+            }
+        }
+        if (sameLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                final FileChannel channel = raf.getChannel();
+                for (Splice splice : splices) {
+                    writeFully(channel, ByteBuffer.wrap(splice.bytes), splice.range.start);
+                }
+                channel.force(false);
+            }
+        } else {
+            final File tmp = new File(file.getPath() + ".tmp");
+            try (RandomAccessFile in = new RandomAccessFile(file, "r"); RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+                out.setLength(0L);
+                final FileChannel inChannel = in.getChannel();
+                final FileChannel outChannel = out.getChannel();
+                long position = 0L;
+                for (Splice splice : splices) {
+                    transferFully(inChannel, position, splice.range.start - position, outChannel);
+                    writeFully(outChannel, ByteBuffer.wrap(splice.bytes), outChannel.position());
+                    position = splice.range.end;
+                }
+                transferFully(inChannel, position, length - position, outChannel);
+                outChannel.force(false);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // shift the recorded ranges past each splice, replacing those within it
+        final long[] ends = new long[splices.size()];
+        final long[] shifts = new long[splices.size()];
+        long shift = 0L;
+        for (int i = 0; i < ends.length; i ++) {
+            final Splice splice = splices.get(i);
+            ends[i] = splice.range.end;
+            shift += splice.bytes.length - (splice.range.end - splice.range.start);
+            shifts[i] = shift;
+        }
+        final Map<XMLWritable, Range> ranges = this.ranges;
+        final Map<XMLWritable, Range> newRanges = new IdentityHashMap<>(ranges.size());
+        for (Map.Entry<XMLWritable, Range> entry : ranges.entrySet()) {
+            final Range range = entry.getValue();
+            if (! isWithin(range, splices)) {
+                newRanges.put(entry.getKey(), new Range(range.start + shiftAt(range.start, ends, shifts), range.end + shiftAt(range.end, ends, shifts), range.namespace));
+            }
+        }
+        for (Splice splice : splices) {
+            final long base = splice.range.start + shiftAt(splice.range.start, ends, shifts);
+            for (Map.Entry<XMLWritable, Range> entry : splice.recorded.entrySet()) {
+                final Range range = entry.getValue();
+                newRanges.put(entry.getKey(), new Range(base + range.start, base + range.end, range.namespace));
+            }
+        }
+        this.ranges = Collections.unmodifiableMap(newRanges);
+        length += shift;
+    }
+
+    private long writeFull() throws IOException {
+        final Map<XMLWritable, Range> newRanges = new IdentityHashMap<>();
+        final File tmp = new File(file.getPath() + ".tmp");
+        final long count;
+        try (FileOutputStream stream = new FileOutputStream(tmp)) {
+            final RecordingWriter writer = createWriter(stream, newRanges);
+            try {
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeChild(root);
+                writer.writeEndDocument();
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            count = writer.counter.count;
+            stream.getChannel().force(false);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ranges = Collections.unmodifiableMap(newRanges);
+        length = count;
+        written = true;
+        return count;
+    }
+
+    private RecordingWriter createWriter(OutputStream stream, Map<XMLWritable, Range> ranges) throws IOException {
+        final CountingOutputStream counter = new CountingOutputStream(stream);
+        try {
+            return new RecordingWriter(outputFactory.createXMLStreamWriter(counter, "UTF-8"), counter, ranges);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static boolean isWithin(Range range, List<Splice> splices) {
+        for (Splice splice : splices) {
+            if (splice.range.start <= range.start && range.end <= splice.range.end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long shiftAt(long offset, long[] ends, long[] shifts) {
+        // the total length change of the splices which end at or before the offset
+        long shift = 0L;
+        for (int i = 0; i < ends.length && ends[i] <= offset; i ++) {
+            shift = shifts[i];
+        }
+        return shift;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.position(position);
+    }
+
+    private static void transferFully(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        while (count > 0L) {
+            final long transferred = in.transferTo(position, count, out);
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private static final Comparator<Splice> SPLICE_ORDER = new Comparator<Splice>() {
+        public int compare(final Splice o1, final Splice o2) {
+            final int res = Long.compare(o1.range.start, o2.range.start);
+            // enclosing ranges first
+            return res != 0 ? res : Long.compare(o2.range.end, o1.range.end);
+        }
+    };
+
+    static final class Range {
+        final long start;
+        final long end;
+        /**
+         * The default namespace in scope where the element was written.
+         */
+        final String namespace;
+
+        Range(final long start, final long end, final String namespace) {
+            this.start = start;
+            this.end = end;
+            this.namespace = namespace;
+        }
+    }
+
+    static final class Splice {
+        final XMLWritable owner;
+        final Range range;
+        final Map<XMLWritable, Range> recorded = new IdentityHashMap<>();
+        byte[] bytes;
+
+        Splice(final XMLWritable owner, final Range range) {
+            this.owner = owner;
+            this.range = range;
+        }
+    }
+
+    static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count ++;
+        }
+
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        public void flush() {
+            // offsets are taken at every child; the underlying stream is flushed on close
+        }
+
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    static final class RecordingWriter implements XMLChildRecorder {
+        private final XMLStreamWriter delegate;
+        final CountingOutputStream counter;
+        private final Map<XMLWritable, Range> ranges;
+
+        RecordingWriter(final XMLStreamWriter delegate, final CountingOutputStream counter, final Map<XMLWritable, Range> ranges) {
+            this.delegate = delegate;
+            this.counter = counter;
+            this.ranges = ranges;
+        }
+
+        public void writeChild(final XMLWritable child) throws XMLWriteException {
+            try {
+                // close any pending start tag, so that the child starts at the current offset
+                delegate.writeCharacters("");
+                delegate.flush();
+                final long start = counter.count;
+                final String namespace = delegate.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
+                child.toXml(this);
+                delegate.flush();
+                ranges.put(child, new Range(start, counter.count, namespace == null || namespace.isEmpty() ? null : namespace));
+            } catch (XMLStreamException e) {
+                throw XMLWriteException.toWriteException(e);
+            }
+        }
+
+        public void close() throws XMLStreamException {
+            delegate.close();
+            try {
+                counter.close();
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        public void writeStartElement(final String localName) throws XMLStreamException {
+            delegate.writeStartElement(localName);
+        }
+
+        public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+            delegate.writeStartElement(namespaceURI, localName);
+        }
+
+        public void writeStartElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+            delegate.writeStartElement(prefix, localName, namespaceURI);
+        }
+
+        public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+            delegate.writeEmptyElement(namespaceURI, localName);
+        }
+
+        public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+            delegate.writeEmptyElement(prefix, localName, namespaceURI);
+        }
+
+        public void writeEmptyElement(final String localName) throws XMLStreamException {
+            delegate.writeEmptyElement(localName);
+        }
+
+        public void writeEndElement() throws XMLStreamException {
+            delegate.writeEndElement();
+        }
+
+        public void writeEndDocument() throws XMLStreamException {
+            delegate.writeEndDocument();
+        }
+
+        public void flush() throws XMLStreamException {
+            delegate.flush();
+        }
+
+        public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+            delegate.writeAttribute(localName, value);
+        }
+
+        public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+            delegate.writeAttribute(prefix, namespaceURI, localName, value);
+        }
+
+        public void writeAttribute(final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+            delegate.writeAttribute(namespaceURI, localName, value);
+        }
+
+        public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+            delegate.writeNamespace(prefix, namespaceURI);
+        }
+
+        public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+            delegate.writeDefaultNamespace(namespaceURI);
+        }
+
+        public void writeComment(final String data) throws XMLStreamException {
+            delegate.writeComment(data);
+        }
+
+        public void writeProcessingInstruction(final String target) throws XMLStreamException {
+            delegate.writeProcessingInstruction(target);
+        }
+
+        public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+            delegate.writeProcessingInstruction(target, data);
+        }
+
+        public void writeCData(final String data) throws XMLStreamException {
+            delegate.writeCData(data);
+        }
+
+        public void writeDTD(final String dtd) throws XMLStreamException {
+            delegate.writeDTD(dtd);
+        }
+
+        public void writeEntityRef(final String name) throws XMLStreamException {
+            delegate.writeEntityRef(name);
+        }
+
+        public void writeStartDocument() throws XMLStreamException {
+            delegate.writeStartDocument();
+        }
+
+        public void writeStartDocument(final String version) throws XMLStreamException {
+            delegate.writeStartDocument(version);
+        }
+
+        public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+            delegate.writeStartDocument(encoding, version);
+        }
+
+        public void writeCharacters(final String text) throws XMLStreamException {
+            delegate.writeCharacters(text);
+        }
+
+        public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+            delegate.writeCharacters(text, start, len);
+        }
+
+        public String getPrefix(final String uri) throws XMLStreamException {
+            return delegate.getPrefix(uri);
+        }
+
+        public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+            delegate.setPrefix(prefix, uri);
+        }
+
+        public void setDefaultNamespace(final String uri) throws XMLStreamException {
+            delegate.setDefaultNamespace(uri);
+        }
+
+        public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+            delegate.setNamespaceContext(context);
+        }
+
+        public NamespaceContext getNamespaceContext() {
+            return delegate.getNamespaceContext();
+        }
+
+        public Object getProperty(final String name) throws IllegalArgumentException {
+            return delegate.getProperty(name);
+        }
+    }
+}
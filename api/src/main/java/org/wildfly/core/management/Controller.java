@@ -25,4 +25,11 @@ public interface Controller {
     void transition(RunLevel runLevel, Object /* TODO */ transactionalContext);
 
     RunLevel getRunLevel();
+
+    /**
+     * Get the time taken by each phase of the boot which loaded this controller's model.
+     *
+     * @return the boot timings
+     */
+    BootTimings getBootTimings();
 }
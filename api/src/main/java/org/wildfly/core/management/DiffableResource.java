@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import java.util.Map;
+
+/**
+ * A resource which can compare its attributes with those of another version of itself, field by field, without
+ * converting either version to a model node.  Generated resource classes implement this interface, and a recorded
+ * resource change between two versions of such a resource also yields a change event for each changed attribute.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public interface DiffableResource extends Resource {
+
+    /**
+     * Compare the attributes of this resource with those of an updated version of it, reporting each difference.
+     *
+     * @param updated the updated resource
+     * @param handler the handler to report differences to
+     * @return {@code true} if the resources were compared, or {@code false} if the updated resource is not of the
+     *      same generated class
+     */
+    boolean diffAttributes(Resource updated, Handler handler);
+
+    /**
+     * The receiver of the differences found by {@link #diffAttributes(Resource, Handler)}.
+     */
+    interface Handler {
+
+        /**
+         * Report a changed attribute.
+         *
+         * @param kind the kind of change
+         * @param attributeName the attribute name
+         * @param oldValue the value before the change, or {@code null} if it was undefined
+         * @param newValue the value after the change, or {@code null} if it is undefined
+         */
+        void attributeChanged(AttributeChange.Kind kind, String attributeName, Object oldValue, Object newValue);
+
+        /**
+         * Report a sub-resource map which is not shared between the versions.  Maps which are shared are skipped
+         * without being examined.
+         *
+         * @param childType the child type name
+         * @param before the map before the change
+         * @param after the map after the change
+         */
+        void childrenChanged(String childType, Map<String, ?> before, Map<String, ?> after);
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact binary path address, read in place from a byte buffer.  Encoded addresses can be used as keys in
+ * journals, off-heap maps, and wire protocols without building DMR nodes.
+ * <p>
+ * The encoding is a varint element count followed by each element.  An element is a varint key header and a varint
+ * value header, each followed by UTF-8 bytes.  A key header with its low bit set is the index of a
+ * {@linkplain #DICTIONARY dictionary} key, shifted left by one, and has no bytes; otherwise it is the UTF-8 length
+ * shifted left by one.  A value header is the UTF-8 length shifted left by one, with the low bit set if the value is
+ * a bracketed multi-value.  Varints are unsigned, seven bits per byte, least significant group first.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class EncodedPathAddress {
+
+    /**
+     * The dictionary of common keys.  Keys may be appended to this list but never reordered or removed, since
+     * their indexes are part of the encoding.
+     */
+    private static final String[] DICTIONARY = {
+        "subsystem",
+        "profile",
+        "host",
+        "server",
+        "server-group",
+        "server-config",
+        "deployment",
+        "socket-binding-group",
+        "socket-binding",
+        "interface",
+        "path",
+        "extension",
+        "core-service",
+        "system-property",
+        "deployment-overlay",
+        "jvm",
+    };
+
+    private static final Map<String, Integer> DICTIONARY_INDEXES;
+
+    static {
+        final Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < DICTIONARY.length; i ++) {
+            map.put(DICTIONARY[i], Integer.valueOf(i));
+        }
+        DICTIONARY_INDEXES = map;
+    }
+
+    private final ByteBuffer buffer;
+    /**
+     * The offset of each element's key header within {@link #buffer}.
+     */
+    private final int[] offsets;
+    private final int hashCode;
+
+    private EncodedPathAddress(final ByteBuffer buffer, final int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+        int hashCode = 1;
+        for (int i = 0; i < buffer.limit(); i ++) {
+            hashCode = 31 * hashCode + buffer.get(i);
+        }
+        this.hashCode = hashCode;
+    }
+
+    // Encoding
+
+    /**
+     * Get the number of bytes needed to encode an address.
+     *
+     * @param address the address
+     * @return the encoded length
+     */
+    public static int encodedLength(PathAddress address) {
+        int length = varIntLength(address.size());
+        for (PathElement element : address) {
+            final Integer dictionaryIndex = DICTIONARY_INDEXES.get(element.getKey());
+            if (dictionaryIndex != null) {
+                length += varIntLength(dictionaryIndex.intValue() << 1 | 1);
+            } else {
+                final int keyLength = utf8Length(element.getKey());
+                length += varIntLength(keyLength << 1) + keyLength;
+            }
+            final int valueLength = utf8Length(element.getValue());
+            length += varIntLength(valueLength << 1) + valueLength;
+        }
+        return length;
+    }
+
+    /**
+     * Encode an address into a buffer at its current position, advancing the position past the encoded form.
+     *
+     * @param address the address to encode
+     * @param buffer the target buffer
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public static void encode(PathAddress address, ByteBuffer buffer) {
+        writeVarInt(buffer, address.size());
+        for (PathElement element : address) {
+            final String key = element.getKey();
+            final Integer dictionaryIndex = DICTIONARY_INDEXES.get(key);
+            if (dictionaryIndex != null) {
+                writeVarInt(buffer, dictionaryIndex.intValue() << 1 | 1);
+            } else {
+                writeVarInt(buffer, utf8Length(key) << 1);
+                writeUtf8(buffer, key);
+            }
+            final String value = element.getValue();
+            final boolean bracketed = element.isMultiTarget() && ! element.isWildcard();
+            writeVarInt(buffer, utf8Length(value) << 1 | (bracketed ? 1 : 0));
+            writeUtf8(buffer, value);
+        }
+    }
+
+    /**
+     * Encode an address into a new byte array.
+     *
+     * @param address the address to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(PathAddress address) {
+        final byte[] bytes = new byte[encodedLength(address)];
+        encode(address, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    // Decoding
+
+    /**
+     * Read an encoded address in place, starting at the buffer's current position.  The buffer position is
+     * advanced past the encoded address; the returned view shares the buffer's content, so the content must not
+     * be modified while the view is in use.
+     *
+     * @param buffer the buffer to read from
+     * @return the encoded address view
+     * @throws IllegalArgumentException if the buffer does not contain a valid encoded address
+     */
+    public static EncodedPathAddress wrap(ByteBuffer buffer) {
+        final ByteBuffer slice = buffer.slice();
+        try {
+            final int size = readVarInt(slice);
+            // each element takes at least a key header and a value header
+            if (size < 0 || size > slice.remaining() / 2) {
+                throw new IllegalArgumentException("Invalid encoded address size " + (size & 0xffffffffL));
+            }
+            final int[] offsets = new int[size];
+            for (int i = 0; i < size; i ++) {
+                offsets[i] = slice.position();
+                final int keyHeader = readVarInt(slice);
+                if ((keyHeader & 1) == 0) {
+                    skip(slice, keyHeader >>> 1);
+                } else if (keyHeader >>> 1 >= DICTIONARY.length) {
+                    throw new IllegalArgumentException("Unknown dictionary key " + (keyHeader >>> 1));
+                }
+                skip(slice, readVarInt(slice) >>> 1);
+            }
+            final int length = slice.position();
+            buffer.position(buffer.position() + length);
+            slice.flip();
+            return new EncodedPathAddress(slice.asReadOnlyBuffer(), offsets);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated encoded address", e);
+        }
+    }
+
+    /**
+     * Get the number of elements in this address.
+     *
+     * @return the size
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Get the key of the element at the given index.
+     *
+     * @param index the element index
+     * @return the key
+     */
+    public String getKey(int index) {
+        final ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(offsets[index]);
+        final int keyHeader = readVarInt(buffer);
+        if ((keyHeader & 1) != 0) {
+            return DICTIONARY[keyHeader >>> 1];
+        }
+        return readUtf8(buffer, keyHeader >>> 1);
+    }
+
+    /**
+     * Get the value of the element at the given index.  Multi-value elements are returned without brackets, as
+     * by {@link PathElement#getValue()}.
+     *
+     * @param index the element index
+     * @return the value
+     */
+    public String getValue(int index) {
+        final ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(offsets[index]);
+        skipKey(buffer);
+        return readUtf8(buffer, readVarInt(buffer) >>> 1);
+    }
+
+    /**
+     * Get the element at the given index.
+     *
+     * @param index the element index
+     * @return the element
+     */
+    public PathElement getElement(int index) {
+        final ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(offsets[index]);
+        final int keyHeader = readVarInt(buffer);
+        final String key = (keyHeader & 1) != 0 ? DICTIONARY[keyHeader >>> 1] : readUtf8(buffer, keyHeader >>> 1);
+        final int valueHeader = readVarInt(buffer);
+        final String value = readUtf8(buffer, valueHeader >>> 1);
+        return PathElement.pathElement(key, (valueHeader & 1) != 0 ? '[' + value + ']' : value);
+    }
+
+    /**
+     * Decode this address.
+     *
+     * @return the path address
+     */
+    public PathAddress toPathAddress() {
+        PathAddress address = PathAddress.EMPTY_ADDRESS;
+        for (int i = 0; i < offsets.length; i ++) {
+            address = address.append(getElement(i));
+        }
+        return address;
+    }
+
+    /**
+     * Determine whether this encoded address has the same elements as the given address, without decoding
+     * any strings.  A bracketed multi-value does not match the same text given as a plain value.
+     *
+     * @param address the address to compare against
+     * @return {@code true} if the addresses match, {@code false} otherwise
+     */
+    public boolean matches(PathAddress address) {
+        if (address.size() != offsets.length) {
+            return false;
+        }
+        final ByteBuffer buffer = this.buffer.duplicate();
+        int i = 0;
+        for (PathElement element : address) {
+            buffer.position(offsets[i ++]);
+            final String key = element.getKey();
+            final int keyHeader = readVarInt(buffer);
+            if ((keyHeader & 1) != 0) {
+                if (! DICTIONARY[keyHeader >>> 1].equals(key)) {
+                    return false;
+                }
+            } else if (! utf8Equals(buffer, keyHeader >>> 1, key)) {
+                return false;
+            }
+            final int valueHeader = readVarInt(buffer);
+            final boolean bracketed = element.isMultiTarget() && ! element.isWildcard();
+            if ((valueHeader & 1) != (bracketed ? 1 : 0) || ! utf8Equals(buffer, valueHeader >>> 1, element.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a read-only view of the encoded bytes of this address.
+     *
+     * @return the encoded bytes
+     */
+    public ByteBuffer getBytes() {
+        return buffer.duplicate();
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Determine whether this object is equal to another.  Encoded addresses are equal if their encoded bytes
+     * are equal.
+     *
+     * @param other the other object
+     * @return {@code true} if they are equal, {@code false} otherwise
+     */
+    public boolean equals(Object other) {
+        return other instanceof EncodedPathAddress && equals((EncodedPathAddress) other);
+    }
+
+    /**
+     * Determine whether this object is equal to another.  Encoded addresses are equal if their encoded bytes
+     * are equal.
+     *
+     * @param other the other object
+     * @return {@code true} if they are equal, {@code false} otherwise
+     */
+    public boolean equals(EncodedPathAddress other) {
+        return this == other || other != null && hashCode == other.hashCode && buffer.equals(other.buffer);
+    }
+
+    public String toString() {
+        return toPathAddress().toString();
+    }
+
+    // Utilities
+
+    private static void skipKey(ByteBuffer buffer) {
+        final int keyHeader = readVarInt(buffer);
+        if ((keyHeader & 1) == 0) {
+            skip(buffer, keyHeader >>> 1);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + length);
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length ++;
+        }
+        return length;
+    }
+
+    private static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) (value & 0x7f | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int utf8Length(String string) {
+        final int length = string.length();
+        int bytes = length;
+        for (int i = 0; i < length; i ++) {
+            final char c = string.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes ++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    // four bytes for the pair
+                    bytes += 2;
+                    i ++;
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static void writeUtf8(ByteBuffer buffer, String string) {
+        final int length = string.length();
+        for (int i = 0; i < length; i ++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, string.charAt(++ i));
+                buffer.put((byte) (0xf0 | cp >> 18));
+                buffer.put((byte) (0x80 | cp >> 12 & 0x3f));
+                buffer.put((byte) (0x80 | cp >> 6 & 0x3f));
+                buffer.put((byte) (0x80 | cp & 0x3f));
+            } else {
+                buffer.put((byte) (0xe0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+                buffer.put((byte) (0x80 | c & 0x3f));
+            }
+        }
+    }
+
+    /**
+     * Decode the next code point from the buffer.
+     */
+    private static int readCodePoint(ByteBuffer buffer) {
+        final int a = buffer.get() & 0xff;
+        if (a < 0x80) {
+            return a;
+        } else if (a < 0xe0) {
+            return (a & 0x1f) << 6 | buffer.get() & 0x3f;
+        } else if (a < 0xf0) {
+            return (a & 0x0f) << 12 | (buffer.get() & 0x3f) << 6 | buffer.get() & 0x3f;
+        } else {
+            return (a & 0x07) << 18 | (buffer.get() & 0x3f) << 12 | (buffer.get() & 0x3f) << 6 | buffer.get() & 0x3f;
+        }
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int byteLength) {
+        final int end = buffer.position() + byteLength;
+        final char[] chars = new char[byteLength];
+        int idx = 0;
+        while (buffer.position() < end) {
+            idx += Character.toChars(readCodePoint(buffer), chars, idx);
+        }
+        return new String(chars, 0, idx);
+    }
+
+    private static boolean utf8Equals(ByteBuffer buffer, int byteLength, String string) {
+        final int end = buffer.position() + byteLength;
+        final int length = string.length();
+        int idx = 0;
+        while (buffer.position() < end) {
+            if (idx == length) {
+                return false;
+            }
+            final int cp = readCodePoint(buffer);
+            if (cp != string.codePointAt(idx)) {
+                return false;
+            }
+            idx += Character.charCount(cp);
+        }
+        return idx == length;
+    }
+}
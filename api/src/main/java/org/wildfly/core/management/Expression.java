@@ -0,0 +1,283 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compiled value expression.  The template is parsed once, when the expression is compiled, into a tree of
+ * literal text and property references which can then be resolved any number of times without being parsed again.
+ * <p>
+ * A reference has the form <code>${<i>name</i>}</code> or <code>${<i>name</i>:<i>default</i>}</code>, where the
+ * default may itself contain references, and several names may be given separated by commas, of which the first
+ * that is set is used.  A name is looked up as a system property, or, if it begins with {@code env.}, as an
+ * environment variable.  <code>${/}</code> and <code>${:}</code> stand for the file and path separators, and
+ * {@code $$} for a literal {@code $}.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class Expression {
+    private final String template;
+    private final Node root;
+    private final Set<String> properties;
+
+    private Expression(final String template, final Node root, final Set<String> properties) {
+        this.template = template;
+        this.root = root;
+        this.properties = properties;
+    }
+
+    /**
+     * Compile an expression.
+     *
+     * @param template the expression template
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the template is not a valid expression
+     */
+    public static Expression compile(String template) throws IllegalArgumentException {
+        final Parser parser = new Parser(template);
+        final Node root = parser.parse(false);
+        final Set<String> properties = new LinkedHashSet<>();
+        root.addProperties(properties);
+        return new Expression(template, root, Collections.unmodifiableSet(properties));
+    }
+
+    /**
+     * Get the template of this expression.
+     *
+     * @return the template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Get the names of the properties which this expression references, including those of its defaults.
+     *
+     * @return the property names
+     */
+    public Set<String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Determine whether this expression has no references, so that it always resolves to the same value.
+     *
+     * @return {@code true} if the expression is constant
+     */
+    public boolean isConstant() {
+        return root instanceof Literal;
+    }
+
+    /**
+     * Resolve this expression against the current system properties and environment.
+     *
+     * @return the resolved value
+     * @throws IllegalStateException if a reference is not set and has no default
+     */
+    public String resolve() throws IllegalStateException {
+        if (root instanceof Literal) {
+            return ((Literal) root).text;
+        }
+        final StringBuilder b = new StringBuilder();
+        root.resolve(this, b);
+        return b.toString();
+    }
+
+    public boolean equals(final Object obj) {
+        return obj instanceof Expression && template.equals(((Expression) obj).template);
+    }
+
+    public int hashCode() {
+        return template.hashCode();
+    }
+
+    public String toString() {
+        return template;
+    }
+
+    abstract static class Node {
+        abstract void resolve(Expression expression, StringBuilder b);
+
+        abstract void addProperties(Set<String> properties);
+    }
+
+    static final class Literal extends Node {
+        final String text;
+
+        Literal(final String text) {
+            this.text = text;
+        }
+
+        void resolve(final Expression expression, final StringBuilder b) {
+            b.append(text);
+        }
+
+        void addProperties(final Set<String> properties) {
+        }
+    }
+
+    static final class Composite extends Node {
+        private final Node[] parts;
+
+        Composite(final Node[] parts) {
+            this.parts = parts;
+        }
+
+        void resolve(final Expression expression, final StringBuilder b) {
+            for (Node part : parts) {
+                part.resolve(expression, b);
+            }
+        }
+
+        void addProperties(final Set<String> properties) {
+            for (Node part : parts) {
+                part.addProperties(properties);
+            }
+        }
+    }
+
+    static final class Reference extends Node {
+        private final String[] names;
+        private final Node defaultValue;
+
+        Reference(final String[] names, final Node defaultValue) {
+            this.names = names;
+            this.defaultValue = defaultValue;
+        }
+
+        void resolve(final Expression expression, final StringBuilder b) {
+            for (String name : names) {
+                final String value = name.startsWith("env.") ? System.getenv(name.substring(4)) : System.getProperty(name);
+                if (value != null) {
+                    b.append(value);
+                    return;
+                }
+            }
+            if (defaultValue == null) {
+                throw new IllegalStateException(MESSAGES.unresolvedExpression(expression.template));
+            }
+            defaultValue.resolve(expression, b);
+        }
+
+        void addProperties(final Set<String> properties) {
+            Collections.addAll(properties, names);
+            if (defaultValue != null) {
+                defaultValue.addProperties(properties);
+            }
+        }
+    }
+
+    static final class Parser {
+        private final String template;
+        private int pos;
+
+        Parser(final String template) {
+            this.template = template;
+        }
+
+        /**
+         * Parse text up to the end of the template, or up to the closing brace of the enclosing reference.
+         *
+         * @param nested {@code true} if parsing the default of a reference
+         * @return the parsed node
+         */
+        Node parse(final boolean nested) {
+            final List<Node> parts = new ArrayList<>();
+            final StringBuilder text = new StringBuilder();
+            while (pos < template.length()) {
+                final char c = template.charAt(pos);
+                if (c == '}' && nested) {
+                    break;
+                }
+                if (c == '$' && pos + 1 < template.length()) {
+                    final char next = template.charAt(pos + 1);
+                    if (next == '$') {
+                        text.append('$');
+                        pos += 2;
+                        continue;
+                    }
+                    if (next == '{') {
+                        if (text.length() > 0) {
+                            parts.add(new Literal(text.toString()));
+                            text.setLength(0);
+                        }
+                        pos += 2;
+                        parts.add(parseReference());
+                        continue;
+                    }
+                }
+                text.append(c);
+                pos ++;
+            }
+            if (text.length() > 0 || parts.isEmpty()) {
+                parts.add(new Literal(text.toString()));
+            }
+            return parts.size() == 1 ? parts.get(0) : new Composite(parts.toArray(new Node[parts.size()]));
+        }
+
+        private Node parseReference() {
+            final int start = pos;
+            final int end = template.indexOf('}', start);
+            if (end == start + 1 && (template.charAt(start) == '/' || template.charAt(start) == ':')) {
+                pos = end + 1;
+                return new Literal(template.charAt(start) == '/' ? File.separator : File.pathSeparator);
+            }
+            final List<String> names = new ArrayList<>();
+            int nameStart = start;
+            for (;;) {
+                if (pos == template.length()) {
+                    throw new IllegalArgumentException(MESSAGES.invalidExpression(template, start - 2));
+                }
+                final char c = template.charAt(pos);
+                if (c == ',' || c == ':' || c == '}') {
+                    if (pos == nameStart) {
+                        throw new IllegalArgumentException(MESSAGES.invalidExpression(template, pos));
+                    }
+                    names.add(template.substring(nameStart, pos));
+                    pos ++;
+                    nameStart = pos;
+                    if (c == '}') {
+                        return new Reference(names.toArray(new String[names.size()]), null);
+                    }
+                    if (c == ':') {
+                        final Node defaultValue = parse(true);
+                        if (pos == template.length()) {
+                            throw new IllegalArgumentException(MESSAGES.invalidExpression(template, start - 2));
+                        }
+                        pos ++;
+                        return new Reference(names.toArray(new String[names.size()]), defaultValue);
+                    }
+                } else if (c == '$' || c == '{') {
+                    throw new IllegalArgumentException(MESSAGES.invalidExpression(template, pos));
+                } else {
+                    pos ++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The tracker of resolved expression values.  Each {@link ResolvedExpression} which a resolver creates caches its
+ * value until a property it references is changed, and the resolver keeps a map from each property name to the
+ * values which reference it, so that a change invalidates those values and no others.
+ * <p>
+ * Properties are read from the system properties and the environment, which give no notice of changes; code which
+ * changes a property should do so through {@link #setProperty(String, String)}, or report the change with
+ * {@link #propertyChanged(String)}.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ExpressionResolver {
+    private static final ExpressionResolver DEFAULT = new ExpressionResolver();
+
+    private final Map<String, Set<ResolvedExpression>> dependents = new HashMap<>();
+
+    /**
+     * Construct a new instance.
+     */
+    public ExpressionResolver() {
+    }
+
+    /**
+     * Get the resolver used by generated resolved resources.
+     *
+     * @return the default resolver
+     */
+    public static ExpressionResolver getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a cached value for an expression, which is invalidated whenever a property it references changes.
+     * Values are held weakly, so a value which is no longer used needs no unregistration.
+     *
+     * @param expression the expression
+     * @return the resolved value
+     */
+    public ResolvedExpression track(Expression expression) {
+        final ResolvedExpression resolved = new ResolvedExpression(expression);
+        if (! expression.isConstant()) {
+            synchronized (dependents) {
+                for (String name : expression.getProperties()) {
+                    Set<ResolvedExpression> set = dependents.get(name);
+                    if (set == null) {
+                        dependents.put(name, set = Collections.newSetFromMap(new WeakHashMap<ResolvedExpression, Boolean>()));
+                    }
+                    set.add(resolved);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Report that a property has changed, invalidating the values which reference it.
+     *
+     * @param name the property name; environment variables are named with an {@code env.} prefix
+     */
+    public void propertyChanged(String name) {
+        synchronized (dependents) {
+            final Set<ResolvedExpression> set = dependents.get(name);
+            if (set != null) {
+                for (ResolvedExpression resolved : set) {
+                    resolved.invalidate();
+                }
+                if (set.isEmpty()) {
+                    dependents.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Report that any property may have changed, invalidating every value.
+     */
+    public void propertiesChanged() {
+        synchronized (dependents) {
+            final Iterator<Set<ResolvedExpression>> iterator = dependents.values().iterator();
+            while (iterator.hasNext()) {
+                final Set<ResolvedExpression> set = iterator.next();
+                for (ResolvedExpression resolved : set) {
+                    resolved.invalidate();
+                }
+                if (set.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Set or clear a system property, invalidating the values which reference it.
+     *
+     * @param name the property name
+     * @param value the new value, or {@code null} to clear the property
+     */
+    public void setProperty(String name, String value) {
+        if (value == null) {
+            System.clearProperty(name);
+        } else {
+            System.setProperty(name, value);
+        }
+        propertyChanged(name);
+    }
+}
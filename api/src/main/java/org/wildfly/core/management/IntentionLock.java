@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+/**
+ * A multiple-granularity lock for one stripe of the model.  Intention modes are taken on the ancestors of an address
+ * which is locked in a shared or exclusive mode, so that a lock on a subtree excludes conflicting locks on its
+ * ancestors without visiting its descendants.  Waiting exclusive requests hold off new requests of any mode.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class IntentionLock {
+
+    enum Mode {
+        INTENTION_SHARED,
+        INTENTION_EXCLUSIVE,
+        SHARED,
+        EXCLUSIVE,
+        ;
+
+        /**
+         * Get the weakest mode which grants everything granted by this mode and the given mode.
+         *
+         * @param other the other mode
+         * @return the combined mode
+         */
+        Mode combine(Mode other) {
+            if (this == other || other == INTENTION_SHARED) {
+                return this;
+            } else if (this == INTENTION_SHARED) {
+                return other;
+            } else {
+                // no mode combines shared with intention exclusive, so take exclusive
+                return EXCLUSIVE;
+            }
+        }
+    }
+
+    private int intentionShared;
+    private int intentionExclusive;
+    private int shared;
+    private boolean exclusive;
+    private int exclusiveWaiters;
+
+    private boolean canGrant(Mode mode) {
+        if (exclusive) {
+            return false;
+        }
+        switch (mode) {
+            case INTENTION_SHARED: return exclusiveWaiters == 0;
+            case INTENTION_EXCLUSIVE: return exclusiveWaiters == 0 && shared == 0;
+            case SHARED: return exclusiveWaiters == 0 && intentionExclusive == 0;
+            case EXCLUSIVE: return intentionShared == 0 && intentionExclusive == 0 && shared == 0;
+            default: throw new IllegalStateException();
+        }
+    }
+
+    private void grant(Mode mode) {
+        switch (mode) {
+            case INTENTION_SHARED: intentionShared ++; break;
+            case INTENTION_EXCLUSIVE: intentionExclusive ++; break;
+            case SHARED: shared ++; break;
+            case EXCLUSIVE: exclusive = true; break;
+        }
+    }
+
+    synchronized boolean tryLock(Mode mode) {
+        if (canGrant(mode)) {
+            grant(mode);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Acquire the lock, waiting until the given deadline at most.
+     *
+     * @param mode the lock mode
+     * @param deadline the {@link System#nanoTime()} deadline, or {@link Long#MAX_VALUE} to wait indefinitely
+     * @return {@code true} if the lock was acquired, {@code false} if the deadline passed
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    synchronized boolean lock(Mode mode, long deadline) throws InterruptedException {
+        if (mode == Mode.EXCLUSIVE) {
+            exclusiveWaiters ++;
+        }
+        try {
+            while (! canGrant(mode)) {
+                if (deadline == Long.MAX_VALUE) {
+                    wait();
+                } else {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    wait(remaining / 1000000L, (int) (remaining % 1000000L));
+                }
+            }
+        } finally {
+            if (mode == Mode.EXCLUSIVE) {
+                exclusiveWaiters --;
+                // requests held off by this one may now proceed
+                notifyAll();
+            }
+        }
+        grant(mode);
+        return true;
+    }
+
+    synchronized void unlock(Mode mode) {
+        switch (mode) {
+            case INTENTION_SHARED: intentionShared --; break;
+            case INTENTION_EXCLUSIVE: intentionExclusive --; break;
+            case SHARED: shared --; break;
+            case EXCLUSIVE: exclusive = false; break;
+        }
+        notifyAll();
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.wildfly.core.management.xml.XMLWritable;
+
+/**
+ * An unmodifiable sub-resource map whose members are constructed on demand.  Each member starts out in compact
+ * form, as the builder it was parsed into, and its node is only constructed and validated the first time it is
+ * read.  Members which are then left idle can be {@linkplain #evict(long, TimeUnit) evicted}: an evicted member
+ * is captured back to compact form, re-serialized as XML if the model changed since it was last captured, and its
+ * node is held only softly, so that it is kept for as long as memory allows but reclaimed under memory pressure.
+ * Reading an evicted member makes it hot again, reconstructing it from its compact form if it was reclaimed.
+ * <p>
+ * A member keeps its identity for as long as anything refers to its node or to any node under it: such a member is
+ * never reclaimed, and reading it yields the same node.  Publishing a change to an evicted member, or to any node
+ * under it, makes the member hot again, so the change is captured by the next eviction rather than lost.  A member
+ * is only reconstructed, as a new node, once nothing referred to it and it had no uncaptured change.
+ * <p>
+ * The keys, and so the {@linkplain #size() size} and {@linkplain #containsKey(Object) membership} of the map, never
+ * require any member to be constructed.  When the map belongs to a resource of a managed system, its members are
+ * indexed by address without being constructed, and each member's own children are indexed once it is.
+ *
+ * @param <R> the member resource type
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class LazyResourceMap<R extends Node> extends AbstractMap<String, R> {
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final AbstractMutableNode<?> parentNode;
+    private final String childType;
+    private final Map<String, ? extends ResourceBuilderFactory<? extends R, ?>> factories;
+    private final Map<String, Member<R>> members;
+    private Set<Entry<String, R>> entrySet;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param parentNode the node under which the members nest
+     * @param childType the child type of the members in the model
+     * @param builders the builders of the members, in order
+     * @param factories the builder factories for members which are reconstructed from their serialized form, by
+     *      element local name
+     */
+    public LazyResourceMap(final AbstractMutableNode<?> parentNode, final String childType, final Map<String, ? extends RootNodeBuilder<? extends R>> builders, final Map<String, ? extends ResourceBuilderFactory<? extends R, ?>> factories) {
+        this.parentNode = parentNode;
+        this.childType = childType;
+        this.factories = factories;
+        final Map<String, Member<R>> members = new LinkedHashMap<>(builders.size());
+        for (Map.Entry<String, ? extends RootNodeBuilder<? extends R>> entry : builders.entrySet()) {
+            members.put(entry.getKey(), new Member<R>(entry.getKey(), entry.getValue()));
+        }
+        this.members = Collections.unmodifiableMap(members);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public boolean containsKey(final Object key) {
+        return members.containsKey(key);
+    }
+
+    public Set<String> keySet() {
+        return members.keySet();
+    }
+
+    public R get(final Object key) {
+        final Member<R> member = members.get(key);
+        return member == null ? null : materialize(member);
+    }
+
+    public Set<Entry<String, R>> entrySet() {
+        final Set<Entry<String, R>> entrySet = this.entrySet;
+        if (entrySet != null) {
+            return entrySet;
+        }
+        return this.entrySet = new AbstractSet<Entry<String, R>>() {
+            public Iterator<Entry<String, R>> iterator() {
+                final Iterator<Member<R>> iterator = members.values().iterator();
+                return new Iterator<Entry<String, R>>() {
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    public Entry<String, R> next() {
+                        final Member<R> member = iterator.next();
+                        // materialized only when its value is read
+                        return new Entry<String, R>() {
+                            public String getKey() {
+                                return member.name;
+                            }
+
+                            public R getValue() {
+                                return materialize(member);
+                            }
+
+                            public R setValue(final R value) {
+                                throw new UnsupportedOperationException();
+                            }
+
+                            public int hashCode() {
+                                return member.name.hashCode() ^ getValue().hashCode();
+                            }
+
+                            public boolean equals(final Object obj) {
+                                if (! (obj instanceof Entry)) {
+                                    return false;
+                                }
+                                final Entry<?, ?> other = (Entry<?, ?>) obj;
+                                return member.name.equals(other.getKey()) && getValue().equals(other.getValue());
+                            }
+
+                            public String toString() {
+                                return member.name + "=" + getValue();
+                            }
+                        };
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            public int size() {
+                return members.size();
+            }
+        };
+    }
+
+    /**
+     * Get a handle by which a member can be referred to without being constructed.
+     *
+     * @param name the member name
+     * @return the handle
+     */
+    Handle getHandle(final String name) {
+        return new Handle(this, name);
+    }
+
+    /**
+     * Get the member nodes which are currently constructed, whether they are hot or evicted but not yet reclaimed.
+     *
+     * @return the constructed member nodes
+     */
+    List<AbstractMutableNode<?>> getConstructed() {
+        final List<AbstractMutableNode<?>> constructed = new ArrayList<>();
+        for (Member<R> member : members.values()) {
+            synchronized (member) {
+                AbstractMutableNode<?> node = member.node;
+                if (node == null && member.cold != null) {
+                    node = member.cold.get();
+                }
+                if (node != null) {
+                    constructed.add(node);
+                }
+            }
+        }
+        return constructed;
+    }
+
+    /**
+     * Get the node of a member if it is currently constructed, whether it is hot or evicted but not yet reclaimed.
+     *
+     * @param name the member name
+     * @return the member node, or {@code null} if it is not constructed
+     */
+    AbstractMutableNode<?> getConstructed(final String name) {
+        final Member<R> member = members.get(name);
+        if (member == null) {
+            return null;
+        }
+        synchronized (member) {
+            final AbstractMutableNode<?> node = member.node;
+            return node == null && member.cold != null ? member.cold.get() : node;
+        }
+    }
+
+    /**
+     * Construct every member which has not been constructed yet as part of a parallel boot, rather than on first
+     * read.  The construction of each member is {@linkplain BootContext#fork forked}, and all of them are joined
+     * before this method returns.  The boot validates the forked members along with the rest of the model.
+     * Builders call this from {@link RootNodeBuilder#construct(AbstractMutableNode, BootContext)} once the
+     * parent node is constructed.
+     *
+     * @param context the boot context
+     */
+    public void construct(final BootContext context) {
+        final List<Member<R>> forked = new ArrayList<>();
+        final List<BootContext.Subtree<?>> subtrees = new ArrayList<>();
+        for (Member<R> member : members.values()) {
+            final RootNodeBuilder<? extends R> builder;
+            synchronized (member) {
+                if (member.node != null || member.cold != null || member.builder == null) {
+                    continue;
+                }
+                builder = member.builder;
+            }
+            forked.add(member);
+            subtrees.add(context.fork(builder, parentNode));
+        }
+        final long version = parentNode.getVersions().getCommitted();
+        for (int i = 0; i < forked.size(); i ++) {
+            final Member<R> member = forked.get(i);
+            final AbstractMutableNode<?> node = subtrees.get(i).join();
+            if (node == null) {
+                throw new IllegalStateException(MESSAGES.resourceMaterializationFailed(member.name));
+            }
+            synchronized (member) {
+                // a member read meanwhile keeps the node it was constructed with
+                if (member.node == null && member.cold == null) {
+                    node.setMember(member);
+                    attach(member, node);
+                    if (member.captured == Member.NEVER) {
+                        member.captured = version;
+                    }
+                    member.lastRead = System.nanoTime();
+                    member.node = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the members to a model stream as an object keyed by member name, with all of their descendants.  A
+     * member which is constructed is written as it is, without being made hot.  Any other member is written from a
+     * node constructed from its compact form for the write alone, which is then discarded, so that writing a large
+     * map neither constructs its members for good nor keeps them in memory.
+     *
+     * @param writer the model stream writer
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if a member cannot be constructed
+     */
+    void writeModel(final ModelStreamWriter writer) throws IOException {
+        writer.startObject(members.size());
+        for (Member<R> member : members.values()) {
+            writer.name(member.name);
+            AbstractMutableNode<?> node;
+            RootNodeBuilder<? extends R> builder = null;
+            byte[] serialized = null;
+            synchronized (member) {
+                node = member.node;
+                if (node == null && member.cold != null) {
+                    node = member.cold.get();
+                }
+                if (node == null) {
+                    builder = member.builder;
+                    serialized = member.serialized;
+                }
+            }
+            if (node == null) {
+                if (builder == null) {
+                    builder = parse(member.name, serialized);
+                }
+                node = construct(member.name, builder);
+            }
+            if (node instanceof Resource) {
+                ((Resource) node).writeModel(writer, true);
+            } else {
+                writer.undefined();
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Get the number of members whose nodes are currently constructed and strongly held.
+     *
+     * @return the number of hot members
+     */
+    public int getMaterializedCount() {
+        int count = 0;
+        for (Member<R> member : members.values()) {
+            if (member.node != null) {
+                count ++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Evict the members which have not been read for at least the given time.  Nothing is evicted while a
+     * snapshot of an older model version is open, since such a snapshot may still read the history which a
+     * reconstructed member would not have.
+     *
+     * @param idleTime the minimum idle time of an evicted member
+     * @param unit the time unit
+     * @return the number of members evicted
+     * @throws XMLStreamException if a changed member could not be serialized
+     */
+    public int evict(long idleTime, TimeUnit unit) throws XMLStreamException {
+        final ModelVersions versions = parentNode.getVersions();
+        if (versions.getOldestPinned() < versions.getCommitted()) {
+            return 0;
+        }
+        final long idleSince = System.nanoTime() - unit.toNanos(idleTime);
+        int count = 0;
+        for (Member<R> member : members.values()) {
+            if (member.node != null && member.lastRead - idleSince <= 0 && evict(member)) {
+                count ++;
+            }
+        }
+        return count;
+    }
+
+    private boolean evict(final Member<R> member) throws XMLStreamException {
+        synchronized (member) {
+            final AbstractMutableNode<?> node = member.node;
+            if (node == null) {
+                return false;
+            }
+            final ModelVersions versions = parentNode.getVersions();
+            final long version = versions.getCommitted();
+            if (version != member.captured) {
+                // something may have changed the member since its compact form was captured
+                if (! (node instanceof XMLWritable)) {
+                    return false;
+                }
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (ModelSnapshot snapshot = ModelSnapshot.open(versions)) {
+                    final XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+                    ((XMLWritable) node).toXml(writer);
+                    writer.close();
+                    if (snapshot.getVersion() != version) {
+                        // changed while being captured; try again on the next pass
+                        return false;
+                    }
+                }
+                member.builder = null;
+                member.serialized = out.toByteArray();
+                member.captured = version;
+            }
+            member.cold = new SoftReference<AbstractMutableNode<?>>(node);
+            member.node = null;
+            return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private R materialize(final Member<R> member) {
+        member.lastRead = System.nanoTime();
+        AbstractMutableNode<?> node = member.node;
+        if (node == null) {
+            synchronized (member) {
+                node = member.node;
+                if (node == null) {
+                    final SoftReference<AbstractMutableNode<?>> cold = member.cold;
+                    node = cold == null ? null : cold.get();
+                    if (node == null) {
+                        node = construct(member);
+                        node.setMember(member);
+                        attach(member, node);
+                    }
+                    member.cold = null;
+                    member.node = node;
+                }
+            }
+        }
+        // generated resource nodes implement their resource interface
+        return (R) node;
+    }
+
+    /**
+     * Give a newly constructed member its address in the managed system of the parent resource, if it has one,
+     * and index the member's children.
+     */
+    private void attach(final Member<R> member, final AbstractMutableNode<?> node) {
+        if (! (parentNode instanceof AbstractMutableResource && node instanceof AbstractMutableResource)) {
+            return;
+        }
+        final PathAddress address = ((AbstractMutableResource<?>) parentNode).getAddress();
+        final ManagedSystem system = parentNode.getVersions().getSystem();
+        if (address != null && system != null) {
+            system.attachChildren(address.append(childType, member.name), (AbstractMutableResource<?>) node, null);
+        }
+    }
+
+    private AbstractMutableNode<?> construct(final Member<R> member) {
+        final long version = parentNode.getVersions().getCommitted();
+        RootNodeBuilder<? extends R> builder = member.builder;
+        if (builder == null) {
+            builder = parse(member.name, member.serialized);
+        }
+        final AbstractMutableNode<?> node = construct(member.name, builder);
+        if (member.captured == Member.NEVER) {
+            member.captured = version;
+        }
+        return node;
+    }
+
+    /**
+     * Populate a new builder from the serialized form of a member.
+     */
+    private RootNodeBuilder<? extends R> parse(final String name, final byte[] serialized) {
+        try {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(serialized));
+            try {
+                reader.nextTag();
+                final ResourceBuilderFactory<? extends R, ?> factory = factories.get(reader.getLocalName());
+                if (factory == null) {
+                    throw new IllegalStateException(MESSAGES.resourceMaterializationFailed(name));
+                }
+                final RootNodeBuilder<? extends R> builder = factory.createNew();
+                builder.fromXml(reader);
+                return builder;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(MESSAGES.resourceMaterializationFailed(name), e);
+        }
+    }
+
+    private <T extends Node> AbstractMutableNode<T> construct(final String name, final RootNodeBuilder<T> builder) {
+        final AbstractMutableNode<T> node = builder.construct(parentNode);
+        if (node == null) {
+            throw new IllegalStateException(MESSAGES.resourceMaterializationFailed(name));
+        }
+        builder.validate(node);
+        return node;
+    }
+
+    /**
+     * A reference to a member of a lazily constructed map, by which the member is indexed without being
+     * constructed.
+     */
+    static final class Handle {
+        private final LazyResourceMap<?> map;
+        private final String name;
+
+        Handle(final LazyResourceMap<?> map, final String name) {
+            this.map = map;
+            this.name = name;
+        }
+
+        /**
+         * Get the member, constructing it if needed.
+         *
+         * @return the member resource
+         */
+        Resource get() {
+            return (Resource) map.get(name);
+        }
+    }
+
+    static final class Member<R extends Node> {
+        static final long NEVER = -1L;
+
+        final String name;
+        // the compact form: either the builder, or the serialized member from which a new builder is populated
+        RootNodeBuilder<? extends R> builder;
+        byte[] serialized;
+        // the model version as of which the compact form is current
+        long captured = NEVER;
+        volatile AbstractMutableNode<?> node;
+        SoftReference<AbstractMutableNode<?>> cold;
+        volatile long lastRead;
+
+        Member(final String name, final RootNodeBuilder<? extends R> builder) {
+            this.name = name;
+            this.builder = builder;
+        }
+
+        /**
+         * Make this member hot again if it was evicted, since a change to its node or to a node under it was
+         * published after its compact form may have been captured.
+         *
+         * @param node the node of this member
+         */
+        void changed(final AbstractMutableNode<?> node) {
+            // always locked, since an eviction in progress may have captured this member before the change
+            synchronized (this) {
+                final SoftReference<AbstractMutableNode<?>> cold = this.cold;
+                if (this.node == null && cold != null && cold.get() == node) {
+                    this.cold = null;
+                    this.node = node;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the completion of listener callbacks which were dispatched for model changes, so that a commit may wait for
+ * its listeners to finish, or give up after a time.  Failures of listener callbacks are collected rather than
+ * propagated, so that one failing listener does not prevent the delivery of changes to others.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ListenerCompletion {
+    private final List<Throwable> failures = new ArrayList<>();
+    private int pending;
+
+    /**
+     * Construct a new instance.
+     */
+    public ListenerCompletion() {
+    }
+
+    synchronized void begin() {
+        pending ++;
+    }
+
+    synchronized void complete(Throwable failure) {
+        if (failure != null) {
+            failures.add(failure);
+        }
+        if (-- pending == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Determine whether all dispatched listener callbacks have completed.
+     *
+     * @return {@code true} if no callbacks are pending
+     */
+    public synchronized boolean isDone() {
+        return pending == 0;
+    }
+
+    /**
+     * Wait for all dispatched listener callbacks to complete.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public synchronized void await() throws InterruptedException {
+        while (pending > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Wait for all dispatched listener callbacks to complete, for no longer than the given time.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit
+     * @return {@code true} if the callbacks completed, {@code false} if the time elapsed first
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public synchronized boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending > 0) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L) {
+                return false;
+            }
+            wait(remaining / 1000000L, (int) (remaining % 1000000L));
+        }
+        return true;
+    }
+
+    /**
+     * Get the failures of the listener callbacks which have completed so far.
+     *
+     * @return a copy of the list of failures
+     */
+    public synchronized List<Throwable> getFailures() {
+        return new ArrayList<>(failures);
+    }
+}
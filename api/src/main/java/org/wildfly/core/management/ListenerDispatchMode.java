@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+/**
+ * The ways in which the changes made by a transaction may be delivered to listeners.  In either mode, changes are
+ * delivered only once the transaction commits; changes made outside of a transaction are delivered as they happen.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public enum ListenerDispatchMode {
+    /**
+     * Every change is delivered, in order.
+     */
+    EACH_CHANGE,
+    /**
+     * Changes are coalesced per resource and per attribute, and each listener receives its changes together.
+     */
+    BATCHED,
+    ;
+}
@@ -18,8 +18,22 @@
 
 package org.wildfly.core.management;
 
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
 import org.jboss.msc.txn.Listener;
 import org.jboss.msc.txn.TransactionalContext;
+import org.jboss.msc.txn.ValidateContext;
 
 /**
  * A managed system.
@@ -42,16 +56,115 @@ public final class ManagedSystem {
      */
     private final AbstractMutableResource<?> rootResource;
 
+    /**
+     * The version clock of this managed system's model.
+     */
+    private final ModelVersions versions;
+
+    /**
+     * The address index of this managed system's resources.
+     */
+    private final ResourceIndex index;
+
+    /**
+     * The resource listeners of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> resourceListeners = new PathAddressTrie<>();
+
+    /**
+     * The attribute listeners of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> attributeListeners = new PathAddressTrie<>();
+
+    /**
+     * The resource batch listeners of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> resourceBatchListeners = new PathAddressTrie<>();
+
+    /**
+     * The attribute batch listeners of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> attributeBatchListeners = new PathAddressTrie<>();
+
+    /**
+     * The resource validators of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> resourceValidators = new PathAddressTrie<>();
+
+    /**
+     * The attribute validators of this managed system, by address pattern.
+     */
+    private final PathAddressTrie<RunLevelRegistration> attributeValidators = new PathAddressTrie<>();
+
+    /**
+     * The resources awaiting validation in the next validation phase, by address.
+     */
+    private final ConcurrentHashMap<PathAddress, Resource> pendingResourceValidations = new ConcurrentHashMap<>();
+
+    /**
+     * The attribute changes awaiting validation in a validation phase, by address and attribute name.
+     */
+    private final ConcurrentHashMap<ModelChangeSet.AttributeKey, PendingAttributeValidation> pendingAttributeValidations = new ConcurrentHashMap<>();
+
+    /**
+     * The pessimistic locks of this managed system.
+     */
+    private final ModelLockManager lockManager = new ModelLockManager();
+
     // Mutable state
 
     /**
-     * The current run level of this system.
+     * The current run level of this system, which is the highest level whose transition completed.
+     */
+    private volatile RunLevel runLevel = RunLevel.STOPPED;
+
+    /**
+     * The highest run level whose listeners and validators are active.  This leads the run level while a
+     * transition activates or deactivates a level.
+     */
+    private volatile RunLevel activeLevel = RunLevel.STOPPED;
+
+    /**
+     * The run level transition or validation phase in progress, if any; guarded by {@code this}.
+     */
+    private RunLevelSchedule schedule;
+
+    /**
+     * The failures of the last completed transition or validation phase.
+     */
+    private volatile List<Throwable> scheduleFailures = Collections.emptyList();
+
+    /**
+     * The executor which runs transition and validation work, or {@code null} to run it on the calling thread.
+     */
+    private volatile Executor runLevelExecutor;
+
+    /**
+     * The way in which commits deliver their changes to listeners.
+     */
+    private volatile ListenerDispatchMode listenerDispatchMode = ListenerDispatchMode.EACH_CHANGE;
+
+    /**
+     * The executor which runs listener callbacks, or {@code null} to run them on the committing thread.
+     */
+    private volatile OrderedExecutor listenerExecutor;
+
+    /**
+     * The journal to which committed changes are written, or {@code null} for none.
      */
-    private RunLevel runLevel;
+    private volatile ModelJournal journal;
 
     ManagedSystem(final String rootPathKey, final AbstractMutableResource<?> rootResource) {
         this.rootPathKey = rootPathKey;
         this.rootResource = rootResource;
+        versions = new ModelVersions(this);
+        rootResource.attach(versions);
+        index = new ResourceIndex(rootResource);
+        attach(PathAddress.EMPTY_ADDRESS, rootResource, null);
+    }
+
+    ModelVersions getVersions() {
+        return versions;
     }
 
     public RunLevel getRunLevel() {
@@ -59,13 +172,789 @@ public final class ManagedSystem {
     }
 
     /**
-     * Get a resource at an address.
+     * Get a resource at an address.  A commit in progress on the current thread sees the resources it has added
+     * and removed, and a {@linkplain ModelSnapshot snapshot} open on the current thread sees the resources of its
+     * version.
      *
-     * @param address
-     * @return
+     * @param address the concrete address of the resource
+     * @return the resource, or {@code null} if there is no resource at the given address
+     * @throws IllegalArgumentException if the address matches multiple targets
      */
     public Resource getResource(PathAddress address) {
-        return null;
+        if (address.isMultiTarget()) {
+            throw new IllegalArgumentException(MESSAGES.multiTargetAddress(address));
+        }
+        final ModelTransaction transaction = ModelTransaction.current();
+        if (transaction != null) {
+            transaction.read(address);
+        }
+        final ModelCommit commit = ModelCommit.current();
+        if (commit != null && commit.getVersions() == versions) {
+            final Object staged = commit.getStagedResource(address);
+            if (staged == ModelCommit.REMOVED) {
+                return null;
+            }
+            if (staged != null) {
+                return staged instanceof LazyResourceMap.Handle ? ((LazyResourceMap.Handle) staged).get() : (Resource) staged;
+            }
+        }
+        if (versions.getSnapshot() != null) {
+            // the index only holds the latest version
+            return ResourceIndex.navigate(rootResource, address);
+        }
+        return index.get(address);
+    }
+
+    /**
+     * Get the resources matching an address, which may contain wildcard or multi-value elements.  Matching
+     * resources are found lazily as the returned iterable is traversed; the matching subtree is never copied.  A
+     * commit in progress on the traversing thread sees the resources it has added and removed, and a
+     * {@linkplain ModelSnapshot snapshot} open on the traversing thread sees the resources of its version.
+     *
+     * @param address the address to resolve
+     * @return the matching resources
+     */
+    public Iterable<Resource> getResources(final PathAddress address) {
+        final ModelTransaction transaction = ModelTransaction.current();
+        if (transaction != null) {
+            transaction.readSubtree(getConcretePrefix(address));
+        }
+        return new Iterable<Resource>() {
+            public Iterator<Resource> iterator() {
+                final Iterator<Map.Entry<PathAddress, Resource>> matches = resolve(address);
+                return new ResourceIndex.LazyIterator<Resource>() {
+                    Resource computeNext() {
+                        return matches.hasNext() ? matches.next().getValue() : null;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Resolve the resources matching an address, as seen by the current thread.
+     *
+     * @param address the address to resolve, which may contain wildcard or multi-value elements
+     * @return the matching resources, keyed by their concrete addresses
+     */
+    private Iterator<Map.Entry<PathAddress, Resource>> resolve(final PathAddress address) {
+        // the index only holds the latest version
+        final Iterator<Map.Entry<PathAddress, Resource>> indexed = versions.getSnapshot() == null ? index.resolve(address) : ResourceIndex.resolve(rootResource, address);
+        final ModelCommit commit = ModelCommit.current();
+        if (commit == null || commit.getVersions() != versions || commit.getStagedResources().isEmpty()) {
+            return indexed;
+        }
+        // the committed matches which the commit did not remove or replace, then the ones it added
+        final Iterator<Map.Entry<PathAddress, Object>> staged = commit.getStagedResources().entrySet().iterator();
+        return new ResourceIndex.LazyIterator<Map.Entry<PathAddress, Resource>>() {
+            Map.Entry<PathAddress, Resource> computeNext() {
+                while (indexed.hasNext()) {
+                    final Map.Entry<PathAddress, Resource> next = indexed.next();
+                    if (commit.getStagedResource(next.getKey()) == null) {
+                        return next;
+                    }
+                }
+                while (staged.hasNext()) {
+                    final Map.Entry<PathAddress, Object> next = staged.next();
+                    final PathAddress stagedAddress = next.getKey();
+                    final Object target = next.getValue();
+                    if (target != ModelCommit.REMOVED && ResourceIndex.matches(address, stagedAddress) && commit.getStagedResource(stagedAddress) == target) {
+                        final Resource resource = target instanceof LazyResourceMap.Handle ? ((LazyResourceMap.Handle) target).get() : (Resource) target;
+                        return new AbstractMap.SimpleImmutableEntry<>(stagedAddress, resource);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private static PathAddress getConcretePrefix(PathAddress address) {
+        PathAddress prefix = address;
+        for (PathAddress current = address; current.size() > 0; current = current.getParent()) {
+            if (current.getLastElement().isMultiTarget()) {
+                prefix = current.getParent();
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Give a resource and the resources under it their addresses, so that their changes are reported to this
+     * system, and register them with the index, or with a commit which adds them.  Members of lazily constructed
+     * child maps are registered without being constructed; they are given their addresses once they are.
+     *
+     * @param address the address of the resource
+     * @param resource the resource
+     * @param commit the commit which adds the resource, or {@code null} to register it with the index
+     */
+    void attach(final PathAddress address, final Resource resource, final ModelCommit commit) {
+        register(address, resource, commit);
+        if (resource instanceof AbstractMutableResource) {
+            attachChildren(address, (AbstractMutableResource<?>) resource, commit);
+        }
+    }
+
+    /**
+     * Give a resource and the resources under it their addresses, and register the resources under it with the
+     * index, or with a commit which adds them.
+     *
+     * @param address the address of the resource
+     * @param resource the resource
+     * @param commit the commit which adds the resource, or {@code null} to register its children with the index
+     */
+    void attachChildren(final PathAddress address, final AbstractMutableResource<?> resource, final ModelCommit commit) {
+        resource.setAddress(address);
+        for (Map.Entry<String, ? extends Map<String, ?>> group : resource.getChildren().entrySet()) {
+            final String type = group.getKey();
+            final Map<String, ?> children = group.getValue();
+            if (children instanceof LazyResourceMap) {
+                final LazyResourceMap<?> lazy = (LazyResourceMap<?>) children;
+                for (String name : lazy.keySet()) {
+                    register(address.append(type, name), lazy.getHandle(name), commit);
+                    // members constructed before the map was attached, such as at boot, index their own children
+                    final AbstractMutableNode<?> member = lazy.getConstructed(name);
+                    if (member instanceof AbstractMutableResource) {
+                        attachChildren(address.append(type, name), (AbstractMutableResource<?>) member, commit);
+                    }
+                }
+                continue;
+            }
+            for (Map.Entry<String, ?> child : children.entrySet()) {
+                if (child.getValue() instanceof Resource) {
+                    attach(address.append(type, child.getKey()), (Resource) child.getValue(), commit);
+                }
+            }
+        }
+    }
+
+    private void register(final PathAddress address, final Object target, final ModelCommit commit) {
+        if (commit != null) {
+            commit.stageResource(address, target);
+        } else if (target instanceof LazyResourceMap.Handle) {
+            index.put(address, (LazyResourceMap.Handle) target);
+        } else {
+            index.put(address, (Resource) target);
+        }
+    }
+
+    /**
+     * Take the addresses away from a removed resource and the constructed resources under it, so that any later
+     * change to them is no longer reported.
+     *
+     * @param resource the removed resource
+     */
+    private static void detach(final Resource resource) {
+        if (! (resource instanceof AbstractMutableResource)) {
+            return;
+        }
+        final AbstractMutableResource<?> mutable = (AbstractMutableResource<?>) resource;
+        mutable.setAddress(null);
+        for (Map<String, ?> children : mutable.getChildren().values()) {
+            for (Object child : children instanceof LazyResourceMap ? ((LazyResourceMap<?>) children).getConstructed() : children.values()) {
+                if (child instanceof Resource) {
+                    detach((Resource) child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a change to a resource of this system, which is being staged in a commit.  The change is compared
+     * with the original resource: changed attributes are validated by the active immediate validators and recorded,
+     * and child resources which appear or disappear are recorded as added or removed and are indexed once the
+     * commit is published.  If a validator fails, nothing is recorded.
+     *
+     * @param commit the commit
+     * @param address the address of the resource
+     * @param original the resource before the change
+     * @param updated the resource after the change
+     */
+    void resourceChanged(final ModelCommit commit, final PathAddress address, final Resource original, final Resource updated) {
+        final ModelChangeContext context = getChangeContext();
+        final RunLevel level = activeLevel;
+        final List<AttributeChange<?, ?>> attributeChanges = new ArrayList<>();
+        final List<AttributeChange<?, ?>> deferred = new ArrayList<>();
+        final Map<PathAddress, Resource> removed = new LinkedHashMap<>();
+        final Map<PathAddress, Resource> added = new LinkedHashMap<>();
+        if (original instanceof DiffableResource) {
+            ((DiffableResource) original).diffAttributes(updated, new DiffableResource.Handler() {
+                public void attributeChanged(final AttributeChange.Kind kind, final String attributeName, final Object oldValue, final Object newValue) {
+                    final AttributeChange<Resource, Object> change = new AttributeChange<>(address, attributeName, kind, original, updated, oldValue, newValue);
+                    if (validateAttribute(context, change, level)) {
+                        deferred.add(change);
+                    }
+                    attributeChanges.add(change);
+                }
+
+                public void childrenChanged(final String childType, final Map<String, ?> before, final Map<String, ?> after) {
+                    diffChildren(address, childType, before, after, removed, added);
+                }
+            });
+        }
+        commit.write(address);
+        deferResourceValidation(commit, address, updated);
+        final ModelChangeSet changes = commit.getChangeSet(context);
+        changes.add(new ResourceChange<>(address, ResourceChange.Kind.CHANGED, original, updated));
+        for (AttributeChange<?, ?> change : attributeChanges) {
+            changes.add(change);
+        }
+        for (final AttributeChange<?, ?> change : deferred) {
+            commit.onCommit(new Runnable() {
+                public void run() {
+                    deferAttributeValidation(new PendingAttributeValidation(change, level, null));
+                }
+            });
+        }
+        for (Map.Entry<PathAddress, Resource> entry : removed.entrySet()) {
+            resourceRemoved(commit, changes, entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<PathAddress, Resource> entry : added.entrySet()) {
+            resourceAdded(commit, changes, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Compare two versions of a child resource map by key.  Members of lazily constructed maps are compared by
+     * name only, so that no member is constructed unless it was added or removed; other members are also compared
+     * by identity, and a replaced member is reported as removed and added.
+     */
+    private static void diffChildren(final PathAddress address, final String childType, final Map<String, ?> before, final Map<String, ?> after, final Map<PathAddress, Resource> removed, final Map<PathAddress, Resource> added) {
+        final boolean byIdentity = ! (before instanceof LazyResourceMap || after instanceof LazyResourceMap);
+        for (String name : before.keySet()) {
+            if (! after.containsKey(name) || byIdentity && before.get(name) != after.get(name)) {
+                final Object child = before.get(name);
+                if (child instanceof Resource) {
+                    removed.put(address.append(childType, name), (Resource) child);
+                }
+            }
+        }
+        for (String name : after.keySet()) {
+            if (! before.containsKey(name) || byIdentity && before.get(name) != after.get(name)) {
+                final Object child = after.get(name);
+                if (child instanceof Resource) {
+                    added.put(address.append(childType, name), (Resource) child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the value of a resource as of the current commit, which is what listeners and validators are given.
+     */
+    private static Resource valueOf(final Resource resource) {
+        return resource instanceof AbstractMutableResource ? (Resource) ((AbstractMutableResource<?>) resource).getCurrent() : resource;
+    }
+
+    /**
+     * Record the addition of a resource, and of all of its children, to this system.
+     */
+    private void resourceAdded(final ModelCommit commit, final ModelChangeSet changes, final PathAddress address, final Resource resource) {
+        commit.write(address);
+        // the commit sees the new resources at once, and their changes later in the commit are reported
+        attach(address, resource, commit);
+        commit.onCommit(new Runnable() {
+            public void run() {
+                attach(address, resource, null);
+            }
+        });
+        final Resource value = valueOf(resource);
+        deferResourceValidation(commit, address, value);
+        changes.add(new ResourceChange<>(address, ResourceChange.Kind.ADDED, null, value));
+    }
+
+    /**
+     * Record the removal of a resource, and of all of its children, from this system.
+     */
+    private void resourceRemoved(final ModelCommit commit, final ModelChangeSet changes, final PathAddress address, final Resource resource) {
+        commit.write(address);
+        commit.stageRemoval(address);
+        commit.onCommit(new Runnable() {
+            public void run() {
+                index.remove(address);
+                pendingResourceValidations.remove(address);
+                detach(resource);
+            }
+        });
+        changes.add(new ResourceChange<>(address, ResourceChange.Kind.REMOVED, valueOf(resource), null));
+    }
+
+    /**
+     * Queue a resource for the next validation phase once the commit is published, if any validator of the
+     * resource is active.  Validators which are not yet active validate every resource they apply to once their run
+     * level is reached.
+     */
+    private void deferResourceValidation(final ModelCommit commit, final PathAddress address, final Resource resource) {
+        final RunLevel level = activeLevel;
+        boolean active = false;
+        for (RunLevelRegistration registration : resourceValidators.getMatching(address, new ArrayList<RunLevelRegistration>())) {
+            if (registration.isActiveAt(level)) {
+                active = true;
+                break;
+            }
+        }
+        if (! active) {
+            return;
+        }
+        commit.onCommit(new Runnable() {
+            public void run() {
+                pendingResourceValidations.put(address, resource);
+            }
+        });
+    }
+
+    /**
+     * Run the active immediate validators of an attribute change.
+     *
+     * @return {@code true} if the change must also be queued for a later validation phase, because it has deferred
+     *      validators, or immediate validators which are not yet active
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private boolean validateAttribute(final ModelChangeContext context, final AttributeChange<?, ?> change, final RunLevel level) {
+        final String attributeName = change.getAttributeName();
+        boolean deferred = false;
+        for (RunLevelRegistration registration : attributeValidators.getMatching(change.getAddress(), new ArrayList<RunLevelRegistration>())) {
+            if (! attributeName.equals(registration.getAttributeName())) {
+                continue;
+            }
+            if (registration.isImmediate() && registration.isActiveAt(level)) {
+                ((AttributeValidator) registration.getTarget()).validate(change.getResourceAfter(), attributeName, change.getOldValue(), change.getNewValue(), context);
+            } else {
+                deferred = true;
+            }
+        }
+        return deferred;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void deferAttributeValidation(final PendingAttributeValidation validation) {
+        final AttributeChange<?, ?> change = validation.change;
+        final ModelChangeSet.AttributeKey key = new ModelChangeSet.AttributeKey(change.getAddress(), change.getAttributeName());
+        for (;;) {
+            final PendingAttributeValidation existing = pendingAttributeValidations.putIfAbsent(key, validation);
+            if (existing == null) {
+                return;
+            }
+            final AttributeChange<?, ?> merged = AttributeChange.coalesce((AttributeChange) existing.change, (AttributeChange) change);
+            if (merged == null) {
+                // the changes cancel out, so there is nothing left to validate
+                if (pendingAttributeValidations.remove(key, existing)) {
+                    return;
+                }
+            } else if (pendingAttributeValidations.replace(key, existing, new PendingAttributeValidation(merged, validation.immediateLevel, null))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the model change context of the current thread.  Changes staged without one are still recorded and
+     * delivered, with no context; run level transitions and validation phases require one.
+     *
+     * @return the context, or {@code null} if the transaction of the current thread is not a model change, or
+     *      there is none
+     */
+    private static ModelChangeContext getChangeContext() {
+        final TransactionalContext context = SYS_CONTEXT.get();
+        return context instanceof ModelChangeContext ? (ModelChangeContext) context : null;
+    }
+
+    /**
+     * Deliver a set of changes to the listeners registered for the changed addresses.  Each listener is called
+     * once for all of its changes if it is a batch listener, or once per change otherwise, in the order the changes
+     * were recorded.  If a listener executor is set, callbacks for the same address, or to the same batch listener,
+     * run one at a time in order, and others run in parallel; otherwise all callbacks run on the calling thread.
+     * Either way, completions and failures, including callbacks the executor rejects, are reported to the change
+     * set's {@link ListenerCompletion}.  Listeners registered for a run level above the active level are skipped.
+     *
+     * @param changes the changes to deliver
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void deliver(final ModelChangeSet changes) {
+        final ModelChangeContext context = changes.getContext();
+        final ListenerCompletion completion = changes.getCompletion();
+        final RunLevel level = activeLevel;
+        final List<RunLevelRegistration> matched = new ArrayList<>();
+        final Map<Object, List<Object>> resourceBatches = new LinkedHashMap<>();
+        final Map<Object, List<Object>> attributeBatches = new LinkedHashMap<>();
+        for (Object recorded : changes.getChanges()) {
+            if (recorded instanceof ResourceChange) {
+                final ResourceChange<?> change = (ResourceChange<?>) recorded;
+                resourceListeners.getMatching(change.getAddress(), matched);
+                resourceBatchListeners.getMatching(change.getAddress(), matched);
+                for (Object listener : active(matched, level)) {
+                    if (listener instanceof ResourceBatchListener) {
+                        batch(resourceBatches, listener, change);
+                        continue;
+                    }
+                    final ResourceListener resourceListener = (ResourceListener) listener;
+                    submit(change.getAddress(), completion, new Runnable() {
+                        public void run() {
+                            switch (change.getKind()) {
+                                case ADDED: resourceListener.resourceAdded(context, change.getUpdated()); break;
+                                case CHANGED: resourceListener.resourceChanged(context, change.getOriginal(), change.getUpdated()); break;
+                                case REMOVED: resourceListener.resourceRemoved(context, change.getOriginal()); break;
+                            }
+                        }
+                    });
+                }
+            } else {
+                final AttributeChange<?, ?> change = (AttributeChange<?, ?>) recorded;
+                attributeListeners.getMatching(change.getAddress(), matched);
+                attributeBatchListeners.getMatching(change.getAddress(), matched);
+                for (Object listener : active(matched, level)) {
+                    if (listener instanceof AttributeBatchListener) {
+                        batch(attributeBatches, listener, change);
+                        continue;
+                    }
+                    final AttributeListener attributeListener = (AttributeListener) listener;
+                    submit(change.getAddress(), completion, new Runnable() {
+                        public void run() {
+                            final String name = change.getAttributeName();
+                            switch (change.getKind()) {
+                                case ADDED: attributeListener.attributeAdded(context, change.getResourceBefore(), change.getResourceAfter(), name, change.getNewValue()); break;
+                                case UPDATED: attributeListener.attributeUpdated(context, change.getResourceBefore(), change.getResourceAfter(), name, change.getOldValue(), change.getNewValue()); break;
+                                case REMOVED: attributeListener.attributeRemoved(context, change.getResourceBefore(), change.getResourceAfter(), name, change.getOldValue()); break;
+                                case REFRESHED: attributeListener.attributeRefreshed(context, change.getResourceBefore(), change.getResourceAfter(), name, change.getNewValue()); break;
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        for (Map.Entry<Object, List<Object>> entry : resourceBatches.entrySet()) {
+            final ResourceBatchListener listener = (ResourceBatchListener) entry.getKey();
+            final List batch = entry.getValue();
+            submit(listener, completion, new Runnable() {
+                public void run() {
+                    listener.resourcesChanged(context, batch);
+                }
+            });
+        }
+        for (Map.Entry<Object, List<Object>> entry : attributeBatches.entrySet()) {
+            final AttributeBatchListener listener = (AttributeBatchListener) entry.getKey();
+            final List batch = entry.getValue();
+            submit(listener, completion, new Runnable() {
+                public void run() {
+                    listener.attributesChanged(context, batch);
+                }
+            });
+        }
+    }
+
+    private void submit(final Object key, final ListenerCompletion completion, final Runnable callback) {
+        completion.begin();
+        final OrderedExecutor.Task task = new OrderedExecutor.Task() {
+            public void run() {
+                Throwable failure = null;
+                try {
+                    callback.run();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    completion.complete(failure);
+                }
+            }
+
+            public void rejected(final RuntimeException cause) {
+                completion.complete(cause);
+            }
+        };
+        final OrderedExecutor executor = listenerExecutor;
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(key, task);
+        }
+    }
+
+    /**
+     * Get the targets of the registrations which are active at a run level, and clear the registrations.
+     */
+    private static List<Object> active(final List<RunLevelRegistration> registrations, final RunLevel level) {
+        final List<Object> active = new ArrayList<>(registrations.size());
+        for (RunLevelRegistration registration : registrations) {
+            if (registration.isActiveAt(level)) {
+                active.add(registration.getTarget());
+            }
+        }
+        registrations.clear();
+        return active;
+    }
+
+    private static void batch(final Map<Object, List<Object>> batches, final Object listener, final Object change) {
+        List<Object> batch = batches.get(listener);
+        if (batch == null) {
+            batches.put(listener, batch = new ArrayList<>());
+        }
+        batch.add(change);
+    }
+
+    /**
+     * Get the lock manager of this system, for changes which must lock the model rather than run as an optimistic
+     * {@link ModelTransaction}.
+     *
+     * @return the lock manager
+     */
+    public ModelLockManager getLockManager() {
+        return lockManager;
+    }
+
+    /**
+     * Register a listener for changes to the resources matching an address pattern.  The listener is active at every run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addResourceListener(PathAddress pattern, ResourceListener<?> listener) {
+        return addResourceListener(pattern, RunLevel.STOPPED, listener);
+    }
+
+    /**
+     * Register a listener for changes to the resources matching an address pattern, which is only active at or above
+     * the given run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param runLevel the run level at which the listener becomes active
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addResourceListener(PathAddress pattern, RunLevel runLevel, ResourceListener<?> listener) {
+        return resourceListeners.insert(pattern, register(pattern, runLevel, listener, null, false));
+    }
+
+    /**
+     * Remove a resource listener registration.
+     *
+     * @param pattern the address pattern the listener was registered for
+     * @param listener the listener
+     * @return {@code true} if the listener was removed, {@code false} if it was not registered for the pattern
+     */
+    public boolean removeResourceListener(PathAddress pattern, ResourceListener<?> listener) {
+        return resourceListeners.remove(pattern, register(pattern, RunLevel.STOPPED, listener, null, false));
+    }
+
+    /**
+     * Register a listener for changes to the attributes of the resources matching an address pattern.  The listener is active at every run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addAttributeListener(PathAddress pattern, AttributeListener<?, ?> listener) {
+        return addAttributeListener(pattern, RunLevel.STOPPED, listener);
+    }
+
+    /**
+     * Register a listener for changes to the attributes of the resources matching an address pattern, which is only active at or above
+     * the given run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param runLevel the run level at which the listener becomes active
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addAttributeListener(PathAddress pattern, RunLevel runLevel, AttributeListener<?, ?> listener) {
+        return attributeListeners.insert(pattern, register(pattern, runLevel, listener, null, false));
+    }
+
+    /**
+     * Remove a attribute listener registration.
+     *
+     * @param pattern the address pattern the listener was registered for
+     * @param listener the listener
+     * @return {@code true} if the listener was removed, {@code false} if it was not registered for the pattern
+     */
+    public boolean removeAttributeListener(PathAddress pattern, AttributeListener<?, ?> listener) {
+        return attributeListeners.remove(pattern, register(pattern, RunLevel.STOPPED, listener, null, false));
+    }
+
+    /**
+     * Register a batch listener for changes to the resources matching an address pattern.  The listener is active at every run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addResourceBatchListener(PathAddress pattern, ResourceBatchListener<?> listener) {
+        return addResourceBatchListener(pattern, RunLevel.STOPPED, listener);
+    }
+
+    /**
+     * Register a batch listener for changes to the resources matching an address pattern, which is only active at or above
+     * the given run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param runLevel the run level at which the listener becomes active
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addResourceBatchListener(PathAddress pattern, RunLevel runLevel, ResourceBatchListener<?> listener) {
+        return resourceBatchListeners.insert(pattern, register(pattern, runLevel, listener, null, false));
+    }
+
+    /**
+     * Remove a resource batch listener registration.
+     *
+     * @param pattern the address pattern the listener was registered for
+     * @param listener the listener
+     * @return {@code true} if the listener was removed, {@code false} if it was not registered for the pattern
+     */
+    public boolean removeResourceBatchListener(PathAddress pattern, ResourceBatchListener<?> listener) {
+        return resourceBatchListeners.remove(pattern, register(pattern, RunLevel.STOPPED, listener, null, false));
+    }
+
+    /**
+     * Register a batch listener for changes to the attributes of the resources matching an address pattern.  The listener is active at every run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addAttributeBatchListener(PathAddress pattern, AttributeBatchListener<?, ?> listener) {
+        return addAttributeBatchListener(pattern, RunLevel.STOPPED, listener);
+    }
+
+    /**
+     * Register a batch listener for changes to the attributes of the resources matching an address pattern, which is only active at or above
+     * the given run level.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param runLevel the run level at which the listener becomes active
+     * @param listener the listener
+     * @return {@code true} if the listener was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addAttributeBatchListener(PathAddress pattern, RunLevel runLevel, AttributeBatchListener<?, ?> listener) {
+        return attributeBatchListeners.insert(pattern, register(pattern, runLevel, listener, null, false));
+    }
+
+    /**
+     * Remove a attribute batch listener registration.
+     *
+     * @param pattern the address pattern the listener was registered for
+     * @param listener the listener
+     * @return {@code true} if the listener was removed, {@code false} if it was not registered for the pattern
+     */
+    public boolean removeAttributeBatchListener(PathAddress pattern, AttributeBatchListener<?, ?> listener) {
+        return attributeBatchListeners.remove(pattern, register(pattern, RunLevel.STOPPED, listener, null, false));
+    }
+
+    /**
+     * Register a validator for the resources matching an address pattern, which is only active at or above the
+     * given run level.  Resource validations always run during a validation phase: once the run level is reached,
+     * every matching resource is validated, and from then on each added or changed resource is validated during
+     * the next {@linkplain #validate(Listener) validation phase}.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param runLevel the run level at which the validator becomes active
+     * @param validator the validator
+     * @return {@code true} if the validator was added, {@code false} if it was already registered for the pattern
+     */
+    public boolean addResourceValidator(PathAddress pattern, RunLevel runLevel, ResourceValidator<?> validator) {
+        return resourceValidators.insert(pattern, register(pattern, runLevel, validator, null, false));
+    }
+
+    /**
+     * Remove a resource validator registration.
+     *
+     * @param pattern the address pattern the validator was registered for
+     * @param validator the validator
+     * @return {@code true} if the validator was removed, {@code false} if it was not registered for the pattern
+     */
+    public boolean removeResourceValidator(PathAddress pattern, ResourceValidator<?> validator) {
+        return resourceValidators.remove(pattern, register(pattern, RunLevel.STOPPED, validator, null, false));
+    }
+
+    /**
+     * Register a validator for an attribute of the resources matching an address pattern, which is only active at
+     * or above the given run level.  An immediate validator runs as the attribute is changed, and its failure
+     * fails the change; other validators run in bulk during the next validation phase, which is either a run level
+     * transition or a call to {@link #validate(Listener)}.  Changes made before the validator's run level is
+     * reached are validated when it is reached.
+     *
+     * @param pattern the address pattern, which may contain wildcard or multi-value elements
+     * @param attributeName the name of the attribute to validate
+     * @param runLevel the run level at which the validator becomes active
+     * @param immediate {@code true} to validate as the attribute is changed, {@code false} to wait for the
+     *      validation phase
+     * @param validator the validator
+     * @return {@code true} if the validator was added, {@code false} if it was already registered for the pattern
+     *      and attribute
+     */
+    public boolean addAttributeValidator(PathAddress pattern, String attributeName, RunLevel runLevel, boolean immediate, AttributeValidator<?, ?> validator) {
+        if (attributeName == null) {
+            throw new IllegalArgumentException("attributeName is null");
+        }
+        return attributeValidators.insert(pattern, register(pattern, runLevel, validator, attributeName, immediate));
+    }
+
+    /**
+     * Remove an attribute validator registration.
+     *
+     * @param pattern the address pattern the validator was registered for
+     * @param attributeName the name of the validated attribute
+     * @param validator the validator
+     * @return {@code true} if the validator was removed, {@code false} if it was not registered for the pattern
+     *      and attribute
+     */
+    public boolean removeAttributeValidator(PathAddress pattern, String attributeName, AttributeValidator<?, ?> validator) {
+        return attributeValidators.remove(pattern, register(pattern, RunLevel.STOPPED, validator, attributeName, false));
+    }
+
+    private static RunLevelRegistration register(final PathAddress pattern, final RunLevel runLevel, final Object target, final String attributeName, final boolean immediate) {
+        if (runLevel == null) {
+            throw new IllegalArgumentException("runLevel is null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("target is null");
+        }
+        return new RunLevelRegistration(pattern, runLevel, target, attributeName, immediate);
+    }
+
+    /**
+     * Get the way in which commits deliver their changes to listeners.
+     *
+     * @return the listener dispatch mode
+     */
+    public ListenerDispatchMode getListenerDispatchMode() {
+        return listenerDispatchMode;
+    }
+
+    /**
+     * Set the way in which commits deliver their changes to listeners.  The mode applies to commits which
+     * make their first change to this system after it is set.
+     *
+     * @param listenerDispatchMode the listener dispatch mode
+     */
+    public void setListenerDispatchMode(final ListenerDispatchMode listenerDispatchMode) {
+        if (listenerDispatchMode == null) {
+            throw new IllegalArgumentException("listenerDispatchMode is null");
+        }
+        this.listenerDispatchMode = listenerDispatchMode;
+    }
+
+    /**
+     * Set the executor on which listener callbacks run.  Callbacks for changes to the same address run one at a
+     * time, in the order of the changes; callbacks for different addresses may run in parallel.
+     *
+     * @param executor the executor, or {@code null} to run listener callbacks on the committing thread
+     */
+    public void setListenerExecutor(final Executor executor) {
+        listenerExecutor = executor == null ? null : new OrderedExecutor(executor);
+    }
+
+    /**
+     * Set the journal to which the changes committed to this system are written.  Each commit then writes its
+     * changes to disk before they become visible, and fails if they cannot be written.  The journal should have been {@linkplain ModelJournal#replay replayed} first.
+     *
+     * @param journal the journal, or {@code null} for none
+     */
+    public void setJournal(final ModelJournal journal) {
+        this.journal = journal;
+    }
+
+    ModelJournal getJournal() {
+        return journal;
     }
 
     public static TransactionalContext setTransactionalContext(TransactionalContext context) {
@@ -80,11 +969,334 @@ public final class ManagedSystem {
         return SYS_CONTEXT.get();
     }
 
+    /**
+     * Set the executor on which run level transitions and validation phases run their work.  Independent work,
+     * such as the listener callbacks for different resources at the same depth, or the validations of different
+     * resources, runs in parallel on this executor.
+     *
+     * @param executor the executor, or {@code null} to run the work on the calling thread
+     */
+    public void setRunLevelExecutor(final Executor executor) {
+        runLevelExecutor = executor;
+    }
+
+    /**
+     * Get the failures of the last completed run level transition or validation phase.
+     *
+     * @return the failures, which are empty if it succeeded
+     */
+    public List<Throwable> getRunLevelFailures() {
+        return scheduleFailures;
+    }
+
+    /**
+     * Change the run level of this system, as part of the transaction of the current thread, which must be a
+     * {@link ModelChangeContext}.
+     * <p>
+     * When moving up, each level in turn is activated: resource listeners registered for the level are called with
+     * every existing resource they match as an added resource, parents before children; then the resource validators
+     * registered for the level validate every resource they match, and deferred attribute and resource validations
+     * run in bulk.  When moving down, each level in turn is deactivated by calling its resource listeners with every
+     * resource they match as a removed resource, children before parents.  Attribute listeners simply become active
+     * or inactive.  The callbacks of each step run in parallel on the {@linkplain #setRunLevelExecutor(Executor) run
+     * level executor}.
+     * <p>
+     * If any callback fails, the transition stops at the last level it fully reached, and the failures are
+     * available from {@link #getRunLevelFailures()}.  Either way, the completion listener is called once the
+     * transition is over.
+     *
+     * @param oldLevel the run level the system is expected to be at
+     * @param newLevel the run level to change to
+     * @param completionListener the listener to call when the transition is complete, or {@code null} for none
+     * @return {@code true} if the transition was started, {@code false} if the system is not at the expected level
+     *      or another transition or validation phase is in progress
+     * @throws IllegalStateException if the current thread has no model change transaction
+     */
     public boolean changeRunLevel(RunLevel oldLevel, RunLevel newLevel, Listener<ManagedSystem> completionListener) {
-        final TransactionalContext context = SYS_CONTEXT.get();
+        if (oldLevel == null) {
+            throw new IllegalArgumentException("oldLevel is null");
+        }
+        if (newLevel == null) {
+            throw new IllegalArgumentException("newLevel is null");
+        }
+        final ModelChangeContext context = getChangeContext();
         if (context == null) {
-            throw new IllegalStateException("No transaction");
+            throw new IllegalStateException("The current thread has no model change transaction");
+        }
+        final RunLevelSchedule schedule = beginSchedule(oldLevel, completionListener);
+        if (schedule == null) {
+            return false;
+        }
+        final RunLevel[] levels = RunLevel.values();
+        if (newLevel.compareTo(oldLevel) > 0) {
+            for (int i = oldLevel.ordinal() + 1; i <= newLevel.ordinal(); i ++) {
+                addActivationSteps(schedule, levels[i - 1], levels[i], context);
+            }
+        } else {
+            for (int i = oldLevel.ordinal(); i > newLevel.ordinal(); i --) {
+                addDeactivationSteps(schedule, levels[i], levels[i - 1], context);
+            }
         }
+        schedule.run();
+        return true;
+    }
+
+    /**
+     * Run a validation phase as part of the transaction of the current thread, which must be a
+     * {@link ModelChangeContext}.  The deferred validations of the changes made since the last validation phase run
+     * in bulk, in parallel on the {@linkplain #setRunLevelExecutor(Executor) run level executor}.  Failures are
+     * available from {@link #getRunLevelFailures()} once the completion listener is called.
+     *
+     * @param completionListener the listener to call when the validation phase is complete, or {@code null} for
+     *      none
+     * @return {@code true} if the validation phase was started, {@code false} if a run level transition or another
+     *      validation phase is in progress
+     * @throws IllegalStateException if the current thread has no model change transaction
+     */
+    public boolean validate(Listener<ManagedSystem> completionListener) {
+        final ModelChangeContext context = getChangeContext();
+        if (context == null) {
+            throw new IllegalStateException("The current thread has no model change transaction");
+        }
+        final RunLevel level = runLevel;
+        final RunLevelSchedule schedule = beginSchedule(level, completionListener);
+        if (schedule == null) {
+            return false;
+        }
+        schedule.addStep(validationStep(level, null, context));
+        schedule.run();
+        return true;
+    }
+
+    private RunLevelSchedule beginSchedule(final RunLevel expectedLevel, final Listener<ManagedSystem> completionListener) {
+        synchronized (this) {
+            if (schedule != null || runLevel != expectedLevel) {
+                return null;
+            }
+            return schedule = new RunLevelSchedule(runLevelExecutor, new Runnable() {
+                public void run() {
+                    synchronized (ManagedSystem.this) {
+                        final List<Throwable> failures = schedule.getFailures();
+                        if (! failures.isEmpty()) {
+                            // stay at the last level which was fully reached
+                            activeLevel = runLevel;
+                        }
+                        scheduleFailures = Collections.unmodifiableList(failures);
+                        schedule = null;
+                    }
+                    if (completionListener != null) {
+                        completionListener.handleEvent(ManagedSystem.this);
+                    }
+                }
+            });
+        }
+    }
+
+    private void addActivationSteps(final RunLevelSchedule schedule, final RunLevel previous, final RunLevel level, final ModelChangeContext context) {
+        schedule.addStep(levelStep(level, null));
+        for (List<RunLevelRegistration> registrations : getListenersByDepth(level, false)) {
+            schedule.addStep(replayStep(registrations, true, context));
+        }
+        schedule.addStep(validationStep(previous, level, context));
+        schedule.addStep(levelStep(level, level));
+    }
+
+    private void addDeactivationSteps(final RunLevelSchedule schedule, final RunLevel level, final RunLevel next, final ModelChangeContext context) {
+        schedule.addStep(levelStep(next, null));
+        for (List<RunLevelRegistration> registrations : getListenersByDepth(level, true)) {
+            schedule.addStep(replayStep(registrations, false, context));
+        }
+        schedule.addStep(levelStep(next, next));
+    }
+
+    /**
+     * Get the resource listeners registered for exactly the given run level, grouped by the depth of their address
+     * pattern.  Groups at the same depth have no dependencies on each other.
+     */
+    private Iterable<List<RunLevelRegistration>> getListenersByDepth(final RunLevel level, final boolean deepestFirst) {
+        final List<RunLevelRegistration> all = new ArrayList<>();
+        resourceListeners.getAllUnder(PathAddress.EMPTY_ADDRESS, all);
+        resourceBatchListeners.getAllUnder(PathAddress.EMPTY_ADDRESS, all);
+        final TreeMap<Integer, List<RunLevelRegistration>> byDepth = new TreeMap<>();
+        for (RunLevelRegistration registration : all) {
+            if (registration.getRunLevel() != level) {
+                continue;
+            }
+            final Integer depth = Integer.valueOf(registration.getPattern().size());
+            List<RunLevelRegistration> list = byDepth.get(depth);
+            if (list == null) {
+                byDepth.put(depth, list = new ArrayList<>());
+            }
+            list.add(registration);
+        }
+        return deepestFirst ? byDepth.descendingMap().values() : byDepth.values();
+    }
+
+    private RunLevelSchedule.Step levelStep(final RunLevel active, final RunLevel reached) {
+        return new RunLevelSchedule.Step() {
+            public void start(final List<Runnable> tasks) {
+                synchronized (ManagedSystem.this) {
+                    activeLevel = active;
+                    if (reached != null) {
+                        runLevel = reached;
+                    }
+                }
+            }
+        };
+    }
 
+    /**
+     * Replay the existing resources to resource listeners as added or removed resources.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private RunLevelSchedule.Step replayStep(final List<RunLevelRegistration> registrations, final boolean added, final ModelChangeContext context) {
+        return new RunLevelSchedule.Step() {
+            public void start(final List<Runnable> tasks) {
+                for (RunLevelRegistration registration : registrations) {
+                    final Object listener = registration.getTarget();
+                    final Iterator<Map.Entry<PathAddress, Resource>> matches = index.resolve(registration.getPattern());
+                    if (listener instanceof ResourceBatchListener) {
+                        final List batch = new ArrayList<>();
+                        while (matches.hasNext()) {
+                            final Map.Entry<PathAddress, Resource> entry = matches.next();
+                            final Resource resource = valueOf(entry.getValue());
+                            batch.add(added ? new ResourceChange<>(entry.getKey(), ResourceChange.Kind.ADDED, null, resource) : new ResourceChange<>(entry.getKey(), ResourceChange.Kind.REMOVED, resource, null));
+                        }
+                        if (batch.isEmpty()) {
+                            continue;
+                        }
+                        tasks.add(new Runnable() {
+                            public void run() {
+                                ((ResourceBatchListener) listener).resourcesChanged(context, batch);
+                            }
+                        });
+                        continue;
+                    }
+                    final ResourceListener resourceListener = (ResourceListener) listener;
+                    while (matches.hasNext()) {
+                        final Resource resource = valueOf(matches.next().getValue());
+                        tasks.add(new Runnable() {
+                            public void run() {
+                                if (added) {
+                                    resourceListener.resourceAdded(context, resource);
+                                } else {
+                                    resourceListener.resourceRemoved(context, resource);
+                                }
+                            }
+                        });
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Run a validation phase.  Resource validators of the newly activated level validate every resource they
+     * match; the queued resource validations are run by the validators which were already active, and the queued
+     * attribute validations by every active validator which has not yet seen the change.
+     *
+     * @param activeBefore the highest level which was already active
+     * @param activated the newly activated level, or {@code null} if no level is being activated
+     * @param context the validation context
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private RunLevelSchedule.Step validationStep(final RunLevel activeBefore, final RunLevel activated, final ValidateContext context) {
+        return new RunLevelSchedule.Step() {
+            public void start(final List<Runnable> tasks) {
+                final List<RunLevelRegistration> validators = new ArrayList<>();
+                if (activated != null) {
+                    resourceValidators.getAllUnder(PathAddress.EMPTY_ADDRESS, validators);
+                    for (RunLevelRegistration registration : validators) {
+                        if (registration.getRunLevel() != activated) {
+                            continue;
+                        }
+                        final Iterator<Map.Entry<PathAddress, Resource>> matches = index.resolve(registration.getPattern());
+                        while (matches.hasNext()) {
+                            addResourceValidation(tasks, (ResourceValidator) registration.getTarget(), valueOf(matches.next().getValue()), context);
+                        }
+                    }
+                    validators.clear();
+                }
+                for (PathAddress address : pendingResourceValidations.keySet()) {
+                    final Resource resource = pendingResourceValidations.remove(address);
+                    if (resource == null) {
+                        continue;
+                    }
+                    for (RunLevelRegistration registration : resourceValidators.getMatching(address, validators)) {
+                        if (registration.isActiveAt(activeBefore)) {
+                            addResourceValidation(tasks, (ResourceValidator) registration.getTarget(), resource, context);
+                        }
+                    }
+                    validators.clear();
+                }
+                final RunLevel level = activated == null ? activeBefore : activated;
+                for (ModelChangeSet.AttributeKey key : pendingAttributeValidations.keySet()) {
+                    final PendingAttributeValidation validation = pendingAttributeValidations.get(key);
+                    if (validation == null) {
+                        continue;
+                    }
+                    final AttributeChange change = validation.change;
+                    boolean remaining = false;
+                    for (RunLevelRegistration registration : attributeValidators.getMatching(change.getAddress(), validators)) {
+                        if (! change.getAttributeName().equals(registration.getAttributeName())) {
+                            continue;
+                        }
+                        if (! registration.isActiveAt(level)) {
+                            remaining = true;
+                        } else if (validation.isPending(registration)) {
+                            final AttributeValidator validator = (AttributeValidator) registration.getTarget();
+                            tasks.add(new Runnable() {
+                                public void run() {
+                                    validator.validate(change.getResourceAfter(), change.getAttributeName(), change.getOldValue(), change.getNewValue(), context);
+                                }
+                            });
+                        }
+                    }
+                    validators.clear();
+                    if (remaining) {
+                        pendingAttributeValidations.replace(key, validation, new PendingAttributeValidation(change, validation.immediateLevel, level));
+                    } else {
+                        pendingAttributeValidations.remove(key, validation);
+                    }
+                }
+            }
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void addResourceValidation(final List<Runnable> tasks, final ResourceValidator validator, final Resource resource, final ValidateContext context) {
+        tasks.add(new Runnable() {
+            public void run() {
+                validator.validate(resource, context);
+            }
+        });
+    }
+
+    /**
+     * An attribute change awaiting validation.
+     */
+    static final class PendingAttributeValidation {
+        final AttributeChange<?, ?> change;
+        /**
+         * The active level when the change was made, up to which immediate validators have already run.
+         */
+        final RunLevel immediateLevel;
+        /**
+         * The level up to which deferred validators have already run, or {@code null} if none have.
+         */
+        final RunLevel validatedLevel;
+
+        PendingAttributeValidation(final AttributeChange<?, ?> change, final RunLevel immediateLevel, final RunLevel validatedLevel) {
+            this.change = change;
+            this.immediateLevel = immediateLevel;
+            this.validatedLevel = validatedLevel;
+        }
+
+        boolean isPending(final RunLevelRegistration registration) {
+            if (validatedLevel != null && registration.isActiveAt(validatedLevel)) {
+                return false;
+            }
+            return ! (registration.isImmediate() && registration.isActiveAt(immediateLevel));
+        }
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import org.jboss.msc.txn.TransactionalContext;
+
+/**
+ * A controller of a booted managed system.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ManagedSystemController implements Controller {
+    private final ManagedSystem system;
+    private final BootTimings bootTimings;
+
+    ManagedSystemController(final ManagedSystem system, final BootTimings bootTimings) {
+        this.system = system;
+        this.bootTimings = bootTimings;
+    }
+
+    public void transition(final RunLevel runLevel, final Object transactionalContext) {
+        final TransactionalContext previous = ManagedSystem.setTransactionalContext((TransactionalContext) transactionalContext);
+        try {
+            if (! system.changeRunLevel(system.getRunLevel(), runLevel, null)) {
+                throw new IllegalStateException("A run level transition is already in progress");
+            }
+        } finally {
+            ManagedSystem.setTransactionalContext(previous);
+        }
+    }
+
+    public RunLevel getRunLevel() {
+        return system.getRunLevel();
+    }
+
+    public BootTimings getBootTimings() {
+        return bootTimings;
+    }
+}
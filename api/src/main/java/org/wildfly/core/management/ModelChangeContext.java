@@ -22,9 +22,28 @@ import org.jboss.msc.txn.CancellableContext;
 import org.jboss.msc.txn.ReportableContext;
 import org.jboss.msc.txn.SimpleWorkContext;
 import org.jboss.msc.txn.TransactionalContext;
+import org.jboss.msc.txn.ValidateContext;
 
 /**
  *
  */
-public interface ModelChangeContext extends TransactionalContext, ReportableContext, CancellableContext, SimpleWorkContext {
+public interface ModelChangeContext extends TransactionalContext, ReportableContext, CancellableContext, SimpleWorkContext, ValidateContext {
+
+    /**
+     * Get the model locks of this change.  A change which cannot be retried optimistically, such as one with
+     * service side effects, requests the addresses it reads and writes, and then makes its changes in a
+     * {@linkplain ModelCommit#begin(ManagedSystem, ModelLocks) locked commit}, which acquires the locks before any
+     * change is made and releases them once the changes are published or discarded.
+     *
+     * @return the model locks of this change
+     */
+    ModelLocks getModelLocks();
+
+    /**
+     * Get the completion tracker for the listener callbacks dispatched for this change.  Callbacks which run
+     * asynchronously report their completion here, so that the change can wait for them before completing.
+     *
+     * @return the listener completion tracker
+     */
+    ListenerCompletion getListenerCompletion();
 }
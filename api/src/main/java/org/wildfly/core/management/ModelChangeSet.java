@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The resource and attribute changes made to one managed system by one commit, in the order they were made.  A
+ * coalescing change set keeps at most one change per resource and per attribute, merging each new change into
+ * the one already recorded.  Once a resource is removed, or added and removed again, within a coalescing change set,
+ * the attribute changes recorded for it and for the resources below it are dropped, since they no longer describe
+ * anything which exists.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ModelChangeSet {
+    private final boolean coalesce;
+    private final ModelChangeContext context;
+    private final ListenerCompletion completion;
+    /**
+     * The resource and attribute changes, in the order they were first recorded, keyed by address or by
+     * {@link AttributeKey} when coalescing, or by sequence number otherwise.
+     */
+    private final Map<Object, Object> changes = new LinkedHashMap<>();
+    /**
+     * The sequence number used to key changes which are not coalesced.
+     */
+    private int sequence;
+
+    ModelChangeSet(final boolean coalesce, final ModelChangeContext context) {
+        this.coalesce = coalesce;
+        this.context = context;
+        completion = context == null ? new ListenerCompletion() : context.getListenerCompletion();
+    }
+
+    ModelChangeContext getContext() {
+        return context;
+    }
+
+    ListenerCompletion getCompletion() {
+        return completion;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void add(final ResourceChange<?> change) {
+        if (! coalesce) {
+            changes.put(Integer.valueOf(sequence ++), change);
+            return;
+        }
+        final PathAddress key = change.getAddress();
+        final ResourceChange<?> existing = (ResourceChange<?>) changes.get(key);
+        if (existing == null) {
+            changes.put(key, change);
+        } else {
+            final ResourceChange<?> merged = ResourceChange.coalesce((ResourceChange) existing, (ResourceChange) change);
+            if (merged == null) {
+                changes.remove(key);
+            } else {
+                changes.put(key, merged);
+            }
+        }
+        if (change.getKind() == ResourceChange.Kind.REMOVED) {
+            final Iterator<Map.Entry<Object, Object>> iterator = changes.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Object, Object> entry = iterator.next();
+                if (entry.getKey() instanceof AttributeKey && isAtOrBelow(((AttributeKey) entry.getKey()).address, key)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean isAtOrBelow(PathAddress address, final PathAddress base) {
+        final int size = base.size();
+        while (address.size() > size) {
+            address = address.getParent();
+        }
+        return address.equals(base);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void add(final AttributeChange<?, ?> change) {
+        if (! coalesce) {
+            changes.put(Integer.valueOf(sequence ++), change);
+            return;
+        }
+        final AttributeKey key = new AttributeKey(change.getAddress(), change.getAttributeName());
+        final AttributeChange<?, ?> existing = (AttributeChange<?, ?>) changes.get(key);
+        if (existing == null) {
+            changes.put(key, change);
+        } else {
+            final AttributeChange<?, ?> merged = AttributeChange.coalesce((AttributeChange) existing, (AttributeChange) change);
+            if (merged == null) {
+                changes.remove(key);
+            } else {
+                changes.put(key, merged);
+            }
+        }
+    }
+
+    /**
+     * Get the changes in the order they were recorded.  Each is either a {@link ResourceChange} or an
+     * {@link AttributeChange}.  A coalesced change keeps the position of the first change it was merged from.
+     *
+     * @return the changes
+     */
+    Collection<Object> getChanges() {
+        return changes.values();
+    }
+
+    boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    static final class AttributeKey {
+        private final PathAddress address;
+        private final String attributeName;
+
+        AttributeKey(final PathAddress address, final String attributeName) {
+            this.address = address;
+            this.attributeName = attributeName;
+        }
+
+        public int hashCode() {
+            return address.hashCode() * 31 + attributeName.hashCode();
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof AttributeKey && address.equals(((AttributeKey) obj).address) && attributeName.equals(((AttributeKey) obj).attributeName);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set of node changes which are published together as one version of a management model.  While a commit is in
+ * progress on a thread, node changes made by that thread are staged in the commit rather than published, and reads
+ * made by that thread see the staged values.  Other threads see none of the changes until {@link #commit()}
+ * publishes all of them at once.  A commit changes the nodes of only one model.
+ * <p>
+ * Changes to the resources of a managed system are reported to the system as they are staged, so that it can
+ * validate them and record the resulting resource and attribute changes.  The recorded changes are written to the
+ * system's journal, if it has one, just before they are published, and delivered to its listeners once they are.
+ * <pre>
+ *     try (ModelCommit commit = ModelCommit.begin(system)) {
+ *         // change nodes...
+ *         commit.commit();
+ *     }
+ * </pre>
+ * A change which cannot be retried if it conflicts with another, such as one with service side effects, locks the
+ * parts of the model it changes for the duration of its commit instead:
+ * <pre>
+ *     ModelLocks locks = system.getLockManager().newLocks();
+ *     locks.lockExclusive(profileAddress);
+ *     try (ModelCommit commit = ModelCommit.begin(system, locks)) {
+ *         // change nodes under the profile...
+ *         commit.commit();
+ *     }
+ * </pre>
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelCommit implements AutoCloseable {
+    static final Object REMOVED = new Object();
+
+    private final ModelVersions versions;
+    private final Map<AbstractMutableNode<?>, Object> values = new IdentityHashMap<>();
+    private final Set<PathAddress> writes = new HashSet<>();
+    /**
+     * The resources added and removed by this commit, by address, which lookups made by this commit see in
+     * place of the index of the system.
+     */
+    private final Map<PathAddress, Object> staged = new HashMap<>();
+    private final List<Runnable> commitActions = new ArrayList<>();
+    private ModelChangeSet changeSet;
+    private boolean done;
+    /**
+     * The locks which the writes of this commit must be covered by, or {@code null} if it is not locked.
+     */
+    private ModelLocks locks;
+    /**
+     * {@code true} if this commit acquired its locks, and so releases them when it completes.
+     */
+    private boolean releaseLocks;
+
+    private ModelCommit(final ModelVersions versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * Begin a commit to the model of a managed system on the current thread.
+     *
+     * @param system the managed system
+     * @return the commit
+     * @throws IllegalStateException if a commit is already in progress on the current thread
+     */
+    public static ModelCommit begin(ManagedSystem system) {
+        return begin(system.getVersions());
+    }
+
+    /**
+     * Begin a commit to the model of a managed system on the current thread, under a set of model locks.  Every
+     * resource which the commit writes must be at or below an address which is locked exclusively.  If the locks
+     * are not yet acquired, they are acquired first, waiting as long as necessary, and released once the commit is
+     * published or discarded; locks which were acquired beforehand, such as with a timeout, are left to the caller
+     * to release.
+     *
+     * @param system the managed system
+     * @param locks the locks of the commit, from the lock manager of the system
+     * @return the commit
+     * @throws InterruptedException if the thread was interrupted while acquiring the locks
+     * @throws IllegalArgumentException if the locks belong to another lock manager
+     * @throws IllegalStateException if a commit is already in progress on the current thread
+     */
+    public static ModelCommit begin(ManagedSystem system, ModelLocks locks) throws InterruptedException {
+        if (locks.getManager() != system.getLockManager()) {
+            throw new IllegalArgumentException("Locks do not belong to the lock manager of the system");
+        }
+        final boolean acquire = ! locks.isAcquired();
+        if (acquire) {
+            locks.acquire();
+        }
+        boolean ok = false;
+        try {
+            final ModelCommit commit = begin(system.getVersions());
+            commit.locks = locks;
+            commit.releaseLocks = acquire;
+            ok = true;
+            return commit;
+        } finally {
+            if (! ok && acquire) {
+                locks.close();
+            }
+        }
+    }
+
+    /**
+     * Begin a commit to nodes which are not part of any managed system on the current thread.
+     *
+     * @return the commit
+     * @throws IllegalStateException if a commit is already in progress on the current thread
+     */
+    public static ModelCommit begin() {
+        return begin(ModelVersions.DETACHED);
+    }
+
+    static ModelCommit begin(ModelVersions versions) {
+        final ModelVersions.ThreadState state = ModelVersions.getOrCreateThreadState();
+        if (state.commit != null) {
+            throw new IllegalStateException("A commit is already in progress on this thread");
+        }
+        final ModelCommit commit = new ModelCommit(versions);
+        state.commit = commit;
+        ModelVersions.scopeOpened();
+        return commit;
+    }
+
+    /**
+     * Get the commit in progress on the current thread.
+     *
+     * @return the commit, or {@code null} if there is none
+     */
+    public static ModelCommit current() {
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        return state == null ? null : state.commit;
+    }
+
+    ModelVersions getVersions() {
+        return versions;
+    }
+
+    Object getStaged(AbstractMutableNode<?> node) {
+        return values.get(node);
+    }
+
+    void stage(AbstractMutableNode<?> node, Object value) {
+        checkActive();
+        if (node.getVersions() != versions) {
+            throw new IllegalStateException("Node belongs to a different model than the commit in progress");
+        }
+        final Object original = node.getCurrent();
+        final Object previous = values.put(node, value);
+        boolean ok = false;
+        try {
+            final PathAddress address = node.getWriteAddress();
+            checkLocked(address);
+            node.changed(this, original, value);
+            writes.add(address);
+            ok = true;
+        } finally {
+            if (! ok) {
+                if (previous == null) {
+                    values.remove(node);
+                } else {
+                    values.put(node, previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a write of the resource at an address.
+     *
+     * @param address the address
+     */
+    void write(PathAddress address) {
+        checkActive();
+        checkLocked(address);
+        writes.add(address);
+    }
+
+    private void checkLocked(PathAddress address) {
+        final ModelLocks locks = this.locks;
+        if (locks != null && ! locks.isLockedExclusive(address)) {
+            throw new IllegalStateException("Address " + address.toCLIStyleString() + " is not locked exclusively by the commit in progress");
+        }
+    }
+
+    Set<PathAddress> getWrites() {
+        return writes;
+    }
+
+    /**
+     * Stage the registration of a resource, or of the handle of a lazily constructed one, at an address.
+     *
+     * @param address the address
+     * @param target the resource or handle
+     */
+    void stageResource(PathAddress address, Object target) {
+        staged.put(address, target);
+    }
+
+    /**
+     * Stage the removal of the resource at an address, and of everything below it.
+     *
+     * @param address the address
+     */
+    void stageRemoval(PathAddress address) {
+        staged.put(address, REMOVED);
+    }
+
+    /**
+     * Get the resources added and removed by this commit.
+     *
+     * @return the resources, or handles, or {@link #REMOVED}, by address
+     */
+    Map<PathAddress, Object> getStagedResources() {
+        return staged;
+    }
+
+    /**
+     * Look up a resource added or removed by this commit.  The nearest staged address at or above the given
+     * address decides: a resource registered at the address itself is returned, and anything else means that the
+     * address was removed or replaced by this commit.
+     *
+     * @param address the address
+     * @return the resource or handle, {@link #REMOVED} if there is none, or {@code null} if this commit did not
+     *      change the address
+     */
+    Object getStagedResource(PathAddress address) {
+        if (staged.isEmpty()) {
+            return null;
+        }
+        for (PathAddress current = address;; current = current.getParent()) {
+            final Object target = staged.get(current);
+            if (target != null) {
+                return current == address ? target : REMOVED;
+            }
+            if (current.size() == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Register an action to run once this commit is published.
+     *
+     * @param action the action
+     */
+    void onCommit(Runnable action) {
+        checkActive();
+        commitActions.add(action);
+    }
+
+    /**
+     * Get the set of changes this commit has made to its managed system, creating it with the context of the
+     * first change.
+     *
+     * @param context the change context
+     * @return the change set
+     */
+    ModelChangeSet getChangeSet(ModelChangeContext context) {
+        checkActive();
+        ModelChangeSet changeSet = this.changeSet;
+        if (changeSet == null) {
+            this.changeSet = changeSet = new ModelChangeSet(versions.getSystem().getListenerDispatchMode() == ListenerDispatchMode.BATCHED, context);
+        }
+        return changeSet;
+    }
+
+    /**
+     * Get the set of changes this commit has made to its managed system.
+     *
+     * @return the change set, or {@code null} if no change was recorded
+     */
+    ModelChangeSet getChangeSet() {
+        return changeSet;
+    }
+
+    /**
+     * Publish the staged changes as a new model version, and end this commit.
+     *
+     * @return the published version, or the current version if nothing was changed
+     * @throws IllegalStateException if this commit was already completed or discarded, or if its changes could not
+     *      be written to the journal of the system, in which case they are discarded
+     */
+    public long commit() {
+        return commit(null);
+    }
+
+    long commit(ModelTransaction transaction) throws ModelConflictException {
+        checkActive();
+        finish();
+        final ModelChangeSet changeSet = this.changeSet;
+        final ModelJournal journal = changeSet == null ? null : versions.getSystem().getJournal();
+        byte[] record = null;
+        if (journal != null) {
+            // encoded before the commit lock is taken
+            try {
+                record = ModelJournal.encode(changeSet);
+            } catch (IOException e) {
+                throw new IllegalStateException(MESSAGES.journalWriteFailed(), e);
+            }
+        }
+        final long version = versions.publish(values, writes, transaction, journal, record);
+        for (AbstractMutableNode<?> node : values.keySet()) {
+            node.published();
+        }
+        for (Runnable action : commitActions) {
+            action.run();
+        }
+        // the changes are visible, so later changes to the locked subtrees may proceed
+        releaseLocks();
+        if (changeSet != null) {
+            versions.getSystem().deliver(changeSet);
+        }
+        return version;
+    }
+
+    /**
+     * Discard the staged changes, unless this commit was already published, and release the locks which this
+     * commit acquired.
+     */
+    public void close() {
+        if (! done) {
+            finish();
+            values.clear();
+        }
+        releaseLocks();
+    }
+
+    private void releaseLocks() {
+        if (releaseLocks) {
+            releaseLocks = false;
+            locks.close();
+        }
+    }
+
+    private void checkActive() {
+        if (done) {
+            throw new IllegalStateException("Commit is already complete");
+        }
+    }
+
+    private void finish() {
+        done = true;
+        ModelVersions.scopeClosed();
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        if (state != null && state.commit == this) {
+            state.commit = null;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * An append-only journal of committed model changes, as an alternative to rewriting a whole configuration file on
+ * every change.  Each committed change set of a {@linkplain ManagedSystem#setJournal(ModelJournal) journaled
+ * system} becomes one compact binary record of the changed addresses, attribute names and new values.  A record is
+ * encoded before its commit takes the commit lock, and is written and synced to disk under the lock, after the
+ * commit is validated and before its changes become visible; so every change which a reader or listener has seen
+ * is durable, and a commit whose record cannot be written fails without publishing anything.  Once a write has
+ * failed, the journal may end with a partial record, and every later commit fails too.
+ * <p>
+ * A {@linkplain #snapshot(RootResource) snapshot} writes the whole model through its {@code toXml} path and then
+ * compacts the journal behind it.  Snapshots are taken one at a time, while commits continue.  On boot,
+ * {@link #replay(ReplayHandler)} delivers the latest snapshot and then every record written after it.  Records
+ * carry the state after each change rather than the change itself, so replaying a record whose change the snapshot
+ * already contains is harmless.
+ * <p>
+ * The journal directory holds two files: {@code model.snapshot}, a header followed by the snapshot XML, and
+ * {@code model.journal}, a sequence of length-prefixed, checksummed records.  A record torn by a crash is
+ * discarded on replay.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelJournal implements AutoCloseable {
+
+    private static final long SNAPSHOT_MAGIC = 0x57464D534E415031L;
+    private static final int SNAPSHOT_HEADER_LENGTH = 16;
+
+    private static final int RESOURCE_ADDED = 1;
+    private static final int RESOURCE_CHANGED = 2;
+    private static final int RESOURCE_REMOVED = 3;
+    private static final int ATTRIBUTE_SET = 4;
+    private static final int ATTRIBUTE_REMOVED = 5;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final Object lock = new Object();
+    /**
+     * Held while a snapshot is written, so that concurrent snapshots do not share the temporary file.
+     */
+    private final Object snapshotLock = new Object();
+
+    // Guarded by lock
+
+    private FileChannel channel;
+    private List<byte[]> pending = new ArrayList<>();
+    /**
+     * The sequence number of the last record appended, of the last record known to be on disk, and of the last
+     * record whose changes are visible.
+     */
+    private long appended;
+    private long synced;
+    private long published;
+    private boolean writing;
+    private boolean replayed;
+    private IOException failure;
+
+    /**
+     * Open the journal in a directory, creating the directory if needed.  Records may not be appended until the
+     * journal has been {@linkplain #replay(ReplayHandler) replayed}.
+     *
+     * @param directory the journal directory
+     * @throws IOException if the directory or journal file could not be opened
+     */
+    public ModelJournal(final File directory) throws IOException {
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+        snapshotFile = new File(directory, "model.snapshot");
+        journalFile = new File(directory, "model.journal");
+        channel = new RandomAccessFile(journalFile, "rw").getChannel();
+    }
+
+    /**
+     * A receiver of the journal content on boot.
+     */
+    public interface ReplayHandler {
+
+        /**
+         * Read the latest snapshot.  Not called if no snapshot was ever taken.
+         *
+         * @param xml the snapshot XML document
+         * @throws IOException if the snapshot cannot be read
+         */
+        void snapshot(InputStream xml) throws IOException;
+
+        /**
+         * Replay the addition of a resource.  The resource may already exist, if the snapshot contains it.
+         *
+         * @param address the resource address
+         * @param model the resource content
+         */
+        void resourceAdded(PathAddress address, ModelNode model);
+
+        /**
+         * Replay a change to a resource.
+         *
+         * @param address the resource address
+         * @param model the resource content after the change
+         */
+        void resourceChanged(PathAddress address, ModelNode model);
+
+        /**
+         * Replay the removal of a resource.  The resource may already be gone, if the snapshot does not contain it.
+         *
+         * @param address the resource address
+         */
+        void resourceRemoved(PathAddress address);
+
+        /**
+         * Replay a change to an attribute.
+         *
+         * @param address the resource address
+         * @param attributeName the attribute name
+         * @param value the attribute value after the change, or {@code null} if the attribute was removed
+         */
+        void attributeChanged(PathAddress address, String attributeName, ModelNode value);
+    }
+
+    /**
+     * Replay the latest snapshot and the journal records written after it.  A torn record at the end of the
+     * journal, and anything after it, is truncated.
+     *
+     * @param handler the replay handler
+     * @return the number of records replayed
+     * @throws IOException if the snapshot or journal cannot be read
+     */
+    public long replay(ReplayHandler handler) throws IOException {
+        synchronized (lock) {
+            checkOpen();
+            long snapshotSequence = 0L;
+            if (snapshotFile.exists()) {
+                try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                    if (stream.readLong() != SNAPSHOT_MAGIC) {
+                        throw new IOException("Invalid snapshot file " + snapshotFile);
+                    }
+                    snapshotSequence = stream.readLong();
+                    handler.snapshot(stream);
+                }
+            }
+            long last = snapshotSequence;
+            long count = 0L;
+            long valid = 0L;
+            channel.position(0L);
+            final DataInputStream stream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            for (;;) {
+                final byte[] payload = readRecord(stream, channel.size());
+                if (payload == null) {
+                    break;
+                }
+                valid += 8 + payload.length;
+                final DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                final long sequence = record.readLong();
+                if (sequence > snapshotSequence) {
+                    replayRecord(record, handler);
+                    count ++;
+                }
+                last = Math.max(last, sequence);
+            }
+            channel.truncate(valid);
+            channel.position(valid);
+            appended = synced = published = last;
+            replayed = true;
+            return count;
+        }
+    }
+
+    /**
+     * Encode a change set as the body of a record.
+     *
+     * @param changes the changes
+     * @return the record body, or {@code null} if there are no changes
+     * @throws IOException if a value could not be encoded
+     */
+    static byte[] encode(ModelChangeSet changes) throws IOException {
+        return changes.isEmpty() ? null : encodeBody(changes);
+    }
+
+    /**
+     * Append an encoded change set, returning once it is on disk.  Called with the commit lock of the journaled
+     * system held, before the changes are published.
+     *
+     * @param body the record body
+     * @return the sequence number of the record
+     * @throws IOException if the journal could not be written
+     */
+    long append(byte[] body) throws IOException {
+        final long sequence;
+        synchronized (lock) {
+            checkOpen();
+            if (! replayed) {
+                throw new IllegalStateException("Journal must be replayed before changes are appended");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            sequence = ++ appended;
+            pending.add(frame(ByteBuffer.allocate(8 + body.length).putLong(sequence).put(body).array()));
+        }
+        sync(sequence);
+        return sequence;
+    }
+
+    /**
+     * Record that the changes of an appended record are visible.  Called with the commit lock of the journaled
+     * system held.
+     *
+     * @param sequence the sequence number of the record
+     */
+    void published(long sequence) {
+        synchronized (lock) {
+            published = sequence;
+        }
+    }
+
+    /**
+     * Write a snapshot of the whole model, and compact the journal behind it.  Changes committed while the
+     * snapshot is written stay in the journal.  A snapshot which is requested while another is being written waits
+     * for it, and then writes a new one.
+     *
+     * @param root the root resource
+     * @throws IOException if the snapshot could not be written
+     */
+    public void snapshot(RootResource root) throws IOException {
+        synchronized (snapshotLock) {
+            final long sequence;
+            synchronized (lock) {
+                checkOpen();
+                sequence = published;
+            }
+            // every record up to the sequence was published before the snapshot is opened, so the snapshot
+            // contains its changes
+            try (ModelSnapshot snapshot = ModelSnapshot.open(ModelVersions.of(root))) {
+                final File tmp = new File(snapshotFile.getPath() + ".tmp");
+                try (FileOutputStream stream = new FileOutputStream(tmp)) {
+                    final DataOutputStream header = new DataOutputStream(stream);
+                    header.writeLong(SNAPSHOT_MAGIC);
+                    header.writeLong(sequence);
+                    final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+                    writer.writeStartDocument("UTF-8", "1.0");
+                    root.toXml(writer);
+                    writer.writeEndDocument();
+                    writer.close();
+                    stream.getChannel().force(false);
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            compact(sequence);
+        }
+    }
+
+    /**
+     * Close the journal.  Appends which are in progress may fail.
+     */
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (channel != null) {
+                final FileChannel channel = this.channel;
+                this.channel = null;
+                channel.close();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait for a record to be on disk.  The first waiting thread writes and syncs every pending record, while
+     * those which arrive meanwhile queue their records for the next write.
+     */
+    private void sync(final long sequence) throws IOException {
+        synchronized (lock) {
+            for (;;) {
+                if (synced >= sequence) {
+                    return;
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                checkOpen();
+                if (! writing) {
+                    break;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal");
+                }
+            }
+            writing = true;
+        }
+        IOException problem = null;
+        long upTo = 0L;
+        try {
+            final FileChannel channel;
+            final List<byte[]> batch;
+            synchronized (lock) {
+                channel = this.channel;
+                batch = pending;
+                pending = new ArrayList<>();
+                upTo = appended;
+            }
+            int size = 0;
+            for (byte[] record : batch) {
+                size += record.length;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (byte[] record : batch) {
+                buffer.put(record);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            problem = e;
+        } finally {
+            synchronized (lock) {
+                writing = false;
+                if (problem == null) {
+                    synced = upTo;
+                } else {
+                    // the journal may now end with a partial record, so nothing more can be appended
+                    failure = problem;
+                }
+                lock.notifyAll();
+            }
+        }
+        if (problem != null) {
+            throw problem;
+        }
+    }
+
+    /**
+     * Rewrite the journal without the records which a snapshot contains.
+     */
+    private void compact(final long snapshotSequence) throws IOException {
+        synchronized (lock) {
+            while (writing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal");
+                }
+            }
+            checkOpen();
+            final File tmp = new File(journalFile.getPath() + ".tmp");
+            channel.position(0L);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                for (;;) {
+                    final byte[] payload = readRecord(in, channel.size());
+                    if (payload == null) {
+                        break;
+                    }
+                    if (ByteBuffer.wrap(payload).getLong() > snapshotSequence) {
+                        out.write(frame(payload));
+                    }
+                }
+                out.getChannel().force(false);
+            }
+            Files.move(tmp.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = new RandomAccessFile(journalFile, "rw").getChannel();
+            channel.position(channel.size());
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Journal is closed");
+        }
+    }
+
+    // Record format
+
+    private static byte[] encodeBody(final ModelChangeSet changes) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(changes.getChanges().size());
+        for (Object recorded : changes.getChanges()) {
+            if (recorded instanceof ResourceChange) {
+                final ResourceChange<?> change = (ResourceChange<?>) recorded;
+                switch (change.getKind()) {
+                    case ADDED: {
+                        writeEntry(out, RESOURCE_ADDED, change.getAddress());
+                        writeValue(out, change.getUpdated());
+                        break;
+                    }
+                    case CHANGED: {
+                        writeEntry(out, RESOURCE_CHANGED, change.getAddress());
+                        writeValue(out, change.getUpdated());
+                        break;
+                    }
+                    case REMOVED: {
+                        writeEntry(out, RESOURCE_REMOVED, change.getAddress());
+                        break;
+                    }
+                }
+            } else {
+                final AttributeChange<?, ?> change = (AttributeChange<?, ?>) recorded;
+                if (change.getKind() == AttributeChange.Kind.REMOVED) {
+                    writeEntry(out, ATTRIBUTE_REMOVED, change.getAddress());
+                    out.writeUTF(change.getAttributeName());
+                } else {
+                    writeEntry(out, ATTRIBUTE_SET, change.getAddress());
+                    out.writeUTF(change.getAttributeName());
+                    writeValue(out, change.getNewValue());
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeEntry(final DataOutputStream out, final int kind, final PathAddress address) throws IOException {
+        out.writeByte(kind);
+        final byte[] encoded = EncodedPathAddress.encode(address);
+        if (encoded.length > 0xffff) {
+            throw new IOException("Address " + address.toCLIStyleString() + " is too long to journal");
+        }
+        out.writeShort(encoded.length);
+        out.write(encoded);
+    }
+
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        final ModelNode node;
+        if (value instanceof ModelNode) {
+            node = (ModelNode) value;
+        } else if (value instanceof Resource) {
+            node = ((Resource) value).toModelNode();
+        } else try {
+            // each supported type keeps its model type, so that no value is journaled by its string form
+            node = ModelNodeUtils.toModelNode(value);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        node.writeExternal(out);
+    }
+
+    private static void replayRecord(final DataInputStream record, final ReplayHandler handler) throws IOException {
+        final int count = record.readInt();
+        for (int i = 0; i < count; i ++) {
+            final int kind = record.readUnsignedByte();
+            final byte[] encoded = new byte[record.readUnsignedShort()];
+            record.readFully(encoded);
+            final PathAddress address = EncodedPathAddress.wrap(ByteBuffer.wrap(encoded)).toPathAddress();
+            switch (kind) {
+                case RESOURCE_ADDED: handler.resourceAdded(address, readValue(record)); break;
+                case RESOURCE_CHANGED: handler.resourceChanged(address, readValue(record)); break;
+                case RESOURCE_REMOVED: handler.resourceRemoved(address); break;
+                case ATTRIBUTE_SET: {
+                    final String attributeName = record.readUTF();
+                    handler.attributeChanged(address, attributeName, readValue(record));
+                    break;
+                }
+                case ATTRIBUTE_REMOVED: handler.attributeChanged(address, record.readUTF(), null); break;
+                default: throw new IOException("Invalid journal entry kind " + kind);
+            }
+        }
+    }
+
+    private static ModelNode readValue(final DataInputStream record) throws IOException {
+        final ModelNode node = new ModelNode();
+        node.readExternal(record);
+        return node;
+    }
+
+    private static byte[] frame(final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    /**
+     * Read the payload of the next record.
+     *
+     * @param in the journal stream
+     * @param limit the journal size, which no valid record can exceed
+     * @return the payload, or {@code null} at the end of the journal or at a torn or corrupt record
+     */
+    private static byte[] readRecord(final DataInputStream in, final long limit) throws IOException {
+        try {
+            final int length = in.readInt();
+            final int checksum = in.readInt();
+            if (length < 12 || length > limit) {
+                return null;
+            }
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            final CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pessimistic locks of a management model, for changes which cannot be retried optimistically.  Each address
+ * is hashed onto one of a fixed number of {@linkplain IntentionLock multiple-granularity lock} stripes, and locking
+ * an address takes an intention mode on the stripe of each of its ancestors, so that changes to disjoint subtrees
+ * proceed concurrently while a change at the root still excludes all others.  Locks are requested and acquired as
+ * a set through {@link ModelLocks}, which acquires stripes in ascending order so that lock sets cannot deadlock.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelLockManager {
+
+    private static final int DEFAULT_STRIPES = 256;
+
+    private final IntentionLock[] stripes;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contendedAcquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Construct a new instance with the default number of stripes.
+     */
+    public ModelLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param stripeCount the number of lock stripes, which must be a power of two
+     */
+    public ModelLockManager(final int stripeCount) {
+        if (stripeCount <= 0 || (stripeCount & stripeCount - 1) != 0) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+        stripes = new IntentionLock[stripeCount];
+        for (int i = 0; i < stripeCount; i ++) {
+            stripes[i] = new IntentionLock();
+        }
+    }
+
+    /**
+     * Create a new, empty lock set.
+     *
+     * @return the lock set
+     */
+    public ModelLocks newLocks() {
+        return new ModelLocks(this);
+    }
+
+    /**
+     * Get the number of stripe locks acquired so far.
+     *
+     * @return the acquisition count
+     */
+    public long getAcquisitionCount() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Get the number of stripe lock acquisitions which had to wait.
+     *
+     * @return the contended acquisition count
+     */
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitions.get();
+    }
+
+    /**
+     * Get the total time spent waiting for stripe locks, in nanoseconds.
+     *
+     * @return the total wait time
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * Get the longest time spent waiting for a single stripe lock, in nanoseconds.
+     *
+     * @return the maximum wait time
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    int getStripeIndex(PathAddress address) {
+        final int hashCode = address.hashCode();
+        return (hashCode ^ hashCode >>> 16) & stripes.length - 1;
+    }
+
+    IntentionLock getStripe(int index) {
+        return stripes[index];
+    }
+
+    void recordAcquisition() {
+        acquisitions.incrementAndGet();
+    }
+
+    void recordWait(long nanos) {
+        contendedAcquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (nanos > max && ! maxWaitNanos.compareAndSet(max, nanos));
+    }
+}
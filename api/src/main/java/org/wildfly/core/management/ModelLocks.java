@@ -0,0 +1,191 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of model locks which are acquired and released together.  The addresses to lock are requested first, and
+ * then all of the stripe locks they need are acquired at once, in ascending stripe order; no locks may be requested
+ * once the set is acquired.  Since every set acquires its stripes in the same order, sets cannot deadlock one
+ * another.
+ * <pre>
+ *     try (ModelLocks locks = lockManager.newLocks()) {
+ *         locks.lockShared(profileAddress);
+ *         locks.lockExclusive(subsystemAddress);
+ *         locks.acquire();
+ *         // change the model...
+ *     }
+ * </pre>
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelLocks implements AutoCloseable {
+    private final ModelLockManager manager;
+    /**
+     * The mode needed on each stripe, by stripe index.
+     */
+    private final TreeMap<Integer, IntentionLock.Mode> modes = new TreeMap<>();
+    /**
+     * The addresses locked exclusively.
+     */
+    private final Set<PathAddress> exclusive = new HashSet<>();
+    private boolean acquired;
+
+    ModelLocks(final ModelLockManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Request a shared lock on the resource at an address, which excludes concurrent changes to the resource, its
+     * ancestors, and its descendants.
+     *
+     * @param address the address
+     */
+    public void lockShared(PathAddress address) {
+        request(address, IntentionLock.Mode.INTENTION_SHARED, IntentionLock.Mode.SHARED);
+    }
+
+    /**
+     * Request an exclusive lock on the resource at an address, which excludes all concurrent access to the
+     * resource, its ancestors, and its descendants.
+     *
+     * @param address the address
+     */
+    public void lockExclusive(PathAddress address) {
+        request(address, IntentionLock.Mode.INTENTION_EXCLUSIVE, IntentionLock.Mode.EXCLUSIVE);
+        exclusive.add(address);
+    }
+
+    ModelLockManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Determine whether an address is at or below an address which is locked exclusively by this set.
+     *
+     * @param address the address
+     * @return {@code true} if the address is locked exclusively
+     */
+    boolean isLockedExclusive(PathAddress address) {
+        for (PathAddress current = address; current != null; current = current.getParent()) {
+            if (exclusive.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void request(PathAddress address, IntentionLock.Mode intention, IntentionLock.Mode mode) {
+        if (acquired) {
+            throw new IllegalStateException("Locks are already acquired");
+        }
+        add(manager.getStripeIndex(address), mode);
+        for (PathAddress current = address.getParent(); current != null; current = current.getParent()) {
+            add(manager.getStripeIndex(current), intention);
+        }
+    }
+
+    private void add(int stripe, IntentionLock.Mode mode) {
+        final Integer key = Integer.valueOf(stripe);
+        final IntentionLock.Mode existing = modes.get(key);
+        modes.put(key, existing == null ? mode : existing.combine(mode));
+    }
+
+    /**
+     * Acquire the requested locks, waiting as long as necessary.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting, in which case no locks are held
+     */
+    public void acquire() throws InterruptedException {
+        acquire(Long.MAX_VALUE);
+    }
+
+    /**
+     * Acquire the requested locks, waiting no longer than the given time.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit
+     * @return {@code true} if the locks were acquired, {@code false} if the time elapsed, in which case no locks are held
+     * @throws InterruptedException if the thread was interrupted while waiting, in which case no locks are held
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    private boolean acquire(long deadline) throws InterruptedException {
+        if (acquired) {
+            throw new IllegalStateException("Locks are already acquired");
+        }
+        final ModelLockManager manager = this.manager;
+        boolean ok = false;
+        Integer last = null;
+        try {
+            for (Map.Entry<Integer, IntentionLock.Mode> entry : modes.entrySet()) {
+                final IntentionLock lock = manager.getStripe(entry.getKey().intValue());
+                final IntentionLock.Mode mode = entry.getValue();
+                if (! lock.tryLock(mode)) {
+                    final long start = System.nanoTime();
+                    final boolean locked = lock.lock(mode, deadline);
+                    manager.recordWait(System.nanoTime() - start);
+                    if (! locked) {
+                        return false;
+                    }
+                }
+                manager.recordAcquisition();
+                last = entry.getKey();
+            }
+            ok = true;
+            acquired = true;
+            return true;
+        } finally {
+            if (! ok && last != null) {
+                release(modes.headMap(last, true));
+            }
+        }
+    }
+
+    /**
+     * Determine whether the locks of this set are held.
+     *
+     * @return {@code true} if the locks are held
+     */
+    public boolean isAcquired() {
+        return acquired;
+    }
+
+    /**
+     * Release the locks of this set, if they are held.  The set may then be acquired again.
+     */
+    public void close() {
+        if (acquired) {
+            acquired = false;
+            release(modes);
+        }
+    }
+
+    private void release(Map<Integer, IntentionLock.Mode> modes) {
+        for (Map.Entry<Integer, IntentionLock.Mode> entry : modes.entrySet()) {
+            manager.getStripe(entry.getKey().intValue()).unlock(entry.getValue());
+        }
+    }
+}
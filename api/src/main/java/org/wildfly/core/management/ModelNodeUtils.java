@@ -0,0 +1,289 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ValueExpression;
+
+/**
+ * Utility methods used by generated DMR codecs.  Scalar attributes are converted inline by the generated code;
+ * these methods convert the values whose shape is only known at run time, such as the elements of map, collection
+ * and array attributes, and references.  Converted lists, sets and maps are unmodifiable, except that sorted sets
+ * and maps are navigable copies, for which there is no unmodifiable view.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelNodeUtils {
+
+    private ModelNodeUtils() {
+    }
+
+    /**
+     * Read a character value.
+     *
+     * @param node the model node
+     * @return the character
+     * @throws IllegalArgumentException if the value is not exactly one character long
+     */
+    public static char asChar(ModelNode node) throws IllegalArgumentException {
+        final String value = node.asString();
+        if (value.length() != 1) {
+            throw new IllegalArgumentException(MESSAGES.invalidCharacterValue(value));
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Convert a value to a model node.  Strings, numbers, booleans, characters, enum constants, expressions and
+     * references are converted to simple values; maps to objects keyed by the string form of their keys; and
+     * collections and arrays to lists of their converted elements.
+     *
+     * @param value the value, or {@code null} for an undefined node
+     * @return the model node
+     * @throws IllegalArgumentException if the value, or an element of it, cannot be converted
+     */
+    public static ModelNode toModelNode(Object value) throws IllegalArgumentException {
+        final ModelNode node = new ModelNode();
+        if (value == null) {
+            return node;
+        } else if (value instanceof ModelNode) {
+            return ((ModelNode) value).clone();
+        } else if (value instanceof String) {
+            return node.set((String) value);
+        } else if (value instanceof Boolean) {
+            return node.set(((Boolean) value).booleanValue());
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return node.set(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            return node.set(((Long) value).longValue());
+        } else if (value instanceof Float || value instanceof Double) {
+            return node.set(((Number) value).doubleValue());
+        } else if (value instanceof BigInteger) {
+            return node.set((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            return node.set((BigDecimal) value);
+        } else if (value instanceof Character) {
+            return node.set(value.toString());
+        } else if (value instanceof Enum) {
+            return node.set(((Enum<?>) value).name());
+        } else if (value instanceof Expression) {
+            return node.set(new ValueExpression(((Expression) value).getTemplate()));
+        } else if (value instanceof ValueExpression) {
+            return node.set((ValueExpression) value);
+        } else if (value instanceof ResourceLink) {
+            return node.set(((ResourceLink<?>) value).getName());
+        } else if (value instanceof Map) {
+            node.setEmptyObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                node.get(String.valueOf(entry.getKey())).set(toModelNode(entry.getValue()));
+            }
+            return node;
+        } else if (value instanceof Collection) {
+            node.setEmptyList();
+            for (Object element : (Collection<?>) value) {
+                node.add(toModelNode(element));
+            }
+            return node;
+        } else if (value.getClass().isArray()) {
+            node.setEmptyList();
+            final int length = Array.getLength(value);
+            for (int i = 0; i < length; i ++) {
+                node.add(toModelNode(Array.get(value, i)));
+            }
+            return node;
+        } else {
+            throw new IllegalArgumentException(MESSAGES.unsupportedModelValueType(value.getClass()));
+        }
+    }
+
+    /**
+     * Convert a model node to a value of the given type.  The supported types are those which
+     * {@link #toModelNode(Object)} converts to simple values, with primitive types given by their wrapper classes.
+     * A reference is read as a link which has only a name.
+     *
+     * @param node the model node
+     * @param type the value type
+     * @param <T> the value type
+     * @return the value, or {@code null} if the node is undefined
+     * @throws IllegalArgumentException if the node cannot be converted to the given type
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> T fromModelNode(ModelNode node, Class<T> type) throws IllegalArgumentException {
+        if (! node.isDefined()) {
+            return null;
+        }
+        final Object value;
+        if (type == String.class) {
+            value = node.asString();
+        } else if (type == Boolean.class) {
+            value = Boolean.valueOf(node.asBoolean());
+        } else if (type == Integer.class) {
+            value = Integer.valueOf(node.asInt());
+        } else if (type == Short.class) {
+            value = Short.valueOf((short) node.asInt());
+        } else if (type == Byte.class) {
+            value = Byte.valueOf((byte) node.asInt());
+        } else if (type == Long.class) {
+            value = Long.valueOf(node.asLong());
+        } else if (type == Float.class) {
+            value = Float.valueOf((float) node.asDouble());
+        } else if (type == Double.class) {
+            value = Double.valueOf(node.asDouble());
+        } else if (type == BigInteger.class) {
+            value = node.asBigInteger();
+        } else if (type == BigDecimal.class) {
+            value = node.asBigDecimal();
+        } else if (type == Character.class) {
+            value = Character.valueOf(asChar(node));
+        } else if (type.isEnum()) {
+            value = Enum.valueOf((Class) type, node.asString());
+        } else if (type == Expression.class) {
+            // an expression node gives its template as its string value
+            value = Expression.compile(node.asString());
+        } else if (type == ValueExpression.class) {
+            value = new ValueExpression(node.asString());
+        } else if (type == ResourceLink.class) {
+            value = new NamedLink(node.asString());
+        } else {
+            throw new IllegalArgumentException(MESSAGES.unsupportedModelValueType(type));
+        }
+        return (T) value;
+    }
+
+    /**
+     * Convert a list node to a list.
+     *
+     * @param node the list node
+     * @param elementType the element type
+     * @return the list
+     * @throws IllegalArgumentException if an element cannot be converted
+     */
+    public static List<?> asList(ModelNode node, Class<?> elementType) throws IllegalArgumentException {
+        final List<ModelNode> nodes = node.asList();
+        final List<Object> list = new ArrayList<>(nodes.size());
+        for (ModelNode element : nodes) {
+            list.add(fromModelNode(element, elementType));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Convert a list node to a set.  A sorted set is a {@link java.util.NavigableSet}, and a set which is not
+     * sorted keeps the order of the list.
+     *
+     * @param node the list node
+     * @param elementType the element type
+     * @param sorted {@code true} to sort the elements by their natural order
+     * @return the set
+     * @throws IllegalArgumentException if an element cannot be converted
+     */
+    public static Set<?> asSet(ModelNode node, Class<?> elementType, boolean sorted) throws IllegalArgumentException {
+        final Set<Object> set = sorted ? new TreeSet<>() : new LinkedHashSet<>();
+        for (ModelNode element : node.asList()) {
+            set.add(fromModelNode(element, elementType));
+        }
+        return sorted ? set : Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Convert an object node to a map.  A sorted map is a {@link java.util.NavigableMap}, and a map which is not
+     * sorted keeps the order of the object.
+     *
+     * @param node the object node
+     * @param keyType the key type
+     * @param valueType the value type
+     * @param sorted {@code true} to sort the entries by the natural order of their keys
+     * @return the map
+     * @throws IllegalArgumentException if a key or value cannot be converted
+     */
+    public static Map<?, ?> asMap(ModelNode node, Class<?> keyType, Class<?> valueType, boolean sorted) throws IllegalArgumentException {
+        final Map<Object, Object> map = sorted ? new TreeMap<>() : new LinkedHashMap<>();
+        for (String key : node.keys()) {
+            map.put(fromModelNode(new ModelNode().set(key), keyType), fromModelNode(node.get(key), valueType));
+        }
+        return sorted ? map : Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Convert a list node to an array.
+     *
+     * @param node the list node
+     * @param componentType the array component type, which may be primitive
+     * @return the array
+     * @throws IllegalArgumentException if an element cannot be converted, or is undefined and the component type
+     *      is primitive
+     */
+    public static Object asArray(ModelNode node, Class<?> componentType) throws IllegalArgumentException {
+        final List<ModelNode> nodes = node.asList();
+        final Object array = Array.newInstance(componentType, nodes.size());
+        final Class<?> elementType = componentType.isPrimitive() ? Array.get(Array.newInstance(componentType, 1), 0).getClass() : componentType;
+        for (int i = 0; i < nodes.size(); i ++) {
+            Array.set(array, i, fromModelNode(nodes.get(i), elementType));
+        }
+        return array;
+    }
+
+    /**
+     * A reference read from a model node, which knows only the name of its target.  Scopes, within which
+     * references are resolved, are not part of a model node, so such a link cannot be followed.
+     */
+    static final class NamedLink implements ResourceLink<Resource> {
+        private final String name;
+
+        NamedLink(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Resource get() {
+            throw new IllegalStateException(MESSAGES.unresolvedReference(name));
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof NamedLink && name.equals(((NamedLink) obj).name);
+        }
+
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
+}
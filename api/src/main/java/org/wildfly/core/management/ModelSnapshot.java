@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+/**
+ * A consistent, read-only view of the whole of one management model.  While a snapshot is open, every node of its
+ * model read by the opening thread is seen as it was when the snapshot was opened, no matter what is committed
+ * meanwhile.  Opening and reading a snapshot takes no locks, and an open snapshot never delays a commit.  Nodes of
+ * other models are read as usual.
+ * <p>
+ * Snapshots are bound to the thread which opens them, and must be closed on that thread in the reverse order to
+ * which they were opened:
+ * <pre>
+ *     try (ModelSnapshot snapshot = ModelSnapshot.open(system)) {
+ *         ModelNode model = resource.toModelNode();
+ *     }
+ * </pre>
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelSnapshot implements AutoCloseable {
+    private final ModelVersions versions;
+    private final long version;
+    private final ModelSnapshot enclosing;
+    private boolean closed;
+
+    ModelSnapshot(final ModelVersions versions, final long version, final ModelSnapshot enclosing) {
+        this.versions = versions;
+        this.version = version;
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Open a snapshot of the most recently committed version of the model of a managed system on the current
+     * thread.
+     *
+     * @param system the managed system
+     * @return the snapshot
+     */
+    public static ModelSnapshot open(ManagedSystem system) {
+        return open(system.getVersions());
+    }
+
+    /**
+     * Open a snapshot of the most recently committed version of the nodes which are not part of any managed
+     * system on the current thread.
+     *
+     * @return the snapshot
+     */
+    public static ModelSnapshot open() {
+        return open(ModelVersions.DETACHED);
+    }
+
+    static ModelSnapshot open(ModelVersions versions) {
+        final ModelVersions.ThreadState state = ModelVersions.getOrCreateThreadState();
+        ModelVersions.scopeOpened();
+        final ModelSnapshot snapshot = versions.pin(state.snapshot);
+        state.snapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Get the snapshot which is open on the current thread.
+     *
+     * @return the innermost open snapshot, or {@code null} if there is none
+     */
+    public static ModelSnapshot current() {
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        return state == null ? null : state.snapshot;
+    }
+
+    /**
+     * Get the model version seen by this snapshot.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    ModelVersions getVersions() {
+        return versions;
+    }
+
+    /**
+     * Get the snapshot which was open on the current thread when this one was opened.
+     *
+     * @return the enclosing snapshot, or {@code null} if there was none
+     */
+    ModelSnapshot getEnclosing() {
+        return enclosing;
+    }
+
+    /**
+     * Close this snapshot, restoring the snapshot which was open when it was opened.  Closing a snapshot more than
+     * once has no effect.
+     *
+     * @throws IllegalStateException if this is not the innermost snapshot open on the current thread
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        if (state == null || state.snapshot != this) {
+            throw new IllegalStateException("Snapshot is not the innermost snapshot of the current thread");
+        }
+        closed = true;
+        state.snapshot = enclosing;
+        versions.unpin(this);
+        ModelVersions.scopeClosed();
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * A writer which encodes a management model as it is walked, without first building a {@link ModelNode} tree.  The
+ * encoding is either the DMR binary form read by {@link ModelNode#readExternal(java.io.DataInput)}, or DMR-style
+ * JSON.  Objects and lists declare their size when they are started, as the binary form requires; the writer checks
+ * that each is given exactly the declared number of members.
+ * <p>
+ * Resources write themselves through {@link Resource#writeModel(ModelStreamWriter, boolean)}; use
+ * {@link #writeResource(Resource, boolean)} to write a resource tree as of a single model version:
+ * <pre>
+ *     try (ModelStreamWriter writer = ModelStreamWriter.json(channel)) {
+ *         writer.writeResource(resource, true);
+ *     }
+ * </pre>
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public abstract class ModelStreamWriter implements Flushable, Closeable {
+    private int[] declared = new int[16];
+    private int[] remaining = new int[16];
+    private boolean[] object = new boolean[16];
+    private int depth;
+    private boolean named;
+
+    ModelStreamWriter() {
+    }
+
+    /**
+     * Create a writer of the DMR binary encoding.
+     *
+     * @param out the target stream
+     * @return the writer
+     */
+    public static ModelStreamWriter dmr(OutputStream out) {
+        return new Dmr(out);
+    }
+
+    /**
+     * Create a writer of the DMR binary encoding.
+     *
+     * @param channel the target channel
+     * @return the writer
+     */
+    public static ModelStreamWriter dmr(WritableByteChannel channel) {
+        return new Dmr(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Create a writer of the compact JSON encoding, in UTF-8.
+     *
+     * @param out the target stream
+     * @return the writer
+     */
+    public static ModelStreamWriter json(OutputStream out) {
+        return new Json(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create a writer of the compact JSON encoding, in UTF-8.
+     *
+     * @param channel the target channel
+     * @return the writer
+     */
+    public static ModelStreamWriter json(WritableByteChannel channel) {
+        return json(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Write a resource, and optionally all of its descendants, as of the most recently committed model version.  A
+     * snapshot is held open on the current thread while the resource is written, so that concurrent commits never
+     * show through; the encoded model is never held in memory as a whole.
+     *
+     * @param resource the resource
+     * @param recursive {@code true} to write descendant resources, {@code false} to write only the resource itself
+     * @throws IOException if writing fails
+     */
+    public void writeResource(Resource resource, boolean recursive) throws IOException {
+        try (ModelSnapshot snapshot = ModelSnapshot.open(ModelVersions.of(resource))) {
+            resource.writeModel(this, recursive);
+        }
+        flush();
+    }
+
+    /**
+     * Write a map of child resources, with all of their descendants, as an object keyed by child name.  Children
+     * which are {@code null} or are not resources are written as undefined values, as is a {@code null} map.  The
+     * members of a {@link LazyResourceMap} are written without being made hot or retained; see
+     * {@link LazyResourceMap#writeModel(ModelStreamWriter)}.
+     *
+     * @param children the children, or {@code null} if there are none
+     * @throws IOException if writing fails
+     */
+    public void writeChildren(Map<String, ?> children) throws IOException {
+        if (children == null) {
+            undefined();
+            return;
+        }
+        if (children instanceof LazyResourceMap) {
+            ((LazyResourceMap<?>) children).writeModel(this);
+            return;
+        }
+        startObject(children.size());
+        for (Map.Entry<String, ?> entry : children.entrySet()) {
+            name(entry.getKey());
+            final Object child = entry.getValue();
+            if (child instanceof Resource) {
+                ((Resource) child).writeModel(this, true);
+            } else {
+                undefined();
+            }
+        }
+        endObject();
+    }
+
+    /**
+     * Start an object.
+     *
+     * @param size the number of members which will be written
+     * @throws IOException if writing fails
+     */
+    public final void startObject(int size) throws IOException {
+        beforeValue("object");
+        doStartObject(size);
+        push(size, true);
+    }
+
+    /**
+     * Write the name of the next member of the current object.
+     *
+     * @param name the member name
+     * @throws IOException if writing fails
+     */
+    public final void name(String name) throws IOException {
+        if (depth == 0 || ! object[depth - 1] || named) {
+            throw new IllegalStateException(MESSAGES.modelStreamUnexpected("name"));
+        }
+        doName(name, declared[depth - 1] == remaining[depth - 1]);
+        named = true;
+    }
+
+    /**
+     * End the current object.
+     *
+     * @throws IOException if writing fails
+     */
+    public final void endObject() throws IOException {
+        pop(true);
+        doEndObject();
+    }
+
+    /**
+     * Start a list.
+     *
+     * @param size the number of elements which will be written
+     * @throws IOException if writing fails
+     */
+    public final void startList(int size) throws IOException {
+        beforeValue("list");
+        doStartList(size);
+        push(size, false);
+    }
+
+    /**
+     * End the current list.
+     *
+     * @throws IOException if writing fails
+     */
+    public final void endList() throws IOException {
+        pop(false);
+        doEndList();
+    }
+
+    /**
+     * Write a string value.
+     *
+     * @param value the value, which must not be {@code null}
+     * @throws IOException if writing fails
+     */
+    public final void value(String value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    /**
+     * Write an {@code int} value.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public final void value(int value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    /**
+     * Write a {@code long} value.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public final void value(long value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    /**
+     * Write a {@code double} value.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public final void value(double value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    /**
+     * Write a {@code boolean} value.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public final void value(boolean value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    /**
+     * Write an expression value.
+     *
+     * @param template the expression template
+     * @throws IOException if writing fails
+     */
+    public final void expression(String template) throws IOException {
+        beforeValue("value");
+        doExpression(template);
+    }
+
+    /**
+     * Write an undefined value.
+     *
+     * @throws IOException if writing fails
+     */
+    public final void undefined() throws IOException {
+        beforeValue("value");
+        doUndefined();
+    }
+
+    /**
+     * Write a model node value.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public final void value(ModelNode value) throws IOException {
+        beforeValue("value");
+        doValue(value);
+    }
+
+    abstract void doStartObject(int size) throws IOException;
+
+    abstract void doName(String name, boolean first) throws IOException;
+
+    abstract void doEndObject() throws IOException;
+
+    abstract void doStartList(int size) throws IOException;
+
+    abstract void doEndList() throws IOException;
+
+    abstract void doValue(String value) throws IOException;
+
+    abstract void doValue(int value) throws IOException;
+
+    abstract void doValue(long value) throws IOException;
+
+    abstract void doValue(double value) throws IOException;
+
+    abstract void doValue(boolean value) throws IOException;
+
+    abstract void doExpression(String template) throws IOException;
+
+    abstract void doUndefined() throws IOException;
+
+    abstract void doValue(ModelNode value) throws IOException;
+
+    /**
+     * Account for a value about to be written at the current position.
+     *
+     * @param token the kind of value, for error reporting
+     */
+    private void beforeValue(String token) throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        final int top = depth - 1;
+        if (object[top] ? ! named : remaining[top] == 0) {
+            throw new IllegalStateException(MESSAGES.modelStreamUnexpected(token));
+        }
+        named = false;
+        final boolean first = declared[top] == remaining[top];
+        remaining[top] --;
+        if (! object[top]) {
+            doListSeparator(first);
+        }
+    }
+
+    void doListSeparator(boolean first) throws IOException {
+    }
+
+    private void push(int size, boolean isObject) {
+        if (depth == declared.length) {
+            declared = Arrays.copyOf(declared, depth << 1);
+            remaining = Arrays.copyOf(remaining, depth << 1);
+            object = Arrays.copyOf(object, depth << 1);
+        }
+        declared[depth] = size;
+        remaining[depth] = size;
+        object[depth] = isObject;
+        depth ++;
+    }
+
+    private void pop(boolean isObject) {
+        if (depth == 0 || object[depth - 1] != isObject || named) {
+            throw new IllegalStateException(MESSAGES.modelStreamUnexpected(isObject ? "end of object" : "end of list"));
+        }
+        final int top = depth - 1;
+        if (remaining[top] != 0) {
+            throw new IllegalStateException(MESSAGES.modelStreamSizeMismatch(isObject ? "object" : "list", declared[top], declared[top] - remaining[top]));
+        }
+        depth = top;
+    }
+
+    static final class Dmr extends ModelStreamWriter {
+        private final DataOutputStream out;
+
+        Dmr(final OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+        }
+
+        void doStartObject(final int size) throws IOException {
+            out.writeByte('o');
+            out.writeInt(size);
+        }
+
+        void doName(final String name, final boolean first) throws IOException {
+            out.writeUTF(name);
+        }
+
+        void doEndObject() {
+        }
+
+        void doStartList(final int size) throws IOException {
+            out.writeByte('l');
+            out.writeInt(size);
+        }
+
+        void doEndList() {
+        }
+
+        void doValue(final String value) throws IOException {
+            out.writeByte('s');
+            out.writeUTF(value);
+        }
+
+        void doValue(final int value) throws IOException {
+            out.writeByte('I');
+            out.writeInt(value);
+        }
+
+        void doValue(final long value) throws IOException {
+            out.writeByte('J');
+            out.writeLong(value);
+        }
+
+        void doValue(final double value) throws IOException {
+            out.writeByte('D');
+            out.writeDouble(value);
+        }
+
+        void doValue(final boolean value) throws IOException {
+            out.writeByte('Z');
+            out.writeBoolean(value);
+        }
+
+        void doExpression(final String template) throws IOException {
+            out.writeByte('e');
+            out.writeUTF(template);
+        }
+
+        void doUndefined() throws IOException {
+            out.writeByte('u');
+        }
+
+        void doValue(final ModelNode value) throws IOException {
+            value.writeExternal(out);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Json extends ModelStreamWriter {
+        private final Writer out;
+
+        Json(final Writer out) {
+            this.out = new BufferedWriter(out);
+        }
+
+        void doStartObject(final int size) throws IOException {
+            out.write('{');
+        }
+
+        void doName(final String name, final boolean first) throws IOException {
+            if (! first) {
+                out.write(", ");
+            }
+            writeString(name);
+            out.write(" : ");
+        }
+
+        void doEndObject() throws IOException {
+            out.write('}');
+        }
+
+        void doStartList(final int size) throws IOException {
+            out.write('[');
+        }
+
+        void doListSeparator(final boolean first) throws IOException {
+            if (! first) {
+                out.write(", ");
+            }
+        }
+
+        void doEndList() throws IOException {
+            out.write(']');
+        }
+
+        void doValue(final String value) throws IOException {
+            writeString(value);
+        }
+
+        void doValue(final int value) throws IOException {
+            out.write(Integer.toString(value));
+        }
+
+        void doValue(final long value) throws IOException {
+            out.write(Long.toString(value));
+        }
+
+        void doValue(final double value) throws IOException {
+            out.write(Double.toString(value));
+        }
+
+        void doValue(final boolean value) throws IOException {
+            out.write(value ? "true" : "false");
+        }
+
+        void doExpression(final String template) throws IOException {
+            out.write("{\"EXPRESSION_VALUE\" : ");
+            writeString(template);
+            out.write('}');
+        }
+
+        void doUndefined() throws IOException {
+            out.write("null");
+        }
+
+        void doValue(final ModelNode value) throws IOException {
+            final PrintWriter printWriter = new PrintWriter(out);
+            value.writeJSONString(printWriter, true);
+            printWriter.flush();
+        }
+
+        private void writeString(final String string) throws IOException {
+            out.write('"');
+            final int length = string.length();
+            int start = 0;
+            for (int i = 0; i < length; i ++) {
+                final char c = string.charAt(i);
+                final String escape;
+                switch (c) {
+                    case '"': escape = "\\\""; break;
+                    case '\\': escape = "\\\\"; break;
+                    case '\n': escape = "\\n"; break;
+                    case '\r': escape = "\\r"; break;
+                    case '\t': escape = "\\t"; break;
+                    case '\b': escape = "\\b"; break;
+                    case '\f': escape = "\\f"; break;
+                    default: {
+                        if (c >= 0x20) {
+                            continue;
+                        }
+                        escape = String.format("\\u%04x", Integer.valueOf(c));
+                    }
+                }
+                out.write(string, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+            out.write(string, start, length - start);
+            out.write('"');
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An optimistic model change transaction.  A transaction reads the model as of the version at which it began, and
+ * stages its changes as a {@link ModelCommit} does.  It also records the addresses it reads and writes; resource
+ * lookups through {@link ManagedSystem} and changes to the resources of a managed system are recorded
+ * automatically, and other accesses may be recorded with {@link #read(PathAddress)},
+ * {@link #readSubtree(PathAddress)} and {@link #write(PathAddress)}.
+ * <p>
+ * On commit, the recorded addresses are checked against the writes committed since the transaction began.  If any
+ * overlap, the transaction fails with a {@link ModelConflictException} and none of its changes are published, so
+ * it may simply be run again; see {@link #execute(ManagedSystem, Work, int)}.  Transactions which touch disjoint
+ * parts of the model run and commit independently, and only the final check and publication are serialized.  A
+ * transaction works on the model of one managed system, and never conflicts with the transactions of another.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelTransaction implements AutoCloseable {
+    private final ModelSnapshot snapshot;
+    private final ModelCommit commit;
+    private final Set<PathAddress> reads = new HashSet<>();
+    private final Set<PathAddress> subtreeReads = new HashSet<>();
+    private boolean done;
+
+    private ModelTransaction(final ModelSnapshot snapshot, final ModelCommit commit) {
+        this.snapshot = snapshot;
+        this.commit = commit;
+    }
+
+    /**
+     * A unit of work to run in a transaction.
+     *
+     * @param <T> the result type
+     */
+    public interface Work<T> {
+
+        /**
+         * Run the work.  The work may be run more than once, so it should have no effects outside of the model.
+         *
+         * @param transaction the transaction
+         * @return the result
+         */
+        T run(ModelTransaction transaction);
+    }
+
+    /**
+     * Begin a transaction on the model of a managed system on the current thread.
+     *
+     * @param system the managed system
+     * @return the transaction
+     * @throws IllegalStateException if a transaction or commit is already in progress on the current thread
+     */
+    public static ModelTransaction begin(ManagedSystem system) {
+        return begin(system.getVersions());
+    }
+
+    /**
+     * Begin a transaction on the nodes which are not part of any managed system on the current thread.
+     *
+     * @return the transaction
+     * @throws IllegalStateException if a transaction or commit is already in progress on the current thread
+     */
+    public static ModelTransaction begin() {
+        return begin(ModelVersions.DETACHED);
+    }
+
+    static ModelTransaction begin(ModelVersions versions) {
+        final ModelVersions.ThreadState state = ModelVersions.getOrCreateThreadState();
+        if (state.transaction != null) {
+            throw new IllegalStateException("A transaction is already in progress on this thread");
+        }
+        final ModelCommit commit = ModelCommit.begin(versions);
+        final ModelTransaction transaction = new ModelTransaction(ModelSnapshot.open(versions), commit);
+        state.transaction = transaction;
+        return transaction;
+    }
+
+    /**
+     * Get the transaction in progress on the current thread.
+     *
+     * @return the transaction, or {@code null} if there is none
+     */
+    public static ModelTransaction current() {
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        return state == null ? null : state.transaction;
+    }
+
+    /**
+     * Run work in a new transaction on the model of a managed system and commit it, running it again in a fresh
+     * transaction if the commit conflicts.  Each conflict means that some other transaction has committed, so
+     * retrying always makes progress overall.
+     *
+     * @param system the managed system
+     * @param work the work to run
+     * @param maxAttempts the maximum number of times to run the work
+     * @param <T> the result type
+     * @return the result of the run which committed
+     * @throws ModelConflictException if the last attempt conflicted
+     */
+    public static <T> T execute(ManagedSystem system, Work<T> work, int maxAttempts) throws ModelConflictException {
+        return execute(system.getVersions(), work, maxAttempts);
+    }
+
+    /**
+     * Run work in a new transaction on the nodes which are not part of any managed system and commit it, running
+     * it again in a fresh transaction if the commit conflicts.
+     *
+     * @param work the work to run
+     * @param maxAttempts the maximum number of times to run the work
+     * @param <T> the result type
+     * @return the result of the run which committed
+     * @throws ModelConflictException if the last attempt conflicted
+     */
+    public static <T> T execute(Work<T> work, int maxAttempts) throws ModelConflictException {
+        return execute(ModelVersions.DETACHED, work, maxAttempts);
+    }
+
+    private static <T> T execute(ModelVersions versions, Work<T> work, int maxAttempts) throws ModelConflictException {
+        for (int attempt = 1;; attempt ++) {
+            try (ModelTransaction transaction = begin(versions)) {
+                final T result = work.run(transaction);
+                transaction.commit();
+                return result;
+            } catch (ModelConflictException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the model version which this transaction reads.
+     *
+     * @return the version
+     */
+    public long getStartVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Record a read of the resource at an address.  The read conflicts with concurrent writes at the address or
+     * any of its ancestors.
+     *
+     * @param address the address
+     */
+    public void read(PathAddress address) {
+        checkActive();
+        reads.add(address);
+    }
+
+    /**
+     * Record a read of the resource at an address and of everything below it.  The read conflicts with concurrent
+     * writes at the address, any of its ancestors, or anywhere below it.
+     *
+     * @param address the address
+     */
+    public void readSubtree(PathAddress address) {
+        checkActive();
+        subtreeReads.add(address);
+    }
+
+    /**
+     * Record a write of the resource at an address.  A write conflicts with the same concurrent writes as a
+     * subtree read, and is itself seen as a conflict by concurrent transactions which read or wrote the address.
+     *
+     * @param address the address
+     */
+    public void write(PathAddress address) {
+        checkActive();
+        commit.write(address);
+    }
+
+    /**
+     * Commit this transaction.
+     *
+     * @return the published version, or the current version if nothing was changed
+     * @throws ModelConflictException if a concurrent commit changed part of the model this transaction used
+     * @throws IllegalStateException if this transaction was already completed or discarded
+     */
+    public long commit() throws ModelConflictException {
+        checkActive();
+        finish();
+        return commit.commit(this);
+    }
+
+    /**
+     * Wait for the listener callbacks dispatched for the changes of this committed transaction to complete, for no
+     * longer than the given time.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit
+     * @return {@code true} if the callbacks completed, {@code false} if the time elapsed first
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitListeners(long timeout, TimeUnit unit) throws InterruptedException {
+        final ModelChangeSet changeSet = commit.getChangeSet();
+        return changeSet == null || changeSet.getCompletion().await(timeout, unit);
+    }
+
+    /**
+     * Discard this transaction, unless it was already committed.
+     */
+    public void close() {
+        if (! done) {
+            finish();
+            commit.close();
+        }
+    }
+
+    // Called with the commit lock held
+
+    void validate(SubtreeStamps stamps) throws ModelConflictException {
+        final long start = getStartVersion();
+        for (PathAddress address : reads) {
+            if (stamps.changedSince(address, false, start)) {
+                throw new ModelConflictException(MESSAGES.transactionConflict(address));
+            }
+        }
+        for (PathAddress address : subtreeReads) {
+            if (stamps.changedSince(address, true, start)) {
+                throw new ModelConflictException(MESSAGES.transactionConflict(address));
+            }
+        }
+        for (PathAddress address : commit.getWrites()) {
+            if (stamps.changedSince(address, true, start)) {
+                throw new ModelConflictException(MESSAGES.transactionConflict(address));
+            }
+        }
+    }
+
+    private void checkActive() {
+        if (done) {
+            throw new IllegalStateException("Transaction is already complete");
+        }
+    }
+
+    private void finish() {
+        done = true;
+        snapshot.close();
+        final ModelVersions.ThreadState state = ModelVersions.getThreadState();
+        if (state != null && state.transaction == this) {
+            state.transaction = null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The version clock of a management model.  Each {@link ManagedSystem} has its own clock, and nodes which do not
+ * yet belong to a system share the {@linkplain #DETACHED detached} clock.  Every commit publishes its changed nodes
+ * under a new version number of their clock; a {@link ModelSnapshot} pins a version, and reads made while it is
+ * open see each node of its model as it was at that version.  Versions of a node which no open snapshot can see
+ * are pruned when the node is next changed.
+ * <p>
+ * Commits, snapshots and conflict tracking of different systems are fully independent: a commit to one system
+ * never waits for, or invalidates a transaction of, another.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ModelVersions {
+
+    /**
+     * The clock of nodes which are not part of a managed system.
+     */
+    static final ModelVersions DETACHED = new ModelVersions(null);
+
+    private static final ThreadLocal<ThreadState> threadState = new ThreadLocal<>();
+
+    /**
+     * The number of snapshots and commits open on any thread, so that reads need not look up the thread state
+     * while there are none.
+     */
+    private static final AtomicInteger openScopes = new AtomicInteger();
+
+    private final ManagedSystem system;
+
+    /**
+     * The lock which serializes commits.  Readers never take it.
+     */
+    private final Object commitLock = new Object();
+
+    private final Set<ModelSnapshot> openSnapshots = Collections.newSetFromMap(new ConcurrentHashMap<ModelSnapshot, Boolean>());
+
+    private final SubtreeStamps stamps = new SubtreeStamps();
+
+    private final Set<ConfigurationPersister> persisters = new CopyOnWriteArraySet<>();
+
+    /**
+     * The most recently published version.
+     */
+    private volatile long committed;
+
+    /**
+     * Construct a new instance.  The clock starts at the current detached version, so that every version already
+     * recorded by a detached node which joins the system is at or before the system's current version.
+     *
+     * @param system the managed system, or {@code null} for the detached clock
+     */
+    ModelVersions(final ManagedSystem system) {
+        this.system = system;
+        committed = system == null ? 0L : DETACHED.committed;
+    }
+
+    static final class ThreadState {
+        ModelSnapshot snapshot;
+        ModelCommit commit;
+        ModelTransaction transaction;
+    }
+
+    /**
+     * Get the clock of the model which contains a node.
+     *
+     * @param node the node
+     * @return the clock
+     */
+    static ModelVersions of(final Node node) {
+        return node instanceof AbstractMutableNode ? ((AbstractMutableNode<?>) node).getVersions() : DETACHED;
+    }
+
+    /**
+     * Get the managed system of this clock.
+     *
+     * @return the managed system, or {@code null} for the detached clock
+     */
+    ManagedSystem getSystem() {
+        return system;
+    }
+
+    long getCommitted() {
+        return committed;
+    }
+
+    /**
+     * Get the state of the current thread, if any.
+     *
+     * @return the thread state, or {@code null} if no snapshot or commit was ever opened on this thread
+     */
+    static ThreadState getThreadState() {
+        return threadState.get();
+    }
+
+    static ThreadState getOrCreateThreadState() {
+        ThreadState state = threadState.get();
+        if (state == null) {
+            threadState.set(state = new ThreadState());
+        }
+        return state;
+    }
+
+    /**
+     * Determine whether any thread may have a snapshot or commit open.  If not, a read need not consult the
+     * state of its thread.
+     *
+     * @return {@code true} if a snapshot or commit may be open
+     */
+    static boolean isScopeOpen() {
+        return openScopes.get() != 0;
+    }
+
+    static void scopeOpened() {
+        openScopes.incrementAndGet();
+    }
+
+    static void scopeClosed() {
+        openScopes.decrementAndGet();
+    }
+
+    /**
+     * Get the innermost snapshot of this model which is open on the current thread.
+     *
+     * @return the snapshot, or {@code null} if none is open
+     */
+    ModelSnapshot getSnapshot() {
+        if (! isScopeOpen()) {
+            return null;
+        }
+        final ThreadState state = getThreadState();
+        for (ModelSnapshot snapshot = state == null ? null : state.snapshot; snapshot != null; snapshot = snapshot.getEnclosing()) {
+            if (snapshot.getVersions() == this) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pin the most recently published version.  The snapshot is registered before its version is confirmed to
+     * still be the latest, so that any commit which publishes a later version will see the registration before it
+     * prunes.
+     *
+     * @param enclosing the snapshot which was open on this thread, if any
+     * @return the registered snapshot
+     */
+    ModelSnapshot pin(final ModelSnapshot enclosing) {
+        for (;;) {
+            final long version = committed;
+            final ModelSnapshot snapshot = new ModelSnapshot(this, version, enclosing);
+            openSnapshots.add(snapshot);
+            if (committed == version) {
+                return snapshot;
+            }
+            openSnapshots.remove(snapshot);
+        }
+    }
+
+    void unpin(final ModelSnapshot snapshot) {
+        openSnapshots.remove(snapshot);
+    }
+
+    /**
+     * Get the oldest version which an open snapshot may still read.
+     *
+     * @return the oldest pinned version, or the most recently published version if no snapshot is open
+     */
+    long getOldestPinned() {
+        long oldest = committed;
+        for (ModelSnapshot snapshot : openSnapshots) {
+            oldest = Math.min(oldest, snapshot.getVersion());
+        }
+        return oldest;
+    }
+
+    void addPersister(final ConfigurationPersister persister) {
+        persisters.add(persister);
+    }
+
+    void removePersister(final ConfigurationPersister persister) {
+        persisters.remove(persister);
+    }
+
+    /**
+     * Publish new values for a set of nodes as a single version.
+     *
+     * @param values the new value of each node
+     * @param writes the addresses of the resources written by the change
+     * @param transaction the transaction to validate before publishing, or {@code null} for none
+     * @param journal the journal to append the change record to before publishing, or {@code null} for none
+     * @param record the encoded change record, or {@code null} for none
+     * @return the published version, or the current version if there was nothing to publish
+     * @throws ModelConflictException if the transaction conflicts with an earlier commit
+     * @throws IllegalStateException if the change record could not be written to the journal
+     */
+    long publish(final Map<AbstractMutableNode<?>, Object> values, final Set<PathAddress> writes, final ModelTransaction transaction, final ModelJournal journal, final byte[] record) throws ModelConflictException {
+        synchronized (commitLock) {
+            if (transaction != null) {
+                transaction.validate(stamps);
+            }
+            if (values.isEmpty() && writes.isEmpty()) {
+                return committed;
+            }
+            long sequence = 0L;
+            if (record != null) {
+                try {
+                    sequence = journal.append(record);
+                } catch (IOException e) {
+                    throw new IllegalStateException(MESSAGES.journalWriteFailed(), e);
+                }
+            }
+            final long version = committed + 1;
+            for (Map.Entry<AbstractMutableNode<?>, Object> entry : values.entrySet()) {
+                entry.getKey().push(entry.getValue(), version);
+            }
+            for (PathAddress address : writes) {
+                stamps.stamp(address, version);
+            }
+            committed = version;
+            if (record != null) {
+                journal.published(sequence);
+            }
+            // marked only once visible, so that a persister which then opens a snapshot sees the change
+            for (ConfigurationPersister persister : persisters) {
+                persister.markDirty(values.keySet());
+            }
+            // only now can the set of snapshots needing old versions be read; see pin()
+            long oldest = version;
+            for (ModelSnapshot snapshot : openSnapshots) {
+                oldest = Math.min(oldest, snapshot.getVersion());
+            }
+            for (AbstractMutableNode<?> node : values.keySet()) {
+                node.prune(oldest);
+            }
+            return version;
+        }
+    }
+}
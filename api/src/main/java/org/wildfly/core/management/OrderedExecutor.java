@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * An executor which runs tasks with the same key one at a time, in submission order, while tasks with different
+ * keys run in parallel on the delegate executor.  Each key with pending tasks occupies at most one delegate task at
+ * a time, which runs one task and then resubmits itself, so that a busy key cannot monopolize a delegate thread.
+ * If the delegate rejects a key's next run, every task still pending for the key is {@linkplain Task#rejected
+ * rejected} in order, rather than being lost.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class OrderedExecutor {
+    private final Executor delegate;
+    private final ConcurrentHashMap<Object, SerialQueue> queues = new ConcurrentHashMap<>();
+
+    OrderedExecutor(final Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * A task which is told if it will never run.
+     */
+    interface Task extends Runnable {
+
+        /**
+         * Called instead of {@link #run()} if the delegate executor rejected the task.
+         *
+         * @param cause the rejection
+         */
+        void rejected(RuntimeException cause);
+    }
+
+    void execute(final Object key, final Task task) {
+        for (;;) {
+            final SerialQueue queue = queues.get(key);
+            if (queue == null) {
+                final SerialQueue newQueue = new SerialQueue(key, task);
+                if (queues.putIfAbsent(key, newQueue) == null) {
+                    newQueue.submit();
+                    return;
+                }
+            } else {
+                synchronized (queue) {
+                    // a drained queue has left the map, so start over with a new one
+                    if (! queue.drained) {
+                        queue.tasks.add(task);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    final class SerialQueue implements Runnable {
+        private final Object key;
+        /**
+         * The pending tasks, the first of which is either running or submitted to run.
+         */
+        final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        boolean drained;
+
+        SerialQueue(final Object key, final Task first) {
+            this.key = key;
+            tasks.add(first);
+        }
+
+        void submit() {
+            try {
+                delegate.execute(this);
+            } catch (RuntimeException e) {
+                final List<Task> rejected;
+                synchronized (this) {
+                    drained = true;
+                    rejected = new ArrayList<>(tasks);
+                    tasks.clear();
+                }
+                queues.remove(key, this);
+                for (Task task : rejected) {
+                    task.rejected(e);
+                }
+            }
+        }
+
+        public void run() {
+            final Task task;
+            synchronized (this) {
+                task = tasks.peek();
+            }
+            try {
+                task.run();
+            } finally {
+                final boolean more;
+                synchronized (this) {
+                    tasks.poll();
+                    more = ! tasks.isEmpty();
+                    if (! more) {
+                        drained = true;
+                    }
+                }
+                if (more) {
+                    submit();
+                } else {
+                    queues.remove(key, this);
+                }
+            }
+        }
+    }
+}
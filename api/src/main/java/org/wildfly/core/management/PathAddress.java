@@ -17,9 +17,7 @@
  */
 package org.wildfly.core.management;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -28,6 +26,8 @@ import java.util.NoSuchElementException;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.Property;
 
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
 /**
  * A path address for an operation.
  *
@@ -39,7 +39,7 @@ public final class PathAddress implements Iterable<PathElement> {
     /**
      * An empty address.
      */
-    public static final PathAddress EMPTY_ADDRESS = new PathAddress(Collections.<PathElement>emptyList());
+    public static final PathAddress EMPTY_ADDRESS = new PathAddress(null, null);
 
     /**
      * Creates a PathAddress from the given ModelNode address.  The given node is expected
@@ -51,30 +51,22 @@ public final class PathAddress implements Iterable<PathElement> {
      */
     public static PathAddress pathAddress(final ModelNode node) {
         if (node.isDefined()) {
-            final List<Property> props = node.asPropertyList();
-            if (props.size() == 0) {
-                return EMPTY_ADDRESS;
-            } else {
-                final ArrayList<PathElement> values = new ArrayList<>();
-                for (final Property prop : props) {
-                    values.add(new PathElement(prop.getName(), prop.getValue().asString()));
-                }
-                return new PathAddress(Collections.unmodifiableList(values));
+            PathAddress address = EMPTY_ADDRESS;
+            for (final Property prop : node.asPropertyList()) {
+                address = new PathAddress(address, PathElement.pathElement(prop.getName(), prop.getValue().asString()));
             }
+            return address;
         } else {
             return EMPTY_ADDRESS;
         }
     }
 
     public static PathAddress pathAddress(List<PathElement> elements) {
-        if (elements.size() == 0) {
-            return EMPTY_ADDRESS;
-        }
-        return new PathAddress(Collections.unmodifiableList(new ArrayList<>(elements)));
+        return EMPTY_ADDRESS.append(elements);
     }
 
     public static PathAddress pathAddress(PathElement... elements) {
-        return pathAddress(Arrays.<PathElement>asList(elements));
+        return EMPTY_ADDRESS.append(elements);
     }
 
     public static PathAddress pathAddress(String key, String value) {
@@ -85,10 +77,53 @@ public final class PathAddress implements Iterable<PathElement> {
         return parent.append(elements);
     }
 
-    private final List<PathElement> pathAddressList;
+    /**
+     * Parse an address in CLI syntax, such as {@code /subsystem=logging/file-handler=FILE}.  A value may be the
+     * wildcard {@code *} or a multi-value such as {@code [a,b]}.  Any part of a key or value may be enclosed in
+     * double quotes, within which {@code /} and {@code =} are not special; a backslash escapes the character after
+     * it, inside or outside of quotes.  The empty string and {@code /} both denote the empty address.
+     *
+     * @param address the address string
+     * @return the path address
+     * @throws IllegalArgumentException if the address is not valid
+     */
+    public static PathAddress parseCLIStyleAddress(final String address) throws IllegalArgumentException {
+        return new CLIStyleParser(address).parse();
+    }
 
-    PathAddress(final List<PathElement> pathAddressList) {
-        this.pathAddressList = pathAddressList;
+    /**
+     * The address of the parent, or {@code null} for the empty address.  Addresses form a persistent structure:
+     * appending to an address shares it as the parent of the new address rather than copying it.
+     */
+    private final PathAddress parent;
+    /**
+     * The last element of this address, or {@code null} for the empty address.
+     */
+    private final PathElement lastElement;
+    private final int size;
+    private final boolean multiTarget;
+    /**
+     * The hash code, which is computed the same way as {@link List#hashCode()} over the elements.
+     */
+    private final int hashCode;
+    /**
+     * The elements of this address in order, computed on first use, so that indexed access and iteration do not
+     * walk the parent chain each time.
+     */
+    private volatile PathElement[] elements;
+
+    private PathAddress(final PathAddress parent, final PathElement lastElement) {
+        this.parent = parent;
+        this.lastElement = lastElement;
+        if (parent == null) {
+            size = 0;
+            multiTarget = false;
+            hashCode = 1;
+        } else {
+            size = parent.size + 1;
+            multiTarget = parent.multiTarget || lastElement.isMultiTarget();
+            hashCode = 31 * parent.hashCode + lastElement.hashCode();
+        }
     }
 
     /**
@@ -101,8 +136,10 @@ public final class PathAddress implements Iterable<PathElement> {
      *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
      */
     public PathElement getElement(int index) {
-        final List<PathElement> list = pathAddressList;
-        return list.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return elements()[index];
     }
 
     /**
@@ -111,8 +148,16 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return the element, or {@code null} if {@link #size()} is zero.
      */
     public PathElement getLastElement() {
-        final List<PathElement> list = pathAddressList;
-        return list.size() == 0 ? null : list.get(list.size() - 1);
+        return lastElement;
+    }
+
+    /**
+     * Get the address of the parent of this address, which is this address without its last element.
+     *
+     * @return the parent address, or {@code null} if {@link #size()} is zero.
+     */
+    public PathAddress getParent() {
+        return parent;
     }
 
     /**
@@ -122,19 +167,27 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return the partial address
      */
     public PathAddress subAddress(int start) {
-        final List<PathElement> list = pathAddressList;
-        return new PathAddress(list.subList(start, list.size()));
+        return subAddress(start, size);
     }
 
     /**
      * Get a portion of this address using segments between {@code start} (inclusive) and {@code end} (exclusive).
+     * A portion which starts at zero shares the structure of this address; any other portion is rebuilt, so that it
+     * does not retain the elements it omits.
      *
      * @param start the start index
      * @param end the end index
      * @return the partial address
      */
     public PathAddress subAddress(int start, int end) {
-        return new PathAddress(pathAddressList.subList(start, end));
+        if (start < 0 || end > size || start > end) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Size: " + size);
+        }
+        final PathAddress prefix = getPrefix(end);
+        if (start == 0) {
+            return prefix;
+        }
+        return EMPTY_ADDRESS.append(prefix.elements(), start);
     }
 
     /**
@@ -144,10 +197,11 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return the new path address
      */
     public PathAddress append(List<PathElement> additionalElements) {
-        final ArrayList<PathElement> newList = new ArrayList<>(pathAddressList.size() + additionalElements.size());
-        newList.addAll(pathAddressList);
-        newList.addAll(additionalElements);
-        return pathAddress(newList);
+        PathAddress address = this;
+        for (PathElement element : additionalElements) {
+            address = new PathAddress(address, element);
+        }
+        return address;
     }
 
     /**
@@ -157,10 +211,7 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return the new path address
      */
     public PathAddress append(PathElement... additionalElements) {
-        final ArrayList<PathElement> newList = new ArrayList<>(pathAddressList.size() + additionalElements.length);
-        newList.addAll(pathAddressList);
-        Collections.addAll(newList, additionalElements);
-        return pathAddress(newList);
+        return append(additionalElements, 0);
     }
 
     /**
@@ -170,17 +221,60 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return the new path address
      */
     public PathAddress append(PathAddress address) {
-        return append(address.pathAddressList);
+        if (size == 0) {
+            return address;
+        }
+        return append(address.elements(), 0);
     }
 
     public PathAddress append(String key, String value) {
-        return append(PathElement.pathElement(key, value));
+        return new PathAddress(this, PathElement.pathElement(key, value));
     }
 
     public PathAddress append(String key) {
-        return append(PathElement.pathElement(key));
+        return new PathAddress(this, PathElement.pathElement(key));
+    }
+
+    private PathAddress append(PathElement[] elements, int start) {
+        PathAddress address = this;
+        for (int i = start; i < elements.length; i ++) {
+            address = new PathAddress(address, elements[i]);
+        }
+        return address;
+    }
+
+    /**
+     * Get the leading portion of this address with the given number of elements, without copying.
+     *
+     * @param length the number of elements
+     * @return the prefix address
+     */
+    private PathAddress getPrefix(int length) {
+        PathAddress address = this;
+        for (int i = size; i > length; i --) {
+            address = address.parent;
+        }
+        return address;
     }
 
+    /**
+     * Get the elements of this address in order.  The array is shared and must not be modified.
+     *
+     * @return the elements
+     */
+    private PathElement[] elements() {
+        PathElement[] elements = this.elements;
+        if (elements == null) {
+            elements = new PathElement[size];
+            PathAddress address = this;
+            for (int i = size - 1; i >= 0; i --) {
+                elements[i] = address.lastElement;
+                address = address.parent;
+            }
+            this.elements = elements;
+        }
+        return elements;
+    }
 
     /**
      * Navigate to this address in the given model node.
@@ -191,7 +285,7 @@ public final class PathAddress implements Iterable<PathElement> {
      * @throws NoSuchElementException if the model contains no such element
      */
     public ModelNode navigate(ModelNode model, boolean create) throws NoSuchElementException {
-        final Iterator<PathElement> i = pathAddressList.iterator();
+        final Iterator<PathElement> i = iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
             if (create && ! i.hasNext()) {
@@ -214,7 +308,7 @@ public final class PathAddress implements Iterable<PathElement> {
      * @throws NoSuchElementException if the model contains no such element
      */
     public ModelNode remove(ModelNode model) throws NoSuchElementException {
-        final Iterator<PathElement> i = pathAddressList.iterator();
+        final Iterator<PathElement> i = iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
             if (i.hasNext()) {
@@ -234,7 +328,7 @@ public final class PathAddress implements Iterable<PathElement> {
      */
     public ModelNode toModelNode() {
         final ModelNode node = new ModelNode().setEmptyList();
-        for (PathElement element : pathAddressList) {
+        for (PathElement element : this) {
             final String value;
             if(element.isMultiTarget() && ! element.isWildcard()) {
                 value = '[' + element.getValue() + ']';
@@ -247,26 +341,110 @@ public final class PathAddress implements Iterable<PathElement> {
     }
 
     /**
-     * Check whether this address applies to multiple targets.
+     * Get the CLI syntax representation of this address, as accepted by {@link #parseCLIStyleAddress(String)}.
      *
-     * @return <code>true</code> if the address can apply to multiple targets, <code>false</code> otherwise
+     * @return the address string
      */
-    public boolean isMultiTarget() {
-        for(final PathElement element : pathAddressList) {
-            if(element.isMultiTarget()) {
-                return true;
+    public String toCLIStyleString() {
+        return appendCLIStyleString(new StringBuilder()).toString();
+    }
+
+    /**
+     * Append the CLI syntax representation of this address to a string builder.
+     *
+     * @param builder the string builder
+     * @return the string builder
+     */
+    public StringBuilder appendCLIStyleString(final StringBuilder builder) {
+        try {
+            appendCLIStyleString((Appendable) builder);
+        } catch (IOException e) {
+            // not possible
+            throw new IllegalStateException(e);
+        }
+        return builder;
+    }
+
+    /**
+     * Append the CLI syntax representation of this address to a character sink.
+     *
+     * @param target the target to append to
+     * @throws IOException if appending to the target fails
+     */
+    public void appendCLIStyleString(final Appendable target) throws IOException {
+        if (size == 0) {
+            target.append('/');
+        } else {
+            appendCLIStyleElements(target);
+        }
+    }
+
+    private void appendCLIStyleElements(final Appendable target) throws IOException {
+        if (parent == null) {
+            return;
+        }
+        parent.appendCLIStyleElements(target);
+        final PathElement element = lastElement;
+        target.append('/').append(element.getKey()).append('=');
+        final String value = element.getValue();
+        final boolean bracketed = element.isMultiTarget() && ! element.isWildcard();
+        if (! needsQuoting(value)) {
+            if (bracketed) {
+                target.append('[').append(value).append(']');
+            } else {
+                target.append(value);
+            }
+            return;
+        }
+        target.append('"');
+        if (bracketed) {
+            target.append('[');
+        }
+        final int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i ++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                target.append(value, start, i).append('\\');
+                start = i;
+            }
+        }
+        target.append(value, start, length);
+        if (bracketed) {
+            target.append(']');
+        }
+        target.append('"');
+    }
+
+    private static boolean needsQuoting(final String value) {
+        final int length = value.length();
+        for (int i = 0; i < length; i ++) {
+            switch (value.charAt(i)) {
+                case '/':
+                case '=':
+                case '"':
+                case '\\': return true;
             }
         }
         return false;
     }
 
+    /**
+     * Check whether this address applies to multiple targets.
+     *
+     * @return <code>true</code> if the address can apply to multiple targets, <code>false</code> otherwise
+     */
+    public boolean isMultiTarget() {
+        return multiTarget;
+    }
+
     /**
      * Get the size of this path, in elements.
      *
      * @return the size
      */
     public int size() {
-        return pathAddressList.size();
+        return size;
     }
 
     /**
@@ -276,12 +454,12 @@ public final class PathAddress implements Iterable<PathElement> {
      */
     @Override
     public ListIterator<PathElement> iterator() {
-        return pathAddressList.listIterator();
+        return new ElementIterator(elements());
     }
 
     @Override
     public int hashCode() {
-        return pathAddressList.hashCode();
+        return hashCode;
     }
 
     /**
@@ -302,11 +480,202 @@ public final class PathAddress implements Iterable<PathElement> {
      * @return {@code true} if they are equal, {@code false} otherwise
      */
     public boolean equals(PathAddress other) {
-        return this == other || other != null && pathAddressList.equals(other.pathAddressList);
+        if (this == other) {
+            return true;
+        }
+        if (other == null || size != other.size || hashCode != other.hashCode) {
+            return false;
+        }
+        // both chains end at EMPTY_ADDRESS, so stop as soon as they share structure
+        PathAddress a = this, b = other;
+        while (a != b) {
+            if (! a.lastElement.equals(b.lastElement)) {
+                return false;
+            }
+            a = a.parent;
+            b = b.parent;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
         return toModelNode().toString();
     }
+
+    /**
+     * A read-only iterator over the shared element array of an address.
+     */
+    static final class ElementIterator implements ListIterator<PathElement> {
+        private final PathElement[] elements;
+        private int idx;
+
+        ElementIterator(final PathElement[] elements) {
+            this.elements = elements;
+        }
+
+        public boolean hasNext() {
+            return idx < elements.length;
+        }
+
+        public PathElement next() {
+            if (idx == elements.length) {
+                throw new NoSuchElementException();
+            }
+            return elements[idx ++];
+        }
+
+        public boolean hasPrevious() {
+            return idx > 0;
+        }
+
+        public PathElement previous() {
+            if (idx == 0) {
+                throw new NoSuchElementException();
+            }
+            return elements[-- idx];
+        }
+
+        public int nextIndex() {
+            return idx;
+        }
+
+        public int previousIndex() {
+            return idx - 1;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void set(final PathElement element) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void add(final PathElement element) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A single-pass parser for CLI syntax addresses.  Tokens without quotes or escapes are taken as substrings of
+     * the input; a builder is only used for tokens which need unescaping.
+     */
+    static final class CLIStyleParser {
+        private final String address;
+        private final int length;
+        private int pos;
+        private StringBuilder builder;
+
+        CLIStyleParser(final String address) {
+            this.address = address;
+            length = address.length();
+        }
+
+        PathAddress parse() {
+            if (length == 0 || length == 1 && address.charAt(0) == '/') {
+                return EMPTY_ADDRESS;
+            }
+            if (address.charAt(0) != '/') {
+                throw new IllegalArgumentException(MESSAGES.invalidAddressExpected(address, '/', 0));
+            }
+            PathAddress result = EMPTY_ADDRESS;
+            pos = 1;
+            for (;;) {
+                final String key = token(true);
+                if (pos == length || address.charAt(pos) != '=') {
+                    throw new IllegalArgumentException(MESSAGES.invalidAddressExpected(address, '=', pos));
+                }
+                pos ++;
+                final int valueStart = pos;
+                final String value = token(false);
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException(MESSAGES.invalidAddressMissingValue(address, valueStart));
+                }
+                result = new PathAddress(result, PathElement.pathElement(key, value));
+                if (pos == length) {
+                    return result;
+                }
+                // token() only stops early at a separator
+                pos ++;
+            }
+        }
+
+        /**
+         * Read a key or value, stopping at an unquoted {@code /}, or at an unquoted {@code =} for a key.
+         *
+         * @param key {@code true} if a key is being read
+         * @return the unescaped token
+         */
+        private String token(final boolean key) {
+            final String address = this.address;
+            final int start = pos;
+            int runStart = start;
+            boolean unescaped = false;
+            while (pos < length) {
+                final char c = address.charAt(pos);
+                if (c == '/' || key && c == '=') {
+                    break;
+                } else if (c == '\\') {
+                    runStart = startUnescape(unescaped, start, runStart);
+                    unescaped = true;
+                    escape();
+                    runStart = pos;
+                } else if (c == '"') {
+                    runStart = startUnescape(unescaped, start, runStart);
+                    unescaped = true;
+                    final int quoteStart = pos ++;
+                    for (;;) {
+                        if (pos == length) {
+                            throw new IllegalArgumentException(MESSAGES.invalidAddressUnterminatedQuote(address, quoteStart));
+                        }
+                        final char q = address.charAt(pos);
+                        if (q == '"') {
+                            pos ++;
+                            break;
+                        } else if (q == '\\') {
+                            escape();
+                        } else {
+                            builder.append(q);
+                            pos ++;
+                        }
+                    }
+                    runStart = pos;
+                } else {
+                    pos ++;
+                }
+            }
+            if (! unescaped) {
+                return address.substring(start, pos);
+            }
+            return builder.append(address, runStart, pos).toString();
+        }
+
+        /**
+         * Copy the pending unescaped run into the builder, resetting the builder for a new token if needed.
+         *
+         * @return the new run start
+         */
+        private int startUnescape(final boolean unescaped, final int start, final int runStart) {
+            StringBuilder builder = this.builder;
+            if (builder == null) {
+                this.builder = builder = new StringBuilder();
+            }
+            if (! unescaped) {
+                builder.setLength(0);
+                builder.append(address, start, pos);
+            } else {
+                builder.append(address, runStart, pos);
+            }
+            return pos;
+        }
+
+        private void escape() {
+            if (pos + 1 == length) {
+                throw new IllegalArgumentException(MESSAGES.invalidAddressIncompleteEscape(address, pos));
+            }
+            builder.append(address.charAt(pos + 1));
+            pos += 2;
+        }
+    }
 }
@@ -0,0 +1,345 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent prefix trie of values registered against address patterns.  Each pattern element is stored as an
+ * edge, so wildcard and multi-value elements are edges like any other, and matching an address follows only the
+ * edges which can match each of its elements.  Lookups do not lock; updates are serialized.
+ *
+ * @param <T> the value type
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class PathAddressTrie<T> {
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * Register a value against an address pattern.  A value which is already registered against the pattern is
+     * not added again.
+     *
+     * @param pattern the address pattern
+     * @param value the value to register
+     * @return {@code true} if the value was added, {@code false} if it was already registered
+     */
+    public boolean insert(PathAddress pattern, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value is null");
+        }
+        synchronized (root) {
+            Node node = root;
+            for (PathElement element : pattern) {
+                node = node.getOrCreateChild(element);
+            }
+            final Object[] values = node.values;
+            for (Object existing : values) {
+                if (existing.equals(value)) {
+                    return false;
+                }
+            }
+            final Object[] newValues = Arrays.copyOf(values, values.length + 1);
+            newValues[values.length] = value;
+            node.values = newValues;
+            return true;
+        }
+    }
+
+    /**
+     * Remove a value registered against an address pattern.  Nodes left empty by the removal are pruned.
+     *
+     * @param pattern the address pattern
+     * @param value the value to remove
+     * @return {@code true} if the value was removed, {@code false} if it was not registered
+     */
+    public boolean remove(PathAddress pattern, T value) {
+        synchronized (root) {
+            Node node = root;
+            for (PathElement element : pattern) {
+                node = node.getChild(element);
+                if (node == null) {
+                    return false;
+                }
+            }
+            final Object[] values = node.values;
+            final int length = values.length;
+            for (int i = 0; i < length; i ++) {
+                if (values[i].equals(value)) {
+                    if (length == 1) {
+                        node.values = NO_VALUES;
+                    } else {
+                        final Object[] newValues = new Object[length - 1];
+                        System.arraycopy(values, 0, newValues, 0, i);
+                        System.arraycopy(values, i + 1, newValues, i, length - i - 1);
+                        node.values = newValues;
+                    }
+                    while (node.parent != null && node.isEmpty()) {
+                        node.parent.removeChild(node);
+                        node = node.parent;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Get the values registered against exactly the given pattern.
+     *
+     * @param pattern the address pattern
+     * @param target the collection to add the values to
+     * @param <C> the collection type
+     * @return the target collection
+     */
+    public <C extends Collection<? super T>> C get(PathAddress pattern, C target) {
+        final Node node = find(pattern);
+        if (node != null) {
+            node.addValuesTo(target);
+        }
+        return target;
+    }
+
+    /**
+     * Get the values registered against the given pattern or any pattern which extends it.  The prefix is
+     * matched edge for edge, so a wildcard in the prefix selects only patterns with the same wildcard.
+     *
+     * @param prefix the pattern prefix
+     * @param target the collection to add the values to
+     * @param <C> the collection type
+     * @return the target collection
+     */
+    public <C extends Collection<? super T>> C getAllUnder(PathAddress prefix, C target) {
+        final Node node = find(prefix);
+        if (node != null) {
+            node.addSubtreeValuesTo(target);
+        }
+        return target;
+    }
+
+    /**
+     * Get the values registered against every pattern which matches the given concrete address.  A pattern
+     * matches if it has the same number of elements, and each of its elements is equal to, or is a wildcard or
+     * multi-value element which includes, the corresponding element of the address.
+     *
+     * @param address the concrete address
+     * @param target the collection to add the values to
+     * @param <C> the collection type
+     * @return the target collection
+     */
+    public <C extends Collection<? super T>> C getMatching(PathAddress address, C target) {
+        final PathElement[] elements = new PathElement[address.size()];
+        int i = 0;
+        for (PathElement element : address) {
+            elements[i ++] = element;
+        }
+        root.addMatchingValuesTo(elements, 0, target);
+        return target;
+    }
+
+    /**
+     * Find the node of a pattern.
+     *
+     * @param pattern the address pattern
+     * @return the node, or {@code null} if the trie has no node for the pattern
+     */
+    Node find(PathAddress pattern) {
+        Node node = root;
+        for (PathElement element : pattern) {
+            node = node.getChild(element);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    static final class Node {
+        private static final Node[] NO_NODES = new Node[0];
+
+        final Node parent;
+        /**
+         * The edge leading to this node from its parent.
+         */
+        final PathElement element;
+        /**
+         * The values registered at this node; replaced on update, never modified.
+         */
+        volatile Object[] values = NO_VALUES;
+        /**
+         * Single-value and wildcard edges, grouped by key and then by value.
+         */
+        private volatile ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children;
+        /**
+         * Multi-value edges, which must be scanned when matching; replaced on update, never modified.
+         */
+        private volatile Node[] multiValueChildren = NO_NODES;
+
+        Node(final Node parent, final PathElement element) {
+            this.parent = parent;
+            this.element = element;
+        }
+
+        private static boolean isMultiValue(PathElement element) {
+            return element.isMultiTarget() && ! element.isWildcard() && element.getValue().indexOf(',') != -1;
+        }
+
+        Node getChild(final PathElement element) {
+            if (isMultiValue(element)) {
+                for (Node child : multiValueChildren) {
+                    if (child.element.equals(element)) {
+                        return child;
+                    }
+                }
+                return null;
+            }
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            if (children == null) {
+                return null;
+            }
+            final ConcurrentHashMap<String, Node> group = children.get(element.getKey());
+            return group == null ? null : group.get(element.getValue());
+        }
+
+        // Called with the trie lock held
+
+        Node getOrCreateChild(final PathElement element) {
+            Node child = getChild(element);
+            if (child != null) {
+                return child;
+            }
+            child = new Node(this, element);
+            if (isMultiValue(element)) {
+                final Node[] multiValueChildren = this.multiValueChildren;
+                final Node[] newChildren = Arrays.copyOf(multiValueChildren, multiValueChildren.length + 1);
+                newChildren[multiValueChildren.length] = child;
+                this.multiValueChildren = newChildren;
+                return child;
+            }
+            ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            if (children == null) {
+                this.children = children = new ConcurrentHashMap<>();
+            }
+            ConcurrentHashMap<String, Node> group = children.get(element.getKey());
+            if (group == null) {
+                children.put(element.getKey(), group = new ConcurrentHashMap<>());
+            }
+            group.put(element.getValue(), child);
+            return child;
+        }
+
+        void removeChild(final Node child) {
+            final PathElement element = child.element;
+            if (isMultiValue(element)) {
+                final Node[] multiValueChildren = this.multiValueChildren;
+                final int length = multiValueChildren.length;
+                for (int i = 0; i < length; i ++) {
+                    if (multiValueChildren[i] == child) {
+                        final Node[] newChildren = new Node[length - 1];
+                        System.arraycopy(multiValueChildren, 0, newChildren, 0, i);
+                        System.arraycopy(multiValueChildren, i + 1, newChildren, i, length - i - 1);
+                        this.multiValueChildren = newChildren;
+                        return;
+                    }
+                }
+                return;
+            }
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            final ConcurrentHashMap<String, Node> group = children.get(element.getKey());
+            group.remove(element.getValue());
+            if (group.isEmpty()) {
+                children.remove(element.getKey());
+            }
+        }
+
+        boolean isEmpty() {
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            return values.length == 0 && multiValueChildren.length == 0 && (children == null || children.isEmpty());
+        }
+
+        // Lookups
+
+        @SuppressWarnings("unchecked")
+        <T> void addValuesTo(final Collection<? super T> target) {
+            for (Object value : values) {
+                target.add((T) value);
+            }
+        }
+
+        <T> void addSubtreeValuesTo(final Collection<? super T> target) {
+            this.<T>addValuesTo(target);
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            if (children != null) {
+                for (ConcurrentHashMap<String, Node> group : children.values()) {
+                    for (Node child : group.values()) {
+                        child.<T>addSubtreeValuesTo(target);
+                    }
+                }
+            }
+            for (Node child : multiValueChildren) {
+                child.<T>addSubtreeValuesTo(target);
+            }
+        }
+
+        <T> void addMatchingValuesTo(final PathElement[] elements, final int depth, final Collection<? super T> target) {
+            if (depth == elements.length) {
+                this.<T>addValuesTo(target);
+                return;
+            }
+            final PathElement element = elements[depth];
+            final String key = element.getKey();
+            final String value = element.getValue();
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Node>> children = this.children;
+            if (children != null) {
+                addGroupMatchesTo(children.get(key), value, elements, depth, target);
+                if (key != PathElement.WILDCARD_VALUE) {
+                    addGroupMatchesTo(children.get(PathElement.WILDCARD_VALUE), value, elements, depth, target);
+                }
+            }
+            for (Node child : multiValueChildren) {
+                final String childKey = child.element.getKey();
+                if ((childKey == PathElement.WILDCARD_VALUE || childKey.equals(key)) && child.element.hasSegment(value)) {
+                    child.addMatchingValuesTo(elements, depth + 1, target);
+                }
+            }
+        }
+
+        private static <T> void addGroupMatchesTo(final ConcurrentHashMap<String, Node> group, final String value, final PathElement[] elements, final int depth, final Collection<? super T> target) {
+            if (group == null) {
+                return;
+            }
+            Node child = group.get(value);
+            if (child != null) {
+                child.addMatchingValuesTo(elements, depth + 1, target);
+            }
+            if (value != PathElement.WILDCARD_VALUE) {
+                child = group.get(PathElement.WILDCARD_VALUE);
+                if (child != null) {
+                    child.addMatchingValuesTo(elements, depth + 1, target);
+                }
+            }
+        }
+    }
+}
@@ -20,7 +20,7 @@ package org.wildfly.core.management;
 
 import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
 
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.jboss.dmr.Property;
 
@@ -37,12 +37,22 @@ public final class PathElement {
     private final String value;
     private final boolean multiTarget;
     private final int hashCode;
+    /**
+     * The comma-separated segments of the value, or {@code null} if the value has only one segment.
+     */
+    private final String[] segments;
+
+    /**
+     * The number of slots in the canonical instance cache; must be a power of two.
+     */
+    private static final int CACHE_SIZE = 1024;
 
     /**
-     * A valid key contains alphanumerics and underscores, cannot start with a
-     * number, and cannot start or end with {@code -}.
+     * A bounded cache of canonical instances.  Each key/value pair maps to exactly one slot, and a colliding
+     * pair simply replaces the previous occupant, so the cache never grows and lookups never lock.  Instances
+     * are immutable, so a racing reader sees either a complete old instance or a complete new one.
      */
-    private static final Pattern VALID_KEY_PATTERN = Pattern.compile("\\*|[_a-zA-Z](?:[-_a-zA-Z0-9]*[_a-zA-Z0-9])?");
+    private static final AtomicReferenceArray<PathElement> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
 
     /**
      * Construct a new instance with a wildcard value.
@@ -50,17 +60,61 @@ public final class PathElement {
      * @return the new path element
      */
     public static PathElement pathElement(final String key) {
-        return new PathElement(key);
+        return pathElement(key, WILDCARD_VALUE);
     }
 
     /**
-     * Construct a new instance.
+     * Get an instance for the given key and value.  Frequently used elements are validated once and the
+     * same instance is returned for each subsequent request.
      * @param key the path key to match
      * @param value the path value or wildcard to match
-     * @return the new path element
+     * @return the path element
      */
     public static PathElement pathElement(final String key, final String value) {
-        return new PathElement(key, value);
+        if (key == null || value == null || value.isEmpty()) {
+            // let the constructor report the problem
+            return new PathElement(key, value);
+        }
+        int hash = key.hashCode() * 19 + value.hashCode();
+        final int idx = (hash ^ hash >>> 16) & CACHE_SIZE - 1;
+        final PathElement cached = CACHE.get(idx);
+        // bracketed values are never cached, so a cached value can only match an identical unbracketed value
+        if (cached != null && cached.value.equals(value) && cached.key.equals(key)) {
+            return cached;
+        }
+        final PathElement element = new PathElement(key, value);
+        if (value.charAt(0) != '[') {
+            CACHE.lazySet(idx, element);
+        }
+        return element;
+    }
+
+    /**
+     * Determine whether a key is valid.  A valid key is the wildcard, or contains alphanumerics, underscores
+     * and {@code -}, cannot start with a number, and cannot start or end with {@code -}.
+     *
+     * @param key the key to test
+     * @return {@code true} if the key is valid, {@code false} otherwise
+     */
+    private static boolean isValidKey(final String key) {
+        final int length = key.length();
+        if (length == 0) {
+            return false;
+        }
+        char c = key.charAt(0);
+        if (length == 1 && c == '*') {
+            return true;
+        }
+        if (! (c == '_' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+            return false;
+        }
+        for (int i = 1; i < length; i ++) {
+            c = key.charAt(i);
+            if (! (c == '_' || c == '-' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return c != '-';
     }
 
     /**
@@ -77,11 +131,11 @@ public final class PathElement {
      * @param value the path value or wildcard to match
      */
     PathElement(final String key, final String value) {
-        if (key == null || !VALID_KEY_PATTERN.matcher(key).matches()) {
+        if (key == null || ! isValidKey(key)) {
             final String element = key + "=" + value;
             throw new IllegalArgumentException(MESSAGES.invalidPathElementKey(element, key));
         }
-        if (value == null) {
+        if (value == null || value.isEmpty()) {
             final String element = key + "=" + value;
             throw new IllegalArgumentException(MESSAGES.invalidPathElementValue(element, value, ' '));
         }
@@ -102,7 +156,8 @@ public final class PathElement {
             this.value = value;
         }
         this.multiTarget = multiTarget;
-        hashCode = key.hashCode() * 19 + value.hashCode();
+        segments = this.value.indexOf(',') == -1 ? null : this.value.split(",");
+        hashCode = this.key.hashCode() * 19 + this.value.hashCode();
     }
 
     /**
@@ -143,7 +198,25 @@ public final class PathElement {
     }
 
     public String[] getSegments() {
-        return value.split(",");
+        return segments == null ? new String[] { value } : segments.clone();
+    }
+
+    /**
+     * Determine whether one of the segments of the value is equal to the given string.
+     *
+     * @param segment the string to look for
+     * @return {@code true} if a segment is equal to the string
+     */
+    boolean hasSegment(String segment) {
+        if (segments == null) {
+            return value.equals(segment);
+        }
+        for (String s : segments) {
+            if (s.equals(segment)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String[] getKeyValuePair(){
@@ -170,7 +243,7 @@ public final class PathElement {
      * @return {@code true} if they are equal, {@code false} otherwise
      */
     public boolean equals(PathElement other) {
-        return this == other || other != null && other.key.equals(key) && other.value.equals(value);
+        return this == other || other != null && other.hashCode == hashCode && other.key.equals(key) && other.value.equals(value);
     }
 
     @Override
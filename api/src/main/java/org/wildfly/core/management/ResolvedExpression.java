@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+/**
+ * The cached value of an expression.  The expression is resolved when its value is first read, and again only after
+ * its {@link ExpressionResolver} reports that a referenced property has changed.  Numeric values are parsed along
+ * with the string, so that {@link #getInt()} and {@link #getLong()} on a cached value neither parse nor box.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ResolvedExpression {
+    private final Expression expression;
+    /**
+     * Incremented on each invalidation; a cached value is current only if it was resolved in the current generation.
+     */
+    private volatile int generation;
+    private volatile Value value;
+
+    ResolvedExpression(final Expression expression) {
+        this.expression = expression;
+    }
+
+    static final class Value {
+        final int generation;
+        final String string;
+        final boolean numeric;
+        final long number;
+
+        Value(final int generation, final String string) {
+            this.generation = generation;
+            this.string = string;
+            long number = 0;
+            boolean numeric;
+            try {
+                number = Long.parseLong(string.trim());
+                numeric = true;
+            } catch (NumberFormatException e) {
+                numeric = false;
+            }
+            this.numeric = numeric;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Get the expression.
+     *
+     * @return the expression
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Get the resolved value.
+     *
+     * @return the value
+     * @throws IllegalStateException if the expression cannot be resolved
+     */
+    public String getString() throws IllegalStateException {
+        return getValue().string;
+    }
+
+    /**
+     * Get the resolved value as an {@code int}.
+     *
+     * @return the value
+     * @throws IllegalStateException if the expression cannot be resolved
+     * @throws IllegalArgumentException if the value is not a valid {@code int}
+     */
+    public int getInt() throws IllegalStateException, IllegalArgumentException {
+        final Value value = getValue();
+        if (! value.numeric || (int) value.number != value.number) {
+            throw new IllegalArgumentException(MESSAGES.invalidResolvedNumber(value.string, expression.getTemplate()));
+        }
+        return (int) value.number;
+    }
+
+    /**
+     * Get the resolved value as a {@code long}.
+     *
+     * @return the value
+     * @throws IllegalStateException if the expression cannot be resolved
+     * @throws IllegalArgumentException if the value is not a valid {@code long}
+     */
+    public long getLong() throws IllegalStateException, IllegalArgumentException {
+        final Value value = getValue();
+        if (! value.numeric) {
+            throw new IllegalArgumentException(MESSAGES.invalidResolvedNumber(value.string, expression.getTemplate()));
+        }
+        return value.number;
+    }
+
+    void invalidate() {
+        generation ++;
+    }
+
+    private Value getValue() {
+        Value value = this.value;
+        // read the generation before resolving, so that a change made while resolving leaves the result stale
+        final int generation = this.generation;
+        if (value == null || value.generation != generation) {
+            this.value = value = new Value(generation, expression.resolve());
+        }
+        return value;
+    }
+
+    public String toString() {
+        return expression.toString();
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.wildfly.core.management;
 
+import java.io.IOException;
 import org.jboss.dmr.ModelNode;
 
 /**
@@ -32,6 +33,16 @@ public interface Resource extends Node {
      */
     ModelNode toModelNode();
 
+    /**
+     * Write a DMR representation of this resource to a model stream, without building a model node tree.  The
+     * resource is written as one object value, including its child resources if requested.
+     *
+     * @param writer the model stream writer
+     * @param recursive {@code true} to write child resources, {@code false} to omit them
+     * @throws IOException if writing fails
+     */
+    void writeModel(ModelStreamWriter writer, boolean recursive) throws IOException;
+
     /**
      * Navigate to a nested resource, if available.
      *
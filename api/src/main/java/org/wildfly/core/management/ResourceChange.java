@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.core.management;
+
+/**
+ * A change to a resource, as delivered to a {@link ResourceBatchListener}.
+ *
+ * @param <R> the resource type
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ResourceChange<R> {
+
+    /**
+     * The kind of a resource change.
+     */
+    public enum Kind {
+        ADDED,
+        CHANGED,
+        REMOVED,
+    }
+
+    private final PathAddress address;
+    private final Kind kind;
+    private final R original;
+    private final R updated;
+
+    ResourceChange(final PathAddress address, final Kind kind, final R original, final R updated) {
+        this.address = address;
+        this.kind = kind;
+        this.original = original;
+        this.updated = updated;
+    }
+
+    /**
+     * Get the address of the changed resource.
+     *
+     * @return the address
+     */
+    public PathAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Get the kind of change.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the resource as it was before the change.
+     *
+     * @return the original resource, or {@code null} if it was added
+     */
+    public R getOriginal() {
+        return original;
+    }
+
+    /**
+     * Get the resource as it is after the change.
+     *
+     * @return the updated resource, or {@code null} if it was removed
+     */
+    public R getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Combine two successive changes to the same resource into one.
+     *
+     * @param earlier the earlier change
+     * @param later the later change
+     * @return the combined change, or {@code null} if the changes cancel out
+     */
+    static <R> ResourceChange<R> coalesce(ResourceChange<R> earlier, ResourceChange<R> later) {
+        switch (earlier.kind) {
+            case ADDED: {
+                switch (later.kind) {
+                    case CHANGED: return new ResourceChange<>(later.address, Kind.ADDED, null, later.updated);
+                    case REMOVED: return null;
+                }
+                break;
+            }
+            case CHANGED: {
+                switch (later.kind) {
+                    case CHANGED: return new ResourceChange<>(later.address, Kind.CHANGED, earlier.original, later.updated);
+                    case REMOVED: return new ResourceChange<R>(later.address, Kind.REMOVED, earlier.original, null);
+                }
+                break;
+            }
+            case REMOVED: {
+                if (later.kind == Kind.ADDED) {
+                    return new ResourceChange<>(later.address, Kind.CHANGED, earlier.original, later.updated);
+                }
+                break;
+            }
+        }
+        return later;
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent index of the resources of a managed system, keyed by address.  The index mirrors the shape of
+ * the resource tree: each entry groups its children by {@link PathElement} key and then by value, so a lookup
+ * costs two hash probes per address element and removing an entry drops its whole subtree at once.  Members of
+ * lazily constructed child maps are registered by {@linkplain LazyResourceMap.Handle handle}, and are only
+ * constructed, and their own children indexed, once a lookup reaches them.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ResourceIndex {
+
+    private final Entry root;
+
+    ResourceIndex(final Resource rootResource) {
+        root = new Entry(rootResource);
+    }
+
+    /**
+     * Get the resource registered at the given address.
+     *
+     * @param address the concrete address
+     * @return the resource, or {@code null} if there is none
+     */
+    Resource get(final PathAddress address) {
+        Entry entry = root;
+        for (PathElement element : address) {
+            entry.prepare();
+            entry = entry.getChild(element);
+            if (entry == null) {
+                return null;
+            }
+        }
+        return entry.getResource();
+    }
+
+    /**
+     * Register a resource at the given address, replacing any previous registration.  Entries are created for
+     * any unindexed ancestors.
+     *
+     * @param address the concrete address
+     * @param resource the resource to register
+     */
+    void put(final PathAddress address, final Resource resource) {
+        putTarget(address, resource);
+    }
+
+    /**
+     * Register a member of a lazily constructed child map at the given address, replacing any previous
+     * registration.
+     *
+     * @param address the concrete address
+     * @param handle the handle of the member
+     */
+    void put(final PathAddress address, final LazyResourceMap.Handle handle) {
+        putTarget(address, handle);
+    }
+
+    private void putTarget(final PathAddress address, final Object target) {
+        Entry entry = root;
+        for (PathElement element : address) {
+            entry = entry.getOrCreateChild(element);
+        }
+        entry.target = target;
+    }
+
+    /**
+     * Remove the registration at the given address, along with all registrations beneath it.
+     *
+     * @param address the concrete address
+     * @return the removed resource, or {@code null} if none was registered
+     */
+    Resource remove(final PathAddress address) {
+        final int size = address.size();
+        if (size == 0) {
+            throw new IllegalArgumentException("Cannot remove the root resource");
+        }
+        Entry entry = root;
+        for (int i = 0; i < size - 1 && entry != null; i ++) {
+            entry = entry.getChild(address.getElement(i));
+        }
+        if (entry == null) {
+            return null;
+        }
+        final Entry removed = entry.removeChild(address.getLastElement());
+        return removed == null ? null : removed.getResource();
+    }
+
+    /**
+     * Lazily resolve the resources matching a possibly multi-target address.  Each element of the address
+     * first selects the child key groups it can match, and only then the values within those groups, so
+     * subtrees under other keys are never visited.
+     *
+     * @param address the address to resolve
+     * @return an iterator over the matching resources, keyed by their concrete addresses
+     */
+    Iterator<Map.Entry<PathAddress, Resource>> resolve(final PathAddress address) {
+        return new Resolver(address);
+    }
+
+    /**
+     * Get the resource at the given address by navigating the resource tree from a root resource, rather than
+     * through the index.  Each resource is read as seen by the current thread, so within an open snapshot the
+     * result is the resource of the snapshot's version.
+     *
+     * @param root the root resource
+     * @param address the concrete address
+     * @return the resource, or {@code null} if there is none
+     */
+    static Resource navigate(final Resource root, final PathAddress address) {
+        Resource resource = root;
+        for (PathElement element : address) {
+            resource = resource.navigate(element);
+            if (resource == null) {
+                return null;
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Lazily resolve the resources matching a possibly multi-target address by walking the resource tree from a
+     * root resource, rather than through the index.  Each resource is read as seen by the current thread, so
+     * within an open snapshot the matches are those of the snapshot's version.  Wildcards only match the children
+     * of {@linkplain AbstractMutableResource#getChildren() mutable resources}.
+     *
+     * @param root the root resource
+     * @param address the address to resolve
+     * @return an iterator over the matching resources, keyed by their concrete addresses
+     */
+    static Iterator<Map.Entry<PathAddress, Resource>> resolve(final Resource root, final PathAddress address) {
+        return new TreeResolver(root, address);
+    }
+
+    /**
+     * Determine whether a concrete address matches a possibly multi-target address.
+     *
+     * @param pattern the possibly multi-target address
+     * @param address the concrete address
+     * @return {@code true} if every element of the address is matched by the corresponding element of the pattern
+     */
+    static boolean matches(final PathAddress pattern, final PathAddress address) {
+        final int size = pattern.size();
+        if (address.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i ++) {
+            final PathElement expected = pattern.getElement(i);
+            final PathElement actual = address.getElement(i);
+            if (! PathElement.WILDCARD_VALUE.equals(expected.getKey()) && ! expected.getKey().equals(actual.getKey())) {
+                return false;
+            }
+            if (! expected.isWildcard() && ! expected.hasSegment(actual.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static final class Entry {
+        /**
+         * The registered resource, or the handle of a lazily constructed one, or {@code null} if none.
+         */
+        volatile Object target;
+        private volatile ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> children;
+
+        Entry(final Object target) {
+            this.target = target;
+        }
+
+        Resource getResource() {
+            final Object target = this.target;
+            return target instanceof LazyResourceMap.Handle ? ((LazyResourceMap.Handle) target).get() : (Resource) target;
+        }
+
+        /**
+         * Make sure that the children of this entry are indexed before they are looked up, by constructing the
+         * resource if it is lazily constructed.
+         */
+        void prepare() {
+            final Object target = this.target;
+            if (target instanceof LazyResourceMap.Handle) {
+                ((LazyResourceMap.Handle) target).get();
+            }
+        }
+
+        Entry getChild(final PathElement element) {
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> children = this.children;
+            if (children == null) {
+                return null;
+            }
+            final ConcurrentHashMap<String, Entry> group = children.get(element.getKey());
+            return group == null ? null : group.get(element.getValue());
+        }
+
+        Entry getOrCreateChild(final PathElement element) {
+            ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> children = this.children;
+            if (children == null) {
+                synchronized (this) {
+                    children = this.children;
+                    if (children == null) {
+                        this.children = children = new ConcurrentHashMap<>();
+                    }
+                }
+            }
+            final String key = element.getKey();
+            ConcurrentHashMap<String, Entry> group = children.get(key);
+            if (group == null) {
+                final ConcurrentHashMap<String, Entry> appearing = children.putIfAbsent(key, group = new ConcurrentHashMap<>());
+                if (appearing != null) {
+                    group = appearing;
+                }
+            }
+            final String value = element.getValue();
+            Entry entry = group.get(value);
+            if (entry == null) {
+                final Entry appearing = group.putIfAbsent(value, entry = new Entry(null));
+                if (appearing != null) {
+                    entry = appearing;
+                }
+            }
+            return entry;
+        }
+
+        Entry removeChild(final PathElement element) {
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> children = this.children;
+            if (children == null) {
+                return null;
+            }
+            final ConcurrentHashMap<String, Entry> group = children.get(element.getKey());
+            return group == null ? null : group.remove(element.getValue());
+        }
+
+        /**
+         * Get the key groups of child entries which can match the given element, keyed by child key.
+         *
+         * @param element the element to match
+         * @return the matching groups
+         */
+        Iterator<Map.Entry<String, ConcurrentHashMap<String, Entry>>> getGroups(final PathElement element) {
+            final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> children = this.children;
+            if (children == null) {
+                return Collections.emptyIterator();
+            }
+            final String key = element.getKey();
+            if (key == PathElement.WILDCARD_VALUE) {
+                return children.entrySet().iterator();
+            }
+            final ConcurrentHashMap<String, Entry> group = children.get(key);
+            if (group == null) {
+                return Collections.emptyIterator();
+            }
+            return Collections.<Map.Entry<String, ConcurrentHashMap<String, Entry>>>singleton(new AbstractMap.SimpleImmutableEntry<>(key, group)).iterator();
+        }
+    }
+
+    abstract static class LazyIterator<T> implements Iterator<T> {
+        private T next;
+
+        /**
+         * Compute the next item.
+         *
+         * @return the next item, or {@code null} if there are no more
+         */
+        abstract T computeNext();
+
+        public boolean hasNext() {
+            if (next == null) {
+                next = computeNext();
+            }
+            return next != null;
+        }
+
+        public T next() {
+            if (! hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return next;
+            } finally {
+                next = null;
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * The child entries of one entry which match one address element.
+     */
+    static final class MatchingEntries extends LazyIterator<Entry> {
+        private final Iterator<Map.Entry<String, ConcurrentHashMap<String, Entry>>> groups;
+        /**
+         * The values to look up in each group, or {@code null} to take every value.
+         */
+        private final String[] values;
+        private String key;
+        private ConcurrentHashMap<String, Entry> group;
+        private Iterator<Map.Entry<String, Entry>> groupEntries;
+        private int idx;
+        /**
+         * The address element of the entry most recently computed.
+         */
+        private PathElement element;
+
+        MatchingEntries(final Entry parent, final PathElement element) {
+            groups = parent.getGroups(element);
+            if (element.isWildcard()) {
+                values = null;
+            } else if (element.isMultiTarget()) {
+                values = element.getSegments();
+            } else {
+                values = new String[] { element.getValue() };
+            }
+        }
+
+        /**
+         * Get the address element of the entry which was just returned by {@link #next()}.
+         *
+         * @return the element
+         */
+        PathElement getElement() {
+            return element;
+        }
+
+        Entry computeNext() {
+            for (;;) {
+                if (group != null) {
+                    if (values == null) {
+                        if (groupEntries.hasNext()) {
+                            final Map.Entry<String, Entry> next = groupEntries.next();
+                            element = PathElement.pathElement(key, next.getKey());
+                            return next.getValue();
+                        }
+                    } else {
+                        while (idx < values.length) {
+                            final String value = values[idx ++];
+                            final Entry entry = group.get(value);
+                            if (entry != null) {
+                                element = PathElement.pathElement(key, value);
+                                return entry;
+                            }
+                        }
+                    }
+                }
+                if (! groups.hasNext()) {
+                    return null;
+                }
+                final Map.Entry<String, ConcurrentHashMap<String, Entry>> next = groups.next();
+                key = next.getKey();
+                group = next.getValue();
+                groupEntries = values == null ? group.entrySet().iterator() : null;
+                idx = 0;
+            }
+        }
+    }
+
+    /**
+     * A depth-first walk which holds one matching-entries cursor per address element, so that only the path to
+     * the current candidate is ever retained.
+     */
+    final class Resolver extends LazyIterator<Map.Entry<PathAddress, Resource>> {
+        private final PathElement[] elements;
+        private final MatchingEntries[] cursors;
+        /**
+         * The address of the entry taken at each depth.
+         */
+        private final PathAddress[] addresses;
+        private int depth;
+        private boolean rootDone;
+
+        Resolver(final PathAddress address) {
+            final int size = address.size();
+            elements = new PathElement[size];
+            for (int i = 0; i < size; i ++) {
+                elements[i] = address.getElement(i);
+            }
+            cursors = new MatchingEntries[size];
+            addresses = new PathAddress[size];
+            if (size > 0) {
+                root.prepare();
+                cursors[0] = new MatchingEntries(root, elements[0]);
+            }
+        }
+
+        Map.Entry<PathAddress, Resource> computeNext() {
+            final int size = elements.length;
+            if (size == 0) {
+                if (rootDone) {
+                    return null;
+                }
+                rootDone = true;
+                final Resource resource = root.getResource();
+                return resource == null ? null : new AbstractMap.SimpleImmutableEntry<>(PathAddress.EMPTY_ADDRESS, resource);
+            }
+            while (depth >= 0) {
+                final MatchingEntries cursor = cursors[depth];
+                if (! cursor.hasNext()) {
+                    cursors[depth --] = null;
+                    continue;
+                }
+                final Entry entry = cursor.next();
+                final PathAddress address = (depth == 0 ? PathAddress.EMPTY_ADDRESS : addresses[depth - 1]).append(cursor.getElement());
+                if (depth == size - 1) {
+                    final Resource resource = entry.getResource();
+                    if (resource != null) {
+                        return new AbstractMap.SimpleImmutableEntry<>(address, resource);
+                    }
+                } else {
+                    entry.prepare();
+                    addresses[depth] = address;
+                    depth ++;
+                    cursors[depth] = new MatchingEntries(entry, elements[depth]);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The children of one resource which match one address element.
+     */
+    static final class MatchingChildren extends LazyIterator<Resource> {
+        private final Resource parent;
+        private final Map<String, ? extends Map<String, ?>> children;
+        private final Iterator<String> keys;
+        /**
+         * The values to look up under each key, or {@code null} to take every child of the key.
+         */
+        private final String[] values;
+        private String key;
+        private Iterator<String> keyValues;
+        /**
+         * The address element of the child most recently computed.
+         */
+        private PathElement element;
+
+        MatchingChildren(final Resource parent, final PathElement element) {
+            this.parent = parent;
+            children = parent instanceof AbstractMutableResource ? ((AbstractMutableResource<?>) parent).getChildren() : Collections.<String, Map<String, ?>>emptyMap();
+            final String key = element.getKey();
+            keys = key.equals(PathElement.WILDCARD_VALUE) ? children.keySet().iterator() : Collections.singleton(key).iterator();
+            if (element.isWildcard()) {
+                values = null;
+            } else if (element.isMultiTarget()) {
+                values = element.getSegments();
+            } else {
+                values = new String[] { element.getValue() };
+            }
+        }
+
+        /**
+         * Get the address element of the child which was just returned by {@link #next()}.
+         *
+         * @return the element
+         */
+        PathElement getElement() {
+            return element;
+        }
+
+        Resource computeNext() {
+            for (;;) {
+                while (keyValues != null && keyValues.hasNext()) {
+                    final PathElement element = PathElement.pathElement(key, keyValues.next());
+                    final Resource child = parent.navigate(element);
+                    if (child != null) {
+                        this.element = element;
+                        return child;
+                    }
+                }
+                if (! keys.hasNext()) {
+                    return null;
+                }
+                key = keys.next();
+                if (values != null) {
+                    keyValues = Arrays.asList(values).iterator();
+                } else {
+                    final Map<String, ?> group = children.get(key);
+                    keyValues = group == null ? null : group.keySet().iterator();
+                }
+            }
+        }
+    }
+
+    /**
+     * A depth-first walk of the resource tree which holds one matching-children cursor per address element.
+     */
+    static final class TreeResolver extends LazyIterator<Map.Entry<PathAddress, Resource>> {
+        private final Resource root;
+        private final PathElement[] elements;
+        private final MatchingChildren[] cursors;
+        /**
+         * The address of the resource taken at each depth.
+         */
+        private final PathAddress[] addresses;
+        private int depth;
+        private boolean rootDone;
+
+        TreeResolver(final Resource root, final PathAddress address) {
+            this.root = root;
+            final int size = address.size();
+            elements = new PathElement[size];
+            for (int i = 0; i < size; i ++) {
+                elements[i] = address.getElement(i);
+            }
+            cursors = new MatchingChildren[size];
+            addresses = new PathAddress[size];
+            if (size > 0) {
+                cursors[0] = new MatchingChildren(root, elements[0]);
+            }
+        }
+
+        Map.Entry<PathAddress, Resource> computeNext() {
+            final int size = elements.length;
+            if (size == 0) {
+                if (rootDone) {
+                    return null;
+                }
+                rootDone = true;
+                return new AbstractMap.SimpleImmutableEntry<>(PathAddress.EMPTY_ADDRESS, root);
+            }
+            while (depth >= 0) {
+                final MatchingChildren cursor = cursors[depth];
+                if (! cursor.hasNext()) {
+                    cursors[depth --] = null;
+                    continue;
+                }
+                final Resource resource = cursor.next();
+                final PathAddress address = (depth == 0 ? PathAddress.EMPTY_ADDRESS : addresses[depth - 1]).append(cursor.getElement());
+                if (depth == size - 1) {
+                    return new AbstractMap.SimpleImmutableEntry<>(address, resource);
+                }
+                addresses[depth] = address;
+                depth ++;
+                cursors[depth] = new MatchingChildren(resource, elements[depth]);
+            }
+            return null;
+        }
+    }
+}
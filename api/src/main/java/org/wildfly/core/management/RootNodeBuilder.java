@@ -39,7 +39,33 @@ public abstract class RootNodeBuilder<R extends Node> {
     protected abstract AbstractMutableNode<R> construct(AbstractMutableNode<?> parentNode);
 
     /**
-     * Populate this builder instance from the given XML.
+     * Construct this resource node and all child nodes as part of a parallel boot.  Builders may construct
+     * independent child subtrees, such as the members of a sub-resource map, by {@linkplain BootContext#fork
+     * forking} their builders and joining them before the node's value is {@linkplain
+     * AbstractMutableNode#initialize(Node) initialized}.  By default, the whole tree is constructed by
+     * {@link #construct(AbstractMutableNode)}.
+     *
+     * @param parentNode the node under which to nest, or {@code null} for an ultimate root
+     * @param context the boot context
+     * @return the constructed node
+     */
+    protected AbstractMutableNode<R> construct(AbstractMutableNode<?> parentNode, BootContext context) {
+        return construct(parentNode);
+    }
+
+    /**
+     * Validate a node constructed by this builder, not including any subtrees which were forked from it and are
+     * validated separately.  Nodes are validated in parallel once the whole tree is constructed.
+     *
+     * @param node the constructed node
+     * @throws IllegalArgumentException if the node is invalid
+     */
+    protected void validate(AbstractMutableNode<R> node) throws IllegalArgumentException {
+    }
+
+    /**
+     * Populate this builder instance from the given XML.  The reader must be positioned on the start of this
+     * resource's element, and is left positioned on its end.
      *
      * @param reader the XML to read from
      * @throws XMLParseException if the XML is not properly formed or is not valid
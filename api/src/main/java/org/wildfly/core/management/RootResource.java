@@ -19,12 +19,13 @@
 package org.wildfly.core.management;
 
 import javax.xml.stream.XMLStreamWriter;
+import org.wildfly.core.management.xml.XMLWritable;
 import org.wildfly.core.management.xml.XMLWriteException;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-public interface RootResource extends Resource {
+public interface RootResource extends Resource, XMLWritable {
 
     /**
      * Write this node's content as XML.
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+/**
+ * The registration of a listener or validator against an address pattern.  A registration only applies while
+ * its managed system is at or above the registration's run level.  Registrations are equal if they register the
+ * same target for the same attribute, so that a registration can be found for removal without knowing its run
+ * level.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class RunLevelRegistration {
+    private final PathAddress pattern;
+    private final RunLevel runLevel;
+    private final Object target;
+    private final String attributeName;
+    private final boolean immediate;
+
+    RunLevelRegistration(final PathAddress pattern, final RunLevel runLevel, final Object target, final String attributeName, final boolean immediate) {
+        this.pattern = pattern;
+        this.runLevel = runLevel;
+        this.target = target;
+        this.attributeName = attributeName;
+        this.immediate = immediate;
+    }
+
+    PathAddress getPattern() {
+        return pattern;
+    }
+
+    RunLevel getRunLevel() {
+        return runLevel;
+    }
+
+    /**
+     * Get the registered listener or validator.
+     *
+     * @return the target
+     */
+    Object getTarget() {
+        return target;
+    }
+
+    /**
+     * Get the attribute name of an attribute validator registration.
+     *
+     * @return the attribute name, or {@code null} if the registration is not for one attribute
+     */
+    String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * Determine whether an attribute validation runs as soon as the attribute changes, rather than during the next
+     * validation phase.
+     *
+     * @return {@code true} to validate immediately
+     */
+    boolean isImmediate() {
+        return immediate;
+    }
+
+    boolean isActiveAt(final RunLevel level) {
+        return runLevel.compareTo(level) <= 0;
+    }
+
+    public int hashCode() {
+        return target.hashCode() * 31 + (attributeName == null ? 0 : attributeName.hashCode());
+    }
+
+    public boolean equals(final Object obj) {
+        return obj instanceof RunLevelRegistration && equals((RunLevelRegistration) obj);
+    }
+
+    private boolean equals(final RunLevelRegistration other) {
+        return this == other || other != null && target.equals(other.target) && (attributeName == null ? other.attributeName == null : attributeName.equals(other.attributeName));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A schedule of run level work for a managed system, run as a sequence of steps.  The tasks of a step are
+ * independent of each other and run in parallel on the schedule's executor; a step starts only once every task of
+ * the previous step has completed.  Once any task fails, no further steps are started, and the schedule completes
+ * with the failures collected so far.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class RunLevelSchedule {
+    private final Executor executor;
+    private final Runnable completionTask;
+    private final ArrayDeque<Step> steps = new ArrayDeque<>();
+    private final List<Throwable> failures = new ArrayList<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param executor the executor on which to run tasks, or {@code null} to run them on the scheduling thread
+     * @param completionTask the task to run once the schedule is complete
+     */
+    RunLevelSchedule(final Executor executor, final Runnable completionTask) {
+        this.executor = executor;
+        this.completionTask = completionTask;
+    }
+
+    /**
+     * A step of a schedule.
+     */
+    interface Step {
+
+        /**
+         * Start this step.  Tasks are computed only when the step starts, so that they see the effects of earlier
+         * steps.
+         *
+         * @param tasks the list to which the tasks of this step are added
+         */
+        void start(List<Runnable> tasks);
+    }
+
+    void addStep(Step step) {
+        steps.add(step);
+    }
+
+    /**
+     * Get the failures of the tasks which have completed so far.
+     *
+     * @return a copy of the list of failures
+     */
+    List<Throwable> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Run the steps of this schedule.  The first step starts on the calling thread.
+     */
+    void run() {
+        final List<Runnable> tasks = new ArrayList<>();
+        for (;;) {
+            final Step step;
+            synchronized (failures) {
+                step = failures.isEmpty() ? steps.poll() : null;
+            }
+            if (step == null) {
+                completionTask.run();
+                return;
+            }
+            tasks.clear();
+            try {
+                step.start(tasks);
+            } catch (Throwable t) {
+                addFailure(t);
+                continue;
+            }
+            if (! tasks.isEmpty()) {
+                remaining.set(tasks.size());
+                for (Runnable task : tasks) {
+                    submit(task);
+                }
+                // the last task to complete runs the next step
+                return;
+            }
+        }
+    }
+
+    private void submit(final Runnable task) {
+        final Runnable wrapper = new Runnable() {
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    addFailure(t);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        RunLevelSchedule.this.run();
+                    }
+                }
+            }
+        };
+        if (executor == null) {
+            wrapper.run();
+        } else {
+            try {
+                executor.execute(wrapper);
+            } catch (RuntimeException e) {
+                // the executor refused the task, so run it here
+                wrapper.run();
+            }
+        }
+    }
+
+    private void addFailure(final Throwable failure) {
+        synchronized (failures) {
+            failures.add(failure);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+/**
+ * The model versions at which addresses were last written, used to detect conflicting transactions.  Two stamps
+ * are kept per address: the version of the last write at the address itself, and the version of the last write at
+ * or below it.  Addresses are hashed onto a fixed number of stripes, so memory use is bounded; a collision can
+ * only cause a spurious conflict, never a missed one.
+ * <p>
+ * Instances are only accessed with the commit lock held.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class SubtreeStamps {
+
+    private static final int STRIPES = 4096;
+
+    private final long[] self = new long[STRIPES];
+    private final long[] subtree = new long[STRIPES];
+
+    private static int stripe(PathAddress address) {
+        final int hashCode = address.hashCode();
+        return (hashCode ^ hashCode >>> 16) & STRIPES - 1;
+    }
+
+    /**
+     * Determine whether a read of an address may have been invalidated by a write after the given version.  A
+     * read is invalidated by a write at the address or any of its ancestors, and a deep read also by a write
+     * anywhere below the address.
+     *
+     * @param address the address which was read
+     * @param deep {@code true} if the subtree under the address was read
+     * @param version the version at which the read was made
+     * @return {@code true} if the address may have been changed since the version
+     */
+    boolean changedSince(PathAddress address, boolean deep, long version) {
+        if (deep && subtree[stripe(address)] > version) {
+            return true;
+        }
+        for (PathAddress current = address; current != null; current = current.getParent()) {
+            if (self[stripe(current)] > version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record a write of an address.
+     *
+     * @param address the address which was written
+     * @param version the version at which it was written
+     */
+    void stamp(PathAddress address, long version) {
+        self[stripe(address)] = version;
+        for (PathAddress current = address; current != null; current = current.getParent()) {
+            subtree[stripe(current)] = version;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.wildfly.core.management._private;
 import org.jboss.logging.Messages;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageBundle;
+import org.wildfly.core.management.PathAddress;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -37,4 +38,99 @@ public interface CoreManagementMessages {
 
     @Message(id = 2, value = "Invalid resource address element '%s'. The value '%s' is not valid for an element in a resource address. Character '%s' is not allowed.")
     String invalidPathElementValue(String element, String value, char character);
+
+    @Message(id = 3, value = "Address '%s' matches multiple resources; a concrete address is required")
+    String multiTargetAddress(PathAddress address);
+
+    @Message(id = 4, value = "Invalid address '%s'. Expected '%s' at position %d.")
+    String invalidAddressExpected(String address, char expected, int position);
+
+    @Message(id = 5, value = "Invalid address '%s'. Unterminated quoted string starting at position %d.")
+    String invalidAddressUnterminatedQuote(String address, int position);
+
+    @Message(id = 6, value = "Invalid address '%s'. Incomplete escape sequence at position %d.")
+    String invalidAddressIncompleteEscape(String address, int position);
+
+    @Message(id = 24, value = "Invalid address '%s'. Expected a value at position %d.")
+    String invalidAddressMissingValue(String address, int position);
+
+    // Transaction messages
+
+    @Message(id = 7, value = "Transaction conflicts with a concurrent change affecting '%s'")
+    String transactionConflict(PathAddress address);
+
+    // Boot messages
+
+    @Message(id = 8, value = "The root of a booted model must be a resource, but '%s' is not")
+    String bootRootNotResource(Object root);
+
+    // XML messages
+
+    @Message(id = 9, value = "Unexpected element '%s'")
+    String unexpectedElement(Object name);
+
+    @Message(id = 10, value = "Unexpected attribute '%s' on element '%s'")
+    String unexpectedAttribute(Object attribute, Object element);
+
+    @Message(id = 11, value = "Missing required attribute '%s' on element '%s'")
+    String missingRequiredAttribute(String attribute, Object element);
+
+    @Message(id = 12, value = "Missing required element '%s' in element '%s'")
+    String missingRequiredElement(String name, Object element);
+
+    @Message(id = 13, value = "Element '%s' has an unsupported namespace '%s'")
+    String unexpectedNamespace(Object element, String namespace);
+
+    @Message(id = 14, value = "Resource '%s' cannot be written as XML")
+    String notXmlWritable(Object resource);
+
+    // Journal messages
+
+    @Message(id = 15, value = "Failed to write changes to the model journal, so they were not committed")
+    String journalWriteFailed();
+
+    // Image messages
+
+    @Message(id = 16, value = "Unexpected text content in element '%s'")
+    String unexpectedText(Object element);
+
+    // Lazy resource messages
+
+    @Message(id = 17, value = "Failed to materialize resource '%s'")
+    String resourceMaterializationFailed(String name);
+
+    // XML value messages
+
+    @Message(id = 18, value = "Invalid value '%s' for '%s' in element '%s'")
+    String invalidValue(String value, String name, Object element);
+
+    // Expression messages
+
+    @Message(id = 19, value = "Invalid expression '%s' at position %d")
+    String invalidExpression(String template, int position);
+
+    @Message(id = 20, value = "Cannot resolve expression '%s': no referenced property is set, and it has no default")
+    String unresolvedExpression(String template);
+
+    @Message(id = 21, value = "Value '%s' resolved from expression '%s' is not a valid number")
+    String invalidResolvedNumber(String value, String template);
+
+    // Model stream messages
+
+    @Message(id = 22, value = "Model stream %s declared %d members but %d were written")
+    String modelStreamSizeMismatch(String kind, int declared, int written);
+
+    @Message(id = 23, value = "Model stream cannot accept a %s here")
+    String modelStreamUnexpected(String token);
+
+    // Model value messages
+
+    @Message(id = 25, value = "Invalid character value '%s': exactly one character is required")
+    String invalidCharacterValue(String value);
+
+    @Message(id = 26, value = "Values of %s cannot be converted to or from a model node")
+    String unsupportedModelValueType(Class<?> type);
+
+    @Message(id = 27, value = "Reference '%s' cannot be resolved outside of its scope")
+    String unresolvedReference(String name);
 }
@@ -0,0 +1,800 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management.xml;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A memory-mapped binary image of a parsed configuration document.  The image holds the element tree of the
+ * document with every name and value interned in a string table, so reading it back involves no character decoding
+ * or tokenizing; elements are addressed by their offset in the mapped file, and are only decoded when they are
+ * visited.  Generated resource parsers read an image through {@link #createReader()} exactly as they read the
+ * original XML.
+ * <p>
+ * An image records the length and checksum of the document it was built from, and the namespace of its root
+ * element, which carries the schema version.  {@link #open(File, File, String...)} refuses an image which does not
+ * match both the current document and one of the namespaces the caller can parse, so a stale image is simply
+ * rebuilt with {@link #write(File, File)}.  Whitespace text, processing instructions and everything outside of the
+ * root element are not kept, and neither are namespace prefixes.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class MappedXMLImage {
+
+    private static final int MAGIC = 0x574D5849;
+    private static final int FORMAT = 1;
+
+    // magic, format, image length, source length, source checksum, string table offset, string count, root offset
+    private static final int HEADER_SIZE = 40;
+
+    private static final byte ELEMENT_RECORD = 1;
+    private static final byte COMMENT_RECORD = 2;
+    private static final byte TEXT_RECORD = 3;
+
+    private static final int NO_STRING = -1;
+
+    private final String fileName;
+    private final ByteBuffer buffer;
+    private final int stringTable;
+    private final int rootOffset;
+    private final String[] strings;
+
+    private MappedXMLImage(final String fileName, final ByteBuffer buffer) {
+        this.fileName = fileName;
+        this.buffer = buffer;
+        stringTable = buffer.getInt(28);
+        strings = new String[buffer.getInt(32)];
+        rootOffset = buffer.getInt(36);
+    }
+
+    /**
+     * Open the image of a configuration document, if it is current.
+     *
+     * @param image the image file
+     * @param source the configuration document
+     * @param namespaces the accepted namespaces of the root element, or none to accept any namespace
+     * @return the mapped image, or {@code null} if there is no image, or it was built from a different document or
+     *      under an unaccepted namespace
+     * @throws IOException if the image or the document could not be read
+     */
+    public static MappedXMLImage open(File image, File source, String... namespaces) throws IOException {
+        if (! image.isFile() || image.length() < HEADER_SIZE) {
+            return null;
+        }
+        final ByteBuffer buffer;
+        try (RandomAccessFile file = new RandomAccessFile(image, "r")) {
+            final FileChannel channel = file.getChannel();
+            // the mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || buffer.getLong(8) != buffer.capacity()) {
+            return null;
+        }
+        if (buffer.getLong(16) != source.length() || buffer.getInt(24) != checksum(source)) {
+            return null;
+        }
+        final MappedXMLImage mapped = new MappedXMLImage(image.getName(), buffer);
+        if (namespaces.length > 0 && ! Arrays.asList(namespaces).contains(mapped.getRootElement().getNamespaceURI())) {
+            return null;
+        }
+        return mapped;
+    }
+
+    /**
+     * Parse a configuration document and write its image, replacing any previous image atomically.
+     *
+     * @param source the configuration document
+     * @param image the image file
+     * @return the mapped image
+     * @throws IOException if the document could not be read or the image could not be written
+     * @throws XMLStreamException if the document is not well formed
+     */
+    public static MappedXMLImage write(File source, File image) throws IOException, XMLStreamException {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        final File temp = new File(image.getPath() + ".tmp");
+        try (InputStream in = new FileInputStream(source); RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+            file.setLength(0);
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(source.toURI().toString(), in);
+            final ImageWriter writer = new ImageWriter(new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file.getChannel()))));
+            try {
+                writer.write(reader);
+            } finally {
+                reader.close();
+            }
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(FORMAT);
+            file.writeLong(file.length());
+            file.writeLong(source.length());
+            file.writeInt(checksum(source));
+            file.writeInt(writer.stringTable);
+            file.writeInt(writer.strings.size());
+            file.writeInt(writer.rootOffset);
+            file.getFD().sync();
+        }
+        Files.move(temp.toPath(), image.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        final MappedXMLImage mapped = open(image, source);
+        if (mapped == null) {
+            // the document changed while it was being read
+            throw new IOException("Configuration changed while its image was written");
+        }
+        return mapped;
+    }
+
+    /**
+     * Create a reader over this image.  The reader starts on the start of the document; readers share the mapped
+     * image, so any number may be open at once.
+     *
+     * @return the reader
+     */
+    public XMLStreamReader createReader() {
+        return new ImageReader();
+    }
+
+    /**
+     * Get the root element of this image.
+     *
+     * @return the root element
+     */
+    public Element getRootElement() {
+        return new Element(rootOffset);
+    }
+
+    /**
+     * An element of an image.  Elements are views of the mapped image, decoded as they are read.
+     */
+    public final class Element {
+        private final int offset;
+
+        Element(final int offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * Get the local name of this element.
+         *
+         * @return the local name
+         */
+        public String getLocalName() {
+            return string(buffer.getInt(offset + 1));
+        }
+
+        /**
+         * Get the namespace of this element.
+         *
+         * @return the namespace, or {@code null} if the element is unqualified
+         */
+        public String getNamespaceURI() {
+            return string(buffer.getInt(offset + 5));
+        }
+
+        /**
+         * Get the number of attributes of this element.
+         *
+         * @return the number of attributes
+         */
+        public int getAttributeCount() {
+            return buffer.getInt(offset + 9);
+        }
+
+        /**
+         * Get the local name of an attribute.
+         *
+         * @param index the attribute index
+         * @return the local name
+         */
+        public String getAttributeLocalName(int index) {
+            return string(buffer.getInt(attribute(offset, index)));
+        }
+
+        /**
+         * Get the namespace of an attribute.
+         *
+         * @param index the attribute index
+         * @return the namespace, or {@code null} if the attribute is unqualified
+         */
+        public String getAttributeNamespace(int index) {
+            return string(buffer.getInt(attribute(offset, index) + 4));
+        }
+
+        /**
+         * Get the value of an attribute.
+         *
+         * @param index the attribute index
+         * @return the value
+         */
+        public String getAttributeValue(int index) {
+            return string(buffer.getInt(attribute(offset, index) + 8));
+        }
+
+        /**
+         * Get the value of an unqualified attribute.
+         *
+         * @param localName the local name of the attribute
+         * @return the value, or {@code null} if there is no such attribute
+         */
+        public String getAttributeValue(String localName) {
+            final int count = getAttributeCount();
+            for (int i = 0; i < count; i ++) {
+                if (getAttributeNamespace(i) == null && localName.equals(getAttributeLocalName(i))) {
+                    return getAttributeValue(i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Get the child elements of this element.  The children themselves are not decoded until they are read.
+         *
+         * @return the child elements
+         */
+        public List<Element> getChildElements() {
+            final int count = childCount(offset);
+            final List<Element> children = new ArrayList<>(count);
+            for (int i = 0; i < count; i ++) {
+                final int child = child(offset, i);
+                if (buffer.get(child) == ELEMENT_RECORD) {
+                    children.add(new Element(child));
+                }
+            }
+            return children;
+        }
+
+        public String toString() {
+            return qName(getNamespaceURI(), getLocalName()).toString();
+        }
+    }
+
+    // Record layout
+
+    String string(int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            final int start = buffer.getInt(stringTable + (index << 2));
+            final int length = buffer.getInt(start);
+            final byte[] bytes = new byte[length];
+            final ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(start + 4);
+            duplicate.get(bytes);
+            // racing decodes produce equal strings, so the cache needs no locking
+            strings[index] = string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+    static QName qName(String namespace, String localName) {
+        return new QName(namespace == null ? XMLConstants.NULL_NS_URI : namespace, localName);
+    }
+
+    static int attribute(int element, int index) {
+        return element + 13 + index * 12;
+    }
+
+    int childCount(int element) {
+        return buffer.getInt(attribute(element, buffer.getInt(element + 9)));
+    }
+
+    int child(int element, int index) {
+        return buffer.getInt(attribute(element, buffer.getInt(element + 9)) + 4 + (index << 2));
+    }
+
+    private static int checksum(File source) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] bytes = new byte[65536];
+        try (InputStream in = new FileInputStream(source)) {
+            int res;
+            while ((res = in.read(bytes)) != -1) {
+                crc.update(bytes, 0, res);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    static final class ImageWriter {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private int rootOffset;
+        private int stringTable;
+
+        ImageWriter(final DataOutputStream out) throws IOException {
+            this.out = out;
+            out.write(new byte[HEADER_SIZE]);
+        }
+
+        static final class Frame {
+            final int name;
+            final int namespace;
+            final int[] attributes;
+            int[] children = new int[8];
+            int childCount;
+
+            Frame(final int name, final int namespace, final int[] attributes) {
+                this.name = name;
+                this.namespace = namespace;
+                this.attributes = attributes;
+            }
+
+            void addChild(int offset) {
+                if (childCount == children.length) {
+                    children = Arrays.copyOf(children, childCount << 1);
+                }
+                children[childCount ++] = offset;
+            }
+        }
+
+        void write(XMLStreamReader reader) throws IOException, XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT: {
+                        final int count = reader.getAttributeCount();
+                        final int[] attributes = new int[count * 3];
+                        for (int i = 0; i < count; i ++) {
+                            attributes[i * 3] = intern(reader.getAttributeLocalName(i));
+                            attributes[i * 3 + 1] = internNamespace(reader.getAttributeNamespace(i));
+                            attributes[i * 3 + 2] = intern(reader.getAttributeValue(i));
+                        }
+                        frames.push(new Frame(intern(reader.getLocalName()), internNamespace(reader.getNamespaceURI()), attributes));
+                        break;
+                    }
+                    case XMLStreamConstants.END_ELEMENT: {
+                        // children are written before their parent, so the parent can list their offsets
+                        final Frame frame = frames.pop();
+                        final int offset = out.size();
+                        out.writeByte(ELEMENT_RECORD);
+                        out.writeInt(frame.name);
+                        out.writeInt(frame.namespace);
+                        out.writeInt(frame.attributes.length / 3);
+                        for (int attribute : frame.attributes) {
+                            out.writeInt(attribute);
+                        }
+                        out.writeInt(frame.childCount);
+                        for (int i = 0; i < frame.childCount; i ++) {
+                            out.writeInt(frame.children[i]);
+                        }
+                        if (frames.isEmpty()) {
+                            rootOffset = offset;
+                        } else {
+                            frames.peek().addChild(offset);
+                        }
+                        break;
+                    }
+                    case XMLStreamConstants.COMMENT: {
+                        writeText(COMMENT_RECORD, reader.getText());
+                        break;
+                    }
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA: {
+                        if (! reader.isWhiteSpace()) {
+                            writeText(TEXT_RECORD, reader.getText());
+                        }
+                        break;
+                    }
+                }
+            }
+            stringTable = out.size();
+            int start = stringTable + (strings.size() << 2);
+            final List<byte[]> encoded = new ArrayList<>(strings.size());
+            for (String string : strings.keySet()) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                out.writeInt(start);
+                start += 4 + bytes.length;
+            }
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+        }
+
+        private void writeText(byte kind, String text) throws IOException {
+            if (frames.isEmpty()) {
+                // outside of the root element
+                return;
+            }
+            final int offset = out.size();
+            out.writeByte(kind);
+            out.writeInt(intern(text));
+            frames.peek().addChild(offset);
+        }
+
+        private int internNamespace(String namespace) {
+            return namespace == null || namespace.isEmpty() ? NO_STRING : intern(namespace);
+        }
+
+        private int intern(String string) {
+            Integer index = strings.get(string);
+            if (index == null) {
+                strings.put(string, index = Integer.valueOf(strings.size()));
+            }
+            return index.intValue();
+        }
+    }
+
+    final class ImageReader implements XMLStreamReader {
+        // the open elements, and the index of the next child of each
+        private int[] elements = new int[16];
+        private int[] nextChild = new int[16];
+        private int depth;
+        private int event = START_DOCUMENT;
+        private int current = HEADER_SIZE;
+
+        public int next() throws XMLStreamException {
+            if (event == START_DOCUMENT) {
+                push(rootOffset);
+                return event = START_ELEMENT;
+            }
+            if (depth == 0) {
+                if (event == END_DOCUMENT) {
+                    throw new IllegalStateException("No more events");
+                }
+                return event = END_DOCUMENT;
+            }
+            final int element = elements[depth - 1];
+            final int index = nextChild[depth - 1];
+            if (index == childCount(element)) {
+                depth --;
+                current = element;
+                return event = END_ELEMENT;
+            }
+            nextChild[depth - 1] = index + 1;
+            final int child = child(element, index);
+            switch (buffer.get(child)) {
+                case ELEMENT_RECORD: {
+                    push(child);
+                    return event = START_ELEMENT;
+                }
+                case COMMENT_RECORD: {
+                    current = child;
+                    return event = COMMENT;
+                }
+                default: {
+                    current = child;
+                    return event = CHARACTERS;
+                }
+            }
+        }
+
+        private void push(int element) {
+            if (depth == elements.length) {
+                elements = Arrays.copyOf(elements, depth << 1);
+                nextChild = Arrays.copyOf(nextChild, depth << 1);
+            }
+            elements[depth] = element;
+            nextChild[depth ++] = 0;
+            current = element;
+        }
+
+        public int nextTag() throws XMLStreamException {
+            for (;;) {
+                switch (next()) {
+                    case START_ELEMENT:
+                    case END_ELEMENT: {
+                        return event;
+                    }
+                    case COMMENT: {
+                        break;
+                    }
+                    default: {
+                        // only non-whitespace text is kept in the image
+                        throw new XMLStreamException(MESSAGES.unexpectedText(qName(string(buffer.getInt(elements[depth - 1] + 5)), string(buffer.getInt(elements[depth - 1] + 1)))), getLocation());
+                    }
+                }
+            }
+        }
+
+        public String getElementText() throws XMLStreamException {
+            require(START_ELEMENT, null, null);
+            final StringBuilder b = new StringBuilder();
+            for (;;) {
+                switch (next()) {
+                    case CHARACTERS: {
+                        b.append(getText());
+                        break;
+                    }
+                    case COMMENT: {
+                        break;
+                    }
+                    case END_ELEMENT: {
+                        return b.toString();
+                    }
+                    default: {
+                        throw new XMLStreamException(MESSAGES.unexpectedElement(getName()), getLocation());
+                    }
+                }
+            }
+        }
+
+        public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+            if (type != event) {
+                throw new XMLStreamException("Expected event " + type + " but found " + event, getLocation());
+            }
+            if (namespaceURI != null && ! namespaceURI.equals(getNamespaceURI())) {
+                throw new XMLStreamException("Expected namespace " + namespaceURI + " but found " + getNamespaceURI(), getLocation());
+            }
+            if (localName != null && ! localName.equals(getLocalName())) {
+                throw new XMLStreamException("Expected local name " + localName + " but found " + getLocalName(), getLocation());
+            }
+        }
+
+        public boolean hasNext() {
+            return event != END_DOCUMENT;
+        }
+
+        public void close() {
+        }
+
+        public Object getProperty(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("name is null");
+            }
+            return null;
+        }
+
+        public int getEventType() {
+            return event;
+        }
+
+        public boolean isStartElement() {
+            return event == START_ELEMENT;
+        }
+
+        public boolean isEndElement() {
+            return event == END_ELEMENT;
+        }
+
+        public boolean isCharacters() {
+            return event == CHARACTERS;
+        }
+
+        public boolean isWhiteSpace() {
+            return false;
+        }
+
+        public boolean hasName() {
+            return event == START_ELEMENT || event == END_ELEMENT;
+        }
+
+        public QName getName() {
+            return qName(getNamespaceURI(), getLocalName());
+        }
+
+        public String getLocalName() {
+            checkName();
+            return string(buffer.getInt(current + 1));
+        }
+
+        public String getNamespaceURI() {
+            checkName();
+            return string(buffer.getInt(current + 5));
+        }
+
+        public String getPrefix() {
+            checkName();
+            return XMLConstants.DEFAULT_NS_PREFIX;
+        }
+
+        private void checkName() {
+            if (! hasName()) {
+                throw new IllegalStateException("Current event has no name");
+            }
+        }
+
+        public int getAttributeCount() {
+            checkStart();
+            return buffer.getInt(current + 9);
+        }
+
+        public QName getAttributeName(int index) {
+            return qName(getAttributeNamespace(index), getAttributeLocalName(index));
+        }
+
+        public String getAttributeLocalName(int index) {
+            return string(buffer.getInt(checkAttribute(index)));
+        }
+
+        public String getAttributeNamespace(int index) {
+            return string(buffer.getInt(checkAttribute(index) + 4));
+        }
+
+        public String getAttributeValue(int index) {
+            return string(buffer.getInt(checkAttribute(index) + 8));
+        }
+
+        public String getAttributePrefix(int index) {
+            checkAttribute(index);
+            return XMLConstants.DEFAULT_NS_PREFIX;
+        }
+
+        public String getAttributeType(int index) {
+            checkAttribute(index);
+            return "CDATA";
+        }
+
+        public boolean isAttributeSpecified(int index) {
+            checkAttribute(index);
+            return true;
+        }
+
+        public String getAttributeValue(String namespaceURI, String localName) {
+            final int count = getAttributeCount();
+            for (int i = 0; i < count; i ++) {
+                if (localName.equals(getAttributeLocalName(i))) {
+                    final String namespace = getAttributeNamespace(i);
+                    if (namespaceURI == null || namespaceURI.equals(namespace == null ? XMLConstants.NULL_NS_URI : namespace)) {
+                        return getAttributeValue(i);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void checkStart() {
+            if (event != START_ELEMENT) {
+                throw new IllegalStateException("Current event is not a start element");
+            }
+        }
+
+        private int checkAttribute(int index) {
+            if (index < 0 || index >= getAttributeCount()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return attribute(current, index);
+        }
+
+        public int getNamespaceCount() {
+            checkName();
+            return 0;
+        }
+
+        public String getNamespacePrefix(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        public String getNamespaceURI(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        public String getNamespaceURI(String prefix) {
+            // without prefixes, the only namespace in scope is that of the enclosing element
+            if (! XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) || depth == 0) {
+                return null;
+            }
+            return string(buffer.getInt(elements[depth - 1] + 5));
+        }
+
+        public NamespaceContext getNamespaceContext() {
+            return new NamespaceContext() {
+                public String getNamespaceURI(final String prefix) {
+                    return ImageReader.this.getNamespaceURI(prefix);
+                }
+
+                public String getPrefix(final String namespaceURI) {
+                    return namespaceURI.equals(getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX)) ? XMLConstants.DEFAULT_NS_PREFIX : null;
+                }
+
+                public Iterator<String> getPrefixes(final String namespaceURI) {
+                    final String prefix = getPrefix(namespaceURI);
+                    return prefix == null ? Collections.<String>emptyIterator() : Collections.singleton(prefix).iterator();
+                }
+            };
+        }
+
+        public boolean hasText() {
+            return event == CHARACTERS || event == COMMENT;
+        }
+
+        public String getText() {
+            if (! hasText()) {
+                throw new IllegalStateException("Current event has no text");
+            }
+            return string(buffer.getInt(current + 1));
+        }
+
+        public char[] getTextCharacters() {
+            return getText().toCharArray();
+        }
+
+        public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+            final String text = getText();
+            final int count = Math.max(0, Math.min(length, text.length() - sourceStart));
+            text.getChars(sourceStart, sourceStart + count, target, targetStart);
+            return count;
+        }
+
+        public int getTextStart() {
+            return 0;
+        }
+
+        public int getTextLength() {
+            return getText().length();
+        }
+
+        public Location getLocation() {
+            // there are no lines in an image, so the location is the offset of the current record
+            return new XMLLocation(fileName, -1, -1, current);
+        }
+
+        public String getEncoding() {
+            return null;
+        }
+
+        public String getVersion() {
+            return null;
+        }
+
+        public boolean isStandalone() {
+            return false;
+        }
+
+        public boolean standaloneSet() {
+            return false;
+        }
+
+        public String getCharacterEncodingScheme() {
+            return null;
+        }
+
+        public String getPITarget() {
+            return null;
+        }
+
+        public String getPIData() {
+            return null;
+        }
+    }
+}
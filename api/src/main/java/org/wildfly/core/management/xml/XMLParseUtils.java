@@ -0,0 +1,338 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management.xml;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.wildfly.core.management.Expression;
+
+/**
+ * Utility methods used by generated XML parsers.  Parsers read the document in a single pass, straight into
+ * resource builders; each resource parser starts with the reader positioned on the start of its element, and
+ * leaves it positioned on the matching end.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class XMLParseUtils {
+
+    private XMLParseUtils() {
+    }
+
+    /**
+     * Check that the current element is in one of the given namespaces.
+     *
+     * @param reader the reader, positioned on a start element
+     * @param namespaces the accepted namespaces, current namespace first
+     * @return the namespace of the element
+     * @throws XMLParseException if the element is in some other namespace
+     */
+    public static String requireNamespace(XMLStreamReader reader, String... namespaces) throws XMLParseException {
+        final String namespace = reader.getNamespaceURI();
+        for (String candidate : namespaces) {
+            if (candidate.equals(namespace)) {
+                return candidate;
+            }
+        }
+        throw new XMLParseException(MESSAGES.unexpectedNamespace(reader.getName(), namespace), getLocation(reader));
+    }
+
+    /**
+     * Advance to the next child element of the current element, skipping whitespace, comments and processing
+     * instructions.  Child elements must be in the same namespace as their parent.
+     *
+     * @param reader the reader
+     * @param namespace the namespace of the enclosing element
+     * @return {@code true} if the reader is positioned on the start of a child element, or {@code false} if it is
+     *      positioned on the end of the enclosing element
+     * @throws XMLStreamException if the next child is in another namespace, or the XML is not well formed
+     */
+    public static boolean nextElement(XMLStreamReader reader, String namespace) throws XMLStreamException {
+        if (reader.nextTag() == XMLStreamConstants.END_ELEMENT) {
+            return false;
+        }
+        if (! namespace.equals(reader.getNamespaceURI())) {
+            throw unexpectedElement(reader);
+        }
+        return true;
+    }
+
+    /**
+     * Read the {@code value} attribute of a simple value element, such as {@code <max-threads value="10"/>}.  The
+     * element may have no other attributes and no content.
+     *
+     * @param reader the reader, positioned on the start of the value element
+     * @return the value
+     * @throws XMLStreamException if the element is not a valid value element
+     */
+    public static String readValueElement(XMLStreamReader reader) throws XMLStreamException {
+        String value = null;
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i ++) {
+            if (! isUnqualified(reader, i) || ! "value".equals(reader.getAttributeLocalName(i))) {
+                throw unexpectedAttribute(reader, i);
+            }
+            value = reader.getAttributeValue(i);
+        }
+        if (value == null) {
+            throw missingRequiredAttribute(reader, "value");
+        }
+        requireNoContent(reader);
+        return value;
+    }
+
+    /**
+     * Consume the end of an element which may have no content.
+     *
+     * @param reader the reader, positioned on the start of the element
+     * @throws XMLStreamException if the element has child elements or text
+     */
+    public static void requireNoContent(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw unexpectedElement(reader);
+        }
+    }
+
+    /**
+     * Determine whether an attribute of the current element is unqualified.  Resource attributes are always
+     * unqualified.
+     *
+     * @param reader the reader, positioned on a start element
+     * @param index the attribute index
+     * @return {@code true} if the attribute has no namespace
+     */
+    public static boolean isUnqualified(XMLStreamReader reader, int index) {
+        final String namespace = reader.getAttributeNamespace(index);
+        return namespace == null || namespace.isEmpty();
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a boolean, which is one of {@code true},
+     * {@code false}, {@code 1} or {@code 0}.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static boolean parseBoolean(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        switch (value.trim()) {
+            case "true":
+            case "1": {
+                return true;
+            }
+            case "false":
+            case "0": {
+                return false;
+            }
+            default: {
+                throw invalidValue(reader, name, value);
+            }
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a byte.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static byte parseByte(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Byte.parseByte(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a short.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static short parseShort(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Short.parseShort(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as an int.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static int parseInt(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a long.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static long parseLong(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a single character.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static char parseChar(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        if (value.length() != 1) {
+            throw invalidValue(reader, name, value);
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a float.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static float parseFloat(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of a primitive attribute or value element as a double.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the parsed value
+     * @throws XMLParseException if the value is not valid
+     */
+    public static double parseDouble(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Parse the value of an expression attribute or value element, compiling the expression.
+     *
+     * @param reader the reader
+     * @param name the attribute or element name
+     * @param value the value
+     * @return the compiled expression
+     * @throws XMLParseException if the value is not a valid expression
+     */
+    public static Expression parseExpression(XMLStreamReader reader, String name, String value) throws XMLParseException {
+        try {
+            return Expression.compile(value);
+        } catch (IllegalArgumentException e) {
+            throw invalidValue(reader, name, value);
+        }
+    }
+
+    /**
+     * Create an exception for an unexpected element at the current position.
+     *
+     * @param reader the reader
+     * @return the exception
+     */
+    public static XMLParseException unexpectedElement(XMLStreamReader reader) {
+        return new XMLParseException(MESSAGES.unexpectedElement(reader.getName()), getLocation(reader));
+    }
+
+    /**
+     * Create an exception for an unexpected attribute of the current element.
+     *
+     * @param reader the reader
+     * @param index the attribute index
+     * @return the exception
+     */
+    public static XMLParseException unexpectedAttribute(XMLStreamReader reader, int index) {
+        return new XMLParseException(MESSAGES.unexpectedAttribute(reader.getAttributeName(index), reader.getName()), getLocation(reader));
+    }
+
+    /**
+     * Create an exception for a required attribute missing from the current element.
+     *
+     * @param reader the reader
+     * @param name the attribute name
+     * @return the exception
+     */
+    public static XMLParseException missingRequiredAttribute(XMLStreamReader reader, String name) {
+        return new XMLParseException(MESSAGES.missingRequiredAttribute(name, reader.getName()), getLocation(reader));
+    }
+
+    /**
+     * Create an exception for a required child element missing from the current element.
+     *
+     * @param reader the reader, positioned on the end of the enclosing element
+     * @param name the missing element name
+     * @return the exception
+     */
+    public static XMLParseException missingRequiredElement(XMLStreamReader reader, String name) {
+        return new XMLParseException(MESSAGES.missingRequiredElement(name, reader.getName()), getLocation(reader));
+    }
+
+    private static XMLParseException invalidValue(XMLStreamReader reader, String name, String value) {
+        return new XMLParseException(MESSAGES.invalidValue(value, name, reader.getName()), getLocation(reader));
+    }
+
+    private static XMLLocation getLocation(XMLStreamReader reader) {
+        return XMLLocation.toXMLLocation(reader.getLocation());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management.xml;
+
+import static org.wildfly.core.management._private.CoreManagementMessages.MESSAGES;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Utility methods used by generated XML writers.  Writers stream each resource straight to the target writer,
+ * omitting values which are equal to their defaults.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class XMLWriteUtils {
+
+    private XMLWriteUtils() {
+    }
+
+    /**
+     * Write the start of a resource element in the given namespace, declaring it as the default namespace unless
+     * it already is.
+     *
+     * @param writer the writer
+     * @param namespace the element namespace
+     * @param localName the element local name
+     * @throws XMLStreamException if the write fails
+     */
+    public static void writeStartElement(XMLStreamWriter writer, String namespace, String localName) throws XMLStreamException {
+        final boolean declared = namespace.equals(writer.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX));
+        writer.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, localName, namespace);
+        if (! declared) {
+            writer.writeDefaultNamespace(namespace);
+            writer.setDefaultNamespace(namespace);
+        }
+    }
+
+    /**
+     * Write an attribute, unless its value is absent or equal to its default.
+     *
+     * @param writer the writer
+     * @param localName the attribute name
+     * @param value the value, or {@code null} if it is not set
+     * @param defaultValue the default value, or {@code null} if there is none
+     * @throws XMLStreamException if the write fails
+     */
+    public static void writeAttribute(XMLStreamWriter writer, String localName, String value, String defaultValue) throws XMLStreamException {
+        if (value != null && ! value.equals(defaultValue)) {
+            writer.writeAttribute(localName, value);
+        }
+    }
+
+    /**
+     * Write a simple value element, such as {@code <max-threads value="10"/>}, unless its value is absent or equal
+     * to its default.
+     *
+     * @param writer the writer
+     * @param localName the element name
+     * @param value the value, or {@code null} if it is not set
+     * @param defaultValue the default value, or {@code null} if there is none
+     * @throws XMLStreamException if the write fails
+     */
+    public static void writeValueElement(XMLStreamWriter writer, String localName, String value, String defaultValue) throws XMLStreamException {
+        if (value != null && ! value.equals(defaultValue)) {
+            writer.writeEmptyElement(localName);
+            writer.writeAttribute("value", value);
+        }
+    }
+
+    /**
+     * Write a comment, if there is one.
+     *
+     * @param writer the writer
+     * @param comment the comment text, or {@code null} for none
+     * @throws XMLStreamException if the write fails
+     */
+    public static void writeComment(XMLStreamWriter writer, String comment) throws XMLStreamException {
+        if (comment != null) {
+            writer.writeComment(comment);
+        }
+    }
+
+    /**
+     * Write a child resource.  If the writer is an {@link XMLChildRecorder}, the child is written through it so
+     * that its position is recorded.
+     *
+     * @param writer the writer
+     * @param child the child resource
+     * @throws XMLWriteException if the child cannot be written as XML, or the write fails
+     */
+    public static void writeChild(XMLStreamWriter writer, Object child) throws XMLWriteException {
+        if (! (child instanceof XMLWritable)) {
+            throw new XMLWriteException(MESSAGES.notXmlWritable(child));
+        }
+        if (writer instanceof XMLChildRecorder) {
+            ((XMLChildRecorder) writer).writeChild((XMLWritable) child);
+        } else {
+            ((XMLWritable) child).toXml(writer);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class BootTest {
+
+    /**
+     * Builds a test resource whose children are forked as subtrees of their own.
+     */
+    static class TreeBuilder extends RootNodeBuilder<TestResource.Value> {
+        final String name;
+        final List<TreeBuilder> children;
+        final List<String> events;
+        volatile boolean forkedInPool;
+
+        TreeBuilder(final String name, final List<String> events, final TreeBuilder... children) {
+            this.name = name;
+            this.events = events;
+            this.children = Arrays.asList(children);
+        }
+
+        protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode, final BootContext context) {
+            final TestResource node = new TestResource(parentNode, name);
+            final List<BootContext.Subtree<TestResource.Value>> subtrees = new ArrayList<>();
+            for (TreeBuilder child : children) {
+                subtrees.add(context.fork(child, node));
+            }
+            final Map<String, TestResource> group = new LinkedHashMap<>();
+            for (BootContext.Subtree<TestResource.Value> subtree : subtrees) {
+                final TestResource child = (TestResource) subtree.join();
+                group.put(child.getName(), child);
+            }
+            node.initializeChildren(Collections.<String, Map<String, TestResource>>singletonMap("child", group));
+            forkedInPool = ForkJoinTask.inForkJoinPool();
+            events.add("constructed " + name);
+            return node;
+        }
+
+        protected void validate(final AbstractMutableNode<TestResource.Value> node) {
+            events.add("validated " + node.getName());
+        }
+
+        public void fromXml(final XMLStreamReader reader) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<String> sorted(final List<String> events) {
+        return new ArrayList<>(new TreeSet<>(events));
+    }
+
+    private static void assertFailure(final Throwable thrown, final String message) {
+        // a fork/join pool may rethrow a copy of the exception, with the original as its cause
+        for (Throwable t = thrown; t != null; t = t.getCause()) {
+            if (message.equals(t.getMessage())) {
+                return;
+            }
+        }
+        throw new AssertionError("Unexpected failure " + thrown);
+    }
+
+    @Test
+    public void testForkedSubtreesAreConstructedAndValidated() {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final TreeBuilder b = new TreeBuilder("b", events, new TreeBuilder("b1", events), new TreeBuilder("b2", events));
+        final TreeBuilder root = new TreeBuilder("root", events, new TreeBuilder("a", events), b);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final Controller controller;
+        try {
+            controller = Boot.load(root, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(RunLevel.STOPPED, controller.getRunLevel());
+        assertEquals(5, controller.getBootTimings().getSubtreeCount());
+        assertEquals(Arrays.asList("constructed a", "constructed b", "constructed b1", "constructed b2", "constructed root",
+                "validated a", "validated b", "validated b1", "validated b2", "validated root"), sorted(events));
+        assertEquals(10, events.size());
+        // every node is constructed before any is validated
+        assertEquals(Arrays.asList("constructed a", "constructed b", "constructed b1", "constructed b2", "constructed root"), sorted(events.subList(0, 5)));
+        assertTrue(b.forkedInPool);
+    }
+
+    @Test
+    public void testForkOutsidePoolRunsInline() {
+        final List<String> events = new ArrayList<>();
+        final BootContext context = new BootContext();
+        final BootContext.Subtree<TestResource.Value> subtree = context.fork(new TreeBuilder("a", events, new TreeBuilder("a1", events)), null);
+        assertEquals(Arrays.asList("constructed a1", "constructed a"), events);
+        final TestResource node = (TestResource) subtree.join();
+        assertEquals("a1", node.getChild("child", "a1").getName());
+        assertSame(node, node.getChild("child", "a1").getParent());
+        assertEquals(2, context.getSubtreeCount());
+    }
+
+    @Test
+    public void testConstructionFailurePropagates() {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final TreeBuilder failing = new TreeBuilder("bad", events) {
+            protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode, final BootContext context) {
+                throw new IllegalArgumentException("bad subtree");
+            }
+        };
+        try {
+            Boot.load(new TreeBuilder("root", events, new TreeBuilder("a", events), failing));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertFailure(e, "bad subtree");
+        }
+        // nothing is validated once construction fails
+        for (String event : events) {
+            assertTrue(event, event.startsWith("constructed"));
+        }
+    }
+
+    @Test
+    public void testValidationFailurePropagates() {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final TreeBuilder invalid = new TreeBuilder("invalid", events) {
+            protected void validate(final AbstractMutableNode<TestResource.Value> node) {
+                throw new IllegalArgumentException("invalid subtree");
+            }
+        };
+        try {
+            Boot.load(new TreeBuilder("root", events, invalid, new TreeBuilder("a", events)));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertFailure(e, "invalid subtree");
+        }
+    }
+
+    @Test
+    public void testRootMustBeResource() {
+        final RootNodeBuilder<TestResource.Value> builder = new RootNodeBuilder<TestResource.Value>() {
+            protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode) {
+                return new AbstractMutableNode<TestResource.Value>(parentNode, new TestResource.Value("plain", Collections.<String, String>emptyMap(), Collections.<String, Map<String, TestResource>>emptyMap())) {
+                };
+            }
+
+            public void fromXml(final XMLStreamReader reader) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            Boot.load(builder);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testTimingsCoverEachPhase() {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final TreeBuilder slow = new TreeBuilder("slow", events) {
+            protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode, final BootContext context) {
+                sleep(20L);
+                return super.construct(parentNode, context);
+            }
+
+            protected void validate(final AbstractMutableNode<TestResource.Value> node) {
+                sleep(30L);
+            }
+        };
+        final BootTimings timings = Boot.load(new TreeBuilder("root", events, slow)).getBootTimings();
+        assertEquals(2, timings.getSubtreeCount());
+        assertTrue(timings.getConstructionTime(TimeUnit.MILLISECONDS) >= 20L);
+        assertTrue(timings.getValidationTime(TimeUnit.MILLISECONDS) >= 30L);
+        assertTrue(timings.getTotalTime(TimeUnit.NANOSECONDS) >= timings.getConstructionTime(TimeUnit.NANOSECONDS) + timings.getValidationTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testTimingsReport() {
+        final BootTimings timings = new BootTimings(1500000000L, 2500000000L, 4250000000L, 3);
+        assertEquals(1L, timings.getConstructionTime(TimeUnit.SECONDS));
+        assertEquals(2500L, timings.getValidationTime(TimeUnit.MILLISECONDS));
+        assertEquals(4250000L, timings.getTotalTime(TimeUnit.MICROSECONDS));
+        assertEquals("boot of 3 subtrees in 4250 ms (construction 1500 ms, validation 2500 ms)", timings.toString());
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ConfigurationPersisterTest {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("persister").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the content of a fresh, full write of the model.
+     */
+    private String writeFull(final TestResource root) throws IOException {
+        final File file = new File(directory, "expected.xml");
+        try (ConfigurationPersister persister = new ConfigurationPersister(file, root)) {
+            persister.persist();
+        }
+        return read(file);
+    }
+
+    @Test
+    public void testSplicesKeepLaterOffsets() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource a = root.addChild("child", "a");
+        a.set("x", "1");
+        final TestResource b = root.addChild("child", "b");
+        b.set("x", "1");
+        final TestResource c = root.addChild("child", "c");
+        c.set("x", "1");
+        final File file = new File(directory, "config.xml");
+        try (ConfigurationPersister persister = new ConfigurationPersister(file, root)) {
+            final long full = persister.persist();
+            assertEquals(full, file.length());
+
+            // the same length, overwritten in place
+            b.set("x", "2");
+            final long same = persister.persist();
+            assertTrue(same < full);
+            assertEquals(writeFull(root), read(file));
+
+            // longer, so that every later range moves
+            b.set("x", "a much longer value");
+            assertTrue(persister.persist() < full);
+            assertEquals(writeFull(root), read(file));
+
+            // a range after the moved one must be found at its new offset
+            c.set("x", "another longer value");
+            assertTrue(persister.persist() < file.length());
+            assertEquals(writeFull(root), read(file));
+
+            // shorter, before both, and two splices at once
+            a.set("x", null);
+            c.set("x", "2");
+            persister.persist();
+            assertEquals(writeFull(root), read(file));
+
+            // nothing changed
+            assertEquals(0L, persister.persist());
+            assertEquals(writeFull(root), read(file));
+        }
+    }
+
+    @Test
+    public void testNestedChangesRewriteEnclosingResource() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource a = root.addChild("child", "a");
+        final TestResource nested = a.addChild("child", "n");
+        root.addChild("child", "b").set("x", "1");
+        final File file = new File(directory, "config.xml");
+        try (ConfigurationPersister persister = new ConfigurationPersister(file, root)) {
+            final long full = persister.persist();
+            nested.set("x", "longer than it was");
+            a.set("y", "1");
+            assertTrue(persister.persist() < full);
+            assertEquals(writeFull(root), read(file));
+            nested.set("x", "1");
+            assertTrue(persister.persist() < full);
+            assertEquals(writeFull(root), read(file));
+        }
+    }
+
+    @Test
+    public void testChangesOutsideRootAreIgnored() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "a");
+        // another tree of the same (detached) model
+        final TestResource other = new TestResource(null, "other");
+        final TestResource otherChild = other.addChild("child", "a");
+        final File file = new File(directory, "config.xml");
+        try (ConfigurationPersister persister = new ConfigurationPersister(file, root)) {
+            persister.persist();
+            final String content = read(file);
+            other.set("x", "1");
+            otherChild.set("x", "1");
+            assertEquals(0L, persister.persist());
+            assertEquals(content, read(file));
+
+            // a change to the root itself rewrites the whole file
+            root.set("x", "1");
+            final long written = persister.persist();
+            assertEquals(file.length(), written);
+            assertEquals(writeFull(root), read(file));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class EncodedPathAddressTest {
+
+    private static EncodedPathAddress encode(PathAddress address) {
+        return EncodedPathAddress.wrap(ByteBuffer.wrap(EncodedPathAddress.encode(address)));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final PathAddress address = PathAddress.pathAddress("subsystem", "logging").append("custom-handler", "h\u00e9").append("deployment", "[a.war,b.war]");
+        final EncodedPathAddress encoded = encode(address);
+        assertEquals(3, encoded.size());
+        assertEquals("subsystem", encoded.getKey(0));
+        assertEquals("custom-handler", encoded.getKey(1));
+        assertEquals("h\u00e9", encoded.getValue(1));
+        assertEquals("a.war,b.war", encoded.getValue(2));
+        assertEquals(address, encoded.toPathAddress());
+        assertTrue(encoded.toPathAddress().getLastElement().isMultiTarget());
+        assertTrue(encoded.matches(address));
+    }
+
+    @Test
+    public void testMatchesDistinguishesBrackets() {
+        final PathAddress bracketed = PathAddress.pathAddress("deployment", "[x,y]");
+        final PathAddress plain = PathAddress.pathAddress("deployment", "x,y");
+        assertTrue(encode(bracketed).matches(bracketed));
+        assertFalse(encode(bracketed).matches(plain));
+        assertTrue(encode(plain).matches(plain));
+        assertFalse(encode(plain).matches(bracketed));
+    }
+
+    @Test
+    public void testMatchesMismatch() {
+        final EncodedPathAddress encoded = encode(PathAddress.pathAddress("subsystem", "logging"));
+        assertFalse(encoded.matches(PathAddress.pathAddress("subsystem", "logger")));
+        assertFalse(encoded.matches(PathAddress.pathAddress("profile", "logging")));
+        assertFalse(encoded.matches(PathAddress.pathAddress("subsystem", "logging").append("x", "y")));
+        assertFalse(encoded.matches(PathAddress.EMPTY_ADDRESS));
+    }
+
+    @Test
+    public void testEquality() {
+        final PathAddress address = PathAddress.pathAddress("host", "master").append("server", "one");
+        assertEquals(encode(address), encode(address));
+        assertEquals(encode(address).hashCode(), encode(address).hashCode());
+        assertFalse(encode(address).equals(encode(address.getParent())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        final byte[] bytes = EncodedPathAddress.encode(PathAddress.pathAddress("custom", "value"));
+        EncodedPathAddress.wrap(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        EncodedPathAddress.wrap(ByteBuffer.wrap(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeExceedsContent() {
+        // a size of 0x0fffffff with no elements following it
+        EncodedPathAddress.wrap(ByteBuffer.wrap(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f, 0, 0, 0, 0 }));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ExpressionTest {
+
+    private static final String PREFIX = "expression.test.";
+
+    @After
+    public void clearProperties() {
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                System.clearProperty(name);
+            }
+        }
+    }
+
+    private static void assertInvalid(final String template) {
+        try {
+            Expression.compile(template);
+            fail("Expected '" + template + "' to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testLiterals() {
+        assertEquals("", Expression.compile("").resolve());
+        assertTrue(Expression.compile("").isConstant());
+        assertEquals("plain", Expression.compile("plain").resolve());
+        assertTrue(Expression.compile("plain").isConstant());
+        // a $ which does not start a reference or an escape is literal, including at the end
+        assertEquals("a$b$", Expression.compile("a$b$").resolve());
+        assertEquals("$", Expression.compile("$").resolve());
+        assertEquals("}", Expression.compile("}").resolve());
+    }
+
+    @Test
+    public void testEscapes() {
+        assertEquals("$", Expression.compile("$$").resolve());
+        assertEquals("${" + PREFIX + "a}", Expression.compile("$${" + PREFIX + "a}").resolve());
+        assertEquals("$$", Expression.compile("$$$$").resolve());
+        assertTrue(Expression.compile("$${x}").getProperties().isEmpty());
+    }
+
+    @Test
+    public void testSeparators() {
+        assertEquals("a" + File.separator + "b", Expression.compile("a${/}b").resolve());
+        assertEquals("a" + File.pathSeparator + "b", Expression.compile("a${:}b").resolve());
+        assertTrue(Expression.compile("${/}").getProperties().isEmpty());
+    }
+
+    @Test
+    public void testReferences() {
+        System.setProperty(PREFIX + "a", "A");
+        final Expression expression = Expression.compile("<${" + PREFIX + "a}>");
+        assertFalse(expression.isConstant());
+        assertEquals("<A>", expression.resolve());
+        // resolved again without being parsed again
+        System.setProperty(PREFIX + "a", "B");
+        assertEquals("<B>", expression.resolve());
+        assertEquals("AB", Expression.compile("${" + PREFIX + "b:A}${" + PREFIX + "a}").resolve());
+    }
+
+    @Test
+    public void testDefaults() {
+        assertEquals("fallback", Expression.compile("${" + PREFIX + "a:fallback}").resolve());
+        // an empty default is a default
+        assertEquals("", Expression.compile("${" + PREFIX + "a:}").resolve());
+        // a default may contain a colon
+        assertEquals("host:80", Expression.compile("${" + PREFIX + "a:host:80}").resolve());
+        System.setProperty(PREFIX + "b", "B");
+        assertEquals("x-B-y", Expression.compile("${" + PREFIX + "a:x-${" + PREFIX + "b}-y}").resolve());
+        assertEquals("deep", Expression.compile("${" + PREFIX + "a:${" + PREFIX + "c:${" + PREFIX + "d:deep}}}").resolve());
+    }
+
+    @Test
+    public void testAlternativeNames() {
+        final Expression expression = Expression.compile("${" + PREFIX + "a," + PREFIX + "b:none}");
+        assertEquals("none", expression.resolve());
+        System.setProperty(PREFIX + "b", "B");
+        assertEquals("B", expression.resolve());
+        // the first name which is set wins
+        System.setProperty(PREFIX + "a", "A");
+        assertEquals("A", expression.resolve());
+    }
+
+    @Test
+    public void testProperties() {
+        final Expression expression = Expression.compile("${" + PREFIX + "a," + PREFIX + "b:${env.HOME_TEST}}${" + PREFIX + "a}");
+        assertEquals(new LinkedHashSet<>(Arrays.asList(PREFIX + "a", PREFIX + "b", "env.HOME_TEST")), expression.getProperties());
+    }
+
+    @Test
+    public void testUnresolved() {
+        final Expression expression = Expression.compile("${" + PREFIX + "a}");
+        try {
+            expression.resolve();
+            fail("Expected an unresolved expression");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        assertInvalid("${}");
+        assertInvalid("${,a}");
+        assertInvalid("${a,}");
+        assertInvalid("${:a}");
+        assertInvalid("${a");
+        assertInvalid("${");
+        assertInvalid("x${a:b");
+        assertInvalid("${a:${b}");
+        assertInvalid("${a${b}}");
+        assertInvalid("${a{b}");
+    }
+
+    @Test
+    public void testEquality() {
+        assertEquals(Expression.compile("${a:b}"), Expression.compile("${a:b}"));
+        assertEquals(Expression.compile("${a:b}").hashCode(), Expression.compile("${a:b}").hashCode());
+        assertFalse(Expression.compile("${a:b}").equals(Expression.compile("${a:c}")));
+        assertEquals("${a:b}", Expression.compile("${a:b}").toString());
+    }
+
+    @Test
+    public void testResolverInvalidatesOnChange() {
+        final ExpressionResolver resolver = new ExpressionResolver();
+        final ResolvedExpression resolved = resolver.track(Expression.compile("${" + PREFIX + "a:1}"));
+        assertEquals(1, resolved.getInt());
+        // cached until the change is reported
+        System.setProperty(PREFIX + "a", "2");
+        assertEquals(1, resolved.getInt());
+        resolver.propertyChanged(PREFIX + "a");
+        assertEquals(2, resolved.getInt());
+        resolver.setProperty(PREFIX + "a", "3");
+        assertEquals(3L, resolved.getLong());
+        resolver.setProperty(PREFIX + "a", null);
+        assertEquals("1", resolved.getString());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class LazyResourceMapTest {
+
+    static final class Builder extends RootNodeBuilder<TestResource.Value> {
+        private final String name;
+        int constructed;
+
+        Builder(final String name) {
+            this.name = name;
+        }
+
+        protected AbstractMutableNode<TestResource.Value> construct(final AbstractMutableNode<?> parentNode) {
+            constructed ++;
+            if (name == null) {
+                return null;
+            }
+            final TestResource resource = new TestResource(parentNode, name);
+            resource.addChild("child", "nested");
+            return resource;
+        }
+
+        public void fromXml(final XMLStreamReader reader) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static LazyResourceMap<Node> map(final TestResource parent, final Builder... builders) {
+        final Map<String, Builder> map = new LinkedHashMap<>();
+        for (Builder builder : builders) {
+            map.put(builder.name == null ? "null" : builder.name, builder);
+        }
+        return new LazyResourceMap<>(parent, "member", map, Collections.<String, ResourceBuilderFactory<Node, ?>>emptyMap());
+    }
+
+    @Test
+    public void testMembersAreConstructedOnce() {
+        final Builder a = new Builder("a");
+        final Builder b = new Builder("b");
+        final LazyResourceMap<Node> map = map(new TestResource(null, "root"), a, b);
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("b"));
+        assertEquals(0, map.getMaterializedCount());
+        final Node node = map.get("a");
+        assertSame(node, map.get("a"));
+        assertEquals(1, a.constructed);
+        assertEquals(0, b.constructed);
+        assertEquals(1, map.getMaterializedCount());
+    }
+
+    @Test
+    public void testNullConstructionIsRejected() {
+        final LazyResourceMap<Node> map = map(new TestResource(null, "root"), new Builder(null));
+        try {
+            map.get("null");
+            fail("Expected construction to fail");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testBootConstructsMembers() {
+        final Builder a = new Builder("a");
+        final Builder b = new Builder("b");
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final LazyResourceMap<Node> map = map(root, a, b);
+        final Node first = map.get("a");
+        map.construct(new BootContext());
+        // the member which was already read is not constructed again
+        assertEquals(1, a.constructed);
+        assertEquals(1, b.constructed);
+        assertEquals(2, map.getMaterializedCount());
+        assertSame(first, map.get("a"));
+        final Node second = map.get("b");
+        assertEquals(1, b.constructed);
+        // the children of a member constructed at boot are indexed
+        assertSame(((TestResource) second).getChild("child", "nested"), system.getResource(PathAddress.parseCLIStyleAddress("/member=b/child=nested")));
+    }
+
+    @Test
+    public void testEvictedMemberKeepsIdentity() throws XMLStreamException {
+        final Builder a = new Builder("a");
+        final LazyResourceMap<Node> map = map(new TestResource(null, "root"), a);
+        final Node node = map.get("a");
+        assertEquals(1, map.evict(0L, TimeUnit.NANOSECONDS));
+        assertEquals(0, map.getMaterializedCount());
+        // still referenced, so never reclaimed
+        assertSame(node, map.get("a"));
+        assertEquals(1, a.constructed);
+    }
+
+    @Test
+    public void testChangeMakesEvictedMemberHot() throws XMLStreamException {
+        final LazyResourceMap<Node> map = map(new TestResource(null, "root"), new Builder("a"));
+        final TestResource node = (TestResource) map.get("a");
+        assertEquals(1, map.evict(0L, TimeUnit.NANOSECONDS));
+        node.set("x", "1");
+        // the change is held strongly until the next eviction captures it
+        assertEquals(1, map.getMaterializedCount());
+        assertEquals(1, map.evict(0L, TimeUnit.NANOSECONDS));
+        assertEquals(0, map.getMaterializedCount());
+
+        // as is a change below the member
+        node.getChild("child", "nested").set("y", "1");
+        assertEquals(1, map.getMaterializedCount());
+        assertEquals("1", ((TestResource) map.get("a")).getChild("child", "nested").get("y"));
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.txn.TransactionalContext;
+import org.jboss.msc.txn.ValidateContext;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ManagedSystemTest {
+
+    private static PathAddress address(final String address) {
+        return PathAddress.parseCLIStyleAddress(address);
+    }
+
+    static class RecordingListener implements ResourceListener<TestResource.Value>, AttributeListener<TestResource.Value, String> {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        public void resourceAdded(final ModelChangeContext context, final TestResource.Value resource) {
+            events.add("added " + resource.getName());
+        }
+
+        public void resourceChanged(final ModelChangeContext context, final TestResource.Value original, final TestResource.Value updated) {
+            events.add("changed " + updated.getName());
+        }
+
+        public void resourceRemoved(final ModelChangeContext context, final TestResource.Value resource) {
+            events.add("removed " + resource.getName());
+        }
+
+        public void attributeAdded(final ModelChangeContext context, final TestResource.Value resourceBefore, final TestResource.Value resourceAfter, final String attributeName, final String newValue) {
+            events.add(resourceAfter.getName() + "." + attributeName + " added " + newValue);
+        }
+
+        public void attributeUpdated(final ModelChangeContext context, final TestResource.Value resourceBefore, final TestResource.Value resourceAfter, final String attributeName, final String oldValue, final String newValue) {
+            events.add(resourceAfter.getName() + "." + attributeName + " updated " + oldValue + " to " + newValue);
+        }
+
+        public void attributeRemoved(final ModelChangeContext context, final TestResource.Value resourceBefore, final TestResource.Value resourceAfter, final String attributeName, final String oldValue) {
+            events.add(resourceAfter.getName() + "." + attributeName + " removed " + oldValue);
+        }
+
+        public void attributeRefreshed(final ModelChangeContext context, final TestResource.Value resourceBefore, final TestResource.Value resourceAfter, final String attributeName, final String value) {
+            events.add(resourceAfter.getName() + "." + attributeName + " refreshed " + value);
+        }
+
+        List<String> take() {
+            synchronized (events) {
+                final List<String> taken = new ArrayList<>(events);
+                events.clear();
+                return taken;
+            }
+        }
+    }
+
+    @Test
+    public void testBootIndexesTree() {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource child = root.addChild("child", "a");
+        final TestResource grandchild = child.addChild("grandchild", "b");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        assertSame(root, system.getResource(PathAddress.EMPTY_ADDRESS));
+        assertSame(child, system.getResource(address("/child=a")));
+        assertSame(grandchild, system.getResource(address("/child=a/grandchild=b")));
+        assertNull(system.getResource(address("/child=b")));
+        assertNull(system.getResource(address("/other=a")));
+    }
+
+    static final class RecordingBatchListener implements ResourceBatchListener<TestResource.Value>, AttributeBatchListener<TestResource.Value, String> {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        public void resourcesChanged(final ModelChangeContext context, final List<ResourceChange<TestResource.Value>> changes) {
+            final List<String> batch = new ArrayList<>();
+            for (ResourceChange<TestResource.Value> change : changes) {
+                batch.add(change.getKind() + " " + change.getAddress().toCLIStyleString());
+            }
+            batches.add(batch);
+        }
+
+        public void attributesChanged(final ModelChangeContext context, final List<AttributeChange<TestResource.Value, String>> changes) {
+            final List<String> batch = new ArrayList<>();
+            for (AttributeChange<TestResource.Value, String> change : changes) {
+                batch.add(change.getAddress().toCLIStyleString() + "." + change.getAttributeName() + " " + change.getKind() + " " + change.getOldValue() + " to " + change.getNewValue());
+            }
+            batches.add(batch);
+        }
+
+        List<List<String>> take() {
+            synchronized (batches) {
+                final List<List<String>> taken = new ArrayList<>(batches);
+                batches.clear();
+                return taken;
+            }
+        }
+    }
+
+    @Test
+    public void testListenersSeeChanges() {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), listener);
+        system.addAttributeListener(address("/child=*"), listener);
+
+        final TestResource child = root.addChild("child", "a");
+        assertEquals(Arrays.asList("added a"), listener.take());
+        assertSame(child, system.getResource(address("/child=a")));
+
+        child.set("x", "1");
+        assertEquals(Arrays.asList("changed a", "a.x added 1"), listener.take());
+        child.set("x", "2");
+        assertEquals(Arrays.asList("changed a", "a.x updated 1 to 2"), listener.take());
+
+        root.removeChild("child", "a");
+        assertEquals(Arrays.asList("removed a"), listener.take());
+        assertNull(system.getResource(address("/child=a")));
+
+        // a removed resource no longer reports its changes
+        child.set("x", "3");
+        assertEquals(Collections.<String>emptyList(), listener.take());
+    }
+
+    @Test
+    public void testCommitDeliversChangesOnceVisible() {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), listener);
+        system.addResourceListener(address("/child=*/grandchild=*"), listener);
+        system.addAttributeListener(address("/child=*/grandchild=*"), listener);
+
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            final TestResource child = root.addChild("child", "a");
+            // changes to new resources made later in the same commit are reported under their addresses
+            child.addChild("grandchild", "b").set("x", "1");
+            assertEquals(Collections.<String>emptyList(), listener.take());
+            commit.commit();
+        }
+        assertEquals(Arrays.asList("added a", "changed a", "added b", "changed b", "b.x added 1"), listener.take());
+        assertEquals("1", ((TestResource) system.getResource(address("/child=a/grandchild=b"))).get("x"));
+    }
+
+    @Test
+    public void testDiscardedCommitDeliversNothing() {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), listener);
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            root.addChild("child", "a");
+        }
+        assertEquals(Collections.<String>emptyList(), listener.take());
+        assertNull(system.getResource(address("/child=a")));
+    }
+
+    @Test
+    public void testImmediateValidatorRejectsChange() {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addAttributeListener(PathAddress.EMPTY_ADDRESS, listener);
+        system.addAttributeValidator(PathAddress.EMPTY_ADDRESS, "x", RunLevel.STOPPED, true, new AttributeValidator<TestResource.Value, String>() {
+            public void validate(final TestResource.Value resource, final String attributeName, final String previousValue, final String newValue, final ValidateContext validatorContext) {
+                if ("bad".equals(newValue)) {
+                    throw new IllegalArgumentException("bad value");
+                }
+            }
+        });
+        root.set("x", "good");
+        assertEquals(Arrays.asList("root.x added good"), listener.take());
+        final long version = system.getVersions().getCommitted();
+        try {
+            root.set("x", "bad");
+            fail("Expected the validator to reject the change");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals("good", root.get("x"));
+        assertEquals(version, system.getVersions().getCommitted());
+        assertEquals(Collections.<String>emptyList(), listener.take());
+    }
+
+    private static List<String> names(final Iterable<Resource> resources) {
+        final TreeSet<String> names = new TreeSet<>();
+        for (Resource resource : resources) {
+            names.add(resource.getName());
+        }
+        return new ArrayList<>(names);
+    }
+
+    @Test
+    public void testGetResourcesResolvesBootedTree() {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource one = root.addChild("child", "one");
+        one.addChild("grandchild", "a");
+        one.addChild("grandchild", "b");
+        root.addChild("child", "two").addChild("grandchild", "c");
+        root.addChild("child", "three");
+        root.addChild("other", "x");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        assertEquals(Arrays.asList("one", "three", "two"), names(system.getResources(address("/child=*"))));
+        assertEquals(Arrays.asList("one", "three", "two", "x"), names(system.getResources(PathAddress.pathAddress(PathElement.pathElement("*", "*")))));
+        assertEquals(Arrays.asList("a", "b", "c"), names(system.getResources(address("/child=*/grandchild=*"))));
+        assertEquals(Arrays.asList("one", "two"), names(system.getResources(PathAddress.pathAddress(PathElement.pathElement("child", "[one,two,four]")))));
+        assertEquals(Arrays.asList("c"), names(system.getResources(PathAddress.pathAddress(PathElement.pathElement("child", "two"), PathElement.pathElement("grandchild")))));
+        assertEquals(Arrays.asList("root"), names(system.getResources(PathAddress.EMPTY_ADDRESS)));
+        assertEquals(Collections.<String>emptyList(), names(system.getResources(address("/missing=*"))));
+    }
+
+    @Test
+    public void testGetResourcesSeesCommitChanges() {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "one").addChild("grandchild", "a");
+        root.addChild("child", "two");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            root.removeChild("child", "one");
+            root.addChild("child", "three").addChild("grandchild", "b");
+            assertEquals(Arrays.asList("three", "two"), names(system.getResources(address("/child=*"))));
+            assertEquals(Arrays.asList("b"), names(system.getResources(address("/child=*/grandchild=*"))));
+        }
+        assertEquals(Arrays.asList("one", "two"), names(system.getResources(address("/child=*"))));
+        assertEquals(Arrays.asList("a"), names(system.getResources(address("/child=*/grandchild=*"))));
+    }
+
+    @Test
+    public void testSnapshotSeesResourcesOfItsVersion() throws InterruptedException {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "one").addChild("grandchild", "a");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        try (ModelSnapshot snapshot = ModelSnapshot.open(system)) {
+            final Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try (ModelCommit commit = ModelCommit.begin(system)) {
+                        root.removeChild("child", "one");
+                        root.addChild("child", "two").addChild("grandchild", "b");
+                        commit.commit();
+                    }
+                }
+            });
+            thread.start();
+            thread.join();
+            assertSame(root.navigate(PathElement.pathElement("child", "one")), system.getResource(address("/child=one")));
+            assertEquals("a", system.getResource(address("/child=one/grandchild=a")).getName());
+            assertNull(system.getResource(address("/child=two")));
+            assertEquals(Arrays.asList("one"), names(system.getResources(address("/child=*"))));
+            assertEquals(Arrays.asList("a"), names(system.getResources(address("/child=*/grandchild=*"))));
+            assertEquals(Arrays.asList("one"), names(system.getResources(PathAddress.pathAddress(PathElement.pathElement("*", "[one,two]")))));
+        }
+        assertNull(system.getResource(address("/child=one")));
+        assertEquals("two", system.getResource(address("/child=two")).getName());
+        assertEquals(Arrays.asList("two"), names(system.getResources(address("/child=*"))));
+        assertEquals(Arrays.asList("b"), names(system.getResources(address("/child=*/grandchild=*"))));
+    }
+
+    static ModelChangeContext newChangeContext() {
+        final ListenerCompletion completion = new ListenerCompletion();
+        return (ModelChangeContext) Proxy.newProxyInstance(ModelChangeContext.class.getClassLoader(), new Class<?>[] { ModelChangeContext.class }, new InvocationHandler() {
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                if (method.getName().equals("getListenerCompletion")) {
+                    return completion;
+                }
+                if (method.getName().equals("hashCode")) {
+                    return Integer.valueOf(System.identityHashCode(proxy));
+                }
+                if (method.getName().equals("equals")) {
+                    return Boolean.valueOf(proxy == args[0]);
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testRunLevelReplaysExistingResources() {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "one").addChild("grandchild", "a");
+        root.addChild("child", "two");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), RunLevel.MANAGEMENT, listener);
+        final List<String> validated = Collections.synchronizedList(new ArrayList<String>());
+        system.addResourceValidator(address("/child=*/grandchild=*"), RunLevel.MANAGEMENT, new ResourceValidator<TestResource.Value>() {
+            public void validate(final TestResource.Value resource, final ValidateContext context) {
+                validated.add(resource.getName());
+            }
+        });
+        final TransactionalContext previous = ManagedSystem.setTransactionalContext(newChangeContext());
+        try {
+            assertTrue(system.changeRunLevel(RunLevel.STOPPED, RunLevel.MANAGEMENT, null));
+            assertEquals(RunLevel.MANAGEMENT, system.getRunLevel());
+            assertEquals(Collections.<Throwable>emptyList(), system.getRunLevelFailures());
+            assertEquals(Arrays.asList("added one", "added two"), new ArrayList<>(new TreeSet<>(listener.take())));
+            assertEquals(Arrays.asList("a"), validated);
+
+            assertTrue(system.changeRunLevel(RunLevel.MANAGEMENT, RunLevel.STOPPED, null));
+            assertEquals(RunLevel.STOPPED, system.getRunLevel());
+            assertEquals(Arrays.asList("removed one", "removed two"), new ArrayList<>(new TreeSet<>(listener.take())));
+        } finally {
+            ManagedSystem.setTransactionalContext(previous);
+        }
+    }
+
+    @Test
+    public void testBatchListenerReceivesCommitTogether() {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "a").set("x", "1");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingBatchListener resources = new RecordingBatchListener();
+        final RecordingBatchListener attributes = new RecordingBatchListener();
+        system.addResourceBatchListener(address("/child=*"), resources);
+        system.addAttributeBatchListener(address("/child=*"), attributes);
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            final TestResource a = (TestResource) system.getResource(address("/child=a"));
+            a.set("x", "2");
+            a.set("x", "3");
+            root.addChild("child", "b");
+            commit.commit();
+        }
+        // every change is delivered, but each listener is called once for the commit
+        assertEquals(Arrays.asList(Arrays.asList("CHANGED /child=a", "CHANGED /child=a", "ADDED /child=b")), resources.take());
+        assertEquals(Arrays.asList(Arrays.asList("/child=a.x UPDATED 1 to 2", "/child=a.x UPDATED 2 to 3")), attributes.take());
+    }
+
+    @Test
+    public void testBatchedModeCoalescesCommit() {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("child", "a").set("x", "1");
+        root.addChild("child", "gone").set("x", "1");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        system.setListenerDispatchMode(ListenerDispatchMode.BATCHED);
+        final RecordingBatchListener resources = new RecordingBatchListener();
+        final RecordingBatchListener attributes = new RecordingBatchListener();
+        final RecordingListener each = new RecordingListener();
+        system.addResourceBatchListener(address("/child=*"), resources);
+        system.addAttributeBatchListener(address("/child=*"), attributes);
+        system.addAttributeListener(address("/child=*"), each);
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            final TestResource a = (TestResource) system.getResource(address("/child=a"));
+            a.set("x", "2");
+            a.set("x", "3");
+            // a resource which comes and goes within the commit is not reported at all
+            root.addChild("child", "b").set("y", "1");
+            root.removeChild("child", "b");
+            // nor are the attribute changes of a resource which is removed
+            ((TestResource) system.getResource(address("/child=gone"))).set("x", "2");
+            root.removeChild("child", "gone");
+            commit.commit();
+        }
+        assertEquals(Arrays.asList(Arrays.asList("CHANGED /child=a", "REMOVED /child=gone")), resources.take());
+        assertEquals(Arrays.asList(Arrays.asList("/child=a.x UPDATED 1 to 3")), attributes.take());
+        assertEquals(Arrays.asList("a.x updated 1 to 3"), each.take());
+    }
+
+    @Test
+    public void testCommitReportsAttributeDifferences() {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource child = root.addChild("child", "a");
+        child.set("x", "1");
+        child.set("y", "2");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        final RecordingBatchListener batches = new RecordingBatchListener();
+        system.addAttributeListener(address("/child=*"), listener);
+        system.addAttributeBatchListener(address("/child=*"), batches);
+
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            child.set("x", "3");
+            child.set("y", null);
+            child.set("z", "4");
+            // the differences are recorded as they are staged, but delivered only once published
+            assertEquals(Collections.<String>emptyList(), listener.take());
+            commit.commit();
+        }
+        assertEquals(Arrays.asList("a.x updated 1 to 3", "a.y removed 2", "a.z added 4"), listener.take());
+        assertEquals(Arrays.asList(Arrays.asList("/child=a.x UPDATED 1 to 3", "/child=a.y REMOVED 2 to null", "/child=a.z ADDED null to 4")), batches.take());
+
+        // a discarded commit reports nothing
+        try (ModelCommit ignored = ModelCommit.begin(system)) {
+            child.set("x", "5");
+        }
+        assertEquals(Collections.<String>emptyList(), listener.take());
+        assertEquals("3", child.get("x"));
+    }
+
+    @Test
+    public void testListenersSeeChangesInRecordedOrder() {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), listener);
+        system.addAttributeListener(address("/child=*"), listener);
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            root.addChild("child", "a").set("x", "1");
+            root.addChild("child", "b");
+            commit.commit();
+        }
+        assertEquals(Arrays.asList("added a", "changed a", "a.x added 1", "added b"), listener.take());
+    }
+
+    @Test
+    public void testRejectedCallbacksComplete() throws InterruptedException {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource child = root.addChild("child", "a");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final RecordingListener listener = new RecordingListener();
+        system.addResourceListener(address("/child=*"), listener);
+        system.addAttributeListener(address("/child=*"), listener);
+        final List<Runnable> submitted = new ArrayList<>();
+        final boolean[] reject = new boolean[1];
+        system.setListenerExecutor(new Executor() {
+            public void execute(final Runnable command) {
+                if (reject[0]) {
+                    throw new RejectedExecutionException("shut down");
+                }
+                submitted.add(command);
+            }
+        });
+        final ModelChangeContext context = newChangeContext();
+        final TransactionalContext previous = ManagedSystem.setTransactionalContext(context);
+        try {
+            try (ModelCommit commit = ModelCommit.begin(system)) {
+                child.set("x", "1");
+                child.set("x", "2");
+                commit.commit();
+            }
+            final ListenerCompletion completion = context.getListenerCompletion();
+            // the callbacks for one address share a single delegate task, which runs them one at a time
+            assertEquals(1, submitted.size());
+            assertFalse(completion.isDone());
+            reject[0] = true;
+            submitted.remove(0).run();
+            assertTrue(completion.await(1, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("changed a"), listener.take());
+            assertEquals(3, completion.getFailures().size());
+            for (Throwable failure : completion.getFailures()) {
+                assertTrue(failure instanceof RejectedExecutionException);
+            }
+        } finally {
+            ManagedSystem.setTransactionalContext(previous);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelJournalTest {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    static final class RecordingHandler implements ModelJournal.ReplayHandler {
+        final List<String> events = new ArrayList<>();
+        final List<ModelNode> values = new ArrayList<>();
+        String snapshot;
+
+        public void snapshot(final InputStream xml) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[256];
+            int count;
+            while ((count = xml.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            snapshot = out.toString("UTF-8");
+        }
+
+        public void resourceAdded(final PathAddress address, final ModelNode model) {
+            events.add("added " + address.toCLIStyleString());
+        }
+
+        public void resourceChanged(final PathAddress address, final ModelNode model) {
+            events.add("changed " + address.toCLIStyleString());
+        }
+
+        public void resourceRemoved(final PathAddress address) {
+            events.add("removed " + address.toCLIStyleString());
+        }
+
+        public void attributeChanged(final PathAddress address, final String attributeName, final ModelNode value) {
+            events.add(address.toCLIStyleString() + "." + attributeName + (value == null ? " removed" : " set"));
+            if (value != null) {
+                values.add(value);
+            }
+        }
+    }
+
+    private ModelJournal open() throws IOException {
+        final ModelJournal journal = new ModelJournal(directory);
+        journal.replay(new RecordingHandler());
+        return journal;
+    }
+
+    @Test
+    public void testRecordsFollowCommitOrder() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        try (ModelJournal journal = open()) {
+            system.setJournal(journal);
+            try (ModelCommit commit = ModelCommit.begin(system)) {
+                root.addChild("child", "a").set("x", "1");
+                commit.commit();
+            }
+            root.removeChild("child", "a");
+        }
+        final RecordingHandler handler = new RecordingHandler();
+        try (ModelJournal journal = new ModelJournal(directory)) {
+            assertEquals(2L, journal.replay(handler));
+        }
+        assertNull(handler.snapshot);
+        assertEquals(Arrays.asList("changed /", "added /child=a", "changed /child=a", "/child=a.x set", "changed /", "removed /child=a"), handler.events);
+    }
+
+    @Test
+    public void testReplayTruncatesTornRecord() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final File file = new File(directory, "model.journal");
+        final long intact;
+        try (ModelJournal journal = open()) {
+            system.setJournal(journal);
+            root.set("x", "1");
+            root.set("x", "2");
+            intact = file.length();
+            root.set("x", "3");
+        }
+        // a crash in the middle of writing the last record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        RecordingHandler handler = new RecordingHandler();
+        try (ModelJournal journal = new ModelJournal(directory)) {
+            assertEquals(2L, journal.replay(handler));
+            assertEquals(intact, file.length());
+            // appends continue after the last intact record
+            system.setJournal(journal);
+            root.set("x", "4");
+        }
+        assertEquals(Arrays.asList("changed /", "/.x set", "changed /", "/.x set"), handler.events);
+        handler = new RecordingHandler();
+        try (ModelJournal journal = new ModelJournal(directory)) {
+            assertEquals(3L, journal.replay(handler));
+        }
+    }
+
+    @Test
+    public void testReplayStopsAtCorruptRecord() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final File file = new File(directory, "model.journal");
+        final long first;
+        try (ModelJournal journal = open()) {
+            system.setJournal(journal);
+            root.set("x", "1");
+            first = file.length();
+            root.set("x", "2");
+            root.set("x", "3");
+        }
+        // flip a byte of the second record's payload, so that its checksum no longer matches
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(first + 12);
+            final int b = raf.read();
+            raf.seek(first + 12);
+            raf.write(b ^ 0xff);
+        }
+        try (ModelJournal journal = new ModelJournal(directory)) {
+            assertEquals(1L, journal.replay(new RecordingHandler()));
+            assertEquals(first, file.length());
+        }
+    }
+
+    @Test
+    public void testFailedAppendPublishesNothing() throws IOException {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final ManagedSystemTest.RecordingListener listener = new ManagedSystemTest.RecordingListener();
+        system.addResourceListener(PathAddress.pathAddress("child", "*"), listener);
+        final ModelJournal journal = open();
+        system.setJournal(journal);
+        journal.close();
+        final long version = system.getVersions().getCommitted();
+        try {
+            root.addChild("child", "a");
+            fail("Expected the commit to fail");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+        assertEquals(version, system.getVersions().getCommitted());
+        assertNull(system.getResource(PathAddress.pathAddress("child", "a")));
+        assertNull(root.getChild("child", "a"));
+        assertEquals(Collections.<String>emptyList(), listener.take());
+    }
+
+    @Test
+    public void testConcurrentSnapshots() throws Exception {
+        final TestResource root = new TestResource(null, "root");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final ModelJournal journal = open();
+        system.setJournal(journal);
+        final int threads = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<Thread> running = new ArrayList<>();
+        for (int i = 0; i < threads; i ++) {
+            final String name = "t" + i;
+            final Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 10; j ++) {
+                            root.addChild(name, Integer.toString(j));
+                            journal.snapshot(root);
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+            thread.start();
+            running.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : running) {
+            thread.join();
+        }
+        assertEquals(Collections.<Throwable>emptyList(), failures);
+        journal.snapshot(root);
+        journal.close();
+        final RecordingHandler handler = new RecordingHandler();
+        try (ModelJournal reopened = new ModelJournal(directory)) {
+            assertEquals(0L, reopened.replay(handler));
+        }
+        for (int i = 0; i < threads; i ++) {
+            for (int j = 0; j < 10; j ++) {
+                assertTrue(handler.snapshot.contains("name=\"" + j + "\""));
+            }
+        }
+        assertFalse(new File(directory, "model.snapshot.tmp").exists());
+    }
+
+    private static ModelChangeSet attributeSet(final Object... values) {
+        final ModelChangeSet changes = new ModelChangeSet(false, null);
+        for (int i = 0; i < values.length; i ++) {
+            changes.add(new AttributeChange<Resource, Object>(PathAddress.EMPTY_ADDRESS, "a" + i, AttributeChange.Kind.ADDED, null, null, null, values[i]));
+        }
+        return changes;
+    }
+
+    @Test
+    public void testValuesKeepTheirTypes() throws IOException {
+        try (ModelJournal journal = open()) {
+            journal.append(ModelJournal.encode(attributeSet(Double.valueOf(0.1), Long.valueOf(Long.MAX_VALUE), new BigDecimal("1.10"), "text", Character.valueOf('c'), Arrays.asList("x", "y"))));
+        }
+        final RecordingHandler handler = new RecordingHandler();
+        try (ModelJournal journal = new ModelJournal(directory)) {
+            assertEquals(1L, journal.replay(handler));
+        }
+        assertEquals(6, handler.values.size());
+        assertEquals(ModelType.DOUBLE, handler.values.get(0).getType());
+        assertTrue(handler.values.get(0).asDouble() == 0.1);
+        assertEquals(Long.MAX_VALUE, handler.values.get(1).asLong());
+        assertEquals(new BigDecimal("1.10"), handler.values.get(2).asBigDecimal());
+        assertEquals("text", handler.values.get(3).asString());
+        assertEquals("c", handler.values.get(4).asString());
+        assertEquals(ModelType.LIST, handler.values.get(5).getType());
+        assertEquals("y", handler.values.get(5).get(1).asString());
+    }
+
+    @Test
+    public void testUnsupportedValueIsRejected() {
+        try {
+            ModelJournal.encode(attributeSet(new Object()));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testOverlongAddressIsRejected() {
+        final char[] chars = new char[70000];
+        Arrays.fill(chars, 'x');
+        final ModelChangeSet changes = new ModelChangeSet(false, null);
+        changes.add(new ResourceChange<Resource>(PathAddress.pathAddress("child", new String(chars)), ResourceChange.Kind.REMOVED, null, null));
+        try {
+            ModelJournal.encode(changes);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+}
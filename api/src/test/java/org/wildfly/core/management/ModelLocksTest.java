@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelLocksTest {
+
+    private static PathAddress address(final String address) {
+        return PathAddress.parseCLIStyleAddress(address);
+    }
+
+    @Test
+    public void testCompatibilityMatrix() {
+        final IntentionLock.Mode IS = IntentionLock.Mode.INTENTION_SHARED;
+        final IntentionLock.Mode IX = IntentionLock.Mode.INTENTION_EXCLUSIVE;
+        final IntentionLock.Mode S = IntentionLock.Mode.SHARED;
+        final IntentionLock.Mode X = IntentionLock.Mode.EXCLUSIVE;
+        final IntentionLock.Mode[] modes = { IS, IX, S, X };
+        final boolean[][] compatible = {
+            //          IS     IX     S      X
+            /* IS */ { true,  true,  true,  false },
+            /* IX */ { true,  true,  false, false },
+            /* S  */ { true,  false, true,  false },
+            /* X  */ { false, false, false, false },
+        };
+        for (int held = 0; held < modes.length; held ++) {
+            for (int requested = 0; requested < modes.length; requested ++) {
+                final IntentionLock lock = new IntentionLock();
+                assertTrue(lock.tryLock(modes[held]));
+                assertEquals(modes[held] + " held, " + modes[requested] + " requested", compatible[held][requested], lock.tryLock(modes[requested]));
+            }
+        }
+    }
+
+    @Test
+    public void testModesCombine() {
+        assertEquals(IntentionLock.Mode.SHARED, IntentionLock.Mode.INTENTION_SHARED.combine(IntentionLock.Mode.SHARED));
+        assertEquals(IntentionLock.Mode.INTENTION_EXCLUSIVE, IntentionLock.Mode.INTENTION_EXCLUSIVE.combine(IntentionLock.Mode.INTENTION_SHARED));
+        assertEquals(IntentionLock.Mode.EXCLUSIVE, IntentionLock.Mode.SHARED.combine(IntentionLock.Mode.INTENTION_EXCLUSIVE));
+    }
+
+    @Test
+    public void testDisjointSubtreesCommitConcurrently() throws InterruptedException {
+        final TestResource root = new TestResource(null, "root");
+        final TestResource a = root.addChild("profile", "a");
+        final TestResource b = root.addChild("profile", "b");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final AtomicBoolean rootExcluded = new AtomicBoolean();
+        final CyclicBarrier bothLocked = new CyclicBarrier(2, new Runnable() {
+            public void run() {
+                // both writers hold their locks at once, and together they exclude a change at the root
+                try (ModelLocks locks = system.getLockManager().newLocks()) {
+                    locks.lockExclusive(PathAddress.EMPTY_ADDRESS);
+                    rootExcluded.set(! locks.tryAcquire(0L, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<Thread> threads = new ArrayList<>();
+        for (final TestResource profile : new TestResource[] { a, b }) {
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    final ModelLocks locks = system.getLockManager().newLocks();
+                    locks.lockExclusive(address("/profile=" + profile.getName()));
+                    try (ModelCommit commit = ModelCommit.begin(system, locks)) {
+                        assertTrue(locks.isAcquired());
+                        profile.set("x", profile.getName());
+                        bothLocked.await(10L, TimeUnit.SECONDS);
+                        commit.commit();
+                        assertFalse(locks.isAcquired());
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.<Throwable>emptyList(), failures);
+        assertTrue(rootExcluded.get());
+        assertEquals("a", a.get("x"));
+        assertEquals("b", b.get("x"));
+    }
+
+    @Test
+    public void testWriteOutsideLocksIsRejected() throws InterruptedException {
+        final TestResource root = new TestResource(null, "root");
+        root.addChild("profile", "a");
+        final TestResource b = root.addChild("profile", "b");
+        final ManagedSystem system = new ManagedSystem(null, root);
+        final ModelLocks locks = system.getLockManager().newLocks();
+        locks.lockExclusive(address("/profile=a"));
+        try (ModelCommit commit = ModelCommit.begin(system, locks)) {
+            try {
+                b.set("x", "1");
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException expected) {
+            }
+        }
+        assertFalse(locks.isAcquired());
+        assertNull(b.get("x"));
+    }
+
+    @Test
+    public void testTimedFailureReleasesAcquiredStripes() throws InterruptedException {
+        final ModelLockManager manager = new ModelLockManager(16);
+        final ModelLocks holder = manager.newLocks();
+        holder.lockExclusive(address("/profile=a"));
+        holder.acquire();
+        final ModelLocks waiter = manager.newLocks();
+        // whichever of these stripes are taken before the wait fails must be released
+        waiter.lockShared(address("/profile=b"));
+        waiter.lockShared(address("/profile=c"));
+        waiter.lockShared(address("/profile=a"));
+        assertFalse(waiter.tryAcquire(10L, TimeUnit.MILLISECONDS));
+        assertFalse(waiter.isAcquired());
+        holder.close();
+        for (int i = 0; i < 16; i ++) {
+            final IntentionLock stripe = manager.getStripe(i);
+            assertTrue("Stripe " + i + " is still held", stripe.tryLock(IntentionLock.Mode.EXCLUSIVE));
+            stripe.unlock(IntentionLock.Mode.EXCLUSIVE);
+        }
+        // the set can be acquired once the conflict is gone
+        assertTrue(waiter.tryAcquire(0L, TimeUnit.MILLISECONDS));
+        waiter.close();
+    }
+
+    @Test
+    public void testMetrics() throws InterruptedException {
+        final ModelLockManager manager = new ModelLockManager(16);
+        final PathAddress address = address("/profile=a");
+        final Set<Integer> stripes = new HashSet<>();
+        stripes.add(Integer.valueOf(manager.getStripeIndex(address)));
+        stripes.add(Integer.valueOf(manager.getStripeIndex(PathAddress.EMPTY_ADDRESS)));
+        final ModelLocks holder = manager.newLocks();
+        holder.lockExclusive(address);
+        holder.acquire();
+        assertEquals(stripes.size(), manager.getAcquisitionCount());
+        assertEquals(0L, manager.getContendedAcquisitionCount());
+        assertEquals(0L, manager.getTotalWaitNanos());
+        final ModelLocks waiter = manager.newLocks();
+        waiter.lockExclusive(PathAddress.EMPTY_ADDRESS);
+        assertFalse(waiter.tryAcquire(20L, TimeUnit.MILLISECONDS));
+        assertEquals(stripes.size(), manager.getAcquisitionCount());
+        assertEquals(1L, manager.getContendedAcquisitionCount());
+        assertTrue(manager.getTotalWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(20L));
+        assertEquals(manager.getTotalWaitNanos(), manager.getMaxWaitNanos());
+        holder.close();
+        assertTrue(waiter.tryAcquire(0L, TimeUnit.MILLISECONDS));
+        assertEquals(stripes.size() + 1, manager.getAcquisitionCount());
+        waiter.close();
+    }
+}
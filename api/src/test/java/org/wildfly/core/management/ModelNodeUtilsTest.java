@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelNodeUtilsTest {
+
+    @Test
+    public void testChar() {
+        assertEquals('x', ModelNodeUtils.asChar(new ModelNode().set("x")));
+        assertEquals(Character.valueOf('y'), ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(Character.valueOf('y')), Character.class));
+        for (String invalid : new String[] { "", "xy" }) {
+            try {
+                ModelNodeUtils.asChar(new ModelNode().set(invalid));
+                fail("Expected '" + invalid + "' to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testScalars() {
+        assertFalse(ModelNodeUtils.toModelNode(null).isDefined());
+        assertNull(ModelNodeUtils.fromModelNode(new ModelNode(), String.class));
+        assertEquals(Integer.valueOf(5), ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(Integer.valueOf(5)), Integer.class));
+        assertEquals(Long.valueOf(6L), ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(Long.valueOf(6L)), Long.class));
+        assertEquals(Boolean.TRUE, ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(Boolean.TRUE), Boolean.class));
+        assertEquals(TimeUnit.SECONDS, ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(TimeUnit.SECONDS), TimeUnit.class));
+        assertEquals(Expression.compile("${a:b}"), ModelNodeUtils.fromModelNode(ModelNodeUtils.toModelNode(Expression.compile("${a:b}")), Expression.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollections() {
+        final List<?> list = ModelNodeUtils.asList(ModelNodeUtils.toModelNode(Arrays.asList("b", "a", "b")), String.class);
+        assertEquals(Arrays.asList("b", "a", "b"), list);
+
+        try {
+            ((List<Object>) list).add("c");
+            fail("Expected an unmodifiable list");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        final ModelNode setNode = ModelNodeUtils.toModelNode(new LinkedHashSet<>(Arrays.asList(3, 1, 2)));
+        assertEquals(Arrays.asList(3, 1, 2), Arrays.asList(ModelNodeUtils.asSet(setNode, Integer.class, false).toArray()));
+        final Set<?> sorted = ModelNodeUtils.asSet(setNode, Integer.class, true);
+        assertTrue(sorted instanceof NavigableSet);
+        assertEquals(Arrays.asList(1, 2, 3), Arrays.asList(sorted.toArray()));
+    }
+
+    @Test
+    public void testMaps() {
+        final Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("z", Integer.valueOf(1));
+        map.put("a", Integer.valueOf(2));
+        final ModelNode node = ModelNodeUtils.toModelNode(map);
+        assertEquals(map, ModelNodeUtils.asMap(node, String.class, Integer.class, false));
+        assertEquals(Arrays.asList("z", "a"), Arrays.asList(ModelNodeUtils.asMap(node, String.class, Integer.class, false).keySet().toArray()));
+        final Map<?, ?> sorted = ModelNodeUtils.asMap(node, String.class, Integer.class, true);
+        assertTrue(sorted instanceof NavigableMap);
+        assertEquals(Arrays.asList("a", "z"), Arrays.asList(sorted.keySet().toArray()));
+    }
+
+    @Test
+    public void testArrays() {
+        final ModelNode node = ModelNodeUtils.toModelNode(new int[] { 4, 5 });
+        assertTrue(Arrays.equals(new int[] { 4, 5 }, (int[]) ModelNodeUtils.asArray(node, int.class)));
+        assertArrayEquals(new String[] { "x", "y" }, (String[]) ModelNodeUtils.asArray(ModelNodeUtils.toModelNode(new String[] { "x", "y" }), String.class));
+        assertTrue(Arrays.equals(new char[] { 'p', 'q' }, (char[]) ModelNodeUtils.asArray(ModelNodeUtils.toModelNode(new char[] { 'p', 'q' }), char.class)));
+    }
+
+    @Test
+    public void testReferences() {
+        final ResourceLink<?> link = ModelNodeUtils.fromModelNode(new ModelNode().set("handler"), ResourceLink.class);
+        assertEquals("handler", link.getName());
+        assertEquals("handler", ModelNodeUtils.toModelNode(link).asString());
+        try {
+            link.get();
+            fail("Expected an unresolvable link");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testUnsupportedType() {
+        try {
+            ModelNodeUtils.toModelNode(new Object());
+            fail("Expected an unsupported type");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ModelNodeUtils.fromModelNode(new ModelNode().set("x"), Object.class);
+            fail("Expected an unsupported type");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
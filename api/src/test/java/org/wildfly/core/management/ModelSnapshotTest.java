@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelSnapshotTest {
+
+    private TestResource root;
+    private ManagedSystem system;
+    private TestResource otherRoot;
+    private ManagedSystem otherSystem;
+
+    @Before
+    public void setUp() {
+        root = new TestResource(null, "root");
+        system = new ManagedSystem(null, root);
+        otherRoot = new TestResource(null, "root");
+        otherSystem = new ManagedSystem(null, otherRoot);
+    }
+
+    private static String readInThread(final TestResource resource, final String attribute) throws InterruptedException {
+        final AtomicReference<String> result = new AtomicReference<>();
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                result.set(resource.get(attribute));
+            }
+        });
+        thread.start();
+        thread.join();
+        return result.get();
+    }
+
+    private static void writeInThread(final TestResource resource, final String attribute, final String value) throws InterruptedException {
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                resource.set(attribute, value);
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    public void testSnapshotIsolation() throws InterruptedException {
+        root.set("a", "1");
+        try (ModelSnapshot snapshot = ModelSnapshot.open(system)) {
+            writeInThread(root, "a", "2");
+            assertEquals("1", root.get("a"));
+            assertEquals(system.getVersions().getCommitted() - 1, snapshot.getVersion());
+        }
+        assertEquals("2", root.get("a"));
+        // with nothing open, reads skip the thread state entirely
+        assertFalse(ModelVersions.isScopeOpen());
+    }
+
+    @Test
+    public void testPinnedVersionSurvivesPruning() throws InterruptedException {
+        root.set("a", "0");
+        try (ModelSnapshot snapshot = ModelSnapshot.open(system)) {
+            for (int i = 1; i <= 10; i ++) {
+                writeInThread(root, "a", Integer.toString(i));
+            }
+            assertEquals("0", root.get("a"));
+        }
+        assertEquals("10", root.get("a"));
+    }
+
+    @Test
+    public void testSnapshotOnlyIsolatesItsOwnSystem() throws InterruptedException {
+        root.set("a", "1");
+        otherRoot.set("a", "1");
+        try (ModelSnapshot snapshot = ModelSnapshot.open(system)) {
+            writeInThread(root, "a", "2");
+            writeInThread(otherRoot, "a", "2");
+            assertEquals("1", root.get("a"));
+            assertEquals("2", otherRoot.get("a"));
+            try (ModelSnapshot nested = ModelSnapshot.open(otherSystem)) {
+                writeInThread(otherRoot, "a", "3");
+                assertEquals("1", root.get("a"));
+                assertEquals("2", otherRoot.get("a"));
+            }
+            assertEquals("3", otherRoot.get("a"));
+        }
+    }
+
+    @Test
+    public void testSystemsHaveIndependentClocks() {
+        final long before = otherSystem.getVersions().getCommitted();
+        root.set("a", "1");
+        root.set("a", "2");
+        assertEquals(before, otherSystem.getVersions().getCommitted());
+    }
+
+    @Test
+    public void testCommitIsInvisibleUntilPublished() throws InterruptedException {
+        root.set("a", "1");
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            root.set("a", "2");
+            assertEquals("2", root.get("a"));
+            assertEquals("1", readInThread(root, "a"));
+            commit.commit();
+        }
+        assertEquals("2", readInThread(root, "a"));
+    }
+
+    @Test
+    public void testDiscardedCommit() {
+        root.set("a", "1");
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            root.set("a", "2");
+        }
+        assertEquals("1", root.get("a"));
+    }
+
+    @Test
+    public void testCommitRejectsNodesOfAnotherSystem() {
+        try (ModelCommit commit = ModelCommit.begin(system)) {
+            try {
+                otherRoot.set("a", "1");
+                fail("Staged a node of another system");
+            } catch (IllegalStateException expected) {
+            }
+        }
+        assertNull(otherRoot.get("a"));
+    }
+
+    @Test
+    public void testChildNodesBelongToTheirRootSystem() {
+        final TestResource child = root.addChild("child", "one");
+        assertTrue(child.getVersions() == system.getVersions());
+        final TestResource detached = new TestResource(null, "detached");
+        assertTrue(detached.getVersions() == ModelVersions.DETACHED);
+    }
+
+    @Test
+    public void testUnrelatedCommitDoesNotConflict() throws ModelConflictException, InterruptedException {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            transaction.readSubtree(PathAddress.EMPTY_ADDRESS);
+            root.set("a", "1");
+            // a change to another system is stamped in that system only
+            writeInThread(otherRoot, "a", "1");
+            transaction.commit();
+        }
+        assertEquals("1", root.get("a"));
+        assertFalse(ModelVersions.isScopeOpen());
+    }
+
+    @Test(expected = ModelConflictException.class)
+    public void testUntrackedCommitConflicts() throws ModelConflictException, InterruptedException {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            transaction.read(PathAddress.pathAddress("child", "one"));
+            writeInThread(root, "a", "1");
+            transaction.commit();
+        }
+    }
+}
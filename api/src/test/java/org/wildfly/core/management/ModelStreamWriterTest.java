@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelStreamWriterTest {
+
+    private static String json(final Map<String, ?> children) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ModelStreamWriter writer = ModelStreamWriter.json(out);
+        writer.writeChildren(children);
+        writer.flush();
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private static LazyResourceMap<Node> map(final LazyResourceMapTest.Builder... builders) {
+        final Map<String, LazyResourceMapTest.Builder> map = new LinkedHashMap<>();
+        map.put("a", builders[0]);
+        map.put("b", builders[1]);
+        return new LazyResourceMap<>(new TestResource(null, "root"), "member", map, Collections.<String, ResourceBuilderFactory<Node, ?>>emptyMap());
+    }
+
+    @Test
+    public void testNullChildren() throws IOException {
+        assertEquals("null", json(null));
+        final Map<String, Object> children = new LinkedHashMap<>();
+        children.put("a", null);
+        children.put("b", "not a resource");
+        assertEquals("{\"a\" : null, \"b\" : null}", json(children));
+    }
+
+    @Test
+    public void testLazyMembersAreNotRetained() throws IOException {
+        final LazyResourceMapTest.Builder a = new LazyResourceMapTest.Builder("a");
+        final LazyResourceMapTest.Builder b = new LazyResourceMapTest.Builder("b");
+        final LazyResourceMap<Node> map = map(a, b);
+        final String json = json(map);
+        assertTrue(json, json.startsWith("{\"a\" : "));
+        assertTrue(json, json.contains(", \"b\" : "));
+        assertTrue(json, json.endsWith("}"));
+        // each member was constructed for the write alone
+        assertEquals(1, a.constructed);
+        assertEquals(1, b.constructed);
+        assertEquals(0, map.getMaterializedCount());
+        json(map);
+        assertEquals(2, a.constructed);
+    }
+
+    @Test
+    public void testConstructedMembersAreWrittenAsTheyAre() throws IOException, XMLStreamException {
+        final LazyResourceMapTest.Builder a = new LazyResourceMapTest.Builder("a");
+        final LazyResourceMapTest.Builder b = new LazyResourceMapTest.Builder("b");
+        final LazyResourceMap<Node> map = map(a, b);
+        final Node node = map.get("a");
+        assertEquals(1, map.evict(0L, TimeUnit.NANOSECONDS));
+        json(map);
+        assertEquals(1, a.constructed);
+        assertEquals(1, b.constructed);
+        // the evicted member is not made hot by the write
+        assertEquals(0, map.getMaterializedCount());
+        assertSame(node, map.get("a"));
+    }
+}
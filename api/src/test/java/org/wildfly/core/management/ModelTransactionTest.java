@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class ModelTransactionTest {
+
+    private TestResource root;
+    private TestResource one;
+    private TestResource two;
+    private ManagedSystem system;
+
+    @Before
+    public void setUp() {
+        root = new TestResource(null, "root");
+        one = root.addChild("child", "one");
+        two = root.addChild("child", "two");
+        one.addChild("grandchild", "a");
+        system = new ManagedSystem(null, root);
+    }
+
+    private static PathAddress address(final String address) {
+        return PathAddress.parseCLIStyleAddress(address);
+    }
+
+    private static void runInThread(final Runnable task) throws InterruptedException {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private void increment(final TestResource resource) throws ModelConflictException {
+        ModelTransaction.execute(system, new ModelTransaction.Work<Void>() {
+            public Void run(final ModelTransaction transaction) {
+                final String value = resource.get("count");
+                resource.set("count", Integer.toString(value == null ? 1 : Integer.parseInt(value) + 1));
+                return null;
+            }
+        }, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testLostUpdateIsRejected() throws ModelConflictException, InterruptedException {
+        one.set("count", "0");
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            final int count = Integer.parseInt(one.get("count"));
+            runInThread(new Runnable() {
+                public void run() {
+                    one.set("count", "10");
+                }
+            });
+            one.set("count", Integer.toString(count + 1));
+            transaction.commit();
+            fail("Expected a conflict with the concurrent write");
+        } catch (ModelConflictException expected) {
+        }
+        assertEquals("10", one.get("count"));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws InterruptedException {
+        final int threads = 4;
+        final int increments = 200;
+        final Thread[] workers = new Thread[threads];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threads; i ++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < increments; j ++) {
+                            increment(one);
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        assertEquals(Integer.toString(threads * increments), one.get("count"));
+    }
+
+    @Test
+    public void testWriteToNewChildConflictsWithParentWrite() throws InterruptedException {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            one.addChild("grandchild", "b");
+            runInThread(new Runnable() {
+                public void run() {
+                    root.removeChild("child", "one");
+                }
+            });
+            transaction.commit();
+            fail("Expected a conflict with the removal of the parent");
+        } catch (ModelConflictException expected) {
+        }
+        assertNull(system.getResource(address("/child=one")));
+    }
+
+    @Test
+    public void testDisjointWritesDoNotConflict() throws ModelConflictException, InterruptedException {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            one.set("x", "1");
+            runInThread(new Runnable() {
+                public void run() {
+                    two.set("x", "2");
+                }
+            });
+            transaction.commit();
+        }
+        assertEquals("1", one.get("x"));
+        assertEquals("2", two.get("x"));
+    }
+
+    @Test
+    public void testTransactionSeesItsOwnAddsAndRemovals() throws ModelConflictException, InterruptedException {
+        final AtomicReference<Resource> seen = new AtomicReference<>();
+        final Runnable lookup = new Runnable() {
+            public void run() {
+                seen.set(system.getResource(address("/child=three/grandchild=c")));
+            }
+        };
+        final TestResource grandchild;
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            final TestResource three = root.addChild("child", "three");
+            grandchild = three.addChild("grandchild", "c");
+            assertSame(three, system.getResource(address("/child=three")));
+            assertSame(grandchild, system.getResource(address("/child=three/grandchild=c")));
+
+            root.removeChild("child", "one");
+            assertNull(system.getResource(address("/child=one")));
+            assertNull(system.getResource(address("/child=one/grandchild=a")));
+
+            // other threads see none of it until the commit is published
+            runInThread(lookup);
+            assertNull(seen.get());
+            transaction.commit();
+        }
+        runInThread(lookup);
+        assertSame(grandchild, seen.get());
+        assertNull(system.getResource(address("/child=one/grandchild=a")));
+    }
+
+    @Test
+    public void testReplacedResourceHidesOldSubtree() throws ModelConflictException {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            root.removeChild("child", "one");
+            final TestResource replacement = root.addChild("child", "one");
+            assertSame(replacement, system.getResource(address("/child=one")));
+            assertNull(system.getResource(address("/child=one/grandchild=a")));
+            transaction.commit();
+        }
+        assertNull(system.getResource(address("/child=one/grandchild=a")));
+    }
+
+    @Test
+    public void testDiscardedRemovalLeavesIndex() {
+        try (ModelTransaction transaction = ModelTransaction.begin(system)) {
+            root.removeChild("child", "one");
+            assertNull(system.getResource(address("/child=one/grandchild=a")));
+        }
+        assertSame(one, system.getResource(address("/child=one")));
+        assertEquals("a", system.getResource(address("/child=one/grandchild=a")).getName());
+    }
+}
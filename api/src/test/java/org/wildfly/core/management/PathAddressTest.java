@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class PathAddressTest {
+
+    private static final PathAddress ADDRESS = PathAddress.pathAddress("subsystem", "logging").append("file-handler", "FILE").append("filter", "f");
+
+    @Test
+    public void testGetElement() {
+        assertEquals(3, ADDRESS.size());
+        assertEquals("subsystem", ADDRESS.getElement(0).getKey());
+        assertEquals("FILE", ADDRESS.getElement(1).getValue());
+        assertSame(ADDRESS.getLastElement(), ADDRESS.getElement(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetElementOutOfRange() {
+        ADDRESS.getElement(3);
+    }
+
+    @Test
+    public void testIterationOrder() {
+        final ListIterator<PathElement> iterator = ADDRESS.iterator();
+        assertFalse(iterator.hasPrevious());
+        assertSame(ADDRESS.getElement(0), iterator.next());
+        assertSame(ADDRESS.getElement(1), iterator.next());
+        assertSame(ADDRESS.getElement(2), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(3, iterator.nextIndex());
+        assertSame(ADDRESS.getElement(2), iterator.previous());
+        assertTrue(iterator.hasNext());
+    }
+
+    @Test
+    public void testIteratorIsReadOnly() {
+        final ListIterator<PathElement> iterator = ADDRESS.iterator();
+        iterator.next();
+        try {
+            iterator.remove();
+            fail("remove succeeded");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            iterator.set(PathElement.pathElement("a", "b"));
+            fail("set succeeded");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals(3, ADDRESS.size());
+        assertEquals("subsystem", ADDRESS.getElement(0).getKey());
+    }
+
+    @Test
+    public void testAppendSharesParent() {
+        final PathAddress child = ADDRESS.append("level", "x");
+        assertSame(ADDRESS, child.getParent());
+        assertEquals(ADDRESS, child.subAddress(0, 3));
+        assertEquals(PathAddress.pathAddress("file-handler", "FILE"), ADDRESS.subAddress(1, 2));
+        assertEquals(ADDRESS.append(child.subAddress(3)), child);
+    }
+
+    @Test
+    public void testEquality() {
+        final PathAddress other = PathAddress.parseCLIStyleAddress("/subsystem=logging/file-handler=FILE/filter=f");
+        assertEquals(ADDRESS, other);
+        assertEquals(ADDRESS.hashCode(), other.hashCode());
+        assertFalse(ADDRESS.equals(ADDRESS.getParent()));
+    }
+
+    @Test
+    public void testCLIStyleRoundTrip() {
+        final PathAddress address = PathAddress.pathAddress("path", "a/b=c").append("deployment", "[x,y]").append("server", "*");
+        final String string = address.toCLIStyleString();
+        assertEquals("/path=\"a/b=c\"/deployment=[x,y]/server=*", string);
+        final PathAddress parsed = PathAddress.parseCLIStyleAddress(string);
+        assertEquals(address, parsed);
+        assertTrue(parsed.getElement(1).isMultiTarget());
+        assertTrue(parsed.getElement(2).isWildcard());
+    }
+
+    @Test
+    public void testEmptyAddress() {
+        assertSame(PathAddress.EMPTY_ADDRESS, PathAddress.parseCLIStyleAddress("/"));
+        assertSame(PathAddress.EMPTY_ADDRESS, PathAddress.parseCLIStyleAddress(""));
+        assertFalse(PathAddress.EMPTY_ADDRESS.iterator().hasNext());
+        assertEquals("/", PathAddress.EMPTY_ADDRESS.toCLIStyleString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingSeparator() {
+        PathAddress.parseCLIStyleAddress("/subsystem");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnterminatedQuote() {
+        PathAddress.parseCLIStyleAddress("/subsystem=\"logging");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingValue() {
+        PathAddress.parseCLIStyleAddress("/a=");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingInnerValue() {
+        PathAddress.parseCLIStyleAddress("/a=/b=c");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseEmptyQuotedValue() {
+        PathAddress.parseCLIStyleAddress("/a=\"\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseTrailingSeparator() {
+        PathAddress.parseCLIStyleAddress("/a=b/");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseIncompleteEscape() {
+        PathAddress.parseCLIStyleAddress("/a=b\\");
+    }
+
+    @Test
+    public void testParseEscapes() {
+        final PathAddress address = PathAddress.parseCLIStyleAddress("/a=x\\/y/b=\"p=q\"r");
+        assertEquals("x/y", address.getElement(0).getValue());
+        assertEquals("p=qr", address.getElement(1).getValue());
+    }
+}
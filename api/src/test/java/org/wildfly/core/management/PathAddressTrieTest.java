@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class PathAddressTrieTest {
+
+    private static PathAddress address(final String address) {
+        return PathAddress.parseCLIStyleAddress(address);
+    }
+
+    private static PathAddress pattern(final String... keysAndValues) {
+        final PathElement[] elements = new PathElement[keysAndValues.length / 2];
+        for (int i = 0; i < elements.length; i ++) {
+            elements[i] = PathElement.pathElement(keysAndValues[i * 2], keysAndValues[i * 2 + 1]);
+        }
+        return PathAddress.pathAddress(elements);
+    }
+
+    private static List<String> matching(final PathAddressTrie<String> trie, final String address) {
+        return new ArrayList<>(trie.getMatching(address(address), new TreeSet<String>()));
+    }
+
+    @Test
+    public void testExactLookup() {
+        final PathAddressTrie<String> trie = new PathAddressTrie<>();
+        assertTrue(trie.insert(address("/profile=a"), "one"));
+        assertTrue(trie.insert(address("/profile=a"), "two"));
+        assertFalse(trie.insert(address("/profile=a"), "one"));
+        assertTrue(trie.insert(address("/profile=*"), "wild"));
+        assertEquals(Arrays.asList("one", "two"), trie.get(address("/profile=a"), new ArrayList<String>()));
+        assertEquals(Arrays.asList("wild"), trie.get(address("/profile=*"), new ArrayList<String>()));
+        // an exact lookup does not expand wildcards
+        assertEquals(Collections.<String>emptyList(), trie.get(address("/profile=b"), new ArrayList<String>()));
+        assertEquals(Collections.<String>emptyList(), trie.get(address("/profile=a/subsystem=x"), new ArrayList<String>()));
+        assertEquals(Collections.<String>emptyList(), trie.get(PathAddress.EMPTY_ADDRESS, new ArrayList<String>()));
+    }
+
+    @Test
+    public void testGetMatchingWildcards() {
+        final PathAddressTrie<String> trie = new PathAddressTrie<>();
+        trie.insert(address("/profile=a/subsystem=logging"), "exact");
+        trie.insert(address("/profile=*/subsystem=logging"), "any profile");
+        trie.insert(address("/profile=a/subsystem=*"), "any subsystem");
+        trie.insert(pattern("*", "*", "subsystem", "logging"), "any parent");
+        trie.insert(pattern("profile", "a", "*", "logging"), "any key");
+        trie.insert(address("/profile=a"), "shorter");
+        trie.insert(address("/profile=a/subsystem=logging/handler=x"), "longer");
+        assertEquals(Arrays.asList("any key", "any parent", "any profile", "any subsystem", "exact"), matching(trie, "/profile=a/subsystem=logging"));
+        assertEquals(Arrays.asList("any parent", "any profile"), matching(trie, "/profile=b/subsystem=logging"));
+        assertEquals(Arrays.asList("any subsystem"), matching(trie, "/profile=a/subsystem=io"));
+        assertEquals(Arrays.asList("any parent"), matching(trie, "/host=b/subsystem=logging"));
+        assertEquals(Arrays.asList("shorter"), matching(trie, "/profile=a"));
+        assertEquals(Collections.<String>emptyList(), matching(trie, "/host=b/subsystem=io"));
+    }
+
+    @Test
+    public void testGetMatchingMultiValue() {
+        final PathAddressTrie<String> trie = new PathAddressTrie<>();
+        trie.insert(pattern("profile", "[a,b]"), "a or b");
+        trie.insert(pattern("profile", "[b,c]", "subsystem", "*"), "b or c");
+        trie.insert(pattern("*", "[a,c]"), "any key, a or c");
+        assertEquals(Arrays.asList("a or b", "any key, a or c"), matching(trie, "/profile=a"));
+        assertEquals(Arrays.asList("a or b"), matching(trie, "/profile=b"));
+        assertEquals(Arrays.asList("any key, a or c"), matching(trie, "/host=c"));
+        assertEquals(Collections.<String>emptyList(), matching(trie, "/profile=d"));
+        assertEquals(Arrays.asList("b or c"), matching(trie, "/profile=c/subsystem=io"));
+        assertEquals(Collections.<String>emptyList(), matching(trie, "/profile=a/subsystem=io"));
+        // the multi-value edge is found again by an equal element
+        assertEquals(Arrays.asList("a or b"), trie.get(pattern("profile", "[a,b]"), new ArrayList<String>()));
+    }
+
+    @Test
+    public void testGetAllUnder() {
+        final PathAddressTrie<String> trie = new PathAddressTrie<>();
+        trie.insert(address("/profile=a"), "a");
+        trie.insert(address("/profile=a/subsystem=x"), "x");
+        trie.insert(pattern("profile", "a", "subsystem", "[y,z]"), "y or z");
+        trie.insert(address("/profile=*/subsystem=x"), "wild");
+        assertEquals(Arrays.asList("a", "x", "y or z"), new ArrayList<>(trie.getAllUnder(address("/profile=a"), new TreeSet<String>())));
+        assertEquals(Arrays.asList("wild"), new ArrayList<>(trie.getAllUnder(address("/profile=*"), new TreeSet<String>())));
+        assertEquals(Arrays.asList("a", "wild", "x", "y or z"), new ArrayList<>(trie.getAllUnder(PathAddress.EMPTY_ADDRESS, new TreeSet<String>())));
+    }
+
+    @Test
+    public void testRemovePrunesEmptyBranches() {
+        final PathAddressTrie<String> trie = new PathAddressTrie<>();
+        trie.insert(address("/profile=a"), "a");
+        trie.insert(address("/profile=a/subsystem=x/handler=h"), "h");
+        trie.insert(pattern("profile", "a", "subsystem", "[y,z]"), "y or z");
+        assertFalse(trie.remove(address("/profile=a/subsystem=x/handler=h"), "other"));
+        assertFalse(trie.remove(address("/profile=b"), "a"));
+        assertTrue(trie.remove(address("/profile=a/subsystem=x/handler=h"), "h"));
+        assertFalse(trie.remove(address("/profile=a/subsystem=x/handler=h"), "h"));
+        // the branch down to the removed value is gone, up to the node which still holds a value
+        assertNull(trie.find(address("/profile=a/subsystem=x/handler=h")));
+        assertNull(trie.find(address("/profile=a/subsystem=x")));
+        assertNotNull(trie.find(address("/profile=a")));
+        assertTrue(trie.remove(pattern("profile", "a", "subsystem", "[y,z]"), "y or z"));
+        assertNull(trie.find(pattern("profile", "a", "subsystem", "[y,z]")));
+        assertTrue(trie.remove(address("/profile=a"), "a"));
+        assertNull(trie.find(address("/profile=a")));
+        assertTrue(trie.find(PathAddress.EMPTY_ADDRESS).isEmpty());
+        assertEquals(Collections.<String>emptyList(), matching(trie, "/profile=a"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class PathElementTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyValue() {
+        PathElement.pathElement("subsystem", "");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullValue() {
+        PathElement.pathElement("subsystem", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKey() {
+        PathElement.pathElement("1subsystem", "logging");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyEndingWithDash() {
+        PathElement.pathElement("subsystem-", "logging");
+    }
+
+    @Test
+    public void testWildcard() {
+        final PathElement element = PathElement.pathElement("server");
+        assertTrue(element.isWildcard());
+        assertTrue(element.isMultiTarget());
+        assertSame(PathElement.WILDCARD_VALUE, element.getValue());
+    }
+
+    @Test
+    public void testBracketedValue() {
+        final PathElement single = PathElement.pathElement("deployment", "[a.war]");
+        assertEquals("a.war", single.getValue());
+        assertFalse(single.isMultiTarget());
+        final PathElement multi = PathElement.pathElement("deployment", "[a.war,b.war]");
+        assertEquals("a.war,b.war", multi.getValue());
+        assertTrue(multi.isMultiTarget());
+        assertEquals(2, multi.getSegments().length);
+    }
+
+    @Test
+    public void testCachedInstance() {
+        assertSame(PathElement.pathElement("subsystem", "logging"), PathElement.pathElement("subsystem", "logging"));
+        assertEquals(PathElement.pathElement("subsystem", "logging"), new PathElement("subsystem", "logging"));
+    }
+}
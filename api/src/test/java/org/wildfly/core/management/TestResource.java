@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.core.management.xml.XMLWriteException;
+import org.wildfly.core.management.xml.XMLWriteUtils;
+
+/**
+ * A hand-written mutable resource with string attributes and named child resources, for exercising the model
+ * machinery without generated classes.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class TestResource extends AbstractMutableResource<TestResource.Value> implements RootResource {
+
+    TestResource(final AbstractMutableNode<?> parent, final String name) {
+        super(parent, new Value(name, Collections.<String, String>emptyMap(), Collections.<String, Map<String, TestResource>>emptyMap()));
+    }
+
+    String get(final String attribute) {
+        return getCurrent().attributes.get(attribute);
+    }
+
+    void set(final String attribute, final String value) {
+        final Value current = getCurrent();
+        final Map<String, String> attributes = new LinkedHashMap<>(current.attributes);
+        if (value == null) {
+            attributes.remove(attribute);
+        } else {
+            attributes.put(attribute, value);
+        }
+        modify(new Value(current.name, attributes, current.children));
+    }
+
+    TestResource getChild(final String type, final String name) {
+        final Map<String, TestResource> children = getCurrent().children.get(type);
+        return children == null ? null : children.get(name);
+    }
+
+    TestResource addChild(final String type, final String name) {
+        final TestResource child = new TestResource(this, name);
+        final Value current = getCurrent();
+        final Map<String, Map<String, TestResource>> children = new LinkedHashMap<>(current.children);
+        final Map<String, TestResource> group = children.containsKey(type) ? new LinkedHashMap<>(children.get(type)) : new LinkedHashMap<String, TestResource>();
+        group.put(name, child);
+        children.put(type, group);
+        modify(new Value(current.name, current.attributes, children));
+        return child;
+    }
+
+    void removeChild(final String type, final String name) {
+        final Value current = getCurrent();
+        final Map<String, Map<String, TestResource>> children = new LinkedHashMap<>(current.children);
+        final Map<String, TestResource> group = new LinkedHashMap<>(children.get(type));
+        group.remove(name);
+        children.put(type, group);
+        modify(new Value(current.name, current.attributes, children));
+    }
+
+    /**
+     * Set the children of this resource while it is being constructed, before it is reachable by other threads.
+     *
+     * @param children the child resources, by type and name
+     */
+    void initializeChildren(final Map<String, Map<String, TestResource>> children) {
+        final Value current = getCurrent();
+        initialize(new Value(current.name, current.attributes, children));
+    }
+
+    Value getValue() {
+        return getCurrent();
+    }
+
+    protected Map<String, ? extends Map<String, ?>> getChildren() {
+        return getCurrent().children;
+    }
+
+    public ModelNode toModelNode() {
+        return getCurrent().toModelNode();
+    }
+
+    public Resource navigate(final PathElement pathElement) {
+        return getCurrent().navigate(pathElement);
+    }
+
+    public void toXml(final XMLStreamWriter writer) throws XMLWriteException {
+        final Value current = getCurrent();
+        try {
+            writer.writeStartElement("resource");
+            writer.writeAttribute("name", current.name);
+            for (Map.Entry<String, String> entry : current.attributes.entrySet()) {
+                writer.writeAttribute(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Map<String, TestResource>> group : current.children.entrySet()) {
+                for (TestResource child : group.getValue().values()) {
+                    XMLWriteUtils.writeChild(writer, child);
+                }
+            }
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new XMLWriteException(e);
+        }
+    }
+
+    static final class Value implements DiffableResource {
+        final String name;
+        final Map<String, String> attributes;
+        final Map<String, Map<String, TestResource>> children;
+
+        Value(final String name, final Map<String, String> attributes, final Map<String, Map<String, TestResource>> children) {
+            this.name = name;
+            this.attributes = attributes;
+            this.children = children;
+        }
+
+        String get(final String attribute) {
+            return attributes.get(attribute);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Node getParent() {
+            return null;
+        }
+
+        public ModelNode toModelNode() {
+            final ModelNode node = new ModelNode();
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                node.get(entry.getKey()).set(entry.getValue());
+            }
+            return node;
+        }
+
+        public void writeModel(final ModelStreamWriter writer, final boolean recursive) throws IOException {
+            writer.value(toModelNode());
+        }
+
+        public Resource navigate(final PathElement pathElement) {
+            final Map<String, TestResource> group = children.get(pathElement.getKey());
+            return group == null ? null : group.get(pathElement.getValue());
+        }
+
+        public boolean diffAttributes(final Resource updated, final Handler handler) {
+            if (! (updated instanceof Value)) {
+                return false;
+            }
+            final Value other = (Value) updated;
+            final Set<String> names = new TreeSet<>(attributes.keySet());
+            names.addAll(other.attributes.keySet());
+            for (String attribute : names) {
+                final String oldValue = attributes.get(attribute);
+                final String newValue = other.attributes.get(attribute);
+                if (oldValue == null) {
+                    handler.attributeChanged(AttributeChange.Kind.ADDED, attribute, null, newValue);
+                } else if (newValue == null) {
+                    handler.attributeChanged(AttributeChange.Kind.REMOVED, attribute, oldValue, null);
+                } else if (! oldValue.equals(newValue)) {
+                    handler.attributeChanged(AttributeChange.Kind.UPDATED, attribute, oldValue, newValue);
+                }
+            }
+            final Set<String> types = new TreeSet<>(children.keySet());
+            types.addAll(other.children.keySet());
+            for (String type : types) {
+                final Map<String, TestResource> before = children.get(type);
+                final Map<String, TestResource> after = other.children.get(type);
+                if (before != after) {
+                    handler.childrenChanged(type, before == null ? Collections.<String, TestResource>emptyMap() : before, after == null ? Collections.<String, TestResource>emptyMap() : after);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class MappedXMLImageTest {
+
+    private static final String DOCUMENT =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<!-- before the root -->\n" +
+        "<?before-root data?>\n" +
+        "<server xmlns=\"urn:test:1.0\" xmlns:x=\"urn:extra\" name=\"main\" x:flag=\"true\">\n" +
+        "    <!-- inside -->\n" +
+        "    <interfaces>\n" +
+        "        <interface name=\"public\" address=\"127.0.0.1\"/>\n" +
+        "        <x:interface name=\"private\"/>\n" +
+        "    </interfaces>\n" +
+        "    <?inside-root data?>\n" +
+        "    <description>some <![CDATA[<literal>]]> text</description>\n" +
+        "    <empty></empty>\n" +
+        "</server>\n" +
+        "<!-- after the root -->\n";
+
+    private File directory;
+    private File source;
+    private File image;
+
+    @Before
+    public void createDocument() throws IOException {
+        directory = Files.createTempDirectory("image").toFile();
+        source = new File(directory, "server.xml");
+        image = new File(directory, "server.image");
+        Files.write(source.toPath(), DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void deleteDirectory() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static String namespace(final String namespace) {
+        return namespace == null ? XMLConstants.NULL_NS_URI : namespace;
+    }
+
+    /**
+     * Describe the events of a reader which an image keeps: elements with their attributes, comments and
+     * non-whitespace text within the root element.
+     */
+    private static List<String> events(final XMLStreamReader reader) throws XMLStreamException {
+        final List<String> events = new ArrayList<>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    depth ++;
+                    final StringBuilder b = new StringBuilder("start {").append(namespace(reader.getNamespaceURI())).append('}').append(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i ++) {
+                        b.append(" {").append(namespace(reader.getAttributeNamespace(i))).append('}').append(reader.getAttributeLocalName(i)).append('=').append(reader.getAttributeValue(i));
+                    }
+                    events.add(b.toString());
+                    break;
+                }
+                case XMLStreamConstants.END_ELEMENT: {
+                    depth --;
+                    events.add("end {" + namespace(reader.getNamespaceURI()) + "}" + reader.getLocalName());
+                    break;
+                }
+                case XMLStreamConstants.COMMENT: {
+                    if (depth > 0) {
+                        events.add("comment " + reader.getText());
+                    }
+                    break;
+                }
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA: {
+                    if (depth > 0 && ! reader.isWhiteSpace()) {
+                        events.add("text " + reader.getText());
+                    }
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    private List<String> staxEvents() throws IOException, XMLStreamException {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        try (InputStream in = Files.newInputStream(source.toPath())) {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                return events(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    @Test
+    public void testReaderMatchesStax() throws IOException, XMLStreamException {
+        final List<String> expected = staxEvents();
+        assertTrue(expected.contains("text some <literal> text"));
+        assertEquals(expected, events(MappedXMLImage.write(source, image).createReader()));
+        // a reopened image reads the same
+        assertEquals(expected, events(MappedXMLImage.open(image, source).createReader()));
+    }
+
+    @Test
+    public void testContentOutsideRootIsOmitted() throws IOException, XMLStreamException {
+        final XMLStreamReader reader = MappedXMLImage.write(source, image).createReader();
+        assertEquals(XMLStreamConstants.START_DOCUMENT, reader.getEventType());
+        // the leading comment and processing instruction are skipped
+        assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+        assertEquals("server", reader.getLocalName());
+        int last = reader.getEventType();
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            assertFalse(event == XMLStreamConstants.PROCESSING_INSTRUCTION);
+            if (event == XMLStreamConstants.END_DOCUMENT) {
+                // the trailing comment is skipped as well
+                assertEquals(XMLStreamConstants.END_ELEMENT, last);
+            }
+            last = event;
+        }
+        assertEquals(XMLStreamConstants.END_DOCUMENT, last);
+    }
+
+    @Test
+    public void testNamespaceDeclarationsAndPrefixesAreOmitted() throws IOException, XMLStreamException {
+        final XMLStreamReader reader = MappedXMLImage.write(source, image).createReader();
+        reader.nextTag();
+        assertEquals("urn:test:1.0", reader.getNamespaceURI());
+        assertEquals(0, reader.getNamespaceCount());
+        assertEquals(XMLConstants.DEFAULT_NS_PREFIX, reader.getPrefix());
+        assertEquals("urn:test:1.0", reader.getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX));
+        assertNull(reader.getNamespaceURI("x"));
+        assertFalse(reader.getNamespaceContext().getPrefixes("urn:extra").hasNext());
+        // the attribute keeps its namespace, but not its prefix
+        assertEquals("true", reader.getAttributeValue("urn:extra", "flag"));
+        assertEquals(XMLConstants.DEFAULT_NS_PREFIX, reader.getAttributePrefix(1));
+    }
+
+    @Test
+    public void testElementText() throws IOException, XMLStreamException {
+        final XMLStreamReader reader = MappedXMLImage.write(source, image).createReader();
+        reader.nextTag();
+        reader.nextTag();
+        assertEquals("interfaces", reader.getLocalName());
+        reader.nextTag();
+        assertEquals("127.0.0.1", reader.getAttributeValue(null, "address"));
+        assertEquals("", reader.getElementText());
+        reader.nextTag();
+        assertEquals("urn:extra", reader.getNamespaceURI());
+        assertEquals("", reader.getElementText());
+        reader.nextTag();
+        reader.nextTag();
+        assertEquals("description", reader.getLocalName());
+        assertEquals("some <literal> text", reader.getElementText());
+    }
+
+    @Test
+    public void testOpenRejectsStaleImage() throws IOException, XMLStreamException {
+        MappedXMLImage.write(source, image);
+        assertNotNull(MappedXMLImage.open(image, source, "urn:test:1.0"));
+        assertNull(MappedXMLImage.open(image, source, "urn:test:2.0"));
+        Files.write(source.toPath(), DOCUMENT.replace("main", "next").getBytes(StandardCharsets.UTF_8));
+        assertNull(MappedXMLImage.open(image, source));
+    }
+}
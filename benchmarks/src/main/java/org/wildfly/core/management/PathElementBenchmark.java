@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the interned {@link PathElement#pathElement(String, String)} factory with the construction it replaced,
+ * which validated every key with a regular expression and built a new instance each time.  This benchmark lives in
+ * the API package so that it can reach the package-private constructor.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PathElementBenchmark {
+
+    private static final int ELEMENTS = 8;
+
+    /**
+     * The key pattern which the constructor used before keys were validated by hand.
+     */
+    private static final Pattern VALID_KEY_PATTERN = Pattern.compile("\\*|[_a-zA-Z](?:[-_a-zA-Z0-9]*[_a-zA-Z0-9])?");
+
+    private final String[] keys = new String[ELEMENTS];
+    private final String[] values = new String[ELEMENTS];
+    private final PathElement[] interned = new PathElement[ELEMENTS];
+    private final PathElement[] constructed = new PathElement[ELEMENTS];
+
+    @Setup
+    public void setup() {
+        final String[][] pairs = {
+            { "subsystem", "logging" },
+            { "profile", "full-ha" },
+            { "subsystem", "datasources" },
+            { "data-source", "ExampleDS" },
+            { "socket-binding-group", "standard-sockets" },
+            { "server-group", "main-server-group" },
+            { "interface", "public" },
+            { "host", "master" },
+        };
+        for (int i = 0; i < ELEMENTS; i ++) {
+            // copy the strings, as a request decoded off the wire would not share the literals
+            keys[i] = new String(pairs[i][0]);
+            values[i] = new String(pairs[i][1]);
+            interned[i] = PathElement.pathElement(pairs[i][0], pairs[i][1]);
+            constructed[i] = new PathElement(pairs[i][0], pairs[i][1]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void internedElement(final Blackhole blackhole) {
+        for (int i = 0; i < ELEMENTS; i ++) {
+            blackhole.consume(PathElement.pathElement(keys[i], values[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void regexElement(final Blackhole blackhole) {
+        for (int i = 0; i < ELEMENTS; i ++) {
+            if (! VALID_KEY_PATTERN.matcher(keys[i]).matches()) {
+                throw new IllegalArgumentException(keys[i]);
+            }
+            blackhole.consume(new PathElement(keys[i], values[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void internedEquals(final Blackhole blackhole) {
+        for (int i = 0; i < ELEMENTS; i ++) {
+            blackhole.consume(interned[i].equals(PathElement.pathElement(keys[i], values[i])));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void constructedEquals(final Blackhole blackhole) {
+        for (int i = 0; i < ELEMENTS; i ++) {
+            blackhole.consume(constructed[i].equals(new PathElement(keys[i], values[i])));
+        }
+    }
+}
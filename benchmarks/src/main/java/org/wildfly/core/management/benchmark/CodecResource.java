@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import org.wildfly.core.management.Node;
+import org.wildfly.core.management.annotation.Attribute;
+import org.wildfly.core.management.annotation.AttributeGroup;
+import org.wildfly.core.management.annotation.RootResource;
+
+/**
+ * A resource with an attribute of each kind which the generated codecs convert, read and written by
+ * {@link DmrCodecBenchmark}.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+@Benchmark_1_0
+@RootResource(name = "codec", type = "benchmark")
+public interface CodecResource extends Node {
+    @Attribute
+    String getDescription();
+
+    @Attribute
+    int getCount();
+
+    @Attribute
+    long getTimeout();
+
+    @Attribute
+    boolean isEnabled();
+
+    @Attribute
+    Map<String, String> getProperties();
+
+    @Attribute
+    List<String> getTags();
+
+    @Attribute
+    SortedSet<String> getAliases();
+
+    @Attribute
+    int[] getPorts();
+
+    @AttributeGroup
+    CodecLimits getLimits();
+}
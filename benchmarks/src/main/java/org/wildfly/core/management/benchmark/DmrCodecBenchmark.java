@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.core.management.Resource;
+
+/**
+ * Compares the generated DMR codecs of {@link CodecResource} with a {@linkplain ReflectiveCodec reflective}
+ * baseline, in both directions.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DmrCodecBenchmark {
+
+    private final CodecResourceBuilderFactory factory = new CodecResourceBuilderFactory();
+    private final ReflectiveCodec reflective = new ReflectiveCodec(CodecResource.class, CodecResourceBuilder.class);
+    private ModelNode model;
+    private Resource resource;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        model = new ModelNode();
+        model.get("description").set("A resource with one attribute of each kind");
+        model.get("count").set(42);
+        model.get("timeout").set(30000L);
+        model.get("enabled").set(true);
+        for (int i = 0; i < 8; i ++) {
+            model.get("properties", "property-" + i).set("value-" + i);
+            model.get("tags").add("tag-" + i);
+            model.get("aliases").add("alias-" + i);
+            model.get("ports").add(8080 + i);
+        }
+        model.get("limits", "max-size").set(1024);
+        model.get("limits", "unit").set("KB");
+        final CodecResourceBuilder builder = factory.createNew();
+        builder.setName("codec");
+        builder.fillFromModelNode(model);
+        resource = (Resource) builder.construct(null);
+        // both codecs must do the same work for the comparison to mean anything
+        if (! reflective.toModelNode(resource).equals(resource.toModelNode())) {
+            throw new IllegalStateException("The reflective codec does not match the generated codec");
+        }
+        final CodecResourceBuilder reflectiveBuilder = factory.createNew();
+        reflectiveBuilder.setName("codec");
+        reflective.fillFromModelNode(reflectiveBuilder, model);
+        if (! ((Resource) reflectiveBuilder.construct(null)).toModelNode().equals(resource.toModelNode())) {
+            throw new IllegalStateException("The reflective codec does not match the generated codec");
+        }
+    }
+
+    @Benchmark
+    public ModelNode generatedToModelNode() {
+        return resource.toModelNode();
+    }
+
+    @Benchmark
+    public ModelNode reflectiveToModelNode() throws ReflectiveOperationException {
+        return reflective.toModelNode(resource);
+    }
+
+    @Benchmark
+    public CodecResourceBuilder generatedFillFromModelNode() {
+        final CodecResourceBuilder builder = factory.createNew();
+        builder.fillFromModelNode(model);
+        return builder;
+    }
+
+    @Benchmark
+    public CodecResourceBuilder reflectiveFillFromModelNode() throws ReflectiveOperationException {
+        final CodecResourceBuilder builder = factory.createNew();
+        reflective.fillFromModelNode(builder, model);
+        return builder;
+    }
+}
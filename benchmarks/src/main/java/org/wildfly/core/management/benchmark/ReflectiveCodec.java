@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.core.management.benchmark;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.core.management.ModelNodeUtils;
+
+/**
+ * A codec which converts resources by walking their properties reflectively; the baseline against which the
+ * generated codecs are measured.  Values are read through the getters of the resource interface and written
+ * through the setters of its builder, and each value is converted by its declared type with
+ * {@link ModelNodeUtils}.  An attribute group is an interface which is neither a map nor a collection, and is
+ * walked in turn.  The methods are looked up once, so a conversion pays for invocation and generic conversion
+ * but not for lookup.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ReflectiveCodec {
+
+    private final String[] names;
+    private final Method[] getters;
+    private final Method[] setters;
+    private final Class<?>[] types;
+    private final Class<?>[][] typeArguments;
+    private final ReflectiveCodec[] groups;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param type the resource or attribute group interface
+     * @param builderType the builder class of the interface
+     */
+    ReflectiveCodec(final Class<?> type, final Class<?> builderType) {
+        final List<Method> getters = new ArrayList<>();
+        final List<Method> setters = new ArrayList<>();
+        for (Method getter : type.getDeclaredMethods()) {
+            final String getterName = getter.getName();
+            final String property = getterName.startsWith("is") ? getterName.substring(2) : getterName.substring(3);
+            for (Method setter : builderType.getMethods()) {
+                if (setter.getName().equals("set" + property) && setter.getParameterTypes().length == 1) {
+                    getters.add(getter);
+                    setters.add(setter);
+                    break;
+                }
+            }
+        }
+        final int size = getters.size();
+        this.names = new String[size];
+        this.getters = getters.toArray(new Method[size]);
+        this.setters = setters.toArray(new Method[size]);
+        this.types = new Class<?>[size];
+        this.typeArguments = new Class<?>[size][];
+        this.groups = new ReflectiveCodec[size];
+        for (int i = 0; i < size; i ++) {
+            final String getterName = this.getters[i].getName();
+            names[i] = dmrName(getterName.startsWith("is") ? getterName.substring(2) : getterName.substring(3));
+            final Class<?> valueType = this.setters[i].getParameterTypes()[0];
+            types[i] = valueType.isPrimitive() ? Array.get(Array.newInstance(valueType, 1), 0).getClass() : valueType;
+            final Type genericType = this.setters[i].getGenericParameterTypes()[0];
+            if (genericType instanceof ParameterizedType) {
+                final Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+                typeArguments[i] = new Class<?>[arguments.length];
+                for (int j = 0; j < arguments.length; j ++) {
+                    typeArguments[i][j] = (Class<?>) arguments[j];
+                }
+            }
+            final Class<?> returnType = this.getters[i].getReturnType();
+            if (returnType.isInterface() && ! Map.class.isAssignableFrom(returnType) && ! Collection.class.isAssignableFrom(returnType)) {
+                groups[i] = new ReflectiveCodec(returnType, valueType);
+            }
+        }
+    }
+
+    /**
+     * Convert a resource or attribute group to a model node.
+     *
+     * @param value the resource or attribute group
+     * @return the model node
+     * @throws ReflectiveOperationException if a getter could not be invoked
+     */
+    ModelNode toModelNode(final Object value) throws ReflectiveOperationException {
+        final ModelNode model = new ModelNode().setEmptyObject();
+        for (int i = 0; i < names.length; i ++) {
+            final Object attribute = getters[i].invoke(value);
+            model.get(names[i]).set(groups[i] != null && attribute != null ? groups[i].toModelNode(attribute) : ModelNodeUtils.toModelNode(attribute));
+        }
+        return model;
+    }
+
+    /**
+     * Fill a resource or attribute group builder from a model node.
+     *
+     * @param builder the builder
+     * @param model the model node
+     * @throws ReflectiveOperationException if a setter could not be invoked, or a group builder constructed
+     */
+    void fillFromModelNode(final Object builder, final ModelNode model) throws ReflectiveOperationException {
+        for (int i = 0; i < names.length; i ++) {
+            if (model.hasDefined(names[i])) {
+                setters[i].invoke(builder, fromModelNode(i, model.get(names[i])));
+            }
+        }
+    }
+
+    private Object fromModelNode(final int i, final ModelNode node) throws ReflectiveOperationException {
+        final Class<?> type = types[i];
+        if (groups[i] != null) {
+            final Object builder = type.newInstance();
+            groups[i].fillFromModelNode(builder, node);
+            return builder;
+        } else if (type.isArray()) {
+            return ModelNodeUtils.asArray(node, type.getComponentType());
+        } else if (Map.class.isAssignableFrom(type)) {
+            return ModelNodeUtils.asMap(node, typeArguments[i][0], typeArguments[i][1], SortedMap.class.isAssignableFrom(type));
+        } else if (Set.class.isAssignableFrom(type)) {
+            return ModelNodeUtils.asSet(node, typeArguments[i][0], SortedSet.class.isAssignableFrom(type));
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return ModelNodeUtils.asList(node, typeArguments[i][0]);
+        } else {
+            return ModelNodeUtils.fromModelNode(node, type);
+        }
+    }
+
+    /**
+     * Get the model name of a property, which is its name in lower case with its words separated by {@code -}.
+     *
+     * @param property the property name
+     * @return the model name
+     */
+    private static String dmrName(final String property) {
+        final StringBuilder b = new StringBuilder(property.length() + 4);
+        for (int i = 0; i < property.length(); i ++) {
+            final char c = property.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    b.append('-');
+                }
+                b.append(Character.toLowerCase(c));
+            } else {
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+}
@@ -20,21 +20,36 @@
  * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
  */
 
+
 package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JType;
 
 import javax.lang.model.type.TypeMirror;
 
 /**
+ * An array attribute, held as the array itself.  Its model value is a list; see
+ * {@link org.wildfly.core.management.ModelNodeUtils}.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class ArrayAttributeValueInfo extends AttributeValueInfo {
 
+    private final TypeMirror valueType;
+    private final boolean required;
+
     ArrayAttributeValueInfo(final String name, final String singular, final TypeMirror valueType, final boolean required) {
         super(name);
+        this.valueType = valueType;
+        this.required = required;
+    }
+
+    private JType getType(final JDeparser deparser) {
+        return JDeparserUtils.refFor(deparser, valueType).array();
     }
 
     public boolean isValidInAttributeType() {
@@ -48,14 +63,33 @@ final class ArrayAttributeValueInfo extends AttributeValueInfo {
     }
 
     public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        addObjectToResourceClass(resourceClass, constructor, getType(resourceClass.owner()));
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
+        addObjectToBuilderClass(builderClass, getType(builderClass.owner()));
     }
 
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
+        addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, getType(resolvedInterface.owner()), "get" + getName());
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JDeparser deparser = codec.getDeparser();
+        addObjectToDmrCodec(attributeInfo, codec, getType(deparser), codec.fromModelNode("asArray").arg(codec.getModelValue(attributeInfo)).arg(JDeparserUtils.classFor(deparser, valueType)));
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(getName()), "get" + getName());
     }
 }
@@ -22,16 +22,32 @@
 
 package org.wildfly.core.management.processor;
 
+import java.util.ArrayList;
+import java.util.List;
 import nu.xom.Attribute;
 import nu.xom.Element;
+import org.jboss.dmr.ModelNode;
+import org.jboss.jdeparser.JClass;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JInvocation;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JVar;
 
 import javax.lang.model.element.TypeElement;
 
+import static org.jboss.jdeparser.ClassType.CLASS;
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.jboss.jdeparser.JMod.STATIC;
 import static org.wildfly.core.management.processor.SchemaInfo.XS;
 
 /**
+ * An attribute group: an interface whose attributes are held together as one attribute of a resource.  The value of
+ * the attribute is an immutable {@code <Group>Impl}, which is built by a {@code <Group>Builder}, and which is
+ * modelled as an object of its attributes.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class AttributeGroupInfo implements ResourceMember {
@@ -56,6 +72,86 @@ final class AttributeGroupInfo implements ResourceMember {
         return members;
     }
 
+    /**
+     * Get the implementation class of this group, generating it and the builder class if needed.
+     *
+     * @param deparser the deparser
+     * @return the implementation class
+     */
+    public JDefinedClass getImplClass(final JDeparser deparser) {
+        final JDefinedClass implClass = deparser._getClass(typeElement.getQualifiedName().toString() + "Impl");
+        return implClass == null ? generateClasses(deparser) : implClass;
+    }
+
+    /**
+     * Get the builder class of this group, generating it and the implementation class if needed.
+     *
+     * @param deparser the deparser
+     * @return the builder class
+     */
+    public JDefinedClass getBuilderClass(final JDeparser deparser) {
+        getImplClass(deparser);
+        return deparser._getClass(typeElement.getQualifiedName().toString() + "Builder");
+    }
+
+    private JDefinedClass generateClasses(final JDeparser deparser) {
+        final String groupName = typeElement.getQualifiedName().toString();
+        final JClass modelNodeClass = deparser.ref(ModelNode.class);
+
+        final JDefinedClass implClass = JDeparserUtils.defineClass(deparser, PUBLIC | FINAL, groupName + "Impl", CLASS);
+        implClass._implements(deparser.ref(groupName));
+        final JMethod constructor = implClass.constructor(0);
+
+        final JDefinedClass builderClass = JDeparserUtils.defineClass(deparser, PUBLIC | FINAL, groupName + "Builder", CLASS);
+        builderClass.constructor(PUBLIC);
+
+        // only the attributes of the group are part of its value; other members appear in its schema alone
+        final List<AttributeInfo> attributes = new ArrayList<AttributeInfo>();
+        for (ResourceMember member : members) {
+            if (member instanceof AttributeInfo) {
+                attributes.add((AttributeInfo) member);
+            }
+        }
+
+        final PackedBits bits = new PackedBits();
+        for (AttributeInfo member : attributes) {
+            member.addToPackedBits(bits);
+        }
+        bits.addToResourceClass(implClass, constructor);
+        bits.addToBuilderClass(builderClass);
+
+        final DmrCodecGenerator codec = new DmrCodecGenerator(deparser, implClass, builderClass);
+        for (AttributeInfo member : attributes) {
+            member.getValueInfo().addToResourceClass(implClass, constructor);
+            member.addToBuilderClass(builderClass);
+            member.addToDmrCodec(codec);
+        }
+        codec.finish();
+
+        // groups are values, so they are equal if their models are
+        final JMethod equals = implClass.method(PUBLIC, deparser.BOOLEAN, "equals");
+        final JVar other = equals.param(FINAL, Object.class, "other");
+        equals.body()._return(other._instanceof(implClass).cand(JExpr.invoke("toModelNode").invoke("equals").arg(JExpr.invoke(JExpr.cast(implClass, other), "toModelNode"))));
+        implClass.method(PUBLIC, deparser.INT, "hashCode").body()._return(JExpr.invoke("toModelNode").invoke("hashCode"));
+
+        // the builder holds each member under the name of its constructor parameter
+        final JMethod build = builderClass.method(PUBLIC | FINAL, implClass, "build");
+        final JInvocation newImpl = JExpr._new(implClass);
+        final List<JVar> params = constructor.params();
+        for (JVar param : params) {
+            newImpl.arg(JExpr._this().ref(param.name()));
+        }
+        build.body()._return(newImpl);
+
+        final JMethod fromModelNode = builderClass.method(PUBLIC | STATIC, builderClass, "fromModelNode");
+        final JVar modelNode = fromModelNode.param(FINAL, modelNodeClass, "modelNode");
+        final JVar builder = fromModelNode.body().decl(FINAL, builderClass, "builder", JExpr._new(builderClass));
+        fromModelNode.body().add(builder.invoke("fillFromModelNode").arg(modelNode));
+        fromModelNode.body()._return(builder);
+
+        return implClass;
+    }
+
     public void addToSchema(final SchemaGeneratorContext ctxt, final Element typeElement, final Element seqElement) {
         final Element elementElement = new Element("xs:element", SchemaInfo.XS);
         elementElement.addAttribute(new Attribute("name", xmlName));
@@ -74,7 +170,10 @@ final class AttributeGroupInfo implements ResourceMember {
         groupTypeElement.appendChild(subSeqElement);
     }
 
-    public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+    public void addToPackedBits(final PackedBits bits) {
+    }
+
+    public void addToResourceClass(final GeneratorContext ctxt, final SchemaInfo schema, final JDefinedClass resourceClass, final JMethod constructor) {
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
@@ -85,4 +184,16 @@ final class AttributeGroupInfo implements ResourceMember {
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
     }
+
+    public void addToXmlParser(final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final DmrCodecGenerator codec) {
+    }
+
+    public void addToDiff(final DiffGenerator diff) {
+    }
 }
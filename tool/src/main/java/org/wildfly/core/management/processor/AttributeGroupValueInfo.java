@@ -24,15 +24,42 @@ package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JFieldVar;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JOp;
+import org.jboss.jdeparser.JVar;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.PUBLIC;
 
 /**
+ * An attribute whose value is an {@linkplain AttributeGroupInfo attribute group}.  The resource holds the built
+ * group, while its builder and constructor take the group builder, so that the group is built along with the
+ * resource.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class AttributeGroupValueInfo extends AttributeValueInfo {
 
+    private final AttributeGroupInfo attributeGroupInfo;
+    private final boolean required;
+
     public AttributeGroupValueInfo(final String name, final AttributeGroupInfo attributeGroupInfo, final boolean required) {
         super(name);
+        this.attributeGroupInfo = attributeGroupInfo;
+        this.required = required;
+    }
+
+    public AttributeGroupInfo getAttributeGroupInfo() {
+        return attributeGroupInfo;
+    }
+
+    public boolean isRequired() {
+        return required;
     }
 
     public boolean isValidInAttributeType() {
@@ -46,14 +73,42 @@ final class AttributeGroupValueInfo extends AttributeValueInfo {
     }
 
     public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        final JDeparser deparser = resourceClass.owner();
+        final JDefinedClass implClass = attributeGroupInfo.getImplClass(deparser);
+        final String fieldName = NameUtils.fieldify(getName());
+        final JFieldVar field = resourceClass.field(PRIVATE | FINAL, implClass, fieldName);
+        final JVar constructorParam = constructor.param(FINAL, attributeGroupInfo.getBuilderClass(deparser), fieldName);
+        constructor.body().assign(JExpr._this().ref(field), JOp.cond(constructorParam.eq(JExpr._null()), JExpr._null(), constructorParam.invoke("build")));
+
+        final JMethod getter = resourceClass.method(PUBLIC, deparser.ref(attributeGroupInfo.getTypeElement().getQualifiedName().toString()), "get" + getName());
+        getter.body()._return(field);
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
+        addObjectToBuilderClass(builderClass, attributeGroupInfo.getBuilderClass(builderClass.owner()));
     }
 
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
+        addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, resolvedInterface.owner().ref(attributeGroupInfo.getTypeElement().getQualifiedName().toString()), "get" + getName());
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JExpression field = JExpr._this().ref(NameUtils.fieldify(getName()));
+        codec.addObjectAttribute(attributeInfo, field, field.invoke("toModelNode"));
+        codec.addFill(attributeInfo, "set" + getName(), attributeGroupInfo.getBuilderClass(codec.getDeparser()).staticInvoke("fromModelNode").arg(codec.getModelValue(attributeInfo)));
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(getName()), "get" + getName());
     }
 }
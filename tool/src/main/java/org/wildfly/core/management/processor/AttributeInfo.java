@@ -112,7 +112,16 @@ final class AttributeInfo implements ResourceMember {
         return renderAs;
     }
 
+    public String getDmrName() {
+        return NameUtils.xmlify(name);
+    }
+
     public void addToSchema(final SchemaGeneratorContext ctxt, final Element enclosingTypeElement, final Element enclosingSeqElement) {
+        if (valueInfo instanceof AttributeGroupValueInfo) {
+            // a group is rendered as an element of its own complex type
+            ((AttributeGroupValueInfo) valueInfo).getAttributeGroupInfo().addToSchema(ctxt, enclosingTypeElement, enclosingSeqElement);
+            return;
+        }
         if (renderAs == XmlRender.As.ATTRIBUTE) {
             final Element attributeElement = new Element("xs:attribute", SchemaInfo.XS);
             attributeElement.addAttribute(new Attribute("name", xmlName));
@@ -127,7 +136,11 @@ final class AttributeInfo implements ResourceMember {
         }
     }
 
-    public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+    public void addToPackedBits(final PackedBits bits) {
+        valueInfo.addToPackedBits(bits);
+    }
+
+    public void addToResourceClass(final GeneratorContext ctxt, final SchemaInfo schema, final JDefinedClass resourceClass, final JMethod constructor) {
         valueInfo.addToResourceClass(resourceClass, constructor);
     }
 
@@ -143,6 +156,22 @@ final class AttributeInfo implements ResourceMember {
         valueInfo.addToResolvedInterface(resolvedInterface);
     }
 
+    public void addToXmlParser(final XmlParserGenerator parser) {
+        valueInfo.addToXmlParser(this, parser);
+    }
+
+    public void addToXmlWriter(final XmlWriterGenerator writer) {
+        valueInfo.addToXmlWriter(this, writer);
+    }
+
+    public void addToDmrCodec(final DmrCodecGenerator codec) {
+        valueInfo.addToDmrCodec(this, codec);
+    }
+
+    public void addToDiff(final DiffGenerator diff) {
+        valueInfo.addToDiff(this, diff);
+    }
+
     public void addToClass() {
 //        final SchemaGeneratorContext schemaGeneratorContext = resourceGeneratorContext.getContext();
 //        final GeneratorContext generatorContext = schemaGeneratorContext.getContext();
@@ -53,6 +53,12 @@ final class AttributeTypeValueInfo extends AttributeValueInfo {
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
     }
 
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
     public boolean isValidInAttributeType() {
         return true;
     }
@@ -24,7 +24,16 @@ package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JFieldVar;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JType;
+import org.jboss.jdeparser.JVar;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.PUBLIC;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -46,6 +55,15 @@ abstract class AttributeValueInfo {
 
     public abstract void addToSchemaAsElement(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element elementElement);
 
+    /**
+     * Allocate any bits this value keeps in the resource's packed words.  Called before any member is added to the generated
+     * classes.
+     *
+     * @param bits the packed bit layout of the resource
+     */
+    public void addToPackedBits(PackedBits bits) {
+    }
+
     public abstract void addToResourceClass(JDefinedClass resourceClass, JMethod constructor);
 
     public abstract void addToBuilderClass(JDefinedClass builderClass);
@@ -53,4 +71,77 @@ abstract class AttributeValueInfo {
     public abstract void addToResolvedResourceClass(JDefinedClass resolvedClass, JMethod constructor);
 
     public abstract void addToResolvedInterface(JDefinedClass resolvedInterface);
+
+    public abstract void addToXmlParser(AttributeInfo attributeInfo, XmlParserGenerator parser);
+
+    public abstract void addToXmlWriter(AttributeInfo attributeInfo, XmlWriterGenerator writer);
+
+    /**
+     * Add this value to the DMR codec of the resource.  Values which are not stored by the generated classes add
+     * nothing.
+     *
+     * @param attributeInfo the attribute
+     * @param codec the codec generator
+     */
+    public void addToDmrCodec(AttributeInfo attributeInfo, DmrCodecGenerator codec) {
+    }
+
+    /**
+     * Add this value to the field-level diff of the resource.  Values which are not stored by the generated classes
+     * add nothing.
+     *
+     * @param attributeInfo the attribute
+     * @param diff the diff generator
+     */
+    public void addToDiff(AttributeInfo attributeInfo, DiffGenerator diff) {
+    }
+
+    /**
+     * Add a value which is held as an object of the given type to a resource class: a field, the constructor
+     * parameter which initializes it, and the getter which returns it.
+     *
+     * @param resourceClass the resource class
+     * @param constructor the resource class constructor
+     * @param type the value type
+     */
+    void addObjectToResourceClass(final JDefinedClass resourceClass, final JMethod constructor, final JType type) {
+        final String fieldName = NameUtils.fieldify(name);
+        final JFieldVar field = resourceClass.field(PRIVATE | FINAL, type, fieldName);
+        final JVar constructorParam = constructor.param(FINAL, type, fieldName);
+        constructor.body().assign(JExpr._this().ref(field), constructorParam);
+
+        final JMethod getter = resourceClass.method(PUBLIC, type, "get" + name);
+        getter.body()._return(field);
+    }
+
+    /**
+     * Add a value which is held as an object of the given type to a builder class: a field and its setter.
+     *
+     * @param builderClass the builder class
+     * @param type the value type
+     */
+    void addObjectToBuilderClass(final JDefinedClass builderClass, final JType type) {
+        final String varName = NameUtils.fieldify(name);
+        builderClass.field(PRIVATE, type, varName);
+        final JMethod setter = builderClass.method(PUBLIC | FINAL, builderClass, "set" + name);
+        final JVar valParam = setter.param(FINAL, type, varName);
+        setter.body().assign(JExpr._this().ref(varName), valParam);
+        setter.body()._return(JExpr._this());
+    }
+
+    /**
+     * Add a value which is held as an object, and converted by {@link org.wildfly.core.management.ModelNodeUtils},
+     * to the DMR codec of the resource.
+     *
+     * @param attributeInfo the attribute
+     * @param codec the codec generator
+     * @param type the value type
+     * @param converted an expression which converts the model value of the attribute to a value of a type which
+     *      can be cast to the value type
+     */
+    void addObjectToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec, final JType type, final JExpression converted) {
+        final JExpression field = JExpr._this().ref(NameUtils.fieldify(name));
+        codec.addObjectAttribute(attributeInfo, field, codec.toModelNode(field));
+        codec.addFill(attributeInfo, "set" + name, JExpr.cast(type, converted));
+    }
 }
@@ -20,21 +20,41 @@
  * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
  */
 
+
 package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JInvocation;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JType;
 
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 
 /**
+ * A list or set attribute, held as the collection itself.  Its model value is a list; see
+ * {@link org.wildfly.core.management.ModelNodeUtils}.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class CollectionAttributeValueInfo extends AttributeValueInfo {
 
+    private final DeclaredType valueType;
+    private final boolean required;
+    private final DeclaredType collectionType;
+
     public CollectionAttributeValueInfo(final String name, final String singular, final DeclaredType valueType, final boolean required, final DeclaredType collectionType) {
         super(name);
+        this.valueType = valueType;
+        this.required = required;
+        this.collectionType = collectionType;
+    }
+
+    private JType getType(final JDeparser deparser) {
+        return JDeparserUtils.refFor(deparser, collectionType);
     }
 
     public void addToSchemaAsAttribute(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element attributeElement) {
@@ -44,15 +64,42 @@ final class CollectionAttributeValueInfo extends AttributeValueInfo {
     }
 
     public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        addObjectToResourceClass(resourceClass, constructor, getType(resourceClass.owner()));
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
+        addObjectToBuilderClass(builderClass, getType(builderClass.owner()));
     }
 
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
+        addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, getType(resolvedInterface.owner()), "get" + getName());
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JDeparser deparser = codec.getDeparser();
+        final String collectionName = ((TypeElement) collectionType.asElement()).getQualifiedName().toString();
+        final JInvocation converted;
+        if (collectionName.equals("java.util.List")) {
+            converted = codec.fromModelNode("asList").arg(codec.getModelValue(attributeInfo)).arg(JDeparserUtils.classFor(deparser, valueType));
+        } else {
+            // SortedSet and NavigableSet are decoded as a sorted copy
+            converted = codec.fromModelNode("asSet").arg(codec.getModelValue(attributeInfo)).arg(JDeparserUtils.classFor(deparser, valueType)).arg(JExpr.lit(! collectionName.equals("java.util.Set")));
+        }
+        addObjectToDmrCodec(attributeInfo, codec, getType(deparser), converted);
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(getName()), "get" + getName());
     }
 
     public boolean isValidInAttributeType() {
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import java.util.Objects;
+import org.jboss.jdeparser.JBlock;
+import org.jboss.jdeparser.JClass;
+import org.jboss.jdeparser.JConditional;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JOp;
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.AttributeChange;
+import org.wildfly.core.management.DiffableResource;
+import org.wildfly.core.management.Resource;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+
+/**
+ * Generates the {@code diffAttributes} method of a resource class.  The generated method compares the fields of
+ * two instances directly: primitives unboxed, with their "defined" flags, and objects by equality.  A value is
+ * boxed only when it is reported as changed, and sub-resource maps which the two versions share are skipped by
+ * identity.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class DiffGenerator {
+
+    private final JDeparser deparser;
+    private final JClass kind;
+    private final JVar other;
+    private final JVar handler;
+    private final JBlock body;
+
+    DiffGenerator(final GeneratorContext ctxt, final JDefinedClass resourceClass) {
+        deparser = ctxt.getDeparser();
+        kind = deparser.ref(AttributeChange.Kind.class);
+        resourceClass._implements(DiffableResource.class);
+
+        final JMethod diffAttributes = resourceClass.method(PUBLIC, deparser.BOOLEAN, "diffAttributes");
+        final JVar updated = diffAttributes.param(FINAL, Resource.class, "updated");
+        handler = diffAttributes.param(FINAL, DiffableResource.Handler.class, "handler");
+        diffAttributes.body()._if(JOp.not(updated._instanceof(resourceClass)))._then()._return(JExpr.FALSE);
+        other = diffAttributes.body().decl(FINAL, resourceClass, "other", JExpr.cast(resourceClass, updated));
+        body = diffAttributes.body().block();
+        diffAttributes.body()._return(JExpr.TRUE);
+    }
+
+    /**
+     * Add a primitive attribute, compared through its getter.
+     *
+     * @param attributeInfo the attribute
+     * @param getterName the resource getter name
+     * @param type the primitive type
+     * @param definedBit the packed bit which is set if the value is defined, or -1 if it always is
+     */
+    void addPrimitive(final AttributeInfo attributeInfo, final String getterName, final Class<?> type, final int definedBit) {
+        final JExpression name = JExpr.lit(attributeInfo.getDmrName());
+        final JExpression oldValue = JExpr.invoke(getterName);
+        final JExpression newValue = other.invoke(getterName);
+        final JExpression differs;
+        if (type == float.class) {
+            differs = deparser.ref(Float.class).staticInvoke("compare").arg(oldValue).arg(newValue).ne(JExpr.lit(0));
+        } else if (type == double.class) {
+            differs = deparser.ref(Double.class).staticInvoke("compare").arg(oldValue).arg(newValue).ne(JExpr.lit(0));
+        } else {
+            differs = oldValue.ne(newValue);
+        }
+        if (definedBit == -1) {
+            body._if(differs)._then().add(handler.invoke("attributeChanged").arg(kind.staticRef("UPDATED")).arg(name).arg(oldValue).arg(newValue));
+            return;
+        }
+        final JBlock block = body.block();
+        final JVar before = block.decl(FINAL, deparser.BOOLEAN, "before", PackedBits.test(definedBit));
+        final JVar after = block.decl(FINAL, deparser.BOOLEAN, "after", PackedBits.test(other, definedBit));
+        final JConditional conditional = block._if(before.ne(after));
+        conditional._then().add(handler.invoke("attributeChanged")
+            .arg(JOp.cond(before, kind.staticRef("REMOVED"), kind.staticRef("ADDED")))
+            .arg(name)
+            .arg(JOp.cond(before, oldValue, JExpr._null()))
+            .arg(JOp.cond(after, newValue, JExpr._null())));
+        conditional._else()._if(before.cand(differs))._then().add(handler.invoke("attributeChanged").arg(kind.staticRef("UPDATED")).arg(name).arg(oldValue).arg(newValue));
+    }
+
+    /**
+     * Add an attribute stored as an object field, which is undefined when {@code null}.  The fields are compared by
+     * deep equality, so that arrays are compared by content, and the changed values are reported as returned by the
+     * getter.
+     *
+     * @param attributeInfo the attribute
+     * @param fieldName the resource field name
+     * @param getterName the resource getter name
+     */
+    void addObject(final AttributeInfo attributeInfo, final String fieldName, final String getterName) {
+        final JExpression before = JExpr._this().ref(fieldName);
+        final JExpression after = other.ref(fieldName);
+        final JExpression changeKind = JOp.cond(before.eq(JExpr._null()), kind.staticRef("ADDED"), JOp.cond(after.eq(JExpr._null()), kind.staticRef("REMOVED"), kind.staticRef("UPDATED")));
+        body._if(JOp.not(deparser.ref(Objects.class).staticInvoke("deepEquals").arg(before).arg(after)))._then()
+            .add(handler.invoke("attributeChanged").arg(changeKind).arg(JExpr.lit(attributeInfo.getDmrName())).arg(JExpr.invoke(getterName)).arg(other.invoke(getterName)));
+    }
+
+    /**
+     * Add a sub-resource map, which is reported only if the two versions do not share it.
+     *
+     * @param dmrName the child type name
+     * @param fieldName the resource field name of the map
+     * @param getterName the name of the map getter of the resource interface
+     */
+    void addSubResource(final String dmrName, final String fieldName, final String getterName) {
+        body._if(JExpr._this().ref(fieldName).ne(other.ref(fieldName)))._then()
+            .add(handler.invoke("childrenChanged").arg(JExpr.lit(dmrName)).arg(JExpr.invoke(getterName)).arg(other.invoke(getterName)));
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import java.io.IOException;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ValueExpression;
+import org.jboss.jdeparser.JBlock;
+import org.jboss.jdeparser.JClass;
+import org.jboss.jdeparser.JConditional;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JInvocation;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JOp;
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.Expression;
+import org.wildfly.core.management.ModelNodeUtils;
+import org.wildfly.core.management.ModelStreamWriter;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+
+/**
+ * Generates the DMR codec of a resource: the {@code toModelNode} methods of the resource and resolved resource
+ * classes, the {@code writeModel} method which streams the resource class, and the {@code fillFromModelNode}
+ * method of the builder.  The generated code reads and writes each attribute by name, in declaration order, through
+ * its typed getter or setter, so no reflection, boxing or generic property walk is involved for scalar attributes.
+ * Map, collection, array and reference attributes are converted by {@link ModelNodeUtils}, since the shape of
+ * their elements is only known at run time.  The codec of an attribute group has only the {@code toModelNode}
+ * method of the group class and the {@code fillFromModelNode} method of its builder.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class DmrCodecGenerator {
+
+    private final JDeparser deparser;
+    private final JClass utils;
+    private final JVar model;
+    private final JBlock attributes;
+    private final JVar resolvedModel;
+    private final JBlock resolvedAttributes;
+    private final JVar modelNode;
+    private final JBlock fill;
+    private final JVar streamWriter;
+    private final JVar recursive;
+    private final JBlock streamHead;
+    private final JBlock streamAttributes;
+    private final JBlock streamChildren;
+    private JBlock streamRecursive;
+    private int attributeCount;
+    private int childCount;
+
+    DmrCodecGenerator(final GeneratorContext ctxt, final JDefinedClass resourceClass, final JDefinedClass resolvedResourceClass, final JDefinedClass builderClass) {
+        deparser = ctxt.getDeparser();
+        utils = deparser.ref(ModelNodeUtils.class);
+        final JClass modelNodeClass = deparser.ref(ModelNode.class);
+
+        final JMethod toModelNode = resourceClass.method(PUBLIC, modelNodeClass, "toModelNode");
+        model = toModelNode.body().decl(FINAL, modelNodeClass, "model", JExpr._new(modelNodeClass).invoke("setEmptyObject"));
+        attributes = toModelNode.body().block();
+        toModelNode.body()._return(model);
+
+        final JMethod resolvedToModelNode = resolvedResourceClass.method(PUBLIC, modelNodeClass, "toModelNode");
+        resolvedModel = resolvedToModelNode.body().decl(FINAL, modelNodeClass, "model", JExpr._new(modelNodeClass).invoke("setEmptyObject"));
+        resolvedAttributes = resolvedToModelNode.body().block();
+        resolvedToModelNode.body()._return(resolvedModel);
+
+        final JMethod fillFromModelNode = builderClass.method(PUBLIC | FINAL, deparser.VOID, "fillFromModelNode");
+        modelNode = fillFromModelNode.param(FINAL, modelNodeClass, "modelNode");
+        fill = fillFromModelNode.body();
+
+        final JMethod writeModel = resourceClass.method(PUBLIC, deparser.VOID, "writeModel");
+        streamWriter = writeModel.param(FINAL, ModelStreamWriter.class, "writer");
+        recursive = writeModel.param(FINAL, deparser.BOOLEAN, "recursive");
+        writeModel._throws(IOException.class);
+        // the object is started in finish(), once the number of members is known
+        streamHead = writeModel.body().block();
+        streamAttributes = writeModel.body().block();
+        // the recursive branch is added with the first sub-resource
+        streamChildren = writeModel.body().block();
+        writeModel.body().add(streamWriter.invoke("endObject"));
+    }
+
+    /**
+     * Construct the codec of an attribute group, which is neither resolved nor streamed on its own.
+     *
+     * @param deparser the deparser
+     * @param groupClass the attribute group class
+     * @param builderClass the attribute group builder class
+     */
+    DmrCodecGenerator(final JDeparser deparser, final JDefinedClass groupClass, final JDefinedClass builderClass) {
+        this.deparser = deparser;
+        utils = deparser.ref(ModelNodeUtils.class);
+        final JClass modelNodeClass = deparser.ref(ModelNode.class);
+
+        final JMethod toModelNode = groupClass.method(PUBLIC, modelNodeClass, "toModelNode");
+        model = toModelNode.body().decl(FINAL, modelNodeClass, "model", JExpr._new(modelNodeClass).invoke("setEmptyObject"));
+        attributes = toModelNode.body().block();
+        toModelNode.body()._return(model);
+
+        final JMethod fillFromModelNode = builderClass.method(PUBLIC | FINAL, deparser.VOID, "fillFromModelNode");
+        modelNode = fillFromModelNode.param(FINAL, modelNodeClass, "modelNode");
+        fill = fillFromModelNode.body();
+
+        resolvedModel = null;
+        resolvedAttributes = null;
+        streamWriter = null;
+        recursive = null;
+        streamHead = null;
+        streamAttributes = null;
+        streamChildren = null;
+    }
+
+    /**
+     * Get the deparser which the codec is generated with.
+     *
+     * @return the deparser
+     */
+    JDeparser getDeparser() {
+        return deparser;
+    }
+
+    /**
+     * Complete the generated methods, once every member has been added.
+     */
+    void finish() {
+        if (streamWriter == null) {
+            return;
+        }
+        final JExpression size = childCount == 0 ? JExpr.lit(attributeCount) : JOp.cond(recursive, JExpr.lit(attributeCount + childCount), JExpr.lit(attributeCount));
+        streamHead.add(streamWriter.invoke("startObject").arg(size));
+    }
+
+    /**
+     * Add an attribute to the model of the resource class.
+     *
+     * @param attributeInfo the attribute
+     * @param getterName the resource getter name
+     * @param type the getter type
+     * @param defined an expression which is {@code true} if the value is defined, or {@code null} if it always is
+     */
+    void addAttribute(final AttributeInfo attributeInfo, final String getterName, final Class<?> type, final JExpression defined) {
+        final JExpression getter = JExpr.invoke(getterName);
+        addAttribute(attributes, model, attributeInfo, toModelNode(type, getter), defined);
+        if (streamWriter == null) {
+            return;
+        }
+        final JInvocation write;
+        if (type == ValueExpression.class) {
+            write = streamWriter.invoke("expression").arg(getter.invoke("getExpressionString"));
+        } else {
+            write = streamWriter.invoke("value").arg(toModelNode(type, getter));
+        }
+        addStreamed(attributeInfo, write, defined);
+    }
+
+    /**
+     * Add an attribute whose value is an object other than a string or expression, such as a map, collection,
+     * array, reference or attribute group, to the model of the resource class.  The attribute is undefined while
+     * its value is {@code null}.
+     *
+     * @param attributeInfo the attribute
+     * @param value an expression which evaluates to the value
+     * @param converted an expression which evaluates to the value as a model node
+     */
+    void addObjectAttribute(final AttributeInfo attributeInfo, final JExpression value, final JExpression converted) {
+        final JExpression defined = value.ne(JExpr._null());
+        addAttribute(attributes, model, attributeInfo, converted, defined);
+        if (streamWriter != null) {
+            addStreamed(attributeInfo, streamWriter.invoke("value").arg(converted), defined);
+        }
+    }
+
+    /**
+     * Get an expression which converts a value to a model node through {@link ModelNodeUtils}.
+     *
+     * @param value an expression which evaluates to the value
+     * @return the converting expression
+     */
+    JExpression toModelNode(final JExpression value) {
+        return utils.staticInvoke("toModelNode").arg(value);
+    }
+
+    /**
+     * Get an expression which invokes a conversion method of {@link ModelNodeUtils}.
+     *
+     * @param methodName the name of the conversion method
+     * @return the invocation, to which the model node is the first argument
+     */
+    JInvocation fromModelNode(final String methodName) {
+        return utils.staticInvoke(methodName);
+    }
+
+    private void addStreamed(final AttributeInfo attributeInfo, final JInvocation write, final JExpression defined) {
+        streamAttributes.add(streamWriter.invoke("name").arg(JExpr.lit(attributeInfo.getDmrName())));
+        if (defined == null) {
+            streamAttributes.add(write);
+        } else {
+            final JConditional conditional = streamAttributes._if(defined);
+            conditional._then().add(write);
+            conditional._else().add(streamWriter.invoke("undefined"));
+        }
+        attributeCount ++;
+    }
+
+    /**
+     * Add a sub-resource map to the stream of the resource class.  Its members are written with all of their
+     * descendants when the resource is written recursively, and the map is omitted otherwise.
+     *
+     * @param dmrName the child type name
+     * @param getterName the name of the map getter of the resource interface
+     */
+    void addSubResource(final String dmrName, final String getterName) {
+        if (streamRecursive == null) {
+            streamRecursive = streamChildren._if(recursive)._then();
+        }
+        streamRecursive.add(streamWriter.invoke("name").arg(JExpr.lit(dmrName)));
+        streamRecursive.add(streamWriter.invoke("writeChildren").arg(JExpr.invoke(getterName)));
+        childCount ++;
+    }
+
+    /**
+     * Add an attribute to the model of the resolved resource class.
+     *
+     * @param attributeInfo the attribute
+     * @param getterName the resolved resource getter name
+     * @param type the getter type
+     * @param defined an expression which is {@code true} if the value is defined, or {@code null} if it always is
+     */
+    void addResolvedAttribute(final AttributeInfo attributeInfo, final String getterName, final Class<?> type, final JExpression defined) {
+        if (resolvedModel != null) {
+            addAttribute(resolvedAttributes, resolvedModel, attributeInfo, toModelNode(type, JExpr.invoke(getterName)), defined);
+        }
+    }
+
+    /**
+     * Add an attribute to the builder's {@code fillFromModelNode} method.  The attribute is set only if it is
+     * defined in the model, so that an undefined attribute keeps its default.
+     *
+     * @param attributeInfo the attribute
+     * @param setterName the builder setter name
+     * @param type the setter parameter type
+     */
+    void addFill(final AttributeInfo attributeInfo, final String setterName, final Class<?> type) {
+        addFill(attributeInfo, setterName, fromModelNode(type, getModelValue(attributeInfo)));
+    }
+
+    /**
+     * Add an attribute to the builder's {@code fillFromModelNode} method, converted by the given expression.
+     *
+     * @param attributeInfo the attribute
+     * @param setterName the builder setter name
+     * @param value an expression which converts the {@linkplain #getModelValue(AttributeInfo) model value} of the
+     *      attribute to the setter parameter type
+     */
+    void addFill(final AttributeInfo attributeInfo, final String setterName, final JExpression value) {
+        fill._if(modelNode.invoke("hasDefined").arg(JExpr.lit(attributeInfo.getDmrName())))._then().invoke(setterName).arg(value);
+    }
+
+    /**
+     * Get an expression which evaluates to the model node of an attribute, within {@code fillFromModelNode}.
+     *
+     * @param attributeInfo the attribute
+     * @return the expression
+     */
+    JExpression getModelValue(final AttributeInfo attributeInfo) {
+        return modelNode.invoke("get").arg(JExpr.lit(attributeInfo.getDmrName()));
+    }
+
+    private void addAttribute(final JBlock block, final JVar model, final AttributeInfo attributeInfo, final JExpression value, final JExpression defined) {
+        final JExpression dmrName = JExpr.lit(attributeInfo.getDmrName());
+        final JInvocation set = model.invoke("get").arg(dmrName).invoke("set").arg(value);
+        if (defined == null) {
+            block.add(set);
+        } else {
+            // undefined attributes are still present in the model, as DMR readers expect
+            final JConditional conditional = block._if(defined);
+            conditional._then().add(set);
+            conditional._else().add(model.invoke("get").arg(dmrName));
+        }
+    }
+
+    private JExpression toModelNode(final Class<?> type, final JExpression value) {
+        if (type == char.class) {
+            return deparser.ref(String.class).staticInvoke("valueOf").arg(value);
+        }
+        // other primitives widen to the int, long or double overloads of ModelNode.set
+        return value;
+    }
+
+    private JExpression fromModelNode(final Class<?> type, final JExpression node) {
+        if (type == boolean.class) {
+            return node.invoke("asBoolean");
+        } else if (type == byte.class) {
+            return JExpr.cast(deparser.BYTE, node.invoke("asInt"));
+        } else if (type == short.class) {
+            return JExpr.cast(deparser.SHORT, node.invoke("asInt"));
+        } else if (type == int.class) {
+            return node.invoke("asInt");
+        } else if (type == long.class) {
+            return node.invoke("asLong");
+        } else if (type == char.class) {
+            return utils.staticInvoke("asChar").arg(node);
+        } else if (type == float.class) {
+            return JExpr.cast(deparser.FLOAT, node.invoke("asDouble"));
+        } else if (type == double.class) {
+            return node.invoke("asDouble");
+        } else if (type == String.class) {
+            return node.invoke("asString");
+        } else if (type == Expression.class) {
+            // an expression node gives its template as its string value
+            return deparser.ref(Expression.class).staticInvoke("compile").arg(node.invoke("asString"));
+        } else {
+            throw new IllegalArgumentException(type.toString());
+        }
+    }
+}
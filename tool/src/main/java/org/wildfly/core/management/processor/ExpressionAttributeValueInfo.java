@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+import org.jboss.dmr.ValueExpression;
+import org.jboss.jdeparser.JClass;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JFieldVar;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JOp;
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.Expression;
+import org.wildfly.core.management.ExpressionResolver;
+import org.wildfly.core.management.ResolvedExpression;
+import org.wildfly.core.management.ResolvedType;
+import org.wildfly.core.management.annotation.XmlRender;
+
+import javax.lang.model.element.VariableElement;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.wildfly.core.management.processor.SchemaInfo.XS;
+
+/**
+ * An expression attribute.  The expression is compiled once, when the configuration is parsed, and resources hold
+ * the compiled form.  Each resolved resource tracks its expressions with the default {@link ExpressionResolver},
+ * so a resolved value is cached until one of the properties it references changes, and is returned unboxed when
+ * its resolved type is numeric.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class ExpressionAttributeValueInfo extends AttributeValueInfo {
+
+    private final String name;
+    private final VariableElement defaultVal;
+    private final ResolvedType resolvedType;
+
+    public ExpressionAttributeValueInfo(final String name, final VariableElement defaultVal, final ResolvedType resolvedType) {
+        super(name);
+        this.name = name;
+        this.defaultVal = defaultVal;
+        this.resolvedType = resolvedType;
+    }
+
+    public boolean isValidInAttributeType() {
+        return true;
+    }
+
+    private Class<?> getResolvedClass() {
+        switch (resolvedType) {
+            case STRING: return String.class;
+            case INT:    return int.class;
+            case LONG:   return long.class;
+            default: throw new IllegalStateException();
+        }
+    }
+
+    public void addToResourceClass(JDefinedClass resourceClass, JMethod constructor) {
+        final String fieldName = NameUtils.fieldify(name);
+        final JFieldVar field = resourceClass.field(PRIVATE | FINAL, Expression.class, fieldName);
+        final JVar constructorParam = constructor.param(FINAL, Expression.class, fieldName);
+        constructor.body().assign(JExpr._this().ref(field), constructorParam);
+
+        final JMethod getter = resourceClass.method(PUBLIC, ValueExpression.class, "get" + name);
+        getter.body()._return(JOp.cond(field.eq(JExpr._null()), JExpr._null(), JExpr._new(resourceClass.owner().ref(ValueExpression.class)).arg(field.invoke("getTemplate"))));
+    }
+
+    public void addToResolvedResourceClass(JDefinedClass resolvedClass, JMethod constructor) {
+        final String fieldName = NameUtils.fieldify(name);
+        final JFieldVar field = resolvedClass.field(PRIVATE | FINAL, ResolvedExpression.class, fieldName);
+        final JVar constructorParam = constructor.param(FINAL, Expression.class, fieldName);
+        final JClass resolver = resolvedClass.owner().ref(ExpressionResolver.class);
+        constructor.body().assign(JExpr._this().ref(field), JOp.cond(constructorParam.eq(JExpr._null()), JExpr._null(), resolver.staticInvoke("getDefault").invoke("track").arg(constructorParam)));
+
+        final JMethod getter = resolvedClass.method(PUBLIC, getResolvedClass(), "get" + name);
+        switch (resolvedType) {
+            case STRING: getter.body()._return(JOp.cond(field.eq(JExpr._null()), JExpr._null(), field.invoke("getString"))); break;
+            case INT:    getter.body()._return(field.invoke("getInt")); break;
+            case LONG:   getter.body()._return(field.invoke("getLong")); break;
+            default: throw new IllegalStateException();
+        }
+    }
+
+    public void addToBuilderClass(JDefinedClass builderClass) {
+        final String varName = NameUtils.fieldify(name);
+        if (defaultVal == null) {
+            builderClass.field(PRIVATE, Expression.class, varName);
+        } else {
+            final JClass expression = builderClass.owner().ref(Expression.class);
+            builderClass.field(PRIVATE, Expression.class, varName, expression.staticInvoke("compile").arg(JExpr.lit(defaultVal.getConstantValue().toString())));
+        }
+        final JMethod setter = builderClass.method(PUBLIC | FINAL, builderClass, "set" + name);
+        final JVar valParam = setter.param(FINAL, Expression.class, varName);
+        setter.body().assign(JExpr._this().ref(varName), valParam);
+        setter.body()._return(JExpr._this());
+    }
+
+    public void addToResolvedInterface(JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, getResolvedClass(), "get" + name);
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+        final JExpression missing = attributeInfo.isRequired() && defaultVal == null ? JExpr._this().ref(NameUtils.fieldify(name)).eq(JExpr._null()) : null;
+        if (attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE) {
+            parser.addParsedAttribute(attributeInfo.getXmlName(), "parseExpression", "set" + name, missing);
+        } else {
+            parser.addParsedValueElement(attributeInfo.getXmlName(), "parseExpression", "set" + name, missing);
+        }
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+        writer.addExpressionValue(attributeInfo, NameUtils.fieldify(name), defaultVal);
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JExpression defined = JExpr._this().ref(NameUtils.fieldify(name)).ne(JExpr._null());
+        codec.addAttribute(attributeInfo, "get" + name, ValueExpression.class, defined);
+        codec.addResolvedAttribute(attributeInfo, "get" + name, getResolvedClass(), defined);
+        codec.addFill(attributeInfo, "set" + name, Expression.class);
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(name), "get" + name);
+    }
+
+    public void addToSchemaAsAttribute(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element attributeElement) {
+        attributeElement.addAttribute(new Attribute("type", "xs:string"));
+        if (defaultVal != null) {
+            attributeElement.addAttribute(new Attribute("default", defaultVal.getConstantValue().toString()));
+        }
+    }
+
+    public void addToSchemaAsElement(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element elementElement) {
+        final Element complexType = new Element("xs:complexType", XS);
+        elementElement.appendChild(complexType);
+        final Element attributeElement = new Element("xs:attribute", XS);
+        complexType.appendChild(attributeElement);
+        attributeElement.addAttribute(new Attribute("name", "value"));
+        attributeElement.addAttribute(new Attribute("type", "xs:string"));
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Set;
 import nu.xom.Document;
 import nu.xom.Serializer;
 
+import org.jboss.jdeparser.JDefinedClass;
 import org.jboss.jdeparser.JDeparser;
 
 import javax.annotation.processing.Filer;
@@ -53,6 +54,8 @@ final class GeneratorContext {
 
     private final Map<SchemaInfo, Document> documents = new IdentityHashMap<SchemaInfo, Document>();
     private final Set<Object> generatedClassInfos = new HashSet<Object>();
+    private final Map<ResourceInfo, JDefinedClass> builderClasses = new IdentityHashMap<ResourceInfo, JDefinedClass>();
+    private final Map<ResourceInfo, JDefinedClass> builderFactoryClasses = new IdentityHashMap<ResourceInfo, JDefinedClass>();
 
     GeneratorContext(final ProcessingContext ctxt) {
         this.ctxt = ctxt;
@@ -124,6 +127,22 @@ final class GeneratorContext {
         return ! generatedClassInfos.add(info);
     }
 
+    public JDefinedClass getBuilderClass(final ResourceInfo info) {
+        return builderClasses.get(info);
+    }
+
+    public void addBuilderClass(final ResourceInfo info, final JDefinedClass builderClass) {
+        builderClasses.put(info, builderClass);
+    }
+
+    public JDefinedClass getBuilderFactoryClass(final ResourceInfo info) {
+        return builderFactoryClasses.get(info);
+    }
+
+    public void addBuilderFactoryClass(final ResourceInfo info, final JDefinedClass builderFactoryClass) {
+        builderFactoryClasses.put(info, builderFactoryClass);
+    }
+
     static class NiceSerializer extends Serializer {
 
         public NiceSerializer(OutputStream out) {
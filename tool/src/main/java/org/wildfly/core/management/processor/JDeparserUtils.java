@@ -31,7 +31,10 @@ import org.jboss.jdeparser.JClass;
 import org.jboss.jdeparser.JClassAlreadyExistsException;
 import org.jboss.jdeparser.JDeparser;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
 import org.jboss.jdeparser.JMod;
+import org.jboss.jdeparser.JPrimitiveType;
 import org.jboss.jdeparser.JType;
 import org.jboss.jdeparser.JTypeVar;
 
@@ -227,6 +230,25 @@ final class JDeparserUtils {
         return ClassType.CLASS;
     }
 
+    /**
+     * Define a new top-level class.
+     *
+     * @param deparser the deparser
+     * @param mods the class modifiers
+     * @param name the fully qualified class name
+     * @param classType the class type
+     * @return the defined class
+     * @throws IllegalStateException if the class was already defined
+     */
+    public static JDefinedClass defineClass(JDeparser deparser, int mods, String name, ClassType classType) {
+        try {
+            return deparser._class(mods, name, classType);
+        } catch (JClassAlreadyExistsException e) {
+            // generators define each class once
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static JType typeFor(ProcessingEnvironment env, JDeparser deparser, TypeMirror typeMirror) {
         final Messager messager = env.getMessager();
         final TypeKind kind = typeMirror.getKind();
@@ -284,4 +306,78 @@ final class JDeparserUtils {
                 return deparser.wildcard();
         }
     }
+
+    /**
+     * Get a reference to a source type, including its type arguments, without mirroring its declaration.  This is
+     * used by generators which have no processing environment at hand.
+     *
+     * @param deparser the deparser
+     * @param typeMirror the source type
+     * @return the type reference
+     */
+    public static JType refFor(JDeparser deparser, TypeMirror typeMirror) {
+        final TypeKind kind = typeMirror.getKind();
+        switch (kind) {
+            case BOOLEAN:
+                return deparser.BOOLEAN;
+            case BYTE:
+                return deparser.BYTE;
+            case SHORT:
+                return deparser.SHORT;
+            case INT:
+                return deparser.INT;
+            case LONG:
+                return deparser.LONG;
+            case CHAR:
+                return deparser.CHAR;
+            case FLOAT:
+                return deparser.FLOAT;
+            case DOUBLE:
+                return deparser.DOUBLE;
+            case ARRAY:
+                return refFor(deparser, ((ArrayType) typeMirror).getComponentType()).array();
+            case DECLARED:
+                final DeclaredType declaredType = (DeclaredType) typeMirror;
+                final JClass erasure = deparser.ref(((TypeElement) declaredType.asElement()).getQualifiedName().toString());
+                final List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+                final int argCount = typeArguments.size();
+                if (argCount == 0) {
+                    return erasure;
+                }
+                final JClass[] arguments = new JClass[argCount];
+                for (int idx = 0; idx < argCount; idx++) {
+                    arguments[idx] = (JClass) refFor(deparser, typeArguments.get(idx));
+                }
+                return erasure.narrow(arguments);
+            case WILDCARD:
+                final WildcardType wildcardType = (WildcardType) typeMirror;
+                final TypeMirror extendsBound = wildcardType.getExtendsBound();
+                final TypeMirror superBound = wildcardType.getSuperBound();
+                if (extendsBound != null) {
+                    return ((JClass) refFor(deparser, extendsBound)).wildcard();
+                } else if (superBound != null) {
+                    return ((JClass) refFor(deparser, superBound)).superWildcard();
+                } else {
+                    return deparser.wildcard();
+                }
+            default:
+                throw new IllegalArgumentException("Cannot refer to type " + kind + " of " + typeMirror);
+        }
+    }
+
+    /**
+     * Get the class literal of the erasure of a source type.  The class of a primitive type is given by the
+     * {@code TYPE} field of its wrapper class.
+     *
+     * @param deparser the deparser
+     * @param typeMirror the source type
+     * @return the class literal expression
+     */
+    public static JExpression classFor(JDeparser deparser, TypeMirror typeMirror) {
+        final JType type = refFor(deparser, typeMirror);
+        if (type.isPrimitive()) {
+            return ((JPrimitiveType) type).boxify().staticRef("TYPE");
+        }
+        return JExpr.dotclass(((JClass) type).erasure());
+    }
 }
@@ -20,21 +20,43 @@
  * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
  */
 
+
 package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JType;
 
 import javax.lang.model.type.DeclaredType;
 
 /**
+ * A map attribute, held as the map itself.  Its model value is an object whose keys are the string forms of the
+ * map keys; see {@link org.wildfly.core.management.ModelNodeUtils}.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class MapAttributeValueInfo extends AttributeValueInfo {
 
-    MapAttributeValueInfo(final String name, final String singular, final DeclaredType keyType, final DeclaredType valueType, final boolean required, final boolean sorted) {
+    private final DeclaredType keyType;
+    private final DeclaredType valueType;
+    private final boolean required;
+    private final boolean sorted;
+    private final DeclaredType mapType;
+
+    MapAttributeValueInfo(final String name, final String singular, final DeclaredType keyType, final DeclaredType valueType, final boolean required, final boolean sorted, final DeclaredType mapType) {
         super(name);
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.required = required;
+        this.sorted = sorted;
+        this.mapType = mapType;
+    }
+
+    private JType getType(final JDeparser deparser) {
+        return JDeparserUtils.refFor(deparser, mapType);
     }
 
     public void addToSchemaAsAttribute(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element attributeElement) {
@@ -44,15 +66,38 @@ final class MapAttributeValueInfo extends AttributeValueInfo {
     }
 
     public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        addObjectToResourceClass(resourceClass, constructor, getType(resourceClass.owner()));
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
+        addObjectToBuilderClass(builderClass, getType(builderClass.owner()));
     }
 
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
+        addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, getType(resolvedInterface.owner()), "get" + getName());
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JDeparser deparser = codec.getDeparser();
+        addObjectToDmrCodec(attributeInfo, codec, getType(deparser), codec.fromModelNode("asMap")
+            .arg(codec.getModelValue(attributeInfo))
+            .arg(JDeparserUtils.classFor(deparser, keyType))
+            .arg(JDeparserUtils.classFor(deparser, valueType))
+            .arg(JExpr.lit(sorted)));
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(getName()), "get" + getName());
     }
 
     public boolean isValidInAttributeType() {
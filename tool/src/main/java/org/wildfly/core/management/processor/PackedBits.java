@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JFieldRef;
+import org.jboss.jdeparser.JFieldVar;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JVar;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+
+/**
+ * The layout of the packed bit words of a generated resource.  The values of boolean attributes, and the "defined"
+ * flags of primitive attributes which have no default, are each stored as one bit of an {@code int} field rather
+ * than as a field of their own.  The resource, resolved resource and builder classes share the same layout, so the
+ * words are passed from a builder to a resource constructor as they are.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class PackedBits {
+
+    private final List<Integer> initialWords = new ArrayList<Integer>();
+    private int count;
+
+    /**
+     * Allocate a bit.
+     *
+     * @param initial the initial value of the bit in a new builder
+     * @return the bit index
+     */
+    int allocate(final boolean initial) {
+        final int bit = count ++;
+        if ((bit & 31) == 0) {
+            initialWords.add(Integer.valueOf(0));
+        }
+        if (initial) {
+            final int word = bit >>> 5;
+            initialWords.set(word, Integer.valueOf(initialWords.get(word).intValue() | mask(bit)));
+        }
+        return bit;
+    }
+
+    /**
+     * Declare the words in a resource class, along with the constructor parameters which initialize them.
+     *
+     * @param resourceClass the resource class
+     * @param constructor the resource constructor
+     */
+    void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        for (int word = 0; word < initialWords.size(); word ++) {
+            final JFieldVar field = resourceClass.field(PRIVATE | FINAL, int.class, wordName(word));
+            final JVar constructorParam = constructor.param(FINAL, int.class, wordName(word));
+            constructor.body().assign(JExpr._this().ref(field), constructorParam);
+        }
+    }
+
+    /**
+     * Declare the words in a builder class, with the initial value of each bit.
+     *
+     * @param builderClass the builder class
+     */
+    void addToBuilderClass(final JDefinedClass builderClass) {
+        for (int word = 0; word < initialWords.size(); word ++) {
+            builderClass.field(PRIVATE, int.class, wordName(word), JExpr.lit(initialWords.get(word).intValue()));
+        }
+    }
+
+    /**
+     * Get an expression which is {@code true} if a bit is set.
+     *
+     * @param bit the bit index
+     * @return the expression
+     */
+    static JExpression test(final int bit) {
+        return test(JExpr._this(), bit);
+    }
+
+    /**
+     * Get an expression which is {@code true} if a bit is set in another instance of the same class.
+     *
+     * @param instance the instance
+     * @param bit the bit index
+     * @return the expression
+     */
+    static JExpression test(final JExpression instance, final int bit) {
+        return instance.ref(wordName(bit >>> 5)).band(JExpr.lit(mask(bit))).ne(JExpr.lit(0));
+    }
+
+    /**
+     * Get an expression which evaluates to the word with a bit set.
+     *
+     * @param bit the bit index
+     * @return the expression
+     */
+    static JExpression set(final int bit) {
+        return word(bit).bor(JExpr.lit(mask(bit)));
+    }
+
+    /**
+     * Get an expression which evaluates to the word with a bit cleared.
+     *
+     * @param bit the bit index
+     * @return the expression
+     */
+    static JExpression clear(final int bit) {
+        return word(bit).band(JExpr.lit(~ mask(bit)));
+    }
+
+    /**
+     * Get a reference to the word which holds a bit.
+     *
+     * @param bit the bit index
+     * @return the word reference
+     */
+    static JFieldRef word(final int bit) {
+        return JExpr._this().ref(wordName(bit >>> 5));
+    }
+
+    private static String wordName(final int word) {
+        return "bits" + word;
+    }
+
+    private static int mask(final int bit) {
+        return 1 << (bit & 31);
+    }
+}
@@ -24,13 +24,15 @@ package org.wildfly.core.management.processor;
 
 import nu.xom.Attribute;
 import nu.xom.Element;
-import org.jboss.jdeparser.JBlock;
 import org.jboss.jdeparser.JConditional;
 import org.jboss.jdeparser.JDefinedClass;
 import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
 import org.jboss.jdeparser.JFieldVar;
+import org.jboss.jdeparser.JOp;
 import org.jboss.jdeparser.JMethod;
 import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.annotation.XmlRender;
 
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
@@ -41,6 +43,10 @@ import static org.jboss.jdeparser.JMod.PUBLIC;
 import static org.wildfly.core.management.processor.SchemaInfo.XS;
 
 /**
+ * A primitive attribute.  Values are stored unboxed: in a field of the primitive type, or, for booleans, as a bit of
+ * the resource's {@linkplain PackedBits packed words}.  Attributes without a default also have a packed "defined"
+ * flag, so that an unset value can be told apart from zero.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class PrimitiveAttributeValueInfo extends AttributeValueInfo {
@@ -48,6 +54,8 @@ final class PrimitiveAttributeValueInfo extends AttributeValueInfo {
     private final TypeKind kind;
     private final String name;
     private final VariableElement defaultVal;
+    private int valueBit = -1;
+    private int definedBit = -1;
 
     public PrimitiveAttributeValueInfo(final TypeKind kind, final String name, final VariableElement defaultVal) {
         super(name);
@@ -74,30 +82,113 @@ final class PrimitiveAttributeValueInfo extends AttributeValueInfo {
         }
     }
 
+    private String getParseMethodName() {
+        switch (kind) {
+            case BOOLEAN: return "parseBoolean";
+            case BYTE:    return "parseByte";
+            case SHORT:   return "parseShort";
+            case INT:     return "parseInt";
+            case LONG:    return "parseLong";
+            case CHAR:    return "parseChar";
+            case FLOAT:   return "parseFloat";
+            case DOUBLE:  return "parseDouble";
+            default: throw new IllegalStateException();
+        }
+    }
+
+    private JExpression getDefaultLiteral() {
+        final Object value = defaultVal.getConstantValue();
+        switch (kind) {
+            case BYTE:
+            case SHORT:
+            case INT:     return JExpr.lit(((Number) value).intValue());
+            case LONG:    return JExpr.lit(((Number) value).longValue());
+            case CHAR:    return JExpr.lit(((Character) value).charValue());
+            case FLOAT:   return JExpr.lit(((Number) value).floatValue());
+            case DOUBLE:  return JExpr.lit(((Number) value).doubleValue());
+            default: throw new IllegalStateException();
+        }
+    }
+
+    private String getGetterName() {
+        return (kind == TypeKind.BOOLEAN ? "is" : "get") + name;
+    }
+
+    public void addToPackedBits(final PackedBits bits) {
+        if (kind == TypeKind.BOOLEAN) {
+            valueBit = bits.allocate(defaultVal != null && Boolean.TRUE.equals(defaultVal.getConstantValue()));
+        }
+        if (defaultVal == null) {
+            definedBit = bits.allocate(false);
+        }
+    }
+
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
         addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
-        resolvedInterface.method(0, getPrimitiveType(), (kind == TypeKind.BOOLEAN ? "is" : "get") + name);
+        resolvedInterface.method(0, getPrimitiveType(), getGetterName());
     }
 
-    public void addToResourceClass(JDefinedClass resourceClass, JMethod constructor) {
-        final String fieldName = NameUtils.fieldify(name);
-        final JFieldVar field = resourceClass.field(PRIVATE | FINAL, String.class, fieldName);
-        final JVar constructorParam = constructor.param(String.class, fieldName);
-        constructor.body().assign(JExpr._this().ref(field), constructorParam);
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+        final JExpression missing = attributeInfo.isRequired() && definedBit != -1 ? JOp.not(PackedBits.test(definedBit)) : null;
+        if (attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE) {
+            parser.addParsedAttribute(attributeInfo.getXmlName(), getParseMethodName(), "set" + name, missing);
+        } else {
+            parser.addParsedValueElement(attributeInfo.getXmlName(), getParseMethodName(), "set" + name, missing);
+        }
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+        writer.addPrimitiveValue(attributeInfo, getGetterName(), definedBit == -1 ? null : PackedBits.test(definedBit), defaultVal);
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JExpression defined = definedBit == -1 ? null : PackedBits.test(definedBit);
+        codec.addAttribute(attributeInfo, getGetterName(), getPrimitiveType(), defined);
+        codec.addResolvedAttribute(attributeInfo, getGetterName(), getPrimitiveType(), defined);
+        codec.addFill(attributeInfo, "set" + name, getPrimitiveType());
+    }
 
-        final JMethod getter = resourceClass.method(PUBLIC, String.class, "get" + name);
-        getter.body()._return(field);
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addPrimitive(attributeInfo, getGetterName(), getPrimitiveType(), definedBit);
+    }
+
+    public void addToResourceClass(JDefinedClass resourceClass, JMethod constructor) {
+        final JMethod getter = resourceClass.method(PUBLIC, getPrimitiveType(), getGetterName());
+        if (kind == TypeKind.BOOLEAN) {
+            getter.body()._return(PackedBits.test(valueBit));
+        } else {
+            final String fieldName = NameUtils.fieldify(name);
+            final JFieldVar field = resourceClass.field(PRIVATE | FINAL, getPrimitiveType(), fieldName);
+            final JVar constructorParam = constructor.param(FINAL, getPrimitiveType(), fieldName);
+            constructor.body().assign(JExpr._this().ref(field), constructorParam);
+            getter.body()._return(field);
+        }
     }
 
     public void addToBuilderClass(JDefinedClass builderClass) {
         final String varName = NameUtils.fieldify(name);
-        builderClass.field(PRIVATE, String.class, varName);
+        if (kind != TypeKind.BOOLEAN) {
+            if (defaultVal == null) {
+                builderClass.field(PRIVATE, getPrimitiveType(), varName);
+            } else {
+                builderClass.field(PRIVATE, getPrimitiveType(), varName, getDefaultLiteral());
+            }
+        }
         final JMethod setter = builderClass.method(PUBLIC | FINAL, builderClass, "set" + name);
-        final JVar valParam = setter.param(FINAL, String.class, varName);
-        setter.body().assign(JExpr._this().ref(varName), valParam);
+        final JVar valParam = setter.param(FINAL, getPrimitiveType(), varName);
+        if (kind == TypeKind.BOOLEAN) {
+            final JConditional conditional = setter.body()._if(valParam);
+            conditional._then().assign(PackedBits.word(valueBit), PackedBits.set(valueBit));
+            conditional._else().assign(PackedBits.word(valueBit), PackedBits.clear(valueBit));
+        } else {
+            setter.body().assign(JExpr._this().ref(varName), valParam);
+        }
+        if (definedBit != -1) {
+            setter.body().assign(PackedBits.word(definedBit), PackedBits.set(definedBit));
+        }
         setter.body()._return(JExpr._this());
     }
 
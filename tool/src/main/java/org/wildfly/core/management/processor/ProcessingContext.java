@@ -40,10 +40,12 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.jboss.dmr.ValueExpression;
 import org.wildfly.core.management.AttributeValidator;
 import org.wildfly.core.management.Node;
 import org.wildfly.core.management.ResourceLink;
 import org.wildfly.core.management.Access;
+import org.wildfly.core.management.ResolvedType;
 import org.wildfly.core.management.annotation.Attribute;
 import org.wildfly.core.management.annotation.AttributeGroup;
 import org.wildfly.core.management.annotation.AttributeType;
@@ -283,7 +285,8 @@ final class ProcessingContext {
         if (element.getAnnotation(Attribute.class) != null) {
             return processAttribute(element);
         } else if (element.getAnnotation(AttributeGroup.class) != null) {
-            return processAttributeGroup(element.getReturnType());
+            // a group is an attribute whose value is the group, once the group itself is valid
+            return processAttributeGroup(element.getReturnType()) == null ? null : processAttribute(element);
         } else if (getAnnotation(env.getElementUtils(), element, SubResource.class.getName()) != null) {
             return processSubResource(element);
         } else {
@@ -363,10 +366,10 @@ final class ProcessingContext {
             childIsResourceType = getAnnotation(env.getElementUtils(), resourceTypeElement, ResourceType.class.getName()) != null;
         }
         if (childIsResourceType) {
-            return new SubResourceInfo(processResourceType(resourceTypeElement), type, name, xmlName, xmlTypeName, requiresUnique, childResources.toArray(new ResourceInfo[childResources.size()]));
+            return new SubResourceInfo(processResourceType(resourceTypeElement), propertyName, resourceTypeElement.getQualifiedName().toString(), type, name, xmlName, xmlTypeName, requiresUnique, childResources.toArray(new ResourceInfo[childResources.size()]));
         } else {
             final ResourceInfo resourceInfo = processResource(resourceTypeElement);
-            return resourceInfo == null ? null : new SubResourceInfo(null, type, name, xmlName, xmlTypeName, requiresUnique, new ResourceInfo[] { resourceInfo });
+            return resourceInfo == null ? null : new SubResourceInfo(null, propertyName, resourceTypeElement.getQualifiedName().toString(), type, name, xmlName, xmlTypeName, requiresUnique, new ResourceInfo[] { resourceInfo });
         }
     }
 
@@ -421,15 +424,16 @@ final class ProcessingContext {
         String[] enumerations = null;
         boolean required = true;
 
-        DeclaredType referenceType = null;
         boolean monitor = false;
+        ResolvedType resolvedType = ResolvedType.STRING;
 
         final TypeElement enclosingElement = (TypeElement) declaringElement.getEnclosingElement();
 
         for (VariableElement fieldElement : ElementFilter.fieldsIn(env.getElementUtils().getAllMembers(enclosingElement))) {
             if (defaultVarName.equals(fieldElement.getSimpleName().toString())) {
                 final TypeMirror fieldType = fieldElement.asType();
-                if (! isAssignable(fieldType, type)) {
+                // expression attributes take their default as a template string
+                if (! isAssignable(fieldType, type) && ! (isSameType(ValueExpression.class, type) && isAssignable(fieldType, String.class))) {
                     messager.printMessage(ERROR, "Cannot assign default value of type " + fieldType + " to property of type " + type, fieldElement);
                 } else {
                     defaultVal = fieldElement;
@@ -441,6 +445,8 @@ final class ProcessingContext {
         for (AnnotationMirror annotationMirror : declaringElement.getAnnotationMirrors()) {
             if (annotationIs(annotationMirror, Enumerated.class)) {
                 enumerations = stringArrayValue(getAnnotationValue(annotationMirror, "name"));
+            } else if (annotationIs(annotationMirror, Attribute.class)) {
+                resolvedType = def(getAnnotationValueEnumConst(annotationMirror, "resolvedType", ResolvedType.class), ResolvedType.STRING);
             } else if (annotationIs(annotationMirror, Required.class)) {
                 required = booleanValue(getAnnotationValue(annotationMirror, "value"), true);
             } else if (annotationIs(annotationMirror, Reference.class)) {
@@ -505,7 +511,7 @@ final class ProcessingContext {
                     messager.printMessage(ERROR, "Reference attribute must be a getter method", declaringElement);
                     return null;
                 }
-                return new ReferenceAttributeValueInfo(name, declaringElement, required, referenceType, monitor, list, targetType);
+                return new ReferenceAttributeValueInfo(name, declaringElement, required, resourceRefType, monitor, list, targetType);
             }
         }
 
@@ -521,6 +527,10 @@ final class ProcessingContext {
             return new PrimitiveAttributeValueInfo(type.getKind(), name, defaultVal);
         }
 
+        if (isSameType(ValueExpression.class, type)) {
+            return new ExpressionAttributeValueInfo(name, defaultVal, resolvedType);
+        }
+
         if (defaultVal != null) {
             messager.printMessage(WARNING, "Default value will not be used for attribute group of type " + type, defaultVal);
         }
@@ -574,7 +584,7 @@ final class ProcessingContext {
                     valueType = (DeclaredType) typeArguments.get(1);
                 }
             }
-            return new MapAttributeValueInfo(name, singular, keyType, valueType, required, isAssignable(type, SortedMap.class));
+            return new MapAttributeValueInfo(name, singular, keyType, valueType, required, isAssignable(type, SortedMap.class), (DeclaredType) type);
         }
 
         TypeMirror valueType;
@@ -630,6 +640,9 @@ final class ProcessingContext {
             for (ExecutableElement executableElement : ElementFilter.methodsIn(elements.getAllMembers(typeElement))) {
                 final ResourceMember member = processResourceMember(executableElement);
                 if (member != null) {
+                    if (! (member instanceof AttributeInfo)) {
+                        messager.printMessage(WARNING, "Only attributes are part of the value of an attribute group; no code is generated for this member", executableElement);
+                    }
                     resourceMembers.add(member);
                 }
             }
@@ -24,7 +24,11 @@ package org.wildfly.core.management.processor;
 
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
 import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JType;
+import org.wildfly.core.management.ResourceLink;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.DeclaredType;
@@ -57,16 +61,41 @@ final class ReferenceAttributeValueInfo extends AttributeValueInfo {
     public void addToSchemaAsElement(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element elementElement) {
     }
 
+    private JType getType(final JDeparser deparser) {
+        return JDeparserUtils.refFor(deparser, declaringElement.getReturnType());
+    }
+
     public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+        addObjectToResourceClass(resourceClass, constructor, getType(resourceClass.owner()));
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
+        addObjectToBuilderClass(builderClass, getType(builderClass.owner()));
     }
 
     public void addToResolvedResourceClass(final JDefinedClass resolvedClass, final JMethod constructor) {
+        addToResourceClass(resolvedClass, constructor);
     }
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
+        resolvedInterface.method(0, getType(resolvedInterface.owner()), "get" + getName());
+    }
+
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JDeparser deparser = codec.getDeparser();
+        // a reference is modelled by the name of its target, so a decoded link carries only that name
+        final String methodName = list ? "asList" : "fromModelNode";
+        addObjectToDmrCodec(attributeInfo, codec, getType(deparser), codec.fromModelNode(methodName).arg(codec.getModelValue(attributeInfo)).arg(JExpr.dotclass(deparser.ref(ResourceLink.class))));
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(getName()), "get" + getName());
     }
 
     public ExecutableElement getDeclaringElement() {
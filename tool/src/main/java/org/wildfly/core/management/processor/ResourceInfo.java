@@ -22,26 +22,32 @@
 
 package org.wildfly.core.management.processor;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import nu.xom.Attribute;
 import nu.xom.Element;
 import org.jboss.jdeparser.JClass;
 import org.jboss.jdeparser.JDefinedClass;
 import org.jboss.jdeparser.JDeparser;
 import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JFieldVar;
+import org.jboss.jdeparser.JInvocation;
 import org.jboss.jdeparser.JMethod;
 import org.jboss.jdeparser.JVar;
 import org.wildfly.core.management.AbstractMutableNode;
 import org.wildfly.core.management.AbstractMutableResource;
+import org.wildfly.core.management.BootContext;
 import org.wildfly.core.management.Node;
-import org.wildfly.core.management.xml.XMLParseException;
-
-import javax.xml.stream.XMLStreamReader;
+import org.wildfly.core.management.ResourceBuilderFactory;
+import org.wildfly.core.management.RootNodeBuilder;
 
 import javax.lang.model.element.TypeElement;
 
 import static org.jboss.jdeparser.ClassType.CLASS;
 import static org.jboss.jdeparser.ClassType.INTERFACE;
 import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
 import static org.jboss.jdeparser.JMod.PROTECTED;
 import static org.jboss.jdeparser.JMod.PUBLIC;
 
@@ -103,7 +109,46 @@ final class ResourceInfo {
         return xmlName;
     }
 
-    public void generateClasses(final GeneratorContext ctxt, final JDefinedClass builderClass) {
+    /**
+     * Get the builder class for this resource, generating it and the resource classes if needed.
+     *
+     * @param ctxt the generator context
+     * @param schema the schema whose namespaces the builder parses
+     * @return the builder class
+     */
+    public JDefinedClass getBuilderClass(final GeneratorContext ctxt, final SchemaInfo schema) {
+        JDefinedClass builderClass = ctxt.getBuilderClass(this);
+        if (builderClass == null) {
+            final JDeparser deparser = ctxt.getDeparser();
+            builderClass = JDeparserUtils.defineClass(deparser, PUBLIC | FINAL, typeElement.getQualifiedName().toString() + "Builder", CLASS);
+            builderClass._extends(deparser.ref(RootNodeBuilder.class).narrow(deparser.ref(typeElement.getQualifiedName().toString())));
+            ctxt.addBuilderClass(this, builderClass);
+            generateClasses(ctxt, schema, builderClass);
+        }
+        return builderClass;
+    }
+
+    /**
+     * Get the builder factory class for this resource, generating it and the builder class if needed.
+     *
+     * @param ctxt the generator context
+     * @param schema the schema whose namespaces the builder parses
+     * @return the builder factory class
+     */
+    public JDefinedClass getBuilderFactoryClass(final GeneratorContext ctxt, final SchemaInfo schema) {
+        JDefinedClass factoryClass = ctxt.getBuilderFactoryClass(this);
+        if (factoryClass == null) {
+            final JDeparser deparser = ctxt.getDeparser();
+            final JDefinedClass builderClass = getBuilderClass(ctxt, schema);
+            factoryClass = JDeparserUtils.defineClass(deparser, PUBLIC | FINAL, typeElement.getQualifiedName().toString() + "BuilderFactory", CLASS);
+            factoryClass._implements(deparser.ref(ResourceBuilderFactory.class).narrow(deparser.ref(typeElement.getQualifiedName().toString()), builderClass));
+            factoryClass.method(PUBLIC | FINAL, builderClass, "createNew").body()._return(JExpr._new(builderClass));
+            ctxt.addBuilderFactoryClass(this, factoryClass);
+        }
+        return factoryClass;
+    }
+
+    private void generateClasses(final GeneratorContext ctxt, final SchemaInfo schema, final JDefinedClass builderClass) {
         if (ctxt.generated(this)) {
             return;
         }
@@ -129,9 +174,9 @@ final class ResourceInfo {
         final String resolvedResourceClassName = resolvedResourceName + "Impl";
         final JDefinedClass resolvedResourceClass;
 
-        resolvedResource = deparser._class(PUBLIC, resolvedResourceName, INTERFACE);
-        resourceClass = deparser._class(FINAL, resourceClassName, CLASS);
-        resolvedResourceClass = deparser._class(FINAL, resolvedResourceClassName, CLASS);
+        resolvedResource = JDeparserUtils.defineClass(deparser, PUBLIC, resolvedResourceName, INTERFACE);
+        resourceClass = JDeparserUtils.defineClass(deparser, FINAL, resourceClassName, CLASS);
+        resolvedResourceClass = JDeparserUtils.defineClass(deparser, FINAL, resolvedResourceClassName, CLASS);
 
         // Resolved interface
         resolvedResource._extends(Node.class);
@@ -141,14 +186,24 @@ final class ResourceInfo {
 
         final JClass anyResourceNode = deparser.ref(AbstractMutableNode.class).erasure().narrow(deparser.wildcard());
 
+        final JFieldVar nameField = resourceClass.field(PRIVATE | FINAL, String.class, "name");
+        final JFieldVar preCommentField = resourceClass.field(PRIVATE | FINAL, String.class, "preComment");
+        final JFieldVar postCommentField = resourceClass.field(PRIVATE | FINAL, String.class, "postComment");
+
+        // the node is its own initial value, since the value refers to the sub-resource maps nested under the node
         final JMethod resourceConstructor = resourceClass.constructor(0);
         {
-            final JVar nodeParam = resourceConstructor.param(FINAL, anyResourceNode, "node");
+            final JVar parentParam = resourceConstructor.param(FINAL, anyResourceNode, "parent");
             final JVar nameParam = resourceConstructor.param(FINAL, String.class, "name");
             final JVar preCommentParam = resourceConstructor.param(FINAL, String.class, "preComment");
             final JVar postCommentParam = resourceConstructor.param(FINAL, String.class, "postComment");
-            resourceConstructor.body().invoke("super").arg(nameParam).arg(preCommentParam).arg(postCommentParam).arg(nodeParam.invoke("getParent"));
+            resourceConstructor.body().invoke("super").arg(parentParam).arg(JExpr._null());
+            resourceConstructor.body().assign(JExpr._this().ref(nameField), nameParam);
+            resourceConstructor.body().assign(JExpr._this().ref(preCommentField), preCommentParam);
+            resourceConstructor.body().assign(JExpr._this().ref(postCommentField), postCommentParam);
         }
+        resourceClass.method(PUBLIC, String.class, "getName").body()._return(nameField);
+        final XmlWriterGenerator writer = new XmlWriterGenerator(ctxt, schema, xmlName, resourceClass, preCommentField, postCommentField);
 
         // Resolved resource class
         resolvedResourceClass._extends(AbstractMutableResource.class)._implements(resolvedResource);
@@ -159,27 +214,109 @@ final class ResourceInfo {
             final JVar preCommentParam = resolvedResourceConstructor.param(FINAL, String.class, "preComment");
             final JVar postCommentParam = resolvedResourceConstructor.param(FINAL, String.class, "postComment");
             final JVar parentParam = resolvedResourceConstructor.param(FINAL, anyResourceNode, "parent");
-            resolvedResourceConstructor.body().invoke("super").arg(nameParam).arg(preCommentParam).arg(postCommentParam).arg(parentParam);
+            resolvedResourceConstructor.body().invoke("super").arg(parentParam).arg(JExpr._null());
         }
 
         // Builder class
 
         builderClass.constructor(0);
 
-        final JMethod resourceBuilderConstruct = builderClass.method(PROTECTED | FINAL, deparser.ref(AbstractMutableNode.class).erasure().narrow(resource), "construct");
-        resourceBuilderConstruct.param(deparser.ref(AbstractMutableNode.class).erasure().narrow(deparser.wildcard()), "parent");
-        resourceBuilderConstruct.body()._return(JExpr._null());
+        final JFieldVar resourceNameField = builderClass.field(PRIVATE, String.class, "resourceName");
+        builderClass.method(PUBLIC | FINAL, String.class, "getName").body()._return(resourceNameField);
+        final JMethod nameSetter = builderClass.method(PUBLIC | FINAL, builderClass, "setName");
+        final JVar nameSetterParam = nameSetter.param(FINAL, String.class, "name");
+        nameSetter.body().assign(resourceNameField, nameSetterParam);
+        nameSetter.body()._return(JExpr._this());
 
         final JMethod fromXmlMethod = builderClass.method(PUBLIC | FINAL, deparser.VOID, "fromXml");
-        fromXmlMethod.param(FINAL, XMLStreamReader.class, "reader");
-        fromXmlMethod._throws(XMLParseException.class);
-        fromXmlMethod.body();
+        final XmlParserGenerator parser = new XmlParserGenerator(ctxt, schema, builderClass, fromXmlMethod);
+        parser.addAttribute("name", "resourceName", true);
+
+        final DmrCodecGenerator codec = new DmrCodecGenerator(ctxt, resourceClass, resolvedResourceClass, builderClass);
+        final DiffGenerator diff = new DiffGenerator(ctxt, resourceClass);
+
+        final PackedBits bits = new PackedBits();
+        for (ResourceMember resourceMember : resourceMembers) {
+            resourceMember.addToPackedBits(bits);
+        }
+        bits.addToResourceClass(resourceClass, resourceConstructor);
+        bits.addToResourceClass(resolvedResourceClass, resolvedResourceConstructor);
+        bits.addToBuilderClass(builderClass);
 
         for (ResourceMember resourceMember : resourceMembers) {
             resourceMember.addToBuilderClass(builderClass);
-            resourceMember.addToResourceClass(resourceClass, resourceConstructor);
+            resourceMember.addToResourceClass(ctxt, schema, resourceClass, resourceConstructor);
             resourceMember.addToResolvedInterface(resolvedResource);
             resourceMember.addToResolvedResourceClass(resolvedResourceClass, resolvedResourceConstructor);
+            resourceMember.addToXmlParser(parser);
+            resourceMember.addToXmlWriter(writer);
+            resourceMember.addToDmrCodec(codec);
+            resourceMember.addToDiff(diff);
+        }
+        parser.finish();
+        codec.finish();
+
+        resourceConstructor.body().invoke("initialize").arg(JExpr._this());
+
+        // Builder construction
+
+        final JClass resourceNode = deparser.ref(AbstractMutableNode.class).erasure().narrow(resource);
+
+        // the builder holds each member under the name of its resource class constructor parameter
+        final JMethod createNode = builderClass.method(PRIVATE, resourceClass, "createNode");
+        {
+            final JVar parentParam = createNode.param(FINAL, anyResourceNode, "parent");
+            final JInvocation newNode = JExpr._new(resourceClass).arg(parentParam).arg(resourceNameField).arg(JExpr._null()).arg(JExpr._null());
+            final List<JVar> params = resourceConstructor.params();
+            for (JVar param : params.subList(4, params.size())) {
+                newNode.arg(JExpr._this().ref(param.name()));
+            }
+            createNode.body()._return(newNode);
+        }
+
+        final JMethod construct = builderClass.method(PROTECTED | FINAL, resourceNode, "construct");
+        {
+            final JVar parentParam = construct.param(FINAL, anyResourceNode, "parent");
+            construct.body()._return(JExpr.invoke(createNode).arg(parentParam));
+        }
+
+        // sub-resource members are constructed in parallel at boot rather than on first read
+        final JMethod forkChildren = resourceClass.method(0, deparser.VOID, "forkChildren");
+        final JVar forkContext = forkChildren.param(FINAL, BootContext.class, "context");
+        for (ResourceMember resourceMember : resourceMembers) {
+            if (resourceMember instanceof SubResourceInfo) {
+                forkChildren.body().add(JExpr._this().ref(NameUtils.fieldify(((SubResourceInfo) resourceMember).getPropertyName())).invoke("construct").arg(forkContext));
+            }
+        }
+
+        final JMethod bootConstruct = builderClass.method(PROTECTED | FINAL, resourceNode, "construct");
+        {
+            final JVar parentParam = bootConstruct.param(FINAL, anyResourceNode, "parent");
+            final JVar contextParam = bootConstruct.param(FINAL, BootContext.class, "context");
+            final JVar node = bootConstruct.body().decl(FINAL, resourceClass, "node", JExpr.invoke(createNode).arg(parentParam));
+            bootConstruct.body().add(node.invoke(forkChildren).arg(contextParam));
+            bootConstruct.body()._return(node);
+        }
+
+        // a builder populated by its setters rather than parsed may lack the name of the resource
+        final JMethod validate = builderClass.method(PROTECTED | FINAL, deparser.VOID, "validate");
+        {
+            final JVar nodeParam = validate.param(FINAL, resourceNode, "node");
+            validate._throws(IllegalArgumentException.class);
+            validate.body()._if(nodeParam.invoke("getName").eq(JExpr._null()))._then()._throw(JExpr._new(deparser.ref(IllegalArgumentException.class)).arg(JExpr.lit("Resource \"" + xmlName + "\" has no name")));
+        }
+
+        // the sub-resource maps by child type, through which the managed system indexes and tracks the children
+        final JClass stringType = deparser.ref(String.class);
+        final JClass childrenType = deparser.ref(Map.class).narrow(stringType, deparser.ref(Map.class).narrow(stringType, deparser.wildcard()));
+        final JMethod getChildren = resourceClass.method(PROTECTED, childrenType, "getChildren");
+        final JVar children = getChildren.body().decl(FINAL, childrenType, "children", JExpr._new(deparser.ref(LinkedHashMap.class).narrow(stringType, deparser.ref(Map.class).narrow(stringType, deparser.wildcard()))));
+        for (ResourceMember resourceMember : resourceMembers) {
+            if (resourceMember instanceof SubResourceInfo) {
+                final SubResourceInfo subResource = (SubResourceInfo) resourceMember;
+                getChildren.body().add(children.invoke("put").arg(JExpr.lit(subResource.getName())).arg(JExpr._this().ref(NameUtils.fieldify(subResource.getPropertyName()))));
+            }
         }
+        getChildren.body()._return(children);
     }
 }
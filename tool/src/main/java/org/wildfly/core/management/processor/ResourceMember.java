@@ -33,11 +33,21 @@ interface ResourceMember {
 
     void addToSchema(SchemaGeneratorContext ctxt, Element typeElement, Element seqElement);
 
-    void addToResourceClass(JDefinedClass resourceClass, JMethod constructor);
+    void addToPackedBits(PackedBits bits);
+
+    void addToResourceClass(GeneratorContext ctxt, SchemaInfo schema, JDefinedClass resourceClass, JMethod constructor);
 
     void addToBuilderClass(JDefinedClass builderClass);
 
     void addToResolvedResourceClass(JDefinedClass resolvedClass, JMethod constructor);
 
     void addToResolvedInterface(JDefinedClass resolvedInterface);
+
+    void addToXmlParser(XmlParserGenerator parser);
+
+    void addToXmlWriter(XmlWriterGenerator writer);
+
+    void addToDmrCodec(DmrCodecGenerator codec);
+
+    void addToDiff(DiffGenerator diff);
 }
@@ -24,19 +24,9 @@ package org.wildfly.core.management.processor;
 
 import nu.xom.Attribute;
 import nu.xom.Element;
-import org.jboss.jdeparser.JDefinedClass;
-import org.jboss.jdeparser.JDeparser;
-import org.jboss.jdeparser.JExpr;
-import org.jboss.jdeparser.JMethod;
-import org.wildfly.core.management.ResourceBuilderFactory;
-import org.wildfly.core.management.RootNodeBuilder;
-import org.wildfly.core.management.ResourceBuilderFactory;
 
 import javax.lang.model.element.TypeElement;
 
-import static org.jboss.jdeparser.ClassType.CLASS;
-import static org.jboss.jdeparser.JMod.FINAL;
-import static org.jboss.jdeparser.JMod.PUBLIC;
 import static org.wildfly.core.management.processor.SchemaInfo.XS;
 
 /**
@@ -92,22 +82,10 @@ final class RootResourceInfo {
         resourceInfo.addToSchemaType(ctxt, seqElement, typeElement);
     }
 
-    public void generateClasses(GeneratorContext ctxt) {
+    public void generateClasses(GeneratorContext ctxt, SchemaInfo schema) {
         if (ctxt.generated(this)) {
             return;
         }
-        final JDeparser deparser = ctxt.getDeparser();
-        final String builderName = resourceInterface.getQualifiedName().toString() + "Builder";
-        final String factoryName = builderName + "Factory";
-        final JDefinedClass factoryClass = deparser._class(PUBLIC | FINAL, factoryName, CLASS);
-        final JDefinedClass builderClass = deparser._class(PUBLIC | FINAL, builderName, CLASS);
-
-        factoryClass._implements(deparser.ref(ResourceBuilderFactory.class).narrow(deparser.ref(resourceInterface.getQualifiedName().toString()), builderClass));
-
-        final JMethod createNewMethod = factoryClass.method(PUBLIC | FINAL, builderClass, "createNew");
-        createNewMethod.body()._return(JExpr._new(builderClass));
-
-        builderClass._extends(deparser.ref(RootNodeBuilder.class).narrow(deparser.ref(resourceInterface.getQualifiedName().toString())));
-        resourceInfo.generateClasses(ctxt, builderClass);
+        resourceInfo.getBuilderFactoryClass(ctxt, schema);
     }
 }
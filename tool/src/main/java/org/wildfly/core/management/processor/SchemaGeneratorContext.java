@@ -93,7 +93,7 @@ final class SchemaGeneratorContext {
 
         for (RootResourceInfo resourceInfo : info.getResources()) {
             resourceInfo.addToSchema(this);
-            resourceInfo.generateClasses(context);
+            resourceInfo.generateClasses(context, info);
         }
 
         // build the schema into a document
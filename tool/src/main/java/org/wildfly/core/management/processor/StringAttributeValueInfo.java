@@ -26,9 +26,11 @@ import nu.xom.Attribute;
 import nu.xom.Element;
 import org.jboss.jdeparser.JDefinedClass;
 import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
 import org.jboss.jdeparser.JFieldVar;
 import org.jboss.jdeparser.JMethod;
 import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.annotation.XmlRender;
 
 import javax.lang.model.element.VariableElement;
 
@@ -102,6 +104,30 @@ final class StringAttributeValueInfo extends AttributeValueInfo {
         resolvedInterface.method(0, String.class, "get" + name);
     }
 
+    public void addToXmlParser(final AttributeInfo attributeInfo, final XmlParserGenerator parser) {
+        final boolean required = attributeInfo.isRequired() && defaultVal == null;
+        if (attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE) {
+            parser.addAttribute(attributeInfo.getXmlName(), NameUtils.fieldify(name), required);
+        } else {
+            parser.addValueElement(attributeInfo.getXmlName(), NameUtils.fieldify(name), required);
+        }
+    }
+
+    public void addToXmlWriter(final AttributeInfo attributeInfo, final XmlWriterGenerator writer) {
+        writer.addSimpleValue(attributeInfo, NameUtils.fieldify(name), defaultVal);
+    }
+
+    public void addToDmrCodec(final AttributeInfo attributeInfo, final DmrCodecGenerator codec) {
+        final JExpression defined = JExpr._this().ref(NameUtils.fieldify(name)).ne(JExpr._null());
+        codec.addAttribute(attributeInfo, "get" + name, String.class, defined);
+        codec.addResolvedAttribute(attributeInfo, "get" + name, String.class, defined);
+        codec.addFill(attributeInfo, "set" + name, String.class);
+    }
+
+    public void addToDiff(final AttributeInfo attributeInfo, final DiffGenerator diff) {
+        diff.addObject(attributeInfo, NameUtils.fieldify(name), "get" + name);
+    }
+
     public void addToSchemaAsAttribute(final AttributeInfo attributeInfo, final Element enclosingSeqElement, final Element enclosingTypeElement, final Element attributeElement) {
         attributeElement.addAttribute(new Attribute("type", "xs:string"));
         if (defaultVal != null) {
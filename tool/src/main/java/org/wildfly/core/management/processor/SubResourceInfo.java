@@ -22,11 +22,25 @@
 
 package org.wildfly.core.management.processor;
 
+import java.util.HashMap;
+import java.util.Map;
 import nu.xom.Attribute;
 import nu.xom.Element;
+import org.jboss.jdeparser.JClass;
 import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JFieldVar;
 import org.jboss.jdeparser.JMethod;
-
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.LazyResourceMap;
+import org.wildfly.core.management.ResourceBuilderFactory;
+import org.wildfly.core.management.RootNodeBuilder;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.jboss.jdeparser.JMod.STATIC;
 import static org.wildfly.core.management.processor.SchemaInfo.XS;
 
 /**
@@ -35,6 +49,8 @@ import static org.wildfly.core.management.processor.SchemaInfo.XS;
 final class SubResourceInfo implements ResourceMember {
 
     private final ResourceTypeInfo resourceTypeInfo;
+    private final String propertyName;
+    private final String valueTypeName;
     private final String type;
     private final String name;
     private final String xmlName;
@@ -46,6 +62,8 @@ final class SubResourceInfo implements ResourceMember {
      * Construct a new instance.
      *
      * @param resourceTypeInfo the info for the resource type ({@code null} if none given)
+     * @param propertyName the property name of the sub-resource map getter
+     * @param valueTypeName the qualified name of the map value type
      * @param type the symbolic type name of candidate members or {@code null}
      * @param name the name in the model in XML form (not {@code null})
      * @param xmlName the XML wrapper element name
@@ -53,7 +71,9 @@ final class SubResourceInfo implements ResourceMember {
      * @param requiresUnique
      * @param knownChildren same-schema candidate child resources
      */
-    SubResourceInfo(final ResourceTypeInfo resourceTypeInfo, final String type, final String name, final String xmlName, final String xmlTypeName, final boolean requiresUnique, final ResourceInfo[] knownChildren) {
+    SubResourceInfo(final ResourceTypeInfo resourceTypeInfo, final String propertyName, final String valueTypeName, final String type, final String name, final String xmlName, final String xmlTypeName, final boolean requiresUnique, final ResourceInfo[] knownChildren) {
+        this.propertyName = propertyName;
+        this.valueTypeName = valueTypeName;
         this.type = type;
         this.name = name;
         this.xmlName = xmlName;
@@ -67,6 +87,10 @@ final class SubResourceInfo implements ResourceMember {
         return resourceTypeInfo;
     }
 
+    public String getPropertyName() {
+        return propertyName;
+    }
+
     public String getType() {
         return type;
     }
@@ -117,7 +141,30 @@ final class SubResourceInfo implements ResourceMember {
         rootType.appendChild(choiceElement);
     }
 
-    public void addToResourceClass(final JDefinedClass resourceClass, final JMethod constructor) {
+    public void addToPackedBits(final PackedBits bits) {
+    }
+
+    public void addToResourceClass(final GeneratorContext ctxt, final SchemaInfo schema, final JDefinedClass resourceClass, final JMethod constructor) {
+        final JDeparser deparser = ctxt.getDeparser();
+        final JClass valueType = deparser.ref(valueTypeName);
+        final JClass stringType = deparser.ref(String.class);
+
+        // members which were evicted and reclaimed are rebuilt from their serialized form by element name
+        final JClass factoryType = deparser.ref(ResourceBuilderFactory.class).erasure().narrow(valueType.wildcard(), deparser.wildcard());
+        final JFieldVar factories = resourceClass.field(PRIVATE | STATIC | FINAL, deparser.ref(Map.class).narrow(stringType, factoryType), NameUtils.constify(propertyName) + "_FACTORIES", JExpr._new(deparser.ref(HashMap.class).narrow(stringType, factoryType)));
+        for (ResourceInfo knownChild : knownChildren) {
+            resourceClass.init().add(factories.invoke("put").arg(JExpr.lit(knownChild.getXmlName())).arg(JExpr._new(knownChild.getBuilderFactoryClass(ctxt, schema))));
+        }
+
+        final String fieldName = NameUtils.fieldify(propertyName);
+        final JClass mapType = deparser.ref(LazyResourceMap.class).narrow(valueType);
+        final JFieldVar field = resourceClass.field(PRIVATE | FINAL, mapType, fieldName);
+        final JClass buildersType = deparser.ref(Map.class).narrow(stringType, deparser.ref(RootNodeBuilder.class).erasure().narrow(valueType.wildcard()));
+        final JVar constructorParam = constructor.param(FINAL, buildersType, fieldName);
+        constructor.body().assign(JExpr._this().ref(field), JExpr._new(mapType).arg(JExpr._this()).arg(JExpr.lit(name)).arg(constructorParam).arg(factories));
+
+        final JMethod getter = resourceClass.method(PUBLIC, deparser.ref(Map.class).narrow(stringType, valueType), "get" + propertyName);
+        getter.body()._return(field);
     }
 
     public void addToBuilderClass(final JDefinedClass builderClass) {
@@ -128,4 +175,21 @@ final class SubResourceInfo implements ResourceMember {
 
     public void addToResolvedInterface(final JDefinedClass resolvedInterface) {
     }
+
+    public void addToXmlParser(final XmlParserGenerator parser) {
+        parser.addSubResource(xmlName, NameUtils.fieldify(propertyName), valueTypeName, knownChildren);
+    }
+
+    public void addToXmlWriter(final XmlWriterGenerator writer) {
+        writer.addSubResource(xmlName, "get" + propertyName);
+    }
+
+    public void addToDmrCodec(final DmrCodecGenerator codec) {
+        // only streamed: a model node holds just the resource's own attributes, as children are addressed by path
+        codec.addSubResource(name, "get" + propertyName);
+    }
+
+    public void addToDiff(final DiffGenerator diff) {
+        diff.addSubResource(name, NameUtils.fieldify(propertyName), "get" + propertyName);
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jboss.jdeparser.JArray;
+import org.jboss.jdeparser.JBlock;
+import org.jboss.jdeparser.JCatchBlock;
+import org.jboss.jdeparser.JClass;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JFieldVar;
+import org.jboss.jdeparser.JForLoop;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JOp;
+import org.jboss.jdeparser.JSwitch;
+import org.jboss.jdeparser.JTryBlock;
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.RootNodeBuilder;
+import org.wildfly.core.management.xml.XMLParseException;
+import org.wildfly.core.management.xml.XMLParseUtils;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.STATIC;
+
+/**
+ * Generates the body of a builder's {@code fromXml} method.  The generated parser reads the resource element in a
+ * single pass, switching on the local name of each attribute and child element and storing values straight into
+ * the builder's fields.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class XmlParserGenerator {
+
+    private final GeneratorContext ctxt;
+    private final SchemaInfo schema;
+    private final JDefinedClass builderClass;
+    private final JClass utils;
+    private final JVar reader;
+    private final JVar namespace;
+    private final JVar attributeIndex;
+    private final JSwitch attributeSwitch;
+    private final JBlock attributeChecks;
+    private final JSwitch elementSwitch;
+    private final JBlock elementChecks;
+
+    XmlParserGenerator(final GeneratorContext ctxt, final SchemaInfo schema, final JDefinedClass builderClass, final JMethod fromXmlMethod) {
+        this.ctxt = ctxt;
+        this.schema = schema;
+        this.builderClass = builderClass;
+        final JDeparser deparser = ctxt.getDeparser();
+        utils = deparser.ref(XMLParseUtils.class);
+
+        final JArray namespacesInit = JExpr.newArray(deparser.ref(String.class)).add(JExpr.lit(schema.getXmlNamespace()));
+        for (String compatNamespace : schema.getCompatNamespaces()) {
+            namespacesInit.add(JExpr.lit(compatNamespace));
+        }
+        final JFieldVar namespaces = builderClass.field(PRIVATE | STATIC | FINAL, String[].class, "NAMESPACES", namespacesInit);
+
+        reader = fromXmlMethod.param(FINAL, XMLStreamReader.class, "reader");
+        fromXmlMethod._throws(XMLParseException.class);
+        final JTryBlock tryBlock = fromXmlMethod.body()._try();
+        final JBlock body = tryBlock.body();
+        namespace = body.decl(FINAL, deparser.ref(String.class), "namespace", utils.staticInvoke("requireNamespace").arg(reader).arg(namespaces));
+
+        // attributes
+        final JVar attributeCount = body.decl(FINAL, deparser.INT, "attributeCount", reader.invoke("getAttributeCount"));
+        final JForLoop attributeLoop = body._for();
+        attributeIndex = attributeLoop.init(deparser.INT, "i", JExpr.lit(0));
+        attributeLoop.test(JOp.lt(attributeIndex, attributeCount));
+        attributeLoop.update(attributeIndex.incr());
+        attributeLoop.body()._if(JOp.not(utils.staticInvoke("isUnqualified").arg(reader).arg(attributeIndex)))._then()._throw(unexpectedAttribute());
+        attributeSwitch = attributeLoop.body()._switch(reader.invoke("getAttributeLocalName").arg(attributeIndex));
+        attributeChecks = body.block();
+
+        // child elements
+        elementSwitch = body._while(utils.staticInvoke("nextElement").arg(reader).arg(namespace)).body()._switch(reader.invoke("getLocalName"));
+        elementChecks = body.block();
+
+        final JCatchBlock catchBlock = tryBlock._catch(deparser.ref(XMLStreamException.class));
+        final JVar e = catchBlock.param("e");
+        catchBlock.body()._throw(deparser.ref(XMLParseException.class).staticInvoke("toParseException").arg(e));
+    }
+
+    GeneratorContext getContext() {
+        return ctxt;
+    }
+
+    SchemaInfo getSchema() {
+        return schema;
+    }
+
+    JDefinedClass getBuilderClass() {
+        return builderClass;
+    }
+
+    /**
+     * Add an attribute which is stored as a string in a builder field.
+     *
+     * @param xmlName the attribute name
+     * @param fieldName the builder field name
+     * @param required {@code true} if the attribute must be given
+     */
+    void addAttribute(final String xmlName, final String fieldName, final boolean required) {
+        final JBlock block = attributeSwitch._case(JExpr.lit(xmlName)).body();
+        block.assign(JExpr._this().ref(fieldName), reader.invoke("getAttributeValue").arg(attributeIndex));
+        block._break();
+        if (required) {
+            attributeChecks._if(JExpr._this().ref(fieldName).eq(JExpr._null()))._then()._throw(utils.staticInvoke("missingRequiredAttribute").arg(reader).arg(JExpr.lit(xmlName)));
+        }
+    }
+
+    /**
+     * Add a simple value element, of the form {@code <name value="..."/>}, which is stored as a string in a builder
+     * field.
+     *
+     * @param xmlName the element name
+     * @param fieldName the builder field name
+     * @param required {@code true} if the element must be given
+     */
+    void addValueElement(final String xmlName, final String fieldName, final boolean required) {
+        final JBlock block = elementSwitch._case(JExpr.lit(xmlName)).body();
+        block.assign(JExpr._this().ref(fieldName), utils.staticInvoke("readValueElement").arg(reader));
+        block._break();
+        if (required) {
+            elementChecks._if(JExpr._this().ref(fieldName).eq(JExpr._null()))._then()._throw(utils.staticInvoke("missingRequiredElement").arg(reader).arg(JExpr.lit(xmlName)));
+        }
+    }
+
+    /**
+     * Add an attribute whose value is converted by an {@code XMLParseUtils} parse method, such as a primitive value
+     * parsed without boxing or an expression compiled as it is read, and stored through a builder setter.
+     *
+     * @param xmlName the attribute name
+     * @param parseMethodName the name of the {@code XMLParseUtils} method which parses the value
+     * @param setterName the builder setter name
+     * @param missing an expression which is {@code true} if the attribute was not given, or {@code null} if the
+     *      attribute is optional
+     */
+    void addParsedAttribute(final String xmlName, final String parseMethodName, final String setterName, final JExpression missing) {
+        final JBlock block = attributeSwitch._case(JExpr.lit(xmlName)).body();
+        block.invoke(setterName).arg(utils.staticInvoke(parseMethodName).arg(reader).arg(JExpr.lit(xmlName)).arg(reader.invoke("getAttributeValue").arg(attributeIndex)));
+        block._break();
+        if (missing != null) {
+            attributeChecks._if(missing)._then()._throw(utils.staticInvoke("missingRequiredAttribute").arg(reader).arg(JExpr.lit(xmlName)));
+        }
+    }
+
+    /**
+     * Add a simple value element whose value is converted by an {@code XMLParseUtils} parse method and stored
+     * through a builder setter.
+     *
+     * @param xmlName the element name
+     * @param parseMethodName the name of the {@code XMLParseUtils} method which parses the value
+     * @param setterName the builder setter name
+     * @param missing an expression which is {@code true} if the element was not given, or {@code null} if the
+     *      element is optional
+     */
+    void addParsedValueElement(final String xmlName, final String parseMethodName, final String setterName, final JExpression missing) {
+        final JBlock block = elementSwitch._case(JExpr.lit(xmlName)).body();
+        block.invoke(setterName).arg(utils.staticInvoke(parseMethodName).arg(reader).arg(JExpr.lit(xmlName)).arg(utils.staticInvoke("readValueElement").arg(reader)));
+        block._break();
+        if (missing != null) {
+            elementChecks._if(missing)._then()._throw(utils.staticInvoke("missingRequiredElement").arg(reader).arg(JExpr.lit(xmlName)));
+        }
+    }
+
+    /**
+     * Add a sub-resource wrapper element, whose children are parsed by the builders of the known child resources
+     * and collected into a map field of the builder by name.
+     *
+     * @param xmlName the wrapper element name
+     * @param fieldName the builder map field name
+     * @param valueTypeName the qualified name of the sub-resource map value type
+     * @param knownChildren the known child resources
+     */
+    void addSubResource(final String xmlName, final String fieldName, final String valueTypeName, final ResourceInfo[] knownChildren) {
+        final JDeparser deparser = ctxt.getDeparser();
+        final JClass childBuilderType = deparser.ref(RootNodeBuilder.class).erasure().narrow(deparser.ref(valueTypeName).wildcard());
+        final JClass mapType = deparser.ref(Map.class).narrow(deparser.ref(String.class), childBuilderType);
+        final JFieldVar field = builderClass.field(PRIVATE | FINAL, mapType, fieldName, JExpr._new(deparser.ref(LinkedHashMap.class).narrow(deparser.ref(String.class), childBuilderType)));
+
+        final JMethod parseMethod = builderClass.method(PRIVATE, deparser.VOID, "parse" + NameUtils.classify(xmlName));
+        final JVar reader = parseMethod.param(FINAL, XMLStreamReader.class, "reader");
+        final JVar namespace = parseMethod.param(FINAL, String.class, "namespace");
+        parseMethod._throws(XMLStreamException.class);
+        final JBlock body = parseMethod.body();
+        body._if(reader.invoke("getAttributeCount").gt(JExpr.lit(0)))._then()._throw(utils.staticInvoke("unexpectedAttribute").arg(reader).arg(JExpr.lit(0)));
+        final JSwitch childSwitch = body._while(utils.staticInvoke("nextElement").arg(reader).arg(namespace)).body()._switch(reader.invoke("getLocalName"));
+        for (ResourceInfo knownChild : knownChildren) {
+            final JDefinedClass childBuilderClass = knownChild.getBuilderClass(ctxt, schema);
+            final JBlock block = childSwitch._case(JExpr.lit(knownChild.getXmlName())).body().block();
+            final JVar child = block.decl(FINAL, childBuilderClass, "child", JExpr._new(childBuilderClass));
+            block.add(child.invoke("fromXml").arg(reader));
+            block.add(field.invoke("put").arg(child.invoke("getName")).arg(child));
+            block._break();
+        }
+        // extension resources from other namespaces have no parser registry to dispatch to yet
+        childSwitch._default().body()._throw(utils.staticInvoke("unexpectedElement").arg(reader));
+
+        final JBlock block = elementSwitch._case(JExpr.lit(xmlName)).body();
+        block.invoke(parseMethod).arg(this.reader).arg(this.namespace);
+        block._break();
+    }
+
+    /**
+     * Finish the parser, rejecting any attribute or element which was not added.
+     */
+    void finish() {
+        attributeSwitch._default().body()._throw(unexpectedAttribute());
+        elementSwitch._default().body()._throw(utils.staticInvoke("unexpectedElement").arg(reader));
+    }
+
+    private JExpression unexpectedAttribute() {
+        return utils.staticInvoke("unexpectedAttribute").arg(reader).arg(attributeIndex);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.core.management.processor;
+
+import org.jboss.jdeparser.JBlock;
+import org.jboss.jdeparser.JCatchBlock;
+import org.jboss.jdeparser.JClass;
+import org.jboss.jdeparser.JDefinedClass;
+import org.jboss.jdeparser.JDeparser;
+import org.jboss.jdeparser.JExpr;
+import org.jboss.jdeparser.JExpression;
+import org.jboss.jdeparser.JForEach;
+import org.jboss.jdeparser.JMethod;
+import org.jboss.jdeparser.JTryBlock;
+import org.jboss.jdeparser.JVar;
+import org.wildfly.core.management.annotation.XmlRender;
+import org.wildfly.core.management.xml.XMLWritable;
+import org.wildfly.core.management.xml.XMLWriteException;
+import org.wildfly.core.management.xml.XMLWriteUtils;
+
+import javax.lang.model.element.VariableElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import static org.jboss.jdeparser.JMod.FINAL;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+
+/**
+ * Generates the {@code toXml} method of a resource class.  The generated writer streams the resource element
+ * straight to the target writer; attributes are written first, then child elements, each in declaration order.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class XmlWriterGenerator {
+
+    private final GeneratorContext ctxt;
+    private final JClass utils;
+    private final JVar writer;
+    private final JBlock attributes;
+    private final JBlock elements;
+
+    XmlWriterGenerator(final GeneratorContext ctxt, final SchemaInfo schema, final String xmlName, final JDefinedClass resourceClass, final JExpression preComment, final JExpression postComment) {
+        this.ctxt = ctxt;
+        final JDeparser deparser = ctxt.getDeparser();
+        utils = deparser.ref(XMLWriteUtils.class);
+        resourceClass._implements(XMLWritable.class);
+
+        final JMethod toXmlMethod = resourceClass.method(PUBLIC, deparser.VOID, "toXml");
+        writer = toXmlMethod.param(FINAL, XMLStreamWriter.class, "writer");
+        toXmlMethod._throws(XMLWriteException.class);
+        final JTryBlock tryBlock = toXmlMethod.body()._try();
+        final JBlock body = tryBlock.body();
+        body.add(utils.staticInvoke("writeComment").arg(writer).arg(preComment));
+        body.add(utils.staticInvoke("writeStartElement").arg(writer).arg(JExpr.lit(schema.getXmlNamespace())).arg(JExpr.lit(xmlName)));
+        body.add(utils.staticInvoke("writeAttribute").arg(writer).arg(JExpr.lit("name")).arg(JExpr.invoke("getName")).arg(JExpr._null()));
+        attributes = body.block();
+        elements = body.block();
+        body.add(writer.invoke("writeEndElement"));
+        body.add(utils.staticInvoke("writeComment").arg(writer).arg(postComment));
+
+        final JCatchBlock catchBlock = tryBlock._catch(deparser.ref(XMLStreamException.class));
+        final JVar e = catchBlock.param("e");
+        catchBlock.body()._throw(deparser.ref(XMLWriteException.class).staticInvoke("toWriteException").arg(e));
+    }
+
+    /**
+     * Add a value which is stored as a string in a resource field, written as an attribute or as a simple value
+     * element according to its {@code @XmlRender}.
+     *
+     * @param attributeInfo the attribute
+     * @param fieldName the resource field name
+     * @param defaultVal the default value, or {@code null} if there is none
+     */
+    void addSimpleValue(final AttributeInfo attributeInfo, final String fieldName, final VariableElement defaultVal) {
+        final JExpression defaultExpr = defaultVal == null ? JExpr._null() : JExpr.lit(defaultVal.getConstantValue().toString());
+        final JExpression value = JExpr._this().ref(fieldName);
+        final JExpression xmlName = JExpr.lit(attributeInfo.getXmlName());
+        if (attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE) {
+            attributes.add(utils.staticInvoke("writeAttribute").arg(writer).arg(xmlName).arg(value).arg(defaultExpr));
+        } else {
+            elements.add(utils.staticInvoke("writeValueElement").arg(writer).arg(xmlName).arg(value).arg(defaultExpr));
+        }
+    }
+
+    /**
+     * Add a primitive value, which is read unboxed through its getter and written as an attribute or as a simple
+     * value element according to its {@code @XmlRender}.
+     *
+     * @param attributeInfo the attribute
+     * @param getterName the resource getter name
+     * @param defined an expression which is {@code true} if the value is defined, or {@code null} if it always is
+     * @param defaultVal the default value, or {@code null} if there is none
+     */
+    void addPrimitiveValue(final AttributeInfo attributeInfo, final String getterName, final JExpression defined, final VariableElement defaultVal) {
+        addValue(attributeInfo, ctxt.getDeparser().ref(String.class).staticInvoke("valueOf").arg(JExpr.invoke(getterName)), defined, defaultVal);
+    }
+
+    /**
+     * Add an expression value, which is written as its template as an attribute or as a simple value element
+     * according to its {@code @XmlRender}.
+     *
+     * @param attributeInfo the attribute
+     * @param fieldName the resource field name of the compiled expression
+     * @param defaultVal the default template, or {@code null} if there is none
+     */
+    void addExpressionValue(final AttributeInfo attributeInfo, final String fieldName, final VariableElement defaultVal) {
+        final JExpression field = JExpr._this().ref(fieldName);
+        addValue(attributeInfo, field.invoke("getTemplate"), field.ne(JExpr._null()), defaultVal);
+    }
+
+    private void addValue(final AttributeInfo attributeInfo, final JExpression value, final JExpression defined, final VariableElement defaultVal) {
+        final JExpression defaultExpr = defaultVal == null ? JExpr._null() : JExpr.lit(defaultVal.getConstantValue().toString());
+        final JExpression xmlName = JExpr.lit(attributeInfo.getXmlName());
+        JBlock block = attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE ? attributes : elements;
+        if (defined != null) {
+            block = block._if(defined)._then();
+        }
+        if (attributeInfo.getRenderAs() == XmlRender.As.ATTRIBUTE) {
+            block.add(utils.staticInvoke("writeAttribute").arg(writer).arg(xmlName).arg(value).arg(defaultExpr));
+        } else {
+            block.add(utils.staticInvoke("writeValueElement").arg(writer).arg(xmlName).arg(value).arg(defaultExpr));
+        }
+    }
+
+    /**
+     * Add a sub-resource wrapper element, containing each member of the sub-resource map.
+     *
+     * @param xmlName the wrapper element name
+     * @param getterName the name of the map getter of the resource interface
+     */
+    void addSubResource(final String xmlName, final String getterName) {
+        final JBlock block = elements.block();
+        block.add(writer.invoke("writeStartElement").arg(JExpr.lit(xmlName)));
+        final JForEach forEach = block.forEach(ctxt.getDeparser().ref(Object.class), "child", JExpr.invoke(getterName).invoke("values"));
+        forEach.body().add(utils.staticInvoke("writeChild").arg(writer).arg(forEach.var()));
+        block.add(writer.invoke("writeEndElement"));
+    }
+}